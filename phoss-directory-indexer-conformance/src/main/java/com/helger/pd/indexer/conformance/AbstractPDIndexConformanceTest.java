@@ -17,10 +17,12 @@
 package com.helger.pd.indexer.conformance;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
 
@@ -31,9 +33,14 @@ import org.junit.Test;
 
 import com.helger.base.io.stream.StreamHelper;
 import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.CommonsLinkedHashMap;
 import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsOrderedMap;
+import com.helger.pd.indexer.mgr.PDMetaManager;
 import com.helger.pd.indexer.searchindex.IPDIndex;
 import com.helger.pd.indexer.searchindex.PDIndexDocument;
+import com.helger.pd.indexer.searchindex.PDIndexSearchResult;
 import com.helger.pd.indexer.searchindex.query.EPDIndexQueryOccur;
 import com.helger.pd.indexer.searchindex.query.IPDIndexQuery;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryBool;
@@ -41,6 +48,7 @@ import com.helger.pd.indexer.searchindex.query.PDIndexQueryContains;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryMatchAll;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryTerm;
 import com.helger.pd.indexer.storage.CPDStorage;
+import com.helger.pd.indexer.storage.PDNGramShadowFields;
 import com.helger.pd.indexer.storage.PDStoredBusinessEntity;
 import com.helger.pd.indexer.storage.field.PDField;
 import com.helger.peppolid.IParticipantIdentifier;
@@ -205,6 +213,32 @@ public abstract class AbstractPDIndexConformanceTest
       assertNull (aDoc.getFieldOfName (CPDStorage.FIELD_ALL_FIELDS));
   }
 
+  @Test
+  public void testNGramShadowFieldsMatchContainsQuery () throws IOException
+  {
+    final ICommonsList <PDIndexDocument> aDocs = PDConformanceTestData.createMockIndexDocuments (m_aParticipantID);
+    for (final PDIndexDocument aDoc : aDocs)
+      PDNGramShadowFields.addShadowFields (m_aIndex, aDoc);
+    m_aIndex.updateDocuments (null, aDocs);
+
+    // The prefix lookup on the shadow field must find the same documents as the wildcard query
+    for (final String sValue : new String [] { "ompan", "gmbh", "mbh", "ltd", "te", "xyz" })
+    {
+      final IPDIndexQuery aShadowQuery = PDNGramShadowFields.getShadowFieldQuery (PDField.ML_NAME.getFieldName (),
+                                                                                  sValue);
+      assertNotNull (aShadowQuery);
+      assertEquals (sValue,
+                    m_aIndex.getCount (new PDIndexQueryContains (PDField.ML_NAME.getFieldName (), sValue)),
+                    m_aIndex.getCount (aShadowQuery));
+    }
+    assertEquals (2, m_aIndex.getCount (PDNGramShadowFields.getShadowFieldQuery (PDField.ML_NAME.getFieldName (), "ompan")));
+    assertEquals (1, m_aIndex.getCount (PDNGramShadowFields.getShadowFieldQuery (PDField.ML_NAME.getFieldName (), "mbh")));
+
+    // The shadow fields are not stored
+    for (final PDIndexDocument aDoc : _searchAll (PDIndexQueryMatchAll.INSTANCE, -1))
+      assertNull (aDoc.getFieldOfName (PDNGramShadowFields.getShadowFieldName (PDField.ML_NAME.getFieldName ())));
+  }
+
   @Test
   public void testMaxResultCount () throws IOException
   {
@@ -219,6 +253,165 @@ public abstract class AbstractPDIndexConformanceTest
     assertEquals (2, _searchAll (PDIndexQueryMatchAll.INSTANCE, 0).size ());
   }
 
+  @Test
+  public void testSearchWindowAndTotalHitCount () throws IOException
+  {
+    PDIndexSearchResult <PDIndexDocument> aResult = m_aIndex.search (PDIndexQueryMatchAll.INSTANCE, 0, 10);
+    assertEquals (0, aResult.getHitCount ());
+    assertEquals (0, aResult.getTotalHitCount ());
+
+    addMockDocuments ();
+
+    // Window larger than the result
+    aResult = m_aIndex.search (PDIndexQueryMatchAll.INSTANCE, 0, 10);
+    assertEquals (2, aResult.getHitCount ());
+    assertEquals (2, aResult.getTotalHitCount ());
+
+    // The total hit count is independent of the window
+    final PDIndexSearchResult <PDIndexDocument> aFirst = m_aIndex.search (PDIndexQueryMatchAll.INSTANCE, 0, 1);
+    assertEquals (1, aFirst.getHitCount ());
+    assertEquals (2, aFirst.getTotalHitCount ());
+    final PDIndexSearchResult <PDIndexDocument> aSecond = m_aIndex.search (PDIndexQueryMatchAll.INSTANCE, 1, 1);
+    assertEquals (1, aSecond.getHitCount ());
+    assertEquals (2, aSecond.getTotalHitCount ());
+
+    // Both pages contain different documents
+    assertEquals (2,
+                  new CommonsHashSet <> (PDField.ML_LANGUAGE.getDocValue (aFirst.getAllHits ().getFirstOrNull ()),
+                                         PDField.ML_LANGUAGE.getDocValue (aSecond.getAllHits ().getFirstOrNull ())).size ());
+
+    // Offset behind the last hit
+    aResult = m_aIndex.search (PDIndexQueryMatchAll.INSTANCE, 2, 10);
+    assertEquals (0, aResult.getHitCount ());
+    assertEquals (2, aResult.getTotalHitCount ());
+
+    // The largest allowed window
+    aResult = m_aIndex.search (PDIndexQueryMatchAll.INSTANCE, IPDIndex.MAX_SEARCH_WINDOW - 1, 1);
+    assertEquals (0, aResult.getHitCount ());
+
+    // Too large windows, including an overflow of offset plus limit
+    for (final int [] aWindow : new int [] [] { { IPDIndex.MAX_SEARCH_WINDOW, 1 },
+                                                { 0, IPDIndex.MAX_SEARCH_WINDOW + 1 },
+                                                { Integer.MAX_VALUE, Integer.MAX_VALUE } })
+      try
+      {
+        m_aIndex.search (PDIndexQueryMatchAll.INSTANCE, aWindow[0], aWindow[1]);
+        fail ();
+      }
+      catch (final IllegalArgumentException ex)
+      {
+        // expected
+      }
+  }
+
+  @Test
+  public void testSearchAfterCursor () throws IOException
+  {
+    PDIndexSearchResult <PDIndexDocument> aResult = m_aIndex.searchAfter (PDIndexQueryMatchAll.INSTANCE, null, 10);
+    assertEquals (0, aResult.getHitCount ());
+    assertEquals (0, aResult.getTotalHitCount ());
+    assertFalse (aResult.hasNextCursor ());
+
+    addMockDocuments ();
+
+    // Window larger than the result
+    aResult = m_aIndex.searchAfter (PDIndexQueryMatchAll.INSTANCE, null, 10);
+    assertEquals (2, aResult.getHitCount ());
+    assertEquals (2, aResult.getTotalHitCount ());
+    assertFalse (aResult.hasNextCursor ());
+
+    // Follow the cursor chain
+    final PDIndexSearchResult <PDIndexDocument> aFirst = m_aIndex.searchAfter (PDIndexQueryMatchAll.INSTANCE, null, 1);
+    assertEquals (1, aFirst.getHitCount ());
+    assertEquals (2, aFirst.getTotalHitCount ());
+    assertTrue (aFirst.hasNextCursor ());
+    final PDIndexSearchResult <PDIndexDocument> aSecond = m_aIndex.searchAfter (PDIndexQueryMatchAll.INSTANCE,
+                                                                                aFirst.getNextCursor (),
+                                                                                1);
+    assertEquals (1, aSecond.getHitCount ());
+    assertEquals (2, aSecond.getTotalHitCount ());
+    assertFalse (aSecond.hasNextCursor ());
+
+    // Both pages contain different documents
+    assertEquals (2,
+                  new CommonsHashSet <> (PDField.ML_LANGUAGE.getDocValue (aFirst.getAllHits ().getFirstOrNull ()),
+                                         PDField.ML_LANGUAGE.getDocValue (aSecond.getAllHits ().getFirstOrNull ())).size ());
+
+    // Invalid cursor
+    try
+    {
+      m_aIndex.searchAfter (PDIndexQueryMatchAll.INSTANCE, "not a cursor", 1);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testSearchAllWithFieldsToLoad () throws IOException
+  {
+    addMockDocuments ();
+
+    // Top documents and all documents must both honour the projection
+    for (final int nMaxResultCount : new int [] { 1, -1 })
+    {
+      final ICommonsList <PDIndexDocument> aDocs = new CommonsArrayList <> ();
+      m_aIndex.searchAll (PDIndexQueryMatchAll.INSTANCE,
+                          nMaxResultCount,
+                          PDField.getAllFieldNames (PDField.PARTICIPANT_ID, PDField.METADATA_CREATIONDT),
+                          aDocs::add);
+      assertEquals (nMaxResultCount > 0 ? 1 : 2, aDocs.size ());
+
+      for (final PDIndexDocument aDoc : aDocs)
+      {
+        // Requested String and numeric fields are contained
+        assertEquals (m_aParticipantID, PDField.PARTICIPANT_ID.getDocValue (aDoc));
+        assertNotNull (PDField.METADATA_CREATIONDT.getDocValue (aDoc));
+
+        // Other stored fields are not contained
+        assertNull (aDoc.getFieldOfName (PDField.COUNTRY_CODE.getFieldName ()));
+        assertNull (aDoc.getFieldOfName (PDField.ML_NAME.getFieldName ()));
+        assertEquals (2, aDoc.fields ().size ());
+      }
+    }
+  }
+
+  @Test
+  public void testForEachDistinctParticipantID () throws IOException
+  {
+    final ICommonsOrderedMap <String, Integer> aMap = new CommonsLinkedHashMap <> ();
+    m_aIndex.forEachDistinctParticipantID ( (sPID, nCount) -> aMap.put (sPID, Integer.valueOf (nCount)));
+    assertTrue (aMap.isEmpty ());
+
+    // 2 documents of the default participant, 1 document of another participant that sorts before
+    addMockDocuments ();
+    final IParticipantIdentifier aOtherPID = PDMetaManager.getIdentifierFactory ()
+                                                          .createParticipantIdentifier (m_aParticipantID.getScheme (),
+                                                                                        "9914:another");
+    m_aIndex.updateDocuments (null,
+                              new CommonsArrayList <> (PDConformanceTestData.createMockIndexDocument (aOtherPID,
+                                                                                                      "Another Company",
+                                                                                                      "en")));
+
+    m_aIndex.forEachDistinctParticipantID ( (sPID, nCount) -> aMap.put (sPID, Integer.valueOf (nCount)));
+    assertEquals (2, aMap.size ());
+    // Sorted and counted
+    assertEquals (new CommonsArrayList <> (PDField.PARTICIPANT_ID.getAsStorageValue (aOtherPID),
+                                           PDField.PARTICIPANT_ID.getAsStorageValue (m_aParticipantID)),
+                  new CommonsArrayList <> (aMap.keySet ()));
+    assertEquals (1, aMap.get (PDField.PARTICIPANT_ID.getAsStorageValue (aOtherPID)).intValue ());
+    assertEquals (2, aMap.get (PDField.PARTICIPANT_ID.getAsStorageValue (m_aParticipantID)).intValue ());
+
+    // Deleted documents are not contained
+    aMap.clear ();
+    m_aIndex.deleteDocuments (PDField.PARTICIPANT_ID.getExactMatchQuery (aOtherPID));
+    m_aIndex.forEachDistinctParticipantID ( (sPID, nCount) -> aMap.put (sPID, Integer.valueOf (nCount)));
+    assertEquals (1, aMap.size ());
+    assertEquals (2, aMap.get (PDField.PARTICIPANT_ID.getAsStorageValue (m_aParticipantID)).intValue ());
+  }
+
   @Test
   public void testUpdateDocumentsDeletesTheOldOnes () throws IOException
   {
@@ -377,6 +570,26 @@ public abstract class AbstractPDIndexConformanceTest
     assertSame (aNativeInnerQuery, aInnerQuery.getNativeQuery ());
   }
 
+  @Test
+  public void testSearchGenerationIncreasesOnChanges () throws IOException
+  {
+    final long nGeneration0 = m_aIndex.getSearchGeneration ();
+    // Not supported by every implementation
+    if (nGeneration0 >= 0)
+    {
+      // Searching doesn't change the generation
+      assertEquals (0, m_aIndex.getCount (PDIndexQueryMatchAll.INSTANCE));
+      assertEquals (nGeneration0, m_aIndex.getSearchGeneration ());
+
+      addMockDocuments ();
+      final long nGeneration1 = m_aIndex.getSearchGeneration ();
+      assertTrue (nGeneration1 > nGeneration0);
+
+      m_aIndex.deleteDocuments (PDField.ML_LANGUAGE.getExactMatchQuery ("de"));
+      assertTrue (m_aIndex.getSearchGeneration () > nGeneration1);
+    }
+  }
+
   @Test
   public void testGetIndexInformation () throws IOException
   {
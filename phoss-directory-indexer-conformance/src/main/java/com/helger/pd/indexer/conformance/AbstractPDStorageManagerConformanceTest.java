@@ -35,7 +35,9 @@ import com.helger.base.state.ESuccess;
 import com.helger.collection.commons.ICommonsList;
 import com.helger.datetime.helper.PDTFactory;
 import com.helger.pd.indexer.searchindex.IPDIndex;
+import com.helger.pd.indexer.searchindex.query.IPDIndexQuery;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryMatchAll;
+import com.helger.pd.indexer.storage.PDQueryResultCache;
 import com.helger.pd.indexer.storage.PDStorageManager;
 import com.helger.pd.indexer.storage.PDStoredBusinessEntity;
 import com.helger.pd.indexer.storage.PDStoredMetaData;
@@ -215,6 +217,37 @@ public abstract class AbstractPDStorageManagerConformanceTest
     assertEquals (2, m_aStorageMgr.getAllDocumentsOfParticipant (m_aParticipantID).size ());
   }
 
+  @Test
+  public void testResultCacheNeverHidesChanges () throws IOException
+  {
+    final IPDIndexQuery aQuery = PDField.COUNTRY_CODE.getExactMatchQuery ("NO");
+    assertEquals (0, m_aStorageMgr.getCount (aQuery));
+    assertTrue (m_aStorageMgr.getAllDocuments (aQuery, -1).isEmpty ());
+
+    final PDStoredMetaData aMetaData = PDConformanceTestData.createMockMetaData ();
+    m_aStorageMgr.createOrUpdateEntry (m_aParticipantID,
+                                       PDConformanceTestData.createMockBusinessCard (m_aParticipantID),
+                                       aMetaData);
+    assertEquals (1, m_aStorageMgr.getCount (aQuery));
+    assertEquals (1, m_aStorageMgr.getAllDocuments (aQuery, -1).size ());
+    assertEquals (1, m_aStorageMgr.searchDocuments (aQuery, 0, 10).getTotalHitCount ());
+
+    // Repeating the same searches must return the same results
+    final PDQueryResultCache aCache = m_aStorageMgr.getResultCache ();
+    final long nHits = aCache.getHitCount ();
+    assertEquals (1, m_aStorageMgr.getCount (aQuery));
+    assertEquals (1, m_aStorageMgr.getAllDocuments (aQuery, -1).size ());
+    assertEquals (1, m_aStorageMgr.searchDocuments (aQuery, 0, 10).getTotalHitCount ());
+    if (aCache.isEnabled () && aCache.getGeneration () >= 0)
+      assertEquals (nHits + 3, aCache.getHitCount ());
+
+    // ... until the index changes
+    assertEquals (2, m_aStorageMgr.deleteEntry (m_aParticipantID, aMetaData, false));
+    assertEquals (0, m_aStorageMgr.getCount (aQuery));
+    assertTrue (m_aStorageMgr.getAllDocuments (aQuery, -1).isEmpty ());
+    assertEquals (0, m_aStorageMgr.searchDocuments (aQuery, 0, 10).getTotalHitCount ());
+  }
+
   @Test
   public void testDeleteEntryWithOwnerVerification () throws IOException
   {
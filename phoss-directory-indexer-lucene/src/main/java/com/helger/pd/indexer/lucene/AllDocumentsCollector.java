@@ -17,47 +17,68 @@
 package com.helger.pd.indexer.lucene;
 
 import java.io.IOException;
+import java.util.Set;
 import java.util.function.ObjIntConsumer;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DocumentStoredFieldVisitor;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.SimpleCollector;
 import org.jspecify.annotations.NonNull;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import com.helger.base.enforce.ValueEnforcer;
 import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.ICommonsSet;
+
+import jakarta.annotation.Nullable;
 
 /**
- * A Lucene {@link Collector} that always collects all {@link Document} objects.
+ * A Lucene {@link Collector} that always collects all {@link Document} objects. The stored fields
+ * are loaded directly from the leaf reader of the current segment, using a stored field visitor
+ * that optionally only loads the requested fields.
  *
  * @author Philip Helger
  */
 public class AllDocumentsCollector extends SimpleCollector
 {
-  private static final Logger LOGGER = LoggerFactory.getLogger (AllDocumentsCollector.class);
-
-  private final ILuceneDocumentProvider m_aDocumentProvider;
+  private final ICommonsSet <String> m_aFieldsToLoad;
   private final ObjIntConsumer <Document> m_aConsumer;
+  private LeafReader m_aLeafReader;
   private int m_nDocBase = 0;
 
+  /**
+   * Constructor that loads all stored fields of each document.
+   *
+   * @param aConsumer
+   *        The consumer that will take the Lucene {@link Document} objects. May not be
+   *        <code>null</code>.
+   */
+  public AllDocumentsCollector (@NonNull final ObjIntConsumer <Document> aConsumer)
+  {
+    this (null, aConsumer);
+  }
+
   /**
    * Constructor
    *
-   * @param aDocumentProvider
-   *        The overall Document provider. May not be <code>null</code>.
+   * @param aFieldsToLoad
+   *        The names of the stored fields to be loaded. May be <code>null</code> to load all stored
+   *        fields. Fields not contained in this set are skipped without decoding them.
    * @param aConsumer
-   *        The consumer that will take the Lucene {@link Document} objects. May
-   *        not be <code>null</code>.
+   *        The consumer that will take the Lucene {@link Document} objects. May not be
+   *        <code>null</code>.
+   * @since 0.16.1
    */
-  public AllDocumentsCollector (@NonNull final ILuceneDocumentProvider aDocumentProvider,
+  public AllDocumentsCollector (@Nullable final Set <String> aFieldsToLoad,
                                 @NonNull final ObjIntConsumer <Document> aConsumer)
   {
-    m_aDocumentProvider = ValueEnforcer.notNull (aDocumentProvider, "DocumentProvider");
-    m_aConsumer = ValueEnforcer.notNull (aConsumer, "Consumer");
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+    m_aFieldsToLoad = aFieldsToLoad == null ? null : new CommonsHashSet <> (aFieldsToLoad);
+    m_aConsumer = aConsumer;
   }
 
   public boolean needsScores ()
@@ -68,6 +89,8 @@ public class AllDocumentsCollector extends SimpleCollector
   @Override
   protected void doSetNextReader (@NonNull final LeafReaderContext aCtx)
   {
+    // Read the documents from the current segment only
+    m_aLeafReader = aCtx.reader ();
     // Important to remember the current document base
     m_nDocBase = aCtx.docBase;
   }
@@ -75,22 +98,14 @@ public class AllDocumentsCollector extends SimpleCollector
   @Override
   public void collect (final int nDocID) throws IOException
   {
-    final int nAbsoluteDocID = m_nDocBase + nDocID;
-    // Resolve document
-    final Document aDoc = m_aDocumentProvider.getDocument (nAbsoluteDocID);
-    if (aDoc == null)
-    {
-      // This may happen, if a document was deleted between searching and
-      // details retrieval
-      LOGGER.warn ("Failed to resolve Lucene Document with ID " +
-                   nAbsoluteDocID +
-                   " - eventually it was deleted in the meantime?");
-    }
-    else
-    {
-      // Pass to Consumer
-      m_aConsumer.accept (aDoc, nAbsoluteDocID);
-    }
+    // The visitor creates a new Document for each call
+    final DocumentStoredFieldVisitor aVisitor = m_aFieldsToLoad == null ? new DocumentStoredFieldVisitor ()
+                                                                         : new DocumentStoredFieldVisitor (m_aFieldsToLoad);
+    // The document ID is relative to the leaf reader
+    m_aLeafReader.document (nDocID, aVisitor);
+
+    // Pass to Consumer with the absolute document ID
+    m_aConsumer.accept (aVisitor.getDocument (), m_nDocBase + nDocID);
   }
 
   // Lucene 8
@@ -103,6 +118,8 @@ public class AllDocumentsCollector extends SimpleCollector
   @Override
   public String toString ()
   {
-    return new ToStringGenerator (this).append ("Consumer", m_aConsumer).getToString ();
+    return new ToStringGenerator (this).append ("FieldsToLoad", m_aFieldsToLoad)
+                                       .append ("Consumer", m_aConsumer)
+                                       .getToString ();
   }
 }
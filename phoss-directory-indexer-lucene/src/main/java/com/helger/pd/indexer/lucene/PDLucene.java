@@ -21,30 +21,29 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.core.SimpleAnalyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
-import org.apache.lucene.document.Document;
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexNotFoundException;
-import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.jspecify.annotations.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.helger.annotation.Nonnegative;
 import com.helger.base.enforce.ValueEnforcer;
 import com.helger.base.io.stream.StreamHelper;
 import com.helger.photon.io.WebFileIO;
@@ -52,11 +51,18 @@ import com.helger.photon.io.WebFileIO;
 import jakarta.annotation.Nullable;
 
 /**
- * The singleton wrapper around the Lucene index to be used in Peppol Directory.
+ * The singleton wrapper around the Lucene index to be used in Peppol Directory.<br>
+ * All searches are performed on near-real-time (NRT) searchers that are opened from the
+ * {@link IndexWriter} and managed by a {@link SearcherManager}. A background thread reopens the
+ * searcher at the latest after the configured maximum staleness. All write operations wait until
+ * their changes are visible to searches, so that the search path never needs to refresh or commit
+ * anything.<br>
+ * Durability is decoupled from searching - pending changes are committed by the
+ * {@link PDLuceneCommitScheduler} and when the index is closed.
  *
  * @author Philip Helger
  */
-public final class PDLucene implements Closeable, ILuceneDocumentProvider, ILuceneAnalyzerProvider
+public final class PDLucene implements Closeable, ILuceneAnalyzerProvider
 {
   private static final Logger LOGGER = LoggerFactory.getLogger (PDLucene.class);
 
@@ -64,11 +70,12 @@ public final class PDLucene implements Closeable, ILuceneDocumentProvider, ILuce
   private final Analyzer m_aAnalyzer;
   // IndexWriter is thread-safe
   private final IndexWriter m_aIndexWriter;
-  private DirectoryReader m_aDirectoryReader;
-  private IndexReader m_aSearchReader;
-  private IndexSearcher m_aSearcher;
+  // SearcherManager is thread-safe
+  private final SearcherManager m_aSearcherMgr;
+  private final ControlledRealTimeReopenThread <IndexSearcher> m_aReopenThread;
+  private final int m_nSearcherMaxStaleMS;
+  private final PDLuceneCommitScheduler m_aCommitScheduler;
   private final AtomicBoolean m_aClosing = new AtomicBoolean (false);
-  private final AtomicInteger m_aWriterChanges = new AtomicInteger (0);
 
   @NonNull
   public static File getLuceneIndexDir ()
@@ -99,7 +106,8 @@ public final class PDLucene implements Closeable, ILuceneDocumentProvider, ILuce
   }
 
   /**
-   * Constructor with a custom analyzer provider.
+   * Constructor with a custom analyzer provider. The searcher staleness and the commit policy are
+   * taken from {@link PDLuceneConfiguration}.
    *
    * @param aAnalyzerProvider
    *        The analyzer provider. May not be <code>null</code>.
@@ -107,8 +115,43 @@ public final class PDLucene implements Closeable, ILuceneDocumentProvider, ILuce
    *         On IO error
    */
   public PDLucene (@NonNull final Supplier <? extends Analyzer> aAnalyzerProvider) throws IOException
+  {
+    this (aAnalyzerProvider,
+          PDLuceneConfiguration.getSearcherMaxStaleMS (),
+          PDLuceneConfiguration.getSearcherMinStaleMS (),
+          PDLuceneConfiguration.getCommitMaxChanges (),
+          PDLuceneConfiguration.getCommitIntervalSeconds ());
+  }
+
+  /**
+   * Constructor with all parameters.
+   *
+   * @param aAnalyzerProvider
+   *        The analyzer provider. May not be <code>null</code>.
+   * @param nSearcherMaxStaleMS
+   *        The maximum number of milliseconds after which changes are visible to searches. Must be
+   *        &gt; 0.
+   * @param nSearcherMinStaleMS
+   *        The minimum number of milliseconds between two searcher reopens. Must be &gt; 0 and
+   *        &le; the maximum staleness.
+   * @param nCommitMaxChanges
+   *        The number of changes after which a durability commit is triggered. Must be &gt; 0.
+   * @param nCommitIntervalSeconds
+   *        The maximum number of seconds between two durability commits. Must be &gt; 0.
+   * @throws IOException
+   *         On IO error
+   */
+  public PDLucene (@NonNull final Supplier <? extends Analyzer> aAnalyzerProvider,
+                   @Nonnegative final int nSearcherMaxStaleMS,
+                   @Nonnegative final int nSearcherMinStaleMS,
+                   @Nonnegative final int nCommitMaxChanges,
+                   @Nonnegative final int nCommitIntervalSeconds) throws IOException
   {
     ValueEnforcer.notNull (aAnalyzerProvider, "AnalyzerProvider");
+    ValueEnforcer.isGT0 (nSearcherMaxStaleMS, "SearcherMaxStaleMS");
+    ValueEnforcer.isBetweenInclusive (nSearcherMinStaleMS, "SearcherMinStaleMS", 1, nSearcherMaxStaleMS);
+    ValueEnforcer.isGT0 (nCommitMaxChanges, "CommitMaxChanges");
+    ValueEnforcer.isGT0 (nCommitIntervalSeconds, "CommitIntervalSeconds");
 
     // Where to store the index files
     final Path aPath = getLuceneIndexDir ().toPath ();
@@ -122,9 +165,31 @@ public final class PDLucene implements Closeable, ILuceneDocumentProvider, ILuce
     aWriterConfig.setOpenMode (OpenMode.CREATE_OR_APPEND);
     m_aIndexWriter = new IndexWriter (m_aDir, aWriterConfig);
 
-    // Reader and searcher are opened on demand
-
-    LOGGER.info ("Lucene index operating on " + aPath);
+    // NRT searchers are opened from the writer - uncommitted changes are visible as well
+    m_aSearcherMgr = new SearcherManager (m_aIndexWriter, null);
+
+    // Reopen the searcher in the background
+    m_nSearcherMaxStaleMS = nSearcherMaxStaleMS;
+    m_aReopenThread = new ControlledRealTimeReopenThread <> (m_aIndexWriter,
+                                                             m_aSearcherMgr,
+                                                             nSearcherMaxStaleMS / 1000d,
+                                                             nSearcherMinStaleMS / 1000d);
+    m_aReopenThread.setName ("pd-lucene-nrt-reopen");
+    m_aReopenThread.setDaemon (true);
+    m_aReopenThread.start ();
+
+    // Commit pending changes in the background
+    m_aCommitScheduler = new PDLuceneCommitScheduler (m_aIndexWriter, nCommitMaxChanges, nCommitIntervalSeconds);
+
+    LOGGER.info ("Lucene index operating on " +
+                 aPath +
+                 " with a maximum searcher staleness of " +
+                 nSearcherMaxStaleMS +
+                 "ms, committing every " +
+                 nCommitMaxChanges +
+                 " changes or " +
+                 nCommitIntervalSeconds +
+                 " seconds");
   }
 
   public void close () throws IOException
@@ -133,16 +198,11 @@ public final class PDLucene implements Closeable, ILuceneDocumentProvider, ILuce
     if (!m_aClosing.getAndSet (true))
     {
       // Start closing
-      StreamHelper.close (m_aDirectoryReader);
-
-      // Ensure to commit the writer in case of pending changes
-      if (m_aIndexWriter != null && m_aIndexWriter.isOpen ())
-      {
-        final long nSeqNum = m_aIndexWriter.commit ();
-        if (nSeqNum >= 0)
-          if (LOGGER.isDebugEnabled ())
-            LOGGER.debug ("Committed up to seq# " + nSeqNum);
-      }
+      StreamHelper.close (m_aReopenThread);
+      StreamHelper.close (m_aSearcherMgr);
+
+      // Stops the commit thread and commits the writer in case of pending changes
+      m_aCommitScheduler.close ();
       StreamHelper.close (m_aIndexWriter);
       StreamHelper.close (m_aDir);
       StreamHelper.close (m_aAnalyzer);
@@ -180,113 +240,119 @@ public final class PDLucene implements Closeable, ILuceneDocumentProvider, ILuce
     return m_aIndexWriter;
   }
 
-  @Nullable
-  public DirectoryReader getDirectoryReader () throws IOException
+  /**
+   * @return The maximum number of milliseconds after which a change is visible to searches.
+   */
+  @Nonnegative
+  public int getSearcherMaxStaleMS ()
   {
-    _checkClosing ();
+    return m_nSearcherMaxStaleMS;
+  }
 
-    try
-    {
-      // Commit the writer changes only if a reader is requested
-      if (m_aWriterChanges.intValue () > 0)
-      {
-        LOGGER.info ("Lazily committing " + m_aWriterChanges.intValue () + " changes to the Lucene index");
-        final long nSeqNum = _getWriter ().commit ();
-        if (LOGGER.isDebugEnabled ())
-          LOGGER.debug ("Committed up to seq# " + nSeqNum);
-        m_aWriterChanges.set (0);
-      }
-
-      // Is a new reader required because the index changed?
-      final DirectoryReader aNewReader = m_aDirectoryReader != null ? DirectoryReader.openIfChanged (m_aDirectoryReader)
-                                                                    : DirectoryReader.open (m_aDir);
-      if (aNewReader != null)
-      {
-        // Something changed in the index
-        m_aDirectoryReader = aNewReader;
-        m_aSearcher = null;
-
-        if (LOGGER.isDebugEnabled ())
-        {
-          LOGGER.debug ("Contents of index changed. Creating new index reader");
-          LOGGER.debug ("Using DirectoryReader " + aNewReader.toString ());
-        }
-      }
-      return m_aDirectoryReader;
-    }
-    catch (final IndexNotFoundException ex)
-    {
-      // No such index
-      if (LOGGER.isDebugEnabled ())
-        LOGGER.debug ("No such index", ex);
-      return null;
-    }
+  /**
+   * @return The commit scheduler responsible for making changes durable. Never <code>null</code>.
+   */
+  @NonNull
+  public PDLuceneCommitScheduler getCommitScheduler ()
+  {
+    return m_aCommitScheduler;
+  }
+
+  /**
+   * @return The number of changes that were not yet committed. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getPendingChangeCount ()
+  {
+    return m_aCommitScheduler.getPendingChangeCount ();
   }
 
   /**
-   * Get the Lucene {@link Document} matching the specified ID
+   * Commit all pending changes of the index writer to disk, if there are any. Usually this is done
+   * by the {@link PDLuceneCommitScheduler} - searches never commit.
    *
-   * @param nDocID
-   *        Document ID
-   * @return <code>null</code> if no reader could be obtained or no such document exists.
    * @throws IOException
    *         On IO error
    */
-  @Nullable
-  public Document getDocument (final int nDocID) throws IOException
+  public void commitIfNecessary () throws IOException
   {
     _checkClosing ();
 
-    if (LOGGER.isDebugEnabled ())
-      LOGGER.debug ("getDocument(" + nDocID + ")");
+    m_aCommitScheduler.commitIfNecessary ();
+  }
 
-    final DirectoryReader aReader = getDirectoryReader ();
-    if (aReader == null)
-      return null;
+  /**
+   * Acquire the current NRT searcher. Each acquired searcher MUST be released via
+   * {@link #releaseSearcher(IndexSearcher)} after usage, ideally in a <code>finally</code> block.
+   * All document IDs are only valid in the scope of the searcher they were retrieved from.
+   *
+   * @return The searcher to be used. Never <code>null</code>.
+   * @throws IOException
+   *         On IO error
+   */
+  @NonNull
+  public IndexSearcher acquireSearcher () throws IOException
+  {
+    _checkClosing ();
 
-    try
-    {
-      return aReader.document (nDocID);
-    }
-    catch (final IllegalArgumentException ex)
-    {
-      // Happens in the wild
-      LOGGER.error ("Failed to retrieve document with ID " + nDocID + ": " + ex.getMessage ());
-      return null;
-    }
+    return m_aSearcherMgr.acquire ();
   }
 
   /**
-   * Get a searcher on this index.
+   * Release a searcher previously acquired via {@link #acquireSearcher()}.
    *
-   * @return <code>null</code> if no reader or no searcher could be obtained
+   * @param aSearcher
+   *        The searcher to be released. May be <code>null</code> in which case nothing happens.
    * @throws IOException
    *         On IO error
    */
-  @Nullable
-  public IndexSearcher getSearcher () throws IOException
+  public void releaseSearcher (@Nullable final IndexSearcher aSearcher) throws IOException
   {
-    _checkClosing ();
+    if (aSearcher != null)
+      m_aSearcherMgr.release (aSearcher);
+  }
 
-    final DirectoryReader aReader = getDirectoryReader ();
-    if (aReader == null)
+  /**
+   * Get the version of the index reader of the current NRT searcher. A new version is only created
+   * if a searcher with new changes is opened, so it identifies the data visible to searches.
+   *
+   * @return The version of the current searcher. Always &ge; 0.
+   * @throws IOException
+   *         On IO error
+   */
+  public long getSearcherVersion () throws IOException
+  {
+    final IndexSearcher aSearcher = acquireSearcher ();
+    try
+    {
+      // The searchers are opened from the writer, so the reader is always a DirectoryReader
+      return ((DirectoryReader) aSearcher.getIndexReader ()).getVersion ();
+    }
+    finally
     {
-      // Index not readable
-      LOGGER.warn ("Index not readable");
-      return null;
+      releaseSearcher (aSearcher);
     }
+  }
 
-    if (m_aSearchReader == aReader)
+  /**
+   * Remember the change and wait until it is visible to searches. The waiting time is at most the
+   * configured maximum searcher staleness.
+   *
+   * @param nSeqNum
+   *        The sequence number returned by the index writer operation.
+   */
+  private void _onWriterChange (final long nSeqNum)
+  {
+    m_aCommitScheduler.onChange ();
+    try
     {
-      // Reader did not change - use cached searcher
+      if (!m_aReopenThread.waitForGeneration (nSeqNum, m_nSearcherMaxStaleMS))
+        LOGGER.warn ("Lucene seq# " + nSeqNum + " was not visible to searches after " + m_nSearcherMaxStaleMS + "ms");
     }
-    else
+    catch (final InterruptedException ex)
     {
-      // Create new searcher only if necessary
-      m_aSearchReader = aReader;
-      m_aSearcher = new IndexSearcher (aReader);
+      Thread.currentThread ().interrupt ();
     }
-    return m_aSearcher;
   }
 
   /**
@@ -311,7 +377,7 @@ public final class PDLucene implements Closeable, ILuceneDocumentProvider, ILuce
     final long nSeqNum = _getWriter ().updateDocument (aDelTerm, aDoc);
     if (LOGGER.isDebugEnabled ())
       LOGGER.debug ("Last seq# after updateDocument is " + nSeqNum);
-    m_aWriterChanges.incrementAndGet ();
+    _onWriterChange (nSeqNum);
   }
 
   /**
@@ -347,7 +413,7 @@ public final class PDLucene implements Closeable, ILuceneDocumentProvider, ILuce
     }
     if (LOGGER.isDebugEnabled ())
       LOGGER.debug ("Last seq# after updateDocuments is " + nSeqNum);
-    m_aWriterChanges.incrementAndGet ();
+    _onWriterChange (nSeqNum);
   }
 
   /**
@@ -368,7 +434,7 @@ public final class PDLucene implements Closeable, ILuceneDocumentProvider, ILuce
     final long nSeqNum = _getWriter ().deleteDocuments (aTerms);
     if (LOGGER.isDebugEnabled ())
       LOGGER.debug ("Last seq# after deleteDocuments is " + nSeqNum);
-    m_aWriterChanges.incrementAndGet ();
+    _onWriterChange (nSeqNum);
   }
 
   /**
@@ -389,6 +455,6 @@ public final class PDLucene implements Closeable, ILuceneDocumentProvider, ILuce
     final long nSeqNum = _getWriter ().deleteDocuments (aQueries);
     if (LOGGER.isDebugEnabled ())
       LOGGER.debug ("Last seq# after deleteDocuments is " + nSeqNum);
-    m_aWriterChanges.incrementAndGet ();
+    _onWriterChange (nSeqNum);
   }
 }
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.lucene;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.lucene.index.IndexWriter;
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.CheckForSigned;
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.concurrent.BasicThreadFactoryBuilder;
+import com.helger.base.concurrent.ExecutorServiceHelper;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.timing.StopWatch;
+import com.helger.datetime.helper.PDTFactory;
+import com.helger.statistics.api.IMutableStatisticsHandlerTimer;
+import com.helger.statistics.impl.StatisticsManager;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * The commit policy of the Lucene index. Pending changes of the {@link IndexWriter} are committed
+ * on a separate thread after a configurable number of changes or after a configurable number of
+ * seconds, whichever comes first. Neither the writing nor the searching threads ever need to
+ * commit.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+@ThreadSafe
+public final class PDLuceneCommitScheduler implements Closeable
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (PDLuceneCommitScheduler.class);
+  private static final IMutableStatisticsHandlerTimer STATS_COMMIT_TIMER = StatisticsManager.getTimerHandler (PDLuceneCommitScheduler.class.getName () +
+                                                                                                               "$commit");
+
+  private final IndexWriter m_aIndexWriter;
+  private final int m_nMaxChanges;
+  private final int m_nIntervalSeconds;
+  private final ScheduledExecutorService m_aExecutor;
+  // Ensure commits are performed one after the other
+  private final Lock m_aCommitLock = new ReentrantLock ();
+  private final AtomicBoolean m_aClosing = new AtomicBoolean (false);
+  private final AtomicBoolean m_aCommitTriggered = new AtomicBoolean (false);
+  private final AtomicInteger m_aPendingChanges = new AtomicInteger (0);
+  private final AtomicLong m_aCommitCount = new AtomicLong (0);
+  private volatile long m_nLastCommitSeqNum = -1;
+  private volatile long m_nLastCommitMillis = -1;
+  private volatile LocalDateTime m_aLastCommitDT;
+
+  /**
+   * Constructor. The time based commits are scheduled immediately.
+   *
+   * @param aIndexWriter
+   *        The index writer to be committed. May not be <code>null</code>.
+   * @param nMaxChanges
+   *        The number of changes after which a commit is triggered. Must be &gt; 0.
+   * @param nIntervalSeconds
+   *        The maximum number of seconds between two commits of pending changes. Must be &gt; 0.
+   */
+  public PDLuceneCommitScheduler (@NonNull final IndexWriter aIndexWriter,
+                                  @Nonnegative final int nMaxChanges,
+                                  @Nonnegative final int nIntervalSeconds)
+  {
+    ValueEnforcer.notNull (aIndexWriter, "IndexWriter");
+    ValueEnforcer.isGT0 (nMaxChanges, "MaxChanges");
+    ValueEnforcer.isGT0 (nIntervalSeconds, "IntervalSeconds");
+
+    m_aIndexWriter = aIndexWriter;
+    m_nMaxChanges = nMaxChanges;
+    m_nIntervalSeconds = nIntervalSeconds;
+    m_aExecutor = Executors.newSingleThreadScheduledExecutor (new BasicThreadFactoryBuilder ().namingPattern ("pd-lucene-commit-%d")
+                                                                                              .daemon (true)
+                                                                                              .build ());
+    m_aExecutor.scheduleWithFixedDelay (this::_runCommit, nIntervalSeconds, nIntervalSeconds, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Stop the background thread and commit all remaining pending changes.
+   */
+  public void close () throws IOException
+  {
+    // Avoid double closing
+    if (!m_aClosing.getAndSet (true))
+    {
+      ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (m_aExecutor);
+      commitIfNecessary ();
+    }
+  }
+
+  private void _runCommit ()
+  {
+    m_aCommitTriggered.set (false);
+    if (m_aClosing.get ())
+      return;
+
+    try
+    {
+      commitIfNecessary ();
+    }
+    catch (final IOException | RuntimeException ex)
+    {
+      // Don't kill the scheduler - the next run will try again
+      LOGGER.error ("Failed to commit pending changes to the Lucene index", ex);
+    }
+  }
+
+  /**
+   * Remember that a change was made to the index writer. If the maximum number of pending changes
+   * is reached, a commit is triggered on the commit thread. This method never blocks.
+   */
+  public void onChange ()
+  {
+    final int nPending = m_aPendingChanges.incrementAndGet ();
+    if (nPending >= m_nMaxChanges && !m_aClosing.get () && m_aCommitTriggered.compareAndSet (false, true))
+    {
+      try
+      {
+        m_aExecutor.execute (this::_runCommit);
+      }
+      catch (final RejectedExecutionException ex)
+      {
+        // Shutting down - close takes care of the final commit
+        m_aCommitTriggered.set (false);
+      }
+    }
+  }
+
+  /**
+   * Commit all pending changes of the index writer to disk, if there are any. This is usually
+   * called on the commit thread only, but may be called manually as well.
+   *
+   * @throws IOException
+   *         On IO error
+   */
+  public void commitIfNecessary () throws IOException
+  {
+    m_aCommitLock.lock ();
+    try
+    {
+      final int nChanges = m_aPendingChanges.getAndSet (0);
+      if (nChanges > 0)
+      {
+        if (!m_aIndexWriter.isOpen ())
+        {
+          LOGGER.warn ("Cannot commit " + nChanges + " changes, because the Lucene index writer is already closed");
+          return;
+        }
+
+        final StopWatch aSW = StopWatch.createdStarted ();
+        final long nSeqNum;
+        try
+        {
+          nSeqNum = m_aIndexWriter.commit ();
+        }
+        catch (final IOException | RuntimeException ex)
+        {
+          // Keep the changes pending, so that they are retried
+          m_aPendingChanges.addAndGet (nChanges);
+          throw ex;
+        }
+        final long nMillis = aSW.stopAndGetMillis ();
+        STATS_COMMIT_TIMER.addTime (nMillis);
+
+        m_nLastCommitSeqNum = nSeqNum;
+        m_nLastCommitMillis = nMillis;
+        m_aLastCommitDT = PDTFactory.getCurrentLocalDateTime ();
+        m_aCommitCount.incrementAndGet ();
+
+        if (LOGGER.isDebugEnabled ())
+          LOGGER.debug ("Committed " + nChanges + " changes up to seq# " + nSeqNum + " in " + nMillis + "ms");
+      }
+    }
+    finally
+    {
+      m_aCommitLock.unlock ();
+    }
+  }
+
+  /**
+   * @return The number of changes after which a commit is triggered. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getMaxChanges ()
+  {
+    return m_nMaxChanges;
+  }
+
+  /**
+   * @return The maximum number of seconds between two commits of pending changes. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getIntervalSeconds ()
+  {
+    return m_nIntervalSeconds;
+  }
+
+  /**
+   * @return The number of changes that were not yet committed. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getPendingChangeCount ()
+  {
+    return m_aPendingChanges.get ();
+  }
+
+  /**
+   * @return The number of commits performed since startup. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getCommitCount ()
+  {
+    return m_aCommitCount.get ();
+  }
+
+  /**
+   * @return The sequence number of the last commit or -1 if no commit happened so far.
+   */
+  @CheckForSigned
+  public long getLastCommitSeqNum ()
+  {
+    return m_nLastCommitSeqNum;
+  }
+
+  /**
+   * @return The duration of the last commit in milliseconds or -1 if no commit happened so far.
+   */
+  @CheckForSigned
+  public long getLastCommitMillis ()
+  {
+    return m_nLastCommitMillis;
+  }
+
+  /**
+   * @return The date and time of the last commit or <code>null</code> if no commit happened so
+   *         far.
+   */
+  @Nullable
+  public LocalDateTime getLastCommitDateTime ()
+  {
+    return m_aLastCommitDT;
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.lucene;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.config.IConfig;
+import com.helger.pd.indexer.settings.PDServerConfiguration;
+
+/**
+ * This class contains all the Apache Lucene specific configuration properties of the Peppol
+ * Directory Server. All properties are read from the central {@link PDServerConfiguration}.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+@Immutable
+public final class PDLuceneConfiguration
+{
+  /** The default maximum time in milliseconds a change may be invisible to searches */
+  public static final int DEFAULT_SEARCHER_MAX_STALE_MS = 1_000;
+
+  /** The default minimum time in milliseconds between two searcher reopens */
+  public static final int DEFAULT_SEARCHER_MIN_STALE_MS = 10;
+
+  /** The default number of changes after which pending changes are committed */
+  public static final int DEFAULT_COMMIT_MAX_CHANGES = 1_000;
+
+  /** The default interval in seconds in which pending changes are committed */
+  public static final int DEFAULT_COMMIT_INTERVAL_SECONDS = 60;
+
+  private PDLuceneConfiguration ()
+  {}
+
+  @NonNull
+  private static IConfig _getConfig ()
+  {
+    return PDServerConfiguration.getConfig ();
+  }
+
+  /**
+   * Read value of <code>lucene.searcher.maxstale.ms</code>. Defaults to
+   * {@link #DEFAULT_SEARCHER_MAX_STALE_MS}.
+   *
+   * @return The maximum number of milliseconds after which a change in the index writer is visible
+   *         to searches, if nobody explicitly waits for it. Always &gt; 0.
+   */
+  @Nonnegative
+  public static int getSearcherMaxStaleMS ()
+  {
+    final int ret = _getConfig ().getAsInt ("lucene.searcher.maxstale.ms", DEFAULT_SEARCHER_MAX_STALE_MS);
+    if (ret <= 0)
+      throw new IllegalStateException ("The lucene.searcher.maxstale.ms property must be > 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>lucene.searcher.minstale.ms</code>. Defaults to
+   * {@link #DEFAULT_SEARCHER_MIN_STALE_MS}.
+   *
+   * @return The minimum number of milliseconds between two searcher reopens, if somebody waits for
+   *         a change to become visible. Always &gt; 0 and &le; {@link #getSearcherMaxStaleMS()}.
+   */
+  @Nonnegative
+  public static int getSearcherMinStaleMS ()
+  {
+    final int ret = _getConfig ().getAsInt ("lucene.searcher.minstale.ms", DEFAULT_SEARCHER_MIN_STALE_MS);
+    if (ret <= 0)
+      throw new IllegalStateException ("The lucene.searcher.minstale.ms property must be > 0!");
+    if (ret > getSearcherMaxStaleMS ())
+      throw new IllegalStateException ("The lucene.searcher.minstale.ms property must be <= lucene.searcher.maxstale.ms!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>lucene.commit.maxchanges</code>. Defaults to
+   * {@link #DEFAULT_COMMIT_MAX_CHANGES}.
+   *
+   * @return The number of pending changes after which a durability commit is triggered. Always
+   *         &gt; 0.
+   */
+  @Nonnegative
+  public static int getCommitMaxChanges ()
+  {
+    final int ret = _getConfig ().getAsInt ("lucene.commit.maxchanges", DEFAULT_COMMIT_MAX_CHANGES);
+    if (ret <= 0)
+      throw new IllegalStateException ("The lucene.commit.maxchanges property must be > 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>lucene.commit.interval.seconds</code>. Defaults to
+   * {@link #DEFAULT_COMMIT_INTERVAL_SECONDS}.
+   *
+   * @return The maximum number of seconds between two durability commits of pending changes. Always
+   *         &gt; 0.
+   */
+  @Nonnegative
+  public static int getCommitIntervalSeconds ()
+  {
+    final int ret = _getConfig ().getAsInt ("lucene.commit.interval.seconds", DEFAULT_COMMIT_INTERVAL_SECONDS);
+    if (ret <= 0)
+      throw new IllegalStateException ("The lucene.commit.interval.seconds property must be > 0!");
+    return ret;
+  }
+}
@@ -17,7 +17,10 @@
 package com.helger.pd.indexer.lucene;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.ObjIntConsumer;
 
@@ -26,39 +29,63 @@ import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
-import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiBits;
+import org.apache.lucene.index.MultiDocValues;
+import org.apache.lucene.index.MultiTerms;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
-import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopFieldCollector;
 import org.apache.lucene.search.TopScoreDocCollector;
 import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
 import org.jspecify.annotations.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.helger.annotation.CheckForSigned;
 import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
 import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.numeric.mutable.MutableInt;
+import com.helger.base.string.StringParser;
+import com.helger.base.wrapper.Wrapper;
 import com.helger.collection.commons.CommonsArrayList;
 import com.helger.collection.commons.CommonsLinkedHashMap;
 import com.helger.collection.commons.ICommonsList;
 import com.helger.collection.commons.ICommonsOrderedMap;
+import com.helger.datetime.format.PDTToString;
 import com.helger.pd.indexer.searchindex.IPDIndex;
 import com.helger.pd.indexer.searchindex.PDIndexDocument;
 import com.helger.pd.indexer.searchindex.PDIndexField;
+import com.helger.pd.indexer.searchindex.PDIndexSearchCursor;
+import com.helger.pd.indexer.searchindex.PDIndexSearchResult;
 import com.helger.pd.indexer.searchindex.query.EPDIndexQueryOccur;
 import com.helger.pd.indexer.searchindex.query.IPDIndexQuery;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryBool;
@@ -66,6 +93,7 @@ import com.helger.pd.indexer.searchindex.query.PDIndexQueryContains;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryMatchAll;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryPrefix;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryTerm;
+import com.helger.pd.indexer.storage.field.PDField;
 
 import jakarta.annotation.Nullable;
 
@@ -83,6 +111,15 @@ public class PDLuceneIndex implements IPDIndex
   private static final String FIELD_GROUP_END = "groupend";
   private static final FieldType TYPE_GROUP_END = new FieldType ();
   private static final String VALUE_GROUP_END = "x";
+  private static final String FIELD_PARTICIPANT_ID = PDField.PARTICIPANT_ID.getFieldName ();
+  private static final String CURSOR_TYPE_LUCENE = "lucene";
+  private static final String CURSOR_MISSING_PARTICIPANT_ID = "-";
+  private static final String CURSOR_NO_PARTICIPANT_ID = "*";
+  // Relevance first, participant ID and document ID make the order total
+  private static final Sort SORT_SCORE_PARTICIPANT_DOC = new Sort (SortField.FIELD_SCORE,
+                                                                   new SortField (FIELD_PARTICIPANT_ID, SortField.Type.STRING),
+                                                                   SortField.FIELD_DOC);
+  private static final Sort SORT_SCORE_DOC = new Sort (SortField.FIELD_SCORE, SortField.FIELD_DOC);
 
   static
   {
@@ -126,15 +163,46 @@ public class PDLuceneIndex implements IPDIndex
     return m_aLucene.isClosing ();
   }
 
+  public long getSearchGeneration () throws IOException
+  {
+    // Each reopen of the searcher with new changes creates a new reader version
+    return m_aLucene.getSearcherVersion ();
+  }
+
   @NonNull
   public ICommonsOrderedMap <String, String> getIndexInformation () throws IOException
   {
     final ICommonsOrderedMap <String, String> ret = new CommonsLinkedHashMap <> ();
     ret.put ("Lucene index directory", PDLucene.getLuceneIndexDir ().getAbsolutePath ());
 
-    final DirectoryReader aReader = m_aLucene.getDirectoryReader ();
-    if (aReader != null)
-      ret.put ("Directory information", aReader.toString ());
+    ret.put ("Maximum searcher staleness", m_aLucene.getSearcherMaxStaleMS () + "ms");
+
+    final PDLuceneCommitScheduler aCommitScheduler = m_aLucene.getCommitScheduler ();
+    ret.put ("Commit policy",
+             "every " +
+               aCommitScheduler.getMaxChanges () +
+               " changes or " +
+               aCommitScheduler.getIntervalSeconds () +
+               " seconds");
+    ret.put ("Uncommitted changes", Integer.toString (aCommitScheduler.getPendingChangeCount ()));
+    ret.put ("Number of commits", Long.toString (aCommitScheduler.getCommitCount ()));
+    final LocalDateTime aLastCommitDT = aCommitScheduler.getLastCommitDateTime ();
+    if (aLastCommitDT != null)
+    {
+      ret.put ("Last commit", PDTToString.getAsString (aLastCommitDT, Locale.US));
+      ret.put ("Last commit seq#", Long.toString (aCommitScheduler.getLastCommitSeqNum ()));
+      ret.put ("Last commit duration", aCommitScheduler.getLastCommitMillis () + "ms");
+    }
+
+    final IndexSearcher aSearcher = m_aLucene.acquireSearcher ();
+    try
+    {
+      ret.put ("Directory information", aSearcher.getIndexReader ().toString ());
+    }
+    finally
+    {
+      m_aLucene.releaseSearcher (aSearcher);
+    }
     return ret;
   }
 
@@ -186,12 +254,159 @@ public class PDLuceneIndex implements IPDIndex
     ValueEnforcer.notNull (aQuery, "Query");
 
     final TotalHitCountCollector aCollector = new TotalHitCountCollector ();
-    _searchAtomic (_toLuceneQuery (aQuery), aCollector);
+    final Query aLuceneQuery = _toLuceneQuery (aQuery);
+    _searchAtomic (aLuceneQuery, aSearcher -> aSearcher.search (aLuceneQuery, aCollector));
     return aCollector.getTotalHits ();
   }
 
+  @NonNull
+  public PDIndexSearchResult <PDIndexDocument> search (@NonNull final IPDIndexQuery aQuery,
+                                                       @Nonnegative final int nOffset,
+                                                       @Nonnegative final int nLimit) throws IOException
+  {
+    ValueEnforcer.notNull (aQuery, "Query");
+    ValueEnforcer.isGE0 (nOffset, "Offset");
+    ValueEnforcer.isGT0 (nLimit, "Limit");
+    // Avoid an overflow and huge priority queues
+    if (nLimit > MAX_SEARCH_WINDOW || nOffset > MAX_SEARCH_WINDOW - nLimit)
+      throw new IllegalArgumentException ("Offset (" +
+                                          nOffset +
+                                          ") plus limit (" +
+                                          nLimit +
+                                          ") must not exceed " +
+                                          MAX_SEARCH_WINDOW);
+
+    final Query aLuceneQuery = _toLuceneQuery (aQuery);
+    final ICommonsList <PDIndexDocument> aHits = new CommonsArrayList <> ();
+    final MutableInt aTotalHits = new MutableInt (0);
+    _searchAtomic (aLuceneQuery, aSearcher -> {
+      // Lucene 8 - count all hits exactly while collecting the top docs
+      final TopScoreDocCollector aCollector = TopScoreDocCollector.create (nOffset + nLimit, Integer.MAX_VALUE);
+      aSearcher.search (aLuceneQuery, aCollector);
+      aTotalHits.set (aCollector.getTotalHits ());
+
+      // Only load the documents of the requested window
+      for (final ScoreDoc aScoreDoc : aCollector.topDocs (nOffset, nLimit).scoreDocs)
+        aHits.add (_toIndexDocument (aSearcher.doc (aScoreDoc.doc)));
+    });
+    return new PDIndexSearchResult <> (aHits, aTotalHits.intValue ());
+  }
+
+  /**
+   * {@inheritDoc}<br>
+   * This implementation uses native cursors: the hits are sorted by descending relevance, then by
+   * participant ID and finally by document ID, and the cursor contains the sort values of the last
+   * returned hit. Only the top hits after the cursor need to be kept in memory, so every window
+   * costs the same, independent of its position. As long as not all index segments contain the
+   * participant ID doc values (indices created with older versions), the participant ID is not
+   * part of the sort order. As relevance and document IDs may change when the index is modified, a
+   * cursor chain is only exact as long as the index is not modified.
+   */
+  @NonNull
+  public PDIndexSearchResult <PDIndexDocument> searchAfter (@NonNull final IPDIndexQuery aQuery,
+                                                            @Nullable final String sCursor,
+                                                            @Nonnegative final int nLimit) throws IOException
+  {
+    ValueEnforcer.notNull (aQuery, "Query");
+    ValueEnforcer.isBetweenInclusive (nLimit, "Limit", 1, MAX_SEARCH_WINDOW);
+
+    final ICommonsList <String> aCursorValues;
+    if (sCursor == null)
+      aCursorValues = null;
+    else
+    {
+      aCursorValues = PDIndexSearchCursor.decode (sCursor, CURSOR_TYPE_LUCENE, 3);
+      if (aCursorValues == null || !_isValidCursor (aCursorValues))
+        throw new IllegalArgumentException ("The provided search cursor is invalid");
+    }
+
+    final Query aLuceneQuery = _toLuceneQuery (aQuery);
+    final ICommonsList <PDIndexDocument> aHits = new CommonsArrayList <> ();
+    final MutableInt aTotalHits = new MutableInt (0);
+    final Wrapper <String> aNextCursor = new Wrapper <> ();
+    _searchAtomic (aLuceneQuery, aSearcher -> {
+      // The participant ID can only be sorted if all segments have doc values
+      final boolean bSortByParticipantID = _hasParticipantIDDocValues (aSearcher.getIndexReader ()) &&
+                                           (aCursorValues == null || !aCursorValues.get (2).equals (CURSOR_NO_PARTICIPANT_ID));
+      final Sort aSort = bSortByParticipantID ? SORT_SCORE_PARTICIPANT_DOC : SORT_SCORE_DOC;
+      final FieldDoc aAfter = aCursorValues == null ? null : _createAfter (aCursorValues, bSortByParticipantID);
+
+      // Collect one more hit, to know if there is a next window
+      final TopFieldCollector aCollector = TopFieldCollector.create (aSort, nLimit + 1, aAfter, Integer.MAX_VALUE);
+      aSearcher.search (aLuceneQuery, aCollector);
+      aTotalHits.set (aCollector.getTotalHits ());
+
+      final ScoreDoc [] aScoreDocs = aCollector.topDocs ().scoreDocs;
+      final int nCount = Math.min (aScoreDocs.length, nLimit);
+      for (int i = 0; i < nCount; ++i)
+        aHits.add (_toIndexDocument (aSearcher.doc (aScoreDocs[i].doc)));
+      if (aScoreDocs.length > nLimit)
+        aNextCursor.set (_createCursor ((FieldDoc) aScoreDocs[nLimit - 1], bSortByParticipantID));
+    });
+    return new PDIndexSearchResult <> (aHits, aTotalHits.intValue (), aNextCursor.get ());
+  }
+
+  private static boolean _hasParticipantIDDocValues (@NonNull final IndexReader aReader)
+  {
+    for (final LeafReaderContext aLeaf : aReader.leaves ())
+    {
+      final FieldInfo aFieldInfo = aLeaf.reader ().getFieldInfos ().fieldInfo (FIELD_PARTICIPANT_ID);
+      if (aFieldInfo != null && aFieldInfo.getDocValuesType () != DocValuesType.SORTED)
+        return false;
+    }
+    return true;
+  }
+
+  @NonNull
+  private static String _createCursor (@NonNull final FieldDoc aFieldDoc, final boolean bSortByParticipantID)
+  {
+    // Order of values is the order of the sort fields
+    final float fScore = ((Float) aFieldDoc.fields[0]).floatValue ();
+    final String sParticipantID;
+    if (bSortByParticipantID)
+    {
+      final BytesRef aParticipantID = (BytesRef) aFieldDoc.fields[1];
+      sParticipantID = aParticipantID == null ? CURSOR_MISSING_PARTICIPANT_ID : "+" + aParticipantID.utf8ToString ();
+    }
+    else
+      sParticipantID = CURSOR_NO_PARTICIPANT_ID;
+    // The participant ID may contain anything, so it is the last value
+    return PDIndexSearchCursor.encode (CURSOR_TYPE_LUCENE,
+                                       Integer.toString (Float.floatToIntBits (fScore)),
+                                       Integer.toString (aFieldDoc.doc),
+                                       sParticipantID);
+  }
+
+  private static boolean _isValidCursor (@NonNull final ICommonsList <String> aCursorValues)
+  {
+    final String sParticipantID = aCursorValues.get (2);
+    return StringParser.parseIntObj (aCursorValues.get (0)) != null &&
+           StringParser.parseInt (aCursorValues.get (1), -1) >= 0 &&
+           (sParticipantID.startsWith ("+") ||
+            sParticipantID.equals (CURSOR_MISSING_PARTICIPANT_ID) ||
+            sParticipantID.equals (CURSOR_NO_PARTICIPANT_ID));
+  }
+
+  @NonNull
+  private static FieldDoc _createAfter (@NonNull final ICommonsList <String> aCursorValues,
+                                        final boolean bSortByParticipantID)
+  {
+    final float fScore = Float.intBitsToFloat (StringParser.parseInt (aCursorValues.get (0), 0));
+    final int nDocID = StringParser.parseInt (aCursorValues.get (1), 0);
+    if (!bSortByParticipantID)
+      return new FieldDoc (nDocID, fScore, new Object [] { Float.valueOf (fScore), Integer.valueOf (nDocID) });
+
+    final String sParticipantID = aCursorValues.get (2);
+    final BytesRef aParticipantID = sParticipantID.startsWith ("+") ? new BytesRef (sParticipantID.substring (1))
+                                                                     : null;
+    return new FieldDoc (nDocID,
+                         fScore,
+                         new Object [] { Float.valueOf (fScore), aParticipantID, Integer.valueOf (nDocID) });
+  }
+
   public void searchAll (@NonNull final IPDIndexQuery aQuery,
                          @CheckForSigned final int nMaxResultCount,
+                         @Nullable final Set <String> aFieldsToLoad,
                          @NonNull final Consumer <? super PDIndexDocument> aConsumer) throws IOException
   {
     ValueEnforcer.notNull (aQuery, "Query");
@@ -202,50 +417,163 @@ public class PDLuceneIndex implements IPDIndex
     {
       // Search all
       final ObjIntConsumer <Document> aConverter = (aDoc, nDocID) -> aConsumer.accept (_toIndexDocument (aDoc));
-      final Collector aCollector = new AllDocumentsCollector (m_aLucene, aConverter);
-      _searchAtomic (aLuceneQuery, aCollector);
+      final AllDocumentsCollector aCollector = new AllDocumentsCollector (aFieldsToLoad, aConverter);
+      _searchAtomic (aLuceneQuery, aSearcher -> aSearcher.search (aLuceneQuery, aCollector));
     }
     else
     {
       // Search top docs only
-      // Lucene 8
-      final TopScoreDocCollector aCollector = TopScoreDocCollector.create (nMaxResultCount, Integer.MAX_VALUE);
-      _searchAtomic (aLuceneQuery, aCollector);
-      for (final ScoreDoc aScoreDoc : aCollector.topDocs ().scoreDocs)
+      _searchAtomic (aLuceneQuery, aSearcher -> {
+        // Lucene 8
+        final TopScoreDocCollector aCollector = TopScoreDocCollector.create (nMaxResultCount, Integer.MAX_VALUE);
+        aSearcher.search (aLuceneQuery, aCollector);
+        for (final ScoreDoc aScoreDoc : aCollector.topDocs ().scoreDocs)
+        {
+          // The document IDs are only valid for the searcher they were retrieved from
+          final Document aDoc = aFieldsToLoad == null ? aSearcher.doc (aScoreDoc.doc)
+                                                      : aSearcher.doc (aScoreDoc.doc, aFieldsToLoad);
+          // Pass to Consumer
+          aConsumer.accept (_toIndexDocument (aDoc));
+        }
+      });
+    }
+  }
+
+  /**
+   * Enumerate the distinct participant IDs via the {@link SortedDocValues} of the participant ID
+   * field. This only works if all documents containing a participant ID also have the doc values.
+   *
+   * @param aReader
+   *        The index reader to use. May not be <code>null</code>.
+   * @param aTerms
+   *        The terms of the participant ID field. May not be <code>null</code>.
+   * @param aLiveDocs
+   *        The live documents. May be <code>null</code> if there are no deletions.
+   * @param aConsumer
+   *        The consumer to invoke. May not be <code>null</code>.
+   * @return <code>true</code> if the participant IDs were enumerated, <code>false</code> if some
+   *         documents don't have the doc values (yet) and nothing was passed to the consumer.
+   * @throws IOException
+   *         On index error
+   */
+  private static boolean _forEachDistinctParticipantIDDocValues (@NonNull final IndexReader aReader,
+                                                                 @NonNull final Terms aTerms,
+                                                                 @Nullable final Bits aLiveDocs,
+                                                                 @NonNull final ObjIntConsumer <String> aConsumer) throws IOException
+  {
+    if (!_hasParticipantIDDocValues (aReader))
+      return false;
+
+    // Sorted and free of duplicates over all segments
+    final SortedDocValues aDocValues = MultiDocValues.getSortedValues (aReader, FIELD_PARTICIPANT_ID);
+    if (aDocValues == null)
+      return false;
+
+    final int [] aDocCounts = new int [aDocValues.getValueCount ()];
+    int nDocsWithValue = 0;
+    int nDocID;
+    while ((nDocID = aDocValues.nextDoc ()) != DocIdSetIterator.NO_MORE_DOCS)
+    {
+      nDocsWithValue++;
+      if (aLiveDocs == null || aLiveDocs.get (nDocID))
+        aDocCounts[aDocValues.ordValue ()]++;
+    }
+
+    // Documents indexed with older versions only have the term but no doc values. Both counts
+    // include deleted documents.
+    if (nDocsWithValue != aTerms.getDocCount ())
+      return false;
+
+    for (int nOrd = 0; nOrd < aDocCounts.length; ++nOrd)
+    {
+      // Skip the values that are only contained in deleted documents
+      if (aDocCounts[nOrd] > 0)
+        aConsumer.accept (aDocValues.lookupOrd (nOrd).utf8ToString (), aDocCounts[nOrd]);
+    }
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}<br>
+   * This implementation enumerates the sorted doc values of the participant ID field, which are
+   * already sorted and free of duplicates. If some documents don't have the doc values yet (because
+   * they were indexed with an older version), the terms dictionary and the postings of the
+   * participant ID field are used instead. No stored field is read in either case.
+   */
+  public void forEachDistinctParticipantID (@NonNull final ObjIntConsumer <String> aConsumer) throws IOException
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    _searchAtomic (new MatchAllDocsQuery (), aSearcher -> {
+      final IndexReader aReader = aSearcher.getIndexReader ();
+      final Terms aTerms = MultiTerms.getTerms (aReader, FIELD_PARTICIPANT_ID);
+      if (aTerms == null)
       {
-        final Document aDoc = m_aLucene.getDocument (aScoreDoc.doc);
-        if (aDoc == null)
-          throw new IllegalStateException ("Failed to resolve Lucene Document with ID " + aScoreDoc.doc);
-        // Pass to Consumer
-        aConsumer.accept (_toIndexDocument (aDoc));
+        // No such field (yet)
+        return;
       }
-    }
+
+      // null if there are no deletions
+      final Bits aLiveDocs = MultiBits.getLiveDocs (aReader);
+      if (_forEachDistinctParticipantIDDocValues (aReader, aTerms, aLiveDocs, aConsumer))
+        return;
+
+      LOGGER.info ("Not all documents have the participant ID doc values - using the postings instead");
+      final TermsEnum aTermsEnum = aTerms.iterator ();
+      PostingsEnum aPostingsEnum = null;
+      BytesRef aTerm;
+      while ((aTerm = aTermsEnum.next ()) != null)
+      {
+        int nDocCount = 0;
+        aPostingsEnum = aTermsEnum.postings (aPostingsEnum, PostingsEnum.NONE);
+        int nDocID;
+        while ((nDocID = aPostingsEnum.nextDoc ()) != DocIdSetIterator.NO_MORE_DOCS)
+          if (aLiveDocs == null || aLiveDocs.get (nDocID))
+            nDocCount++;
+
+        // Skip the values that are only contained in deleted documents
+        if (nDocCount > 0)
+          aConsumer.accept (aTerm.utf8ToString (), nDocCount);
+      }
+    });
   }
 
   /**
-   * Search all documents matching the passed query and pass the result on to the provided Lucene
-   * {@link Collector}.
+   * Internal callback interface for actions on an acquired {@link IndexSearcher}.
+   *
+   * @author Philip Helger
+   */
+  @FunctionalInterface
+  private interface ISearcherAction
+  {
+    void run (@NonNull IndexSearcher aSearcher) throws IOException;
+  }
+
+  /**
+   * Acquire the current searcher, perform the provided action on it and release it afterwards. The
+   * searcher is held for the whole action, so that all document IDs stay valid.
    *
    * @param aQuery
-   *        Lucene query to execute. May not be <code>null</code>.
-   * @param aCollector
-   *        The Lucene collector to be used. May not be <code>null</code>.
+   *        Lucene query to execute. May not be <code>null</code>. For logging only.
+   * @param aAction
+   *        The action to be performed with the searcher. May not be <code>null</code>.
    * @throws IOException
    *         On Lucene error
    */
-  private void _searchAtomic (@NonNull final Query aQuery, @NonNull final Collector aCollector) throws IOException
+  private void _searchAtomic (@NonNull final Query aQuery, @NonNull final ISearcherAction aAction) throws IOException
   {
-    final IndexSearcher aSearcher = m_aLucene.getSearcher ();
-    if (aSearcher != null)
+    final IndexSearcher aSearcher = m_aLucene.acquireSearcher ();
+    try
     {
       if (LOGGER.isDebugEnabled ())
         LOGGER.debug ("Searching Lucene: " + aQuery);
 
-      // Search all documents, collect them
-      aSearcher.search (aQuery, aCollector);
+      aAction.run (aSearcher);
+    }
+    finally
+    {
+      m_aLucene.releaseSearcher (aSearcher);
     }
-    else
-      LOGGER.error ("Failed to obtain IndexSearcher for " + aQuery);
   }
 
   @NonNull
@@ -331,6 +659,10 @@ public class PDLuceneIndex implements IPDIndex
           ret.add (new TextField (aField.getName (), aField.getStringValue (), eStore));
         else
           ret.add (new StringField (aField.getName (), aField.getStringValue (), eStore));
+
+        // Participant ID is additionally available as doc values - used e.g. for sorting
+        if (aField.getName ().equals (FIELD_PARTICIPANT_ID))
+          ret.add (new SortedDocValuesField (aField.getName (), new BytesRef (aField.getStringValue ())));
       }
     }
     return ret;
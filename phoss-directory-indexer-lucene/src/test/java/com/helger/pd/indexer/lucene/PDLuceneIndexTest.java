@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.lucene;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.jspecify.annotations.NonNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsLinkedHashMap;
+import com.helger.collection.commons.ICommonsOrderedMap;
+import com.helger.pd.indexer.searchindex.EPDIndexFieldStore;
+import com.helger.pd.indexer.searchindex.EPDIndexFieldTokenize;
+import com.helger.pd.indexer.searchindex.PDIndexDocument;
+import com.helger.pd.indexer.searchindex.PDIndexField;
+import com.helger.pd.indexer.storage.field.PDField;
+
+/**
+ * Test class for class {@link PDLuceneIndex}.
+ *
+ * @author Philip Helger
+ */
+public final class PDLuceneIndexTest
+{
+  private static final String FIELD_PARTICIPANT_ID = PDField.PARTICIPANT_ID.getFieldName ();
+
+  @Rule
+  public final TestRule m_aRule = new PDLuceneIndexerTestRule ();
+
+  @NonNull
+  private static PDIndexDocument _createDoc (@NonNull final String sParticipantID)
+  {
+    return new PDIndexDocument ().add (PDIndexField.createString (FIELD_PARTICIPANT_ID,
+                                                                  sParticipantID,
+                                                                  EPDIndexFieldStore.YES,
+                                                                  EPDIndexFieldTokenize.NO_TOKENIZE));
+  }
+
+  @Test
+  public void testForEachDistinctParticipantIDWithoutDocValues () throws IOException
+  {
+    final PDLucene aLucene = new PDLucene ();
+    try (final PDLuceneIndex aIndex = new PDLuceneIndex (aLucene))
+    {
+      // Document as indexed by an older version - without the doc values
+      final Document aOldDoc = new Document ();
+      aOldDoc.add (new StringField (FIELD_PARTICIPANT_ID, "iso6523-actorid-upis::9915:b", Field.Store.YES));
+      aLucene.updateDocument (null, aOldDoc);
+
+      // Documents with the doc values
+      aIndex.updateDocuments (null,
+                              new CommonsArrayList <> (_createDoc ("iso6523-actorid-upis::9915:a"),
+                                                       _createDoc ("iso6523-actorid-upis::9915:a"),
+                                                       _createDoc ("iso6523-actorid-upis::9915:c")));
+
+      // The old document must not get lost
+      final ICommonsOrderedMap <String, Integer> aMap = new CommonsLinkedHashMap <> ();
+      aIndex.forEachDistinctParticipantID ( (sPID, nCount) -> aMap.put (sPID, Integer.valueOf (nCount)));
+      assertEquals (new CommonsArrayList <> ("iso6523-actorid-upis::9915:a",
+                                             "iso6523-actorid-upis::9915:b",
+                                             "iso6523-actorid-upis::9915:c"),
+                    new CommonsArrayList <> (aMap.keySet ()));
+      assertEquals (2, aMap.get ("iso6523-actorid-upis::9915:a").intValue ());
+      assertEquals (1, aMap.get ("iso6523-actorid-upis::9915:b").intValue ());
+      assertEquals (1, aMap.get ("iso6523-actorid-upis::9915:c").intValue ());
+    }
+  }
+}
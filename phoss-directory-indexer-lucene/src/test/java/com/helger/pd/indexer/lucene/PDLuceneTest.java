@@ -32,6 +32,8 @@ import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
@@ -41,6 +43,9 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TestRule;
 
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.ICommonsList;
 import com.helger.io.file.FileOperationManager;
 import com.helger.io.file.SimpleFileIO;
 import com.helger.photon.app.mock.PhotonAppTestRule;
@@ -117,25 +122,33 @@ public final class PDLuceneTest
   {
     try (final PDLucene aLucene = new PDLucene ())
     {
-      // Find top 5 hits
-      final TopDocs results = aLucene.getSearcher ().search (aQuery, 5);
-
-      // Get results
-      final ScoreDoc [] aHits = results.scoreDocs;
-      if (aHits.length == 0)
-        return null;
-
-      // Lucene 8
-      final long numTotalHits = results.totalHits.value;
-      assertEquals (1, numTotalHits);
-
-      /*
-       * Matching score for the first document
-       */
-      assertTrue (aHits[0].score > 0);
-
-      final Document doc = aLucene.getDocument (aHits[0].doc);
-      return doc;
+      final IndexSearcher aSearcher = aLucene.acquireSearcher ();
+      try
+      {
+        // Find top 5 hits
+        final TopDocs results = aSearcher.search (aQuery, 5);
+
+        // Get results
+        final ScoreDoc [] aHits = results.scoreDocs;
+        if (aHits.length == 0)
+          return null;
+
+        // Lucene 8
+        final long numTotalHits = results.totalHits.value;
+        assertEquals (1, numTotalHits);
+
+        /*
+         * Matching score for the first document
+         */
+        assertTrue (aHits[0].score > 0);
+
+        final Document doc = aSearcher.doc (aHits[0].doc);
+        return doc;
+      }
+      finally
+      {
+        aLucene.releaseSearcher (aSearcher);
+      }
     }
   }
 
@@ -190,4 +203,124 @@ public final class PDLuceneTest
     assertNotNull (aDoc);
     assertNull (aDoc.getField ("num"));
   }
+
+  @Test
+  public void testChangesAreVisibleWithoutCommit () throws IOException
+  {
+    FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (PDLucene.getLuceneIndexDir ());
+
+    try (final PDLucene aLucene = new PDLucene ())
+    {
+      final Document doc = new Document ();
+      doc.add (new StringField ("id", "nrt", Field.Store.YES));
+      aLucene.updateDocument (new Term ("id", "nrt"), doc);
+
+      // Nothing was committed so far
+      assertEquals (1, aLucene.getPendingChangeCount ());
+
+      // But the change must be visible to searches
+      IndexSearcher aSearcher = aLucene.acquireSearcher ();
+      try
+      {
+        assertEquals (1, aSearcher.count (new TermQuery (new Term ("id", "nrt"))));
+      }
+      finally
+      {
+        aLucene.releaseSearcher (aSearcher);
+      }
+
+      // Searching did not commit
+      assertEquals (1, aLucene.getPendingChangeCount ());
+      aLucene.commitIfNecessary ();
+      assertEquals (0, aLucene.getPendingChangeCount ());
+
+      aLucene.deleteDocuments (new Term ("id", "nrt"));
+      aSearcher = aLucene.acquireSearcher ();
+      try
+      {
+        assertEquals (0, aSearcher.count (new TermQuery (new Term ("id", "nrt"))));
+      }
+      finally
+      {
+        aLucene.releaseSearcher (aSearcher);
+      }
+    }
+  }
+
+  @Test
+  public void testCommitAfterMaxChanges () throws Exception
+  {
+    FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (PDLucene.getLuceneIndexDir ());
+
+    // Commit after 2 changes - the interval is never reached in this test
+    try (final PDLucene aLucene = new PDLucene (PDLucene::createAnalyzer, 1_000, 10, 2, 3_600))
+    {
+      final PDLuceneCommitScheduler aCommitScheduler = aLucene.getCommitScheduler ();
+      assertEquals (0, aCommitScheduler.getCommitCount ());
+      assertEquals (-1, aCommitScheduler.getLastCommitSeqNum ());
+
+      for (int i = 0; i < 2; ++i)
+      {
+        final Document doc = new Document ();
+        doc.add (new StringField ("id", "commit" + i, Field.Store.YES));
+        aLucene.updateDocument (new Term ("id", "commit" + i), doc);
+      }
+
+      // The commit happens asynchronously
+      for (int i = 0; i < 100 && aCommitScheduler.getCommitCount () == 0; ++i)
+        Thread.sleep (50);
+
+      assertEquals (1, aCommitScheduler.getCommitCount ());
+      assertEquals (0, aCommitScheduler.getPendingChangeCount ());
+      assertTrue (aCommitScheduler.getLastCommitSeqNum () > 0);
+      assertTrue (aCommitScheduler.getLastCommitMillis () >= 0);
+      assertNotNull (aCommitScheduler.getLastCommitDateTime ());
+    }
+  }
+
+  @Test
+  public void testAllDocumentsCollectorFieldsToLoad () throws IOException
+  {
+    FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (PDLucene.getLuceneIndexDir ());
+
+    try (final PDLucene aLucene = new PDLucene ())
+    {
+      for (int i = 0; i < 3; ++i)
+      {
+        final Document doc = new Document ();
+        doc.add (new StringField ("id", "doc" + i, Field.Store.YES));
+        doc.add (new StringField ("participantid", "iso6523-actorid-upis::9915:test" + i, Field.Store.YES));
+        doc.add (new StoredField ("stored", "value" + i));
+        aLucene.updateDocument (new Term ("id", "doc" + i), doc);
+      }
+
+      final ICommonsList <Document> aAll = new CommonsArrayList <> ();
+      final ICommonsList <Document> aProjected = new CommonsArrayList <> ();
+      final IndexSearcher aSearcher = aLucene.acquireSearcher ();
+      try
+      {
+        aSearcher.search (new MatchAllDocsQuery (), new AllDocumentsCollector ( (aDoc, nDocID) -> aAll.add (aDoc)));
+        aSearcher.search (new MatchAllDocsQuery (),
+                          new AllDocumentsCollector (new CommonsHashSet <> ("participantid"),
+                                                     (aDoc, nDocID) -> aProjected.add (aDoc)));
+      }
+      finally
+      {
+        aLucene.releaseSearcher (aSearcher);
+      }
+
+      assertEquals (3, aAll.size ());
+      for (final Document aDoc : aAll)
+        assertEquals (3, aDoc.getFields ().size ());
+
+      // Only the requested field is loaded
+      assertEquals (3, aProjected.size ());
+      for (final Document aDoc : aProjected)
+      {
+        assertEquals (1, aDoc.getFields ().size ());
+        assertTrue (aDoc.get ("participantid").startsWith ("iso6523-actorid-upis::9915:test"));
+        assertNull (aDoc.get ("id"));
+      }
+    }
+  }
 }
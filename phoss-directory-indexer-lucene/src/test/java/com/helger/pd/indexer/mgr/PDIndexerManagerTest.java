@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.mgr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.datetime.helper.PDTFactory;
+import com.helger.pd.indexer.businesscard.IPDBusinessCardProvider;
+import com.helger.pd.indexer.businesscard.PDExtendedBusinessCard;
+import com.helger.pd.indexer.index.EIndexerFailureClass;
+import com.helger.pd.indexer.index.EIndexerWorkItemType;
+import com.helger.pd.indexer.index.PDIndexerTestHelper;
+import com.helger.pd.indexer.lucene.PDLuceneIndexerTestRule;
+import com.helger.pd.indexer.reindex.IReIndexWorkItem;
+import com.helger.pd.indexer.reindex.ReIndexWorkItem;
+import com.helger.pd.indexer.reindex.ReIndexWorkItemList;
+import com.helger.peppol.businesscard.generic.PDBusinessCard;
+import com.helger.peppol.businesscard.generic.PDBusinessEntity;
+import com.helger.peppol.businesscard.generic.PDIdentifier;
+import com.helger.peppol.businesscard.generic.PDName;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.peppolid.peppol.doctype.EPredefinedDocumentTypeIdentifier;
+
+/**
+ * Test class for class {@link PDIndexerManager}.
+ *
+ * @author Philip Helger
+ */
+public final class PDIndexerManagerTest
+{
+  private static final String PID_OK = "reindex-ok";
+  private static final String PID_TIMEOUT = "reindex-timeout";
+  private static final String PID_GONE = "reindex-gone";
+
+  @Rule
+  public final TestRule m_aRule = new PDLuceneIndexerTestRule ();
+
+  // The re-index work items are executed in parallel
+  private final Set <String> m_aQueried = ConcurrentHashMap.newKeySet ();
+
+  @NonNull
+  private static ReIndexWorkItem _item (@NonNull final String sParticipantValue)
+  {
+    return new ReIndexWorkItem (PDIndexerTestHelper.createWorkItem (sParticipantValue, EIndexerWorkItemType.CREATE_UPDATE),
+                                new CommonsArrayList <> ("Initial failure"),
+                                EIndexerFailureClass.OTHER);
+  }
+
+  @NonNull
+  private static String _value (@NonNull final String sParticipantValue)
+  {
+    return PDIndexerTestHelper.createParticipantID (sParticipantValue).getValue ();
+  }
+
+  @Before
+  public void setUp ()
+  {
+    // Set test BC provider first!
+    PDMetaManager.setBusinessCardProvider (new IPDBusinessCardProvider ()
+    {
+      public PDExtendedBusinessCard getBusinessCard (@NonNull final IParticipantIdentifier aParticipantID,
+                                                     @NonNull final Consumer <String> aErrorMsgHandler)
+      {
+        return getBusinessCard (aParticipantID, aErrorMsgHandler, x -> {});
+      }
+
+      public PDExtendedBusinessCard getBusinessCard (@NonNull final IParticipantIdentifier aParticipantID,
+                                                     @NonNull final Consumer <String> aErrorMsgHandler,
+                                                     @NonNull final Consumer <EIndexerFailureClass> aFailureClassHandler)
+      {
+        m_aQueried.add (aParticipantID.getValue ());
+        if (aParticipantID.getValue ().equals (_value (PID_TIMEOUT)))
+        {
+          // Transient - retried without limit
+          aErrorMsgHandler.accept ("Mock timeout");
+          aFailureClassHandler.accept (EIndexerFailureClass.TIMEOUT);
+          return null;
+        }
+        if (aParticipantID.getValue ().equals (_value (PID_GONE)))
+        {
+          // Permanent - the default policy allows no further retry
+          aErrorMsgHandler.accept ("Mock not found");
+          aFailureClassHandler.accept (EIndexerFailureClass.NOT_FOUND);
+          return null;
+        }
+
+        final PDBusinessCard aBI = new PDBusinessCard ();
+        aBI.setParticipantIdentifier (new PDIdentifier (aParticipantID.getScheme (), aParticipantID.getValue ()));
+        final PDBusinessEntity aEntity = new PDBusinessEntity ();
+        aEntity.names ().add (new PDName ("Mock re-index receiver"));
+        aEntity.setCountryCode ("AT");
+        aBI.businessEntities ().add (aEntity);
+        return new PDExtendedBusinessCard (aBI,
+                                           new CommonsArrayList <> (EPredefinedDocumentTypeIdentifier.INVOICE_EN16931_PEPPOL_V30.getAsDocumentTypeIdentifier ()));
+      }
+    });
+    PDMetaManager.getInstance ();
+  }
+
+  @Test
+  public void testReIndexParticipantDataSynchronously ()
+  {
+    final PDIndexerManager aMgr = PDMetaManager.getIndexerMgr ();
+    final ReIndexWorkItemList aReIndexList = (ReIndexWorkItemList) aMgr.getReIndexList ();
+    final ReIndexWorkItemList aDeadList = (ReIndexWorkItemList) aMgr.getDeadList ();
+    // Leftovers of previous runs
+    aReIndexList.getAndRemoveAllEntries (x -> true);
+    aDeadList.getAndRemoveAllEntries (x -> true);
+
+    final ReIndexWorkItem aItemOK = _item (PID_OK);
+    final ReIndexWorkItem aItemTimeout = _item (PID_TIMEOUT);
+    final ReIndexWorkItem aItemGone = _item (PID_GONE);
+    aReIndexList.addItem (aItemOK, false);
+    aReIndexList.addItem (aItemTimeout, false);
+    aReIndexList.addItem (aItemGone, false);
+
+    // Not yet due - nothing happens
+    final LocalDateTime aNow = PDTFactory.getCurrentLocalDateTime ();
+    aMgr.reIndexParticipantDataSynchronously (aNow, TimeUnit.MINUTES.toNanos (1));
+    assertTrue (m_aQueried.isEmpty ());
+    assertEquals (3, aReIndexList.getItemCount ());
+    assertEquals (0, aDeadList.getItemCount ());
+
+    // Due - the successful item is done, the transient failure is retried later and the permanent
+    // failure is moved to the dead list
+    aMgr.reIndexParticipantDataSynchronously (aNow.plusDays (1), TimeUnit.MINUTES.toNanos (1));
+    assertEquals (new CommonsHashSet <> (_value (PID_OK), _value (PID_TIMEOUT), _value (PID_GONE)),
+                  new CommonsHashSet <> (m_aQueried));
+    assertEquals (1, aReIndexList.getItemCount ());
+    IReIndexWorkItem aRetryItem = aReIndexList.getItemOfID (aItemTimeout.getID ());
+    assertNotNull (aRetryItem);
+    assertEquals (1, aRetryItem.getRetryCount ());
+    assertEquals (EIndexerFailureClass.TIMEOUT, aRetryItem.getFailureClass ());
+    assertNull (aReIndexList.getItemOfID (aItemGone.getID ()));
+
+    assertEquals (1, aDeadList.getItemCount ());
+    final IReIndexWorkItem aDeadItem = aDeadList.getItemOfID (aItemGone.getID ());
+    assertNotNull (aDeadItem);
+    assertEquals (1, aDeadItem.getRetryCount ());
+    assertEquals (EIndexerFailureClass.NOT_FOUND, aDeadItem.getFailureClass ());
+
+    // Due, but the time budget is already exhausted - carried over without counting a retry
+    m_aQueried.clear ();
+    final long nCarriedOver = aMgr.getCarriedOverReIndexItemCount ();
+    aMgr.reIndexParticipantDataSynchronously (aNow.plusDays (2), 0);
+    assertTrue (m_aQueried.isEmpty ());
+    assertEquals (1, aReIndexList.getItemCount ());
+    aRetryItem = aReIndexList.getItemOfID (aItemTimeout.getID ());
+    assertNotNull (aRetryItem);
+    assertEquals (1, aRetryItem.getRetryCount ());
+    assertEquals (nCarriedOver + 1, aMgr.getCarriedOverReIndexItemCount ());
+
+    // Carried over items are the first ones in the next run - dead items are not retried
+    aMgr.reIndexParticipantDataSynchronously (aNow.plusDays (2), TimeUnit.MINUTES.toNanos (1));
+    assertEquals (new CommonsHashSet <> (_value (PID_TIMEOUT)), new CommonsHashSet <> (m_aQueried));
+    assertEquals (1, aReIndexList.getItemCount ());
+    assertEquals (2, aReIndexList.getItemOfID (aItemTimeout.getID ()).getRetryCount ());
+    assertEquals (1, aDeadList.getItemCount ());
+  }
+}
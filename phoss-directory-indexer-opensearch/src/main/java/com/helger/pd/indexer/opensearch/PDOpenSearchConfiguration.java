@@ -54,6 +54,9 @@ public final class PDOpenSearchConfiguration
   /** The default number of minutes a scroll context is kept alive */
   public static final int DEFAULT_SCROLL_TIMEOUT_MINUTES = 5;
 
+  /** The default number of minutes a point in time for cursor based searches is kept alive */
+  public static final int DEFAULT_PIT_KEEPALIVE_MINUTES = 5;
+
   private PDOpenSearchConfiguration ()
   {}
 
@@ -209,4 +212,21 @@ public final class PDOpenSearchConfiguration
       throw new IllegalStateException ("The opensearch.scroll.timeout.minutes property must be > 0!");
     return ret;
   }
+
+  /**
+   * Read value of <code>opensearch.pit.keepalive.minutes</code>. Defaults to
+   * {@link #DEFAULT_PIT_KEEPALIVE_MINUTES}.
+   *
+   * @return The number of minutes a point in time used for cursor based searches is kept alive on
+   *         the server. Always &gt; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getPitKeepAliveMinutes ()
+  {
+    final int ret = _getConfig ().getAsInt ("opensearch.pit.keepalive.minutes", DEFAULT_PIT_KEEPALIVE_MINUTES);
+    if (ret <= 0)
+      throw new IllegalStateException ("The opensearch.pit.keepalive.minutes property must be > 0!");
+    return ret;
+  }
 }
@@ -17,9 +17,12 @@
 package com.helger.pd.indexer.opensearch;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
@@ -29,8 +32,10 @@ import org.opensearch.client.json.JsonData;
 import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.client.opensearch._types.Conflicts;
 import org.opensearch.client.opensearch._types.FieldValue;
+import org.opensearch.client.opensearch._types.OpenSearchException;
 import org.opensearch.client.opensearch._types.Refresh;
 import org.opensearch.client.opensearch._types.SortOptions;
+import org.opensearch.client.opensearch._types.SortOrder;
 import org.opensearch.client.opensearch._types.Time;
 import org.opensearch.client.opensearch._types.mapping.Property;
 import org.opensearch.client.opensearch._types.mapping.TypeMapping;
@@ -43,7 +48,10 @@ import org.opensearch.client.opensearch.core.DeleteByQueryResponse;
 import org.opensearch.client.opensearch.core.InfoResponse;
 import org.opensearch.client.opensearch.core.SearchResponse;
 import org.opensearch.client.opensearch.core.bulk.BulkResponseItem;
+import org.opensearch.client.opensearch.core.pit.CreatePitResponse;
 import org.opensearch.client.opensearch.core.search.Hit;
+import org.opensearch.client.opensearch.core.search.SourceConfig;
+import org.opensearch.client.opensearch.core.search.TotalHits;
 import org.opensearch.client.opensearch.indices.AnalyzeResponse;
 import org.opensearch.client.opensearch.indices.IndexSettings;
 import org.opensearch.client.opensearch.indices.analyze.AnalyzeToken;
@@ -56,6 +64,10 @@ import org.slf4j.LoggerFactory;
 
 import com.helger.annotation.CheckForSigned;
 import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.GuardedBy;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.concurrent.SimpleReadWriteLock;
 import com.helger.base.enforce.ValueEnforcer;
 import com.helger.base.string.StringHelper;
 import com.helger.collection.commons.CommonsArrayList;
@@ -66,6 +78,8 @@ import com.helger.pd.indexer.searchindex.EPDIndexFieldTokenize;
 import com.helger.pd.indexer.searchindex.IPDIndex;
 import com.helger.pd.indexer.searchindex.PDIndexDocument;
 import com.helger.pd.indexer.searchindex.PDIndexField;
+import com.helger.pd.indexer.searchindex.PDIndexSearchCursor;
+import com.helger.pd.indexer.searchindex.PDIndexSearchResult;
 import com.helger.pd.indexer.searchindex.query.EPDIndexQueryOccur;
 import com.helger.pd.indexer.searchindex.query.IPDIndexQuery;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryBool;
@@ -74,6 +88,7 @@ import com.helger.pd.indexer.searchindex.query.PDIndexQueryMatchAll;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryPrefix;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryTerm;
 import com.helger.pd.indexer.storage.CPDStorage;
+import com.helger.pd.indexer.storage.PDNGramShadowFields;
 import com.helger.pd.indexer.storage.field.PDField;
 
 import jakarta.annotation.Nullable;
@@ -83,6 +98,7 @@ import jakarta.json.JsonArrayBuilder;
 import jakarta.json.JsonNumber;
 import jakarta.json.JsonObject;
 import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonReader;
 import jakarta.json.JsonString;
 import jakarta.json.JsonValue;
 
@@ -109,12 +125,34 @@ public class PDOpenSearchIndex implements IPDIndex
   public static final String ANALYZER_STANDARD = "standard";
 
   private static final Logger LOGGER = LoggerFactory.getLogger (PDOpenSearchIndex.class);
+  private static final String CURSOR_TYPE_OPENSEARCH = "opensearch";
+  // A failing shared point in time is renewed at most this often
+  private static final long MIN_PIT_RENEWAL_NANOS = TimeUnit.SECONDS.toNanos (10);
+  private static final String NGRAM_FIELD_PATTERN = "*" + PDNGramShadowFields.FIELD_NAME_SUFFIX;
+  // Relevance first, participant ID and the shard document make the order total
+  private static final ICommonsList <SortOptions> SORT_SEARCH_AFTER = new CommonsArrayList <> ();
+  static
+  {
+    SORT_SEARCH_AFTER.add (SortOptions.of (x -> x.score (sc -> sc.order (SortOrder.Desc))));
+    SORT_SEARCH_AFTER.add (SortOptions.of (x -> x.field (f -> f.field (PDField.PARTICIPANT_ID.getFieldName ())
+                                                               .order (SortOrder.Asc))));
+    SORT_SEARCH_AFTER.add (SortOptions.of (x -> x.field (f -> f.field ("_shard_doc").order (SortOrder.Asc))));
+  }
 
   private final OpenSearchTransport m_aTransport;
   private final OpenSearchClient m_aClient;
   private final String m_sIndexName;
   private final String m_sEndpointURL;
   private final AtomicBoolean m_aClosing = new AtomicBoolean (false);
+  private final SimpleReadWriteLock m_aPitRWLock = new SimpleReadWriteLock ();
+  // The point in time shared by all new cursor chains
+  @GuardedBy ("m_aPitRWLock")
+  private String m_sSharedPitID;
+  @GuardedBy ("m_aPitRWLock")
+  private long m_nSharedPitCreationNanos;
+  // All points in time created by this object that may not yet be expired, with their creation time
+  @GuardedBy ("m_aPitRWLock")
+  private final ICommonsOrderedMap <String, Long> m_aKnownPits = new CommonsLinkedHashMap <> ();
 
   /**
    * Default constructor using the configuration properties starting with <code>opensearch.</code>.
@@ -257,6 +295,8 @@ public class PDOpenSearchIndex implements IPDIndex
     _addStringProperty (aProps, PDField.METADATA_REQUESTING_HOST.getFieldName (), EPDIndexFieldTokenize.NO_TOKENIZE);
     // The catch all field is tokenized but never read back
     _addStringProperty (aProps, CPDStorage.FIELD_ALL_FIELDS, EPDIndexFieldTokenize.TOKENIZE);
+    // The n-gram shadow fields are never read back
+    aProps.putAll (createNGramProperties ());
 
     // The only numeric field - it is never queried, so it needs no index
     aProps.put (PDField.METADATA_CREATIONDT.getFieldName (),
@@ -267,10 +307,27 @@ public class PDOpenSearchIndex implements IPDIndex
                       // Everything that is not mapped above is not indexed at all
                       .dynamic (org.opensearch.client.opensearch._types.mapping.DynamicMapping.False)
                       // The catch all field is indexed but not stored
-                      .source (s -> s.excludes (CPDStorage.FIELD_ALL_FIELDS))
+                      .source (s -> s.excludes (CPDStorage.FIELD_ALL_FIELDS, NGRAM_FIELD_PATTERN))
                       .build ();
   }
 
+  /**
+   * @return The type mapping properties of all n-gram shadow fields. Each n-gram is a single term,
+   *         so they are mapped as <code>keyword</code>.
+   * @since 0.16.1
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public static ICommonsOrderedMap <String, Property> createNGramProperties ()
+  {
+    final ICommonsOrderedMap <String, Property> ret = new CommonsLinkedHashMap <> ();
+    for (final String sFieldName : PDNGramShadowFields.getAllSourceFieldNames ())
+      _addStringProperty (ret,
+                          PDNGramShadowFields.getShadowFieldName (sFieldName),
+                          EPDIndexFieldTokenize.NO_TOKENIZE);
+    return ret;
+  }
+
   private static void _addStringProperty (@NonNull final Map <String, Property> aProps,
                                           @NonNull @Nonempty final String sFieldName,
                                           @NonNull final EPDIndexFieldTokenize eTokenize)
@@ -289,6 +346,11 @@ public class PDOpenSearchIndex implements IPDIndex
     if (m_aClient.indices ().exists (e -> e.index (m_sIndexName)).value ())
     {
       LOGGER.info ("The OpenSearch index '" + m_sIndexName + "' already exists");
+
+      // Fields can be added to an existing mapping - required for indices created before the
+      // n-gram shadow fields were introduced
+      final ICommonsOrderedMap <String, Property> aNGramProps = createNGramProperties ();
+      m_aClient.indices ().putMapping (p -> p.index (m_sIndexName).properties (aNGramProps));
       return;
     }
 
@@ -308,6 +370,21 @@ public class PDOpenSearchIndex implements IPDIndex
     // Avoid double closing
     if (!m_aClosing.getAndSet (true))
     {
+      // Release the points in time on the server
+      final ICommonsList <String> aPitIDs;
+      m_aPitRWLock.writeLock ().lock ();
+      try
+      {
+        aPitIDs = new CommonsArrayList <> (m_aKnownPits.keySet ());
+        m_aKnownPits.clear ();
+        m_sSharedPitID = null;
+      }
+      finally
+      {
+        m_aPitRWLock.writeLock ().unlock ();
+      }
+      aPitIDs.forEach (this::_deletePit);
+
       m_aTransport.close ();
       LOGGER.info ("Closed the OpenSearch transport");
     }
@@ -464,8 +541,329 @@ public class PDOpenSearchIndex implements IPDIndex
     return nCount > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) nCount;
   }
 
+  @NonNull
+  public PDIndexSearchResult <PDIndexDocument> search (@NonNull final IPDIndexQuery aQuery,
+                                                       @Nonnegative final int nOffset,
+                                                       @Nonnegative final int nLimit) throws IOException
+  {
+    ValueEnforcer.notNull (aQuery, "Query");
+    ValueEnforcer.isGE0 (nOffset, "Offset");
+    ValueEnforcer.isGT0 (nLimit, "Limit");
+    // Avoid an overflow and huge priority queues
+    if (nLimit > MAX_SEARCH_WINDOW || nOffset > MAX_SEARCH_WINDOW - nLimit)
+      throw new IllegalArgumentException ("Offset (" +
+                                          nOffset +
+                                          ") plus limit (" +
+                                          nLimit +
+                                          ") must not exceed " +
+                                          MAX_SEARCH_WINDOW);
+    _checkClosing ();
+
+    final Query aOSQuery = _toOpenSearchQuery (aQuery);
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("Searching OpenSearch from " + nOffset + " with limit " + nLimit + ": " + aQuery);
+
+    // A single request delivers the window and the exact total hit count
+    final SearchResponse <JsonData> aResponse = m_aClient.search (s -> s.index (m_sIndexName)
+                                                                        .query (aOSQuery)
+                                                                        .source (_createSourceConfig (null))
+                                                                        .from (Integer.valueOf (nOffset))
+                                                                        .size (Integer.valueOf (nLimit))
+                                                                        .trackTotalHits (t -> t.enabled (Boolean.TRUE)),
+                                                                  JsonData.class);
+    final ICommonsList <PDIndexDocument> aHits = new CommonsArrayList <> ();
+    _consumeHits (aResponse, aHits::add);
+
+    final TotalHits aTotalHits = aResponse.hits ().total ();
+    final long nTotalHits = aTotalHits == null ? aHits.size () : aTotalHits.value ();
+    return new PDIndexSearchResult <> (aHits, nTotalHits > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) nTotalHits);
+  }
+
+  /**
+   * {@inheritDoc}<br>
+   * This implementation uses a point in time (PIT) and <code>search_after</code>: the cursor
+   * contains the ID of the point in time together with the sort values of the last returned hit.
+   * The hits are sorted by descending relevance, then by participant ID and finally by the
+   * <code>_shard_doc</code> tiebreaker. All windows of a cursor chain therefore see the same
+   * snapshot of the index, and every window costs the same, independent of its position.<br>
+   * All new cursor chains share one point in time, that is renewed after half of the keep alive
+   * time. So the number of open points in time is bounded, independent of the number of (possibly
+   * abandoned) cursor chains. A point in time from a cursor is only used, if it was created by this
+   * object and did not yet expire. Otherwise the chain continues on the current shared point in
+   * time and therefore on the current index state.
+   */
+  @NonNull
+  public PDIndexSearchResult <PDIndexDocument> searchAfter (@NonNull final IPDIndexQuery aQuery,
+                                                            @Nullable final String sCursor,
+                                                            @Nonnegative final int nLimit) throws IOException
+  {
+    ValueEnforcer.notNull (aQuery, "Query");
+    ValueEnforcer.isBetweenInclusive (nLimit, "Limit", 1, MAX_SEARCH_WINDOW);
+    _checkClosing ();
+
+    String sPitID = null;
+    List <FieldValue> aSearchAfter = null;
+    if (sCursor != null)
+    {
+      final ICommonsList <String> aValues = PDIndexSearchCursor.decode (sCursor, CURSOR_TYPE_OPENSEARCH, 2);
+      if (aValues != null)
+      {
+        sPitID = aValues.get (0);
+        aSearchAfter = _readSortValues (aValues.get (1));
+      }
+      if (StringHelper.isEmpty (sPitID) || aSearchAfter == null)
+        throw new IllegalArgumentException ("The provided search cursor is invalid");
+    }
+
+    final Query aOSQuery = _toOpenSearchQuery (aQuery);
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("Searching OpenSearch after cursor with limit " + nLimit + ": " + aQuery);
+
+    if (sPitID != null && !_isKnownPit (sPitID))
+    {
+      // Never use a point in time that was not created by this object
+      LOGGER.info ("The point in time of the search cursor is unknown or expired - continuing on the current one");
+      sPitID = null;
+    }
+    if (sPitID == null)
+      sPitID = _getSharedPit (null);
+
+    SearchResponse <JsonData> aResponse;
+    try
+    {
+      aResponse = _searchPit (aOSQuery, sPitID, aSearchAfter, nLimit);
+    }
+    catch (final OpenSearchException ex)
+    {
+      // Most likely the point in time expired - continue on the current state
+      LOGGER.info ("Failed to search with the OpenSearch point in time (" +
+                   ex.getMessage () +
+                   ") - using a new one");
+      sPitID = _getSharedPit (sPitID);
+      aResponse = _searchPit (aOSQuery, sPitID, aSearchAfter, nLimit);
+    }
+
+    // One more hit was requested, to know if there is a next window
+    final List <Hit <JsonData>> aAllHits = aResponse.hits ().hits ();
+    final ICommonsList <PDIndexDocument> aHits = new CommonsArrayList <> ();
+    _consumeHits (aAllHits.subList (0, Math.min (aAllHits.size (), nLimit)), aHits::add);
+
+    final String sNextCursor;
+    if (aAllHits.size () > nLimit)
+    {
+      // The ID of the point in time may change with every request
+      final String sNextPitID = StringHelper.getNotEmpty (aResponse.pitId (), sPitID);
+      if (!sNextPitID.equals (sPitID))
+        _registerChangedPit (sPitID, sNextPitID);
+      sNextCursor = PDIndexSearchCursor.encode (CURSOR_TYPE_OPENSEARCH,
+                                                sNextPitID,
+                                                _getSortValuesAsString (aAllHits.get (nLimit - 1).sort ()));
+    }
+    else
+    {
+      // End of the chain - the point in time is shared and therefore not deleted
+      sNextCursor = null;
+    }
+
+    final TotalHits aTotalHits = aResponse.hits ().total ();
+    final long nTotalHits = aTotalHits == null ? aHits.size () : aTotalHits.value ();
+    return new PDIndexSearchResult <> (aHits,
+                                       nTotalHits > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) nTotalHits,
+                                       sNextCursor);
+  }
+
+  @NonNull
+  private String _createPit () throws IOException
+  {
+    final Time aKeepAlive = Time.of (t -> t.time (PDOpenSearchConfiguration.getPitKeepAliveMinutes () + "m"));
+    final CreatePitResponse aResponse = m_aClient.createPit (c -> c.targetIndexes (m_sIndexName).keepAlive (aKeepAlive));
+    return aResponse.pitId ();
+  }
+
+  /**
+   * Get the shared point in time for new cursor chains. It is renewed after half of the keep alive
+   * time, so that cursors on the previous one stay valid for a while.
+   *
+   * @param sFailedPitID
+   *        The ID of a point in time that could not be used for searching. If it is the shared one,
+   *        a new one is created - but at most once every 10 seconds, so that failing requests
+   *        cannot open an unbounded number of points in time. May be <code>null</code>.
+   * @return The ID of the shared point in time. Never <code>null</code>.
+   * @throws IOException
+   *         On IO error
+   */
+  @NonNull
+  private String _getSharedPit (@Nullable final String sFailedPitID) throws IOException
+  {
+    final long nKeepAliveNanos = TimeUnit.MINUTES.toNanos (PDOpenSearchConfiguration.getPitKeepAliveMinutes ());
+    m_aPitRWLock.writeLock ().lock ();
+    try
+    {
+      final long nNow = System.nanoTime ();
+      // Forget all points in time that expired on the server anyway
+      m_aKnownPits.entrySet ().removeIf (x -> nNow - x.getValue ().longValue () >= nKeepAliveNanos);
+      if (sFailedPitID != null)
+        m_aKnownPits.remove (sFailedPitID);
+
+      if (m_sSharedPitID == null ||
+          (m_sSharedPitID.equals (sFailedPitID) && nNow - m_nSharedPitCreationNanos >= MIN_PIT_RENEWAL_NANOS) ||
+          nNow - m_nSharedPitCreationNanos >= nKeepAliveNanos / 2)
+      {
+        m_sSharedPitID = _createPit ();
+        m_nSharedPitCreationNanos = nNow;
+        m_aKnownPits.put (m_sSharedPitID, Long.valueOf (nNow));
+      }
+      return m_sSharedPitID;
+    }
+    finally
+    {
+      m_aPitRWLock.writeLock ().unlock ();
+    }
+  }
+
+  private boolean _isKnownPit (@NonNull final String sPitID)
+  {
+    m_aPitRWLock.readLock ().lock ();
+    try
+    {
+      return m_aKnownPits.containsKey (sPitID);
+    }
+    finally
+    {
+      m_aPitRWLock.readLock ().unlock ();
+    }
+  }
+
+  private void _registerChangedPit (@NonNull final String sOldPitID, @NonNull final String sNewPitID)
+  {
+    m_aPitRWLock.writeLock ().lock ();
+    try
+    {
+      // Same point in time, just a different ID
+      final Long aCreationNanos = m_aKnownPits.get (sOldPitID);
+      if (aCreationNanos != null)
+      {
+        m_aKnownPits.put (sNewPitID, aCreationNanos);
+        if (sOldPitID.equals (m_sSharedPitID))
+          m_sSharedPitID = sNewPitID;
+      }
+    }
+    finally
+    {
+      m_aPitRWLock.writeLock ().unlock ();
+    }
+  }
+
+  private void _deletePit (@NonNull final String sPitID)
+  {
+    try
+    {
+      m_aClient.deletePit (d -> d.pitId (sPitID));
+    }
+    catch (final IOException | RuntimeException ex)
+    {
+      // Not fatal - the point in time times out anyway
+      LOGGER.warn ("Failed to delete the OpenSearch point in time: " + ex.getMessage ());
+    }
+  }
+
+  @NonNull
+  private SearchResponse <JsonData> _searchPit (@NonNull final Query aOSQuery,
+                                                @NonNull final String sPitID,
+                                                @Nullable final List <FieldValue> aSearchAfter,
+                                                @Nonnegative final int nLimit) throws IOException
+  {
+    // No index name - it is part of the point in time
+    return m_aClient.search (s -> {
+      s.pit (p -> p.id (sPitID))
+       .query (aOSQuery)
+       .source (_createSourceConfig (null))
+       .size (Integer.valueOf (nLimit + 1))
+       .trackTotalHits (t -> t.enabled (Boolean.TRUE))
+       .sort (SORT_SEARCH_AFTER);
+      if (aSearchAfter != null)
+        s.searchAfter (aSearchAfter);
+      return s;
+    }, JsonData.class);
+  }
+
+  @NonNull
+  private static String _getSortValuesAsString (@NonNull final List <FieldValue> aSortValues)
+  {
+    final JsonArrayBuilder aBuilder = Json.createArrayBuilder ();
+    for (final FieldValue aValue : aSortValues)
+    {
+      if (aValue.isDouble ())
+        aBuilder.add (aValue.doubleValue ());
+      else
+        if (aValue.isLong ())
+          aBuilder.add (aValue.longValue ());
+        else
+          if (aValue.isBoolean ())
+            aBuilder.add (aValue.booleanValue ());
+          else
+            if (aValue.isString ())
+              aBuilder.add (aValue.stringValue ());
+            else
+              aBuilder.addNull ();
+    }
+    return aBuilder.build ().toString ();
+  }
+
+  @Nullable
+  private static List <FieldValue> _readSortValues (@NonNull final String sSortValues)
+  {
+    final JsonArray aArray;
+    try (final JsonReader aReader = Json.createReader (new StringReader (sSortValues)))
+    {
+      aArray = aReader.readArray ();
+    }
+    catch (final RuntimeException ex)
+    {
+      // Not a JSON array
+      return null;
+    }
+
+    final ICommonsList <FieldValue> ret = new CommonsArrayList <> ();
+    for (final JsonValue aValue : aArray)
+    {
+      if (aValue instanceof final JsonNumber aNumber)
+        ret.add (aNumber.isIntegral () ? FieldValue.of (aNumber.longValue ()) : FieldValue.of (aNumber.doubleValue ()));
+      else
+        if (aValue instanceof final JsonString aString)
+          ret.add (FieldValue.of (aString.getString ()));
+        else
+          if (aValue == JsonValue.TRUE || aValue == JsonValue.FALSE)
+            ret.add (FieldValue.of (aValue == JsonValue.TRUE));
+          else
+            ret.add (FieldValue.NULL);
+    }
+    return ret;
+  }
+
+  /**
+   * Create the source filter that only returns the provided fields.
+   *
+   * @param aFieldsToLoad
+   *        The fields to load. May be <code>null</code> to load all fields except the n-gram shadow
+   *        fields.
+   * @return Never <code>null</code>.
+   */
+  @NonNull
+  private static SourceConfig _createSourceConfig (@Nullable final Set <String> aFieldsToLoad)
+  {
+    if (aFieldsToLoad == null)
+    {
+      // Indices created before the n-gram shadow fields were introduced contain them in the source
+      return SourceConfig.of (sc -> sc.filter (f -> f.excludes (NGRAM_FIELD_PATTERN)));
+    }
+    final ICommonsList <String> aIncludes = new CommonsArrayList <> (aFieldsToLoad);
+    return SourceConfig.of (sc -> sc.filter (f -> f.includes (aIncludes)));
+  }
+
   public void searchAll (@NonNull final IPDIndexQuery aQuery,
                          @CheckForSigned final int nMaxResultCount,
+                         @Nullable final Set <String> aFieldsToLoad,
                          @NonNull final Consumer <? super PDIndexDocument> aConsumer) throws IOException
   {
     ValueEnforcer.notNull (aQuery, "Query");
@@ -476,11 +874,15 @@ public class PDOpenSearchIndex implements IPDIndex
     if (LOGGER.isDebugEnabled ())
       LOGGER.debug ("Searching OpenSearch: " + aQuery);
 
+    // Only transfer the requested fields
+    final SourceConfig aSourceConfig = _createSourceConfig (aFieldsToLoad);
+
     if (nMaxResultCount > 0)
     {
       // Search top docs only
       final SearchResponse <JsonData> aResponse = m_aClient.search (s -> s.index (m_sIndexName)
                                                                           .query (aOSQuery)
+                                                                          .source (aSourceConfig)
                                                                           .size (Integer.valueOf (nMaxResultCount)),
                                                                     JsonData.class);
       _consumeHits (aResponse, aConsumer);
@@ -494,6 +896,7 @@ public class PDOpenSearchIndex implements IPDIndex
 
       SearchResponse <JsonData> aResponse = m_aClient.search (s -> s.index (m_sIndexName)
                                                                     .query (aOSQuery)
+                                                                    .source (aSourceConfig)
                                                                     .size (aPageSize)
                                                                     .scroll (aScrollTime)
                                                                     // Sorting by document order is
@@ -535,7 +938,13 @@ public class PDOpenSearchIndex implements IPDIndex
   private static void _consumeHits (@NonNull final SearchResponse <JsonData> aResponse,
                                     @NonNull final Consumer <? super PDIndexDocument> aConsumer)
   {
-    for (final Hit <JsonData> aHit : aResponse.hits ().hits ())
+    _consumeHits (aResponse.hits ().hits (), aConsumer);
+  }
+
+  private static void _consumeHits (@NonNull final List <Hit <JsonData>> aHits,
+                                    @NonNull final Consumer <? super PDIndexDocument> aConsumer)
+  {
+    for (final Hit <JsonData> aHit : aHits)
     {
       final JsonData aSource = aHit.source ();
       if (aSource == null)
@@ -20,6 +20,9 @@ import java.util.function.Consumer;
 
 import org.jspecify.annotations.NonNull;
 
+import com.helger.collection.commons.ICommonsList;
+import com.helger.pd.indexer.index.EIndexerFailureClass;
+import com.helger.peppolid.IDocumentTypeIdentifier;
 import com.helger.peppolid.IParticipantIdentifier;
 
 import jakarta.annotation.Nullable;
@@ -46,4 +49,77 @@ public interface IPDBusinessCardProvider
   @Nullable
   PDExtendedBusinessCard getBusinessCard (@NonNull IParticipantIdentifier aParticipantID,
                                           @NonNull Consumer <String> aErrorMsgHandler);
+
+  /**
+   * Get the {@link PDExtendedBusinessCard} for the given participant ID and report the class of the
+   * failure, if the business card could not be retrieved. This is used to determine the retry
+   * policy.<br>
+   * The default implementation calls {@link #getBusinessCard(IParticipantIdentifier, Consumer)} and
+   * never reports a failure class.
+   *
+   * @param aParticipantID
+   *        Peppol participant ID. May not be <code>null</code>.
+   * @param aErrorMsgHandler
+   *        Handler to capture errors on what went wrong. May not be <code>null</code>.
+   * @param aFailureClassHandler
+   *        Handler to capture the classes of the failures. May not be <code>null</code>.
+   * @return <code>null</code> if no business card exists for the provided participant ID.
+   * @since 0.16.1
+   */
+  @Nullable
+  default PDExtendedBusinessCard getBusinessCard (@NonNull final IParticipantIdentifier aParticipantID,
+                                                  @NonNull final Consumer <String> aErrorMsgHandler,
+                                                  @NonNull final Consumer <EIndexerFailureClass> aFailureClassHandler)
+  {
+    return getBusinessCard (aParticipantID, aErrorMsgHandler);
+  }
+
+  /**
+   * Get the {@link PDExtendedBusinessCard} for the given participant ID, unless it is unchanged
+   * since the last retrieval. If HTTP cache validators are provided, a conditional request is sent.
+   * If the SMP reports the business card as unchanged, the not modified handler is invoked with the
+   * current document types and <code>null</code> is returned.<br>
+   * The default implementation ignores the validators and calls
+   * {@link #getBusinessCard(IParticipantIdentifier, Consumer, Consumer)}.
+   *
+   * @param aParticipantID
+   *        Peppol participant ID. May not be <code>null</code>.
+   * @param aKnownValidators
+   *        The HTTP cache validators of the last retrieval. May be <code>null</code>.
+   * @param aErrorMsgHandler
+   *        Handler to capture errors on what went wrong. May not be <code>null</code>.
+   * @param aFailureClassHandler
+   *        Handler to capture the classes of the failures. May not be <code>null</code>.
+   * @param aNotModifiedHandler
+   *        Handler that receives the current document types, if the business card is unchanged.
+   *        May not be <code>null</code>.
+   * @return <code>null</code> if no business card exists for the provided participant ID or if it
+   *         is unchanged.
+   * @since 0.16.1
+   */
+  @Nullable
+  default PDExtendedBusinessCard getBusinessCard (@NonNull final IParticipantIdentifier aParticipantID,
+                                                  @Nullable final PDBusinessCardValidators aKnownValidators,
+                                                  @NonNull final Consumer <String> aErrorMsgHandler,
+                                                  @NonNull final Consumer <EIndexerFailureClass> aFailureClassHandler,
+                                                  @NonNull final Consumer <? super ICommonsList <IDocumentTypeIdentifier>> aNotModifiedHandler)
+  {
+    return getBusinessCard (aParticipantID, aErrorMsgHandler, aFailureClassHandler);
+  }
+
+  /**
+   * Determine the host name of the SMP that would be queried for the given participant ID, without
+   * querying it. This is used to limit the concurrent requests per SMP.<br>
+   * The default implementation returns <code>null</code>.
+   *
+   * @param aParticipantID
+   *        Peppol participant ID. May not be <code>null</code>.
+   * @return The SMP host name or <code>null</code> if it cannot be determined.
+   * @since 0.16.1
+   */
+  @Nullable
+  default String getSMPHostNameOrNull (@NonNull final IParticipantIdentifier aParticipantID)
+  {
+    return null;
+  }
 }
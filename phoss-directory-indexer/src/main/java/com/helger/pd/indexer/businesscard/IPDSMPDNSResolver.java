@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.businesscard;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.smpclient.url.ISMPURLProvider;
+import com.helger.smpclient.url.SMPDNSResolutionException;
+
+/**
+ * Resolve the SMP of a participant via DNS. This is the pluggable part of
+ * {@link PDCachingSMPURLProvider}.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+@FunctionalInterface
+public interface IPDSMPDNSResolver
+{
+  /**
+   * Resolve the SMP of the provided participant.
+   *
+   * @param aParticipantID
+   *        The participant ID to resolve. May not be <code>null</code>.
+   * @param sSMLZoneName
+   *        The DNS zone of the SML to use. May not be <code>null</code>.
+   * @return The resolved record. Never <code>null</code>.
+   * @throws SMPDNSResolutionException
+   *         If the participant could not be resolved. Throw a {@link PDSMPDNSNotFoundException} if
+   *         the participant definitively does not exist in DNS.
+   */
+  @NonNull
+  PDSMPDNSRecord resolve (@NonNull IParticipantIdentifier aParticipantID,
+                          @NonNull String sSMLZoneName) throws SMPDNSResolutionException;
+
+  /**
+   * Create a resolver based on an existing {@link ISMPURLProvider}. As the URL provider does not
+   * expose the TTL of the DNS records, a fixed TTL is used. It also has no dedicated exception for a
+   * non-existing participant, so the following failures are converted to a
+   * {@link PDSMPDNSNotFoundException}:
+   * <ul>
+   * <li>Failures without a cause - that is how the URL provider reports that the DNS lookup
+   * succeeded but returned no (matching) NAPTR or CNAME record</li>
+   * <li>Failures caused by an {@link java.net.UnknownHostException}</li>
+   * </ul>
+   * All other failures (e.g. caused by an I/O error) are considered transient.
+   *
+   * @param aURLProvider
+   *        The URL provider to use. May not be <code>null</code>.
+   * @param nTTLSeconds
+   *        The TTL in seconds to use for all resolved records. Must be &ge; 0.
+   * @return The new resolver. Never <code>null</code>.
+   */
+  @NonNull
+  static IPDSMPDNSResolver createFromURLProvider (@NonNull final ISMPURLProvider aURLProvider,
+                                                  @Nonnegative final long nTTLSeconds)
+  {
+    ValueEnforcer.notNull (aURLProvider, "URLProvider");
+    ValueEnforcer.isGE0 (nTTLSeconds, "TTLSeconds");
+    return (aParticipantID, sSMLZoneName) -> {
+      try
+      {
+        return new PDSMPDNSRecord (aURLProvider.getSMPURIOfParticipant (aParticipantID, sSMLZoneName), nTTLSeconds);
+      }
+      catch (final SMPDNSResolutionException ex)
+      {
+        if (ex instanceof PDSMPDNSNotFoundException || !_isNoRecord (ex))
+          throw ex;
+        throw new PDSMPDNSNotFoundException ("No DNS record found for participant '" +
+                                             aParticipantID.getURIEncoded () +
+                                             "' in '" +
+                                             sSMLZoneName +
+                                             "'" +
+                                             (ex.getMessage () != null ? ": " + ex.getMessage () : ""),
+                                             ex);
+      }
+    };
+  }
+
+  private static boolean _isNoRecord (@NonNull final SMPDNSResolutionException aException)
+  {
+    return aException.getCause () == null || PDCachingSMPURLProvider.isNotFound (aException);
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.businesscard;
+
+import java.io.Serializable;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.equals.EqualsHelper;
+import com.helger.base.hashcode.HashCodeGenerator;
+import com.helger.base.string.StringHelper;
+import com.helger.base.tostring.ToStringGenerator;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * The HTTP cache validators (<code>ETag</code> and <code>Last-Modified</code> response headers)
+ * that an SMP returned together with a business card. They are used to send conditional requests
+ * the next time the business card is fetched.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+@Immutable
+public final class PDBusinessCardValidators implements Serializable
+{
+  private final String m_sETag;
+  private final String m_sLastModified;
+
+  /**
+   * Constructor
+   *
+   * @param sETag
+   *        The value of the <code>ETag</code> response header. May be <code>null</code>.
+   * @param sLastModified
+   *        The value of the <code>Last-Modified</code> response header. May be <code>null</code>.
+   */
+  public PDBusinessCardValidators (@Nullable final String sETag, @Nullable final String sLastModified)
+  {
+    m_sETag = StringHelper.isEmpty (sETag) ? null : sETag;
+    m_sLastModified = StringHelper.isEmpty (sLastModified) ? null : sLastModified;
+  }
+
+  /**
+   * @return The value of the <code>ETag</code> response header. May be <code>null</code>.
+   */
+  @Nullable
+  public String getETag ()
+  {
+    return m_sETag;
+  }
+
+  /**
+   * @return The value of the <code>Last-Modified</code> response header. May be
+   *         <code>null</code>.
+   */
+  @Nullable
+  public String getLastModified ()
+  {
+    return m_sLastModified;
+  }
+
+  /**
+   * @return <code>true</code> if neither an ETag nor a Last-Modified value is present, so that no
+   *         conditional request can be sent.
+   */
+  public boolean isEmpty ()
+  {
+    return m_sETag == null && m_sLastModified == null;
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o == null || !getClass ().equals (o.getClass ()))
+      return false;
+    final PDBusinessCardValidators rhs = (PDBusinessCardValidators) o;
+    return EqualsHelper.equals (m_sETag, rhs.m_sETag) && EqualsHelper.equals (m_sLastModified, rhs.m_sLastModified);
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return new HashCodeGenerator (this).append (m_sETag).append (m_sLastModified).getHashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).appendIfNotNull ("ETag", m_sETag)
+                                       .appendIfNotNull ("LastModified", m_sLastModified)
+                                       .getToString ();
+  }
+}
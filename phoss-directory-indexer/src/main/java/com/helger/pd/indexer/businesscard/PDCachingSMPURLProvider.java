@@ -0,0 +1,371 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.businesscard;
+
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.annotation.style.VisibleForTesting;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.peppol.sml.ISMLInfo;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.smpclient.url.ISMPURLProvider;
+import com.helger.smpclient.url.SMPDNSResolutionException;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * An {@link ISMPURLProvider} that caches the SMP URIs resolved by an {@link IPDSMPDNSResolver}
+ * for the TTL provided by the resolver. Participants that could not be resolved are remembered in
+ * a separate negative cache, so that they are not resolved over and over again. Only participants
+ * that definitively do not exist in DNS are remembered for the full negative TTL - transient
+ * failures like timeouts are only remembered for a much shorter time. Both caches are bounded - the
+ * least recently used entries are removed first.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+@ThreadSafe
+public final class PDCachingSMPURLProvider implements ISMPURLProvider
+{
+  /**
+   * A bounded map with an expiration time per entry.
+   *
+   * @param <T>
+   *        The value type
+   */
+  private static final class BoundedExpiringMap <T>
+  {
+    private static final class Entry <T>
+    {
+      private final T m_aValue;
+      private final long m_nExpiryNanos;
+
+      Entry (@NonNull final T aValue, final long nExpiryNanos)
+      {
+        m_aValue = aValue;
+        m_nExpiryNanos = nExpiryNanos;
+      }
+    }
+
+    private final int m_nMaxEntries;
+    private final Lock m_aLock = new ReentrantLock ();
+    // In access order, so that the eldest entry is the least recently used one
+    private final LinkedHashMap <String, Entry <T>> m_aMap = new LinkedHashMap <> (16, 0.75f, true);
+
+    BoundedExpiringMap (@Nonnegative final int nMaxEntries)
+    {
+      m_nMaxEntries = nMaxEntries;
+    }
+
+    boolean isEnabled ()
+    {
+      return m_nMaxEntries > 0;
+    }
+
+    @Nullable
+    T get (@NonNull final String sKey, final long nNowNanos)
+    {
+      m_aLock.lock ();
+      try
+      {
+        final Entry <T> aEntry = m_aMap.get (sKey);
+        if (aEntry == null)
+          return null;
+        if (nNowNanos - aEntry.m_nExpiryNanos >= 0)
+        {
+          // Expired
+          m_aMap.remove (sKey);
+          return null;
+        }
+        return aEntry.m_aValue;
+      }
+      finally
+      {
+        m_aLock.unlock ();
+      }
+    }
+
+    void put (@NonNull final String sKey, @NonNull final T aValue, final long nExpiryNanos)
+    {
+      if (!isEnabled ())
+        return;
+
+      m_aLock.lock ();
+      try
+      {
+        m_aMap.put (sKey, new Entry <> (aValue, nExpiryNanos));
+        if (m_aMap.size () > m_nMaxEntries)
+        {
+          // Remove the least recently used entry
+          final Iterator <String> it = m_aMap.keySet ().iterator ();
+          it.next ();
+          it.remove ();
+        }
+      }
+      finally
+      {
+        m_aLock.unlock ();
+      }
+    }
+
+    @Nonnegative
+    int size ()
+    {
+      m_aLock.lock ();
+      try
+      {
+        return m_aMap.size ();
+      }
+      finally
+      {
+        m_aLock.unlock ();
+      }
+    }
+  }
+
+  private final IPDSMPDNSResolver m_aResolver;
+  private final int m_nNegativeTTLSeconds;
+  private final int m_nTransientNegativeTTLSeconds;
+  private final LongSupplier m_aNanoTimeSupplier;
+  private final BoundedExpiringMap <URI> m_aPositiveCache;
+  private final BoundedExpiringMap <SMPDNSResolutionException> m_aNegativeCache;
+  private final AtomicLong m_aHits = new AtomicLong (0);
+  private final AtomicLong m_aNegativeHits = new AtomicLong (0);
+  private final AtomicLong m_aMisses = new AtomicLong (0);
+
+  /**
+   * Constructor
+   *
+   * @param aResolver
+   *        The resolver to use for participants not in the cache. May not be <code>null</code>.
+   * @param nMaxEntries
+   *        The maximum number of resolved participants to cache. 0 disables the cache. Must be
+   *        &ge; 0.
+   * @param nNegativeTTLSeconds
+   *        The number of seconds a participant that definitively does not exist in DNS is
+   *        remembered. Must be &ge; 0.
+   * @param nTransientNegativeTTLSeconds
+   *        The number of seconds a participant that could not be resolved because of a transient
+   *        failure is remembered. Must be &ge; 0.
+   * @param nNegativeMaxEntries
+   *        The maximum number of participants that could not be resolved to cache. 0 disables the
+   *        negative cache. Must be &ge; 0.
+   */
+  public PDCachingSMPURLProvider (@NonNull final IPDSMPDNSResolver aResolver,
+                                  @Nonnegative final int nMaxEntries,
+                                  @Nonnegative final int nNegativeTTLSeconds,
+                                  @Nonnegative final int nTransientNegativeTTLSeconds,
+                                  @Nonnegative final int nNegativeMaxEntries)
+  {
+    this (aResolver,
+          nMaxEntries,
+          nNegativeTTLSeconds,
+          nTransientNegativeTTLSeconds,
+          nNegativeMaxEntries,
+          System::nanoTime);
+  }
+
+  @VisibleForTesting
+  PDCachingSMPURLProvider (@NonNull final IPDSMPDNSResolver aResolver,
+                           @Nonnegative final int nMaxEntries,
+                           @Nonnegative final int nNegativeTTLSeconds,
+                           @Nonnegative final int nTransientNegativeTTLSeconds,
+                           @Nonnegative final int nNegativeMaxEntries,
+                           @NonNull final LongSupplier aNanoTimeSupplier)
+  {
+    ValueEnforcer.notNull (aResolver, "Resolver");
+    ValueEnforcer.isGE0 (nMaxEntries, "MaxEntries");
+    ValueEnforcer.isGE0 (nNegativeTTLSeconds, "NegativeTTLSeconds");
+    ValueEnforcer.isGE0 (nTransientNegativeTTLSeconds, "TransientNegativeTTLSeconds");
+    ValueEnforcer.isGE0 (nNegativeMaxEntries, "NegativeMaxEntries");
+    ValueEnforcer.notNull (aNanoTimeSupplier, "NanoTimeSupplier");
+    m_aResolver = aResolver;
+    m_nNegativeTTLSeconds = nNegativeTTLSeconds;
+    m_nTransientNegativeTTLSeconds = nTransientNegativeTTLSeconds;
+    m_aNanoTimeSupplier = aNanoTimeSupplier;
+    m_aPositiveCache = new BoundedExpiringMap <> (nMaxEntries);
+    m_aNegativeCache = new BoundedExpiringMap <> (nNegativeTTLSeconds > 0 ||
+                                                  nTransientNegativeTTLSeconds > 0 ? nNegativeMaxEntries : 0);
+  }
+
+  @NonNull
+  private static String _getKey (@NonNull final IParticipantIdentifier aParticipantID,
+                                 @NonNull final String sSMLZoneName)
+  {
+    return sSMLZoneName + ' ' + aParticipantID.getURIEncoded ();
+  }
+
+  /**
+   * Check if the provided resolution failure means that the participant definitively does not
+   * exist in DNS. This is the case for {@link PDSMPDNSNotFoundException} and for
+   * {@link UnknownHostException}s in the cause chain.
+   *
+   * @param aException
+   *        The exception to check. May not be <code>null</code>.
+   * @return <code>true</code> if the participant does not exist, <code>false</code> if the failure
+   *         may be transient.
+   */
+  @VisibleForTesting
+  static boolean isNotFound (@NonNull final SMPDNSResolutionException aException)
+  {
+    Throwable t = aException;
+    // Limit the depth in case of cyclic causes
+    for (int i = 0; t != null && i < 10; ++i, t = t.getCause ())
+      if (t instanceof PDSMPDNSNotFoundException || t instanceof UnknownHostException)
+        return true;
+    return false;
+  }
+
+  @NonNull
+  public URI getSMPURIOfParticipant (@NonNull final IParticipantIdentifier aParticipantID,
+                                     @NonNull final ISMLInfo aSMLInfo) throws SMPDNSResolutionException
+  {
+    ValueEnforcer.notNull (aSMLInfo, "SMLInfo");
+    return getSMPURIOfParticipant (aParticipantID, aSMLInfo.getDNSZone ());
+  }
+
+  @NonNull
+  public URI getSMPURIOfParticipant (@NonNull final IParticipantIdentifier aParticipantID,
+                                     @NonNull final String sSMLZoneName) throws SMPDNSResolutionException
+  {
+    ValueEnforcer.notNull (aParticipantID, "ParticipantID");
+    ValueEnforcer.notNull (sSMLZoneName, "SMLZoneName");
+
+    final String sKey = _getKey (aParticipantID, sSMLZoneName);
+    final long nNowNanos = m_aNanoTimeSupplier.getAsLong ();
+
+    final URI aCachedURI = m_aPositiveCache.get (sKey, nNowNanos);
+    if (aCachedURI != null)
+    {
+      m_aHits.incrementAndGet ();
+      return aCachedURI;
+    }
+
+    final SMPDNSResolutionException aCachedException = m_aNegativeCache.get (sKey, nNowNanos);
+    if (aCachedException != null)
+    {
+      m_aNegativeHits.incrementAndGet ();
+      // Keep the original exception as the cause, so that it can still be classified
+      throw new SMPDNSResolutionException (aCachedException.getMessage (), aCachedException.getCause ());
+    }
+
+    // Not cached - resolve outside of the locks
+    m_aMisses.incrementAndGet ();
+    final PDSMPDNSRecord aRecord;
+    try
+    {
+      aRecord = m_aResolver.resolve (aParticipantID, sSMLZoneName);
+    }
+    catch (final SMPDNSResolutionException ex)
+    {
+      // Don't remember a timeout or a server failure as long as a non-existing participant
+      final int nTTLSeconds = isNotFound (ex) ? m_nNegativeTTLSeconds : m_nTransientNegativeTTLSeconds;
+      if (nTTLSeconds > 0)
+      {
+        final String sErrorMsg = ex.getMessage () != null ? ex.getMessage ()
+                                                          : "Failed to resolve SMP of '" +
+                                                            aParticipantID.getURIEncoded () +
+                                                            "' in '" +
+                                                            sSMLZoneName +
+                                                            "'";
+        m_aNegativeCache.put (sKey,
+                              new SMPDNSResolutionException (sErrorMsg, ex),
+                              nNowNanos + TimeUnit.SECONDS.toNanos (nTTLSeconds));
+      }
+      throw ex;
+    }
+
+    // Honour the TTL of the DNS record
+    if (aRecord.getTTLSeconds () > 0)
+      m_aPositiveCache.put (sKey,
+                            aRecord.getSMPURI (),
+                            nNowNanos + TimeUnit.SECONDS.toNanos (aRecord.getTTLSeconds ()));
+    return aRecord.getSMPURI ();
+  }
+
+  /**
+   * @return The number of cached resolved participants, including expired ones that were not yet
+   *         removed. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getEntryCount ()
+  {
+    return m_aPositiveCache.size ();
+  }
+
+  /**
+   * @return The number of cached participants that could not be resolved, including expired ones
+   *         that were not yet removed. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getNegativeEntryCount ()
+  {
+    return m_aNegativeCache.size ();
+  }
+
+  /**
+   * @return The number of lookups answered from the cache. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getHitCount ()
+  {
+    return m_aHits.get ();
+  }
+
+  /**
+   * @return The number of lookups answered from the negative cache. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getNegativeHitCount ()
+  {
+    return m_aNegativeHits.get ();
+  }
+
+  /**
+   * @return The number of lookups that needed to be resolved. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getMissCount ()
+  {
+    return m_aMisses.get ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Resolver", m_aResolver)
+                                       .append ("NegativeTTLSeconds", m_nNegativeTTLSeconds)
+                                       .append ("TransientNegativeTTLSeconds", m_nTransientNegativeTTLSeconds)
+                                       .append ("Hits", m_aHits.get ())
+                                       .append ("NegativeHits", m_aNegativeHits.get ())
+                                       .append ("Misses", m_aMisses.get ())
+                                       .getToString ();
+  }
+}
@@ -53,6 +53,7 @@ public class PDExtendedBusinessCard implements IHasJson, Serializable
 {
   private final PDBusinessCard m_aBusinessCard;
   private final ICommonsList <IDocumentTypeIdentifier> m_aDocumentTypeIDs = new CommonsArrayList <> ();
+  private final PDBusinessCardValidators m_aValidators;
 
   /**
    * Constructor with Business Card.
@@ -64,8 +65,28 @@ public class PDExtendedBusinessCard implements IHasJson, Serializable
    */
   public PDExtendedBusinessCard (@NonNull final PDBusinessCard aBusinessCard,
                                  @Nullable final Iterable <? extends IDocumentTypeIdentifier> aDocumentTypeIDs)
+  {
+    this (aBusinessCard, aDocumentTypeIDs, null);
+  }
+
+  /**
+   * Constructor with Business Card and HTTP cache validators.
+   *
+   * @param aBusinessCard
+   *        Business Card to use. May not be <code>null</code>.
+   * @param aDocumentTypeIDs
+   *        Document types supported. May be <code>null</code>.
+   * @param aValidators
+   *        The HTTP cache validators the SMP returned with the Business Card. May be
+   *        <code>null</code>.
+   * @since 0.16.1
+   */
+  public PDExtendedBusinessCard (@NonNull final PDBusinessCard aBusinessCard,
+                                 @Nullable final Iterable <? extends IDocumentTypeIdentifier> aDocumentTypeIDs,
+                                 @Nullable final PDBusinessCardValidators aValidators)
   {
     m_aBusinessCard = ValueEnforcer.notNull (aBusinessCard, "BusinessCard");
+    m_aValidators = aValidators;
     if (aDocumentTypeIDs != null)
       for (final IDocumentTypeIdentifier aDocTypeID : aDocumentTypeIDs)
         if (aDocTypeID != null)
@@ -107,6 +128,17 @@ public class PDExtendedBusinessCard implements IHasJson, Serializable
     return m_aDocumentTypeIDs.size ();
   }
 
+  /**
+   * @return The HTTP cache validators the SMP returned with the Business Card. May be
+   *         <code>null</code>.
+   * @since 0.16.1
+   */
+  @Nullable
+  public PDBusinessCardValidators getValidators ()
+  {
+    return m_aValidators;
+  }
+
   @NonNull
   public IJsonObject getAsJson ()
   {
@@ -123,6 +155,7 @@ public class PDExtendedBusinessCard implements IHasJson, Serializable
   {
     return new ToStringGenerator (this).append ("BusinessCard", m_aBusinessCard)
                                        .append ("DocTypeIDs", m_aDocumentTypeIDs)
+                                       .appendIfNotNull ("Validators", m_aValidators)
                                        .getToString ();
   }
 
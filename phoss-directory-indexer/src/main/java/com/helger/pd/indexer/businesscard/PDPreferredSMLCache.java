@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.businesscard;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.peppolid.IParticipantIdentifier;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Remembers the ID of the SML in which a participant was found the last time, so that later
+ * lookups of the same participant can try this SML first. The number of entries is limited - the
+ * least recently used entries are removed first.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+@ThreadSafe
+public final class PDPreferredSMLCache
+{
+  private final int m_nMaxEntries;
+  private final Lock m_aLock = new ReentrantLock ();
+  // In access order
+  private final LinkedHashMap <IParticipantIdentifier, String> m_aMap = new LinkedHashMap <> (16, 0.75f, true);
+
+  /**
+   * Constructor
+   *
+   * @param nMaxEntries
+   *        The maximum number of participants to remember. Must be &gt; 0.
+   */
+  public PDPreferredSMLCache (@Nonnegative final int nMaxEntries)
+  {
+    ValueEnforcer.isGT0 (nMaxEntries, "MaxEntries");
+    m_nMaxEntries = nMaxEntries;
+  }
+
+  @Nonnegative
+  public int getMaxEntries ()
+  {
+    return m_nMaxEntries;
+  }
+
+  /**
+   * Get the ID of the SML in which the provided participant was found the last time.
+   *
+   * @param aParticipantID
+   *        The participant ID to check. May not be <code>null</code>.
+   * @return <code>null</code> if nothing is known about the participant.
+   */
+  @Nullable
+  public String getPreferredSMLID (@NonNull final IParticipantIdentifier aParticipantID)
+  {
+    ValueEnforcer.notNull (aParticipantID, "ParticipantID");
+
+    m_aLock.lock ();
+    try
+    {
+      return m_aMap.get (aParticipantID);
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * Remember the ID of the SML in which the provided participant was found.
+   *
+   * @param aParticipantID
+   *        The participant ID. May not be <code>null</code>.
+   * @param sSMLID
+   *        The ID of the SML. May neither be <code>null</code> nor empty.
+   */
+  public void setPreferredSMLID (@NonNull final IParticipantIdentifier aParticipantID,
+                                 @NonNull @Nonempty final String sSMLID)
+  {
+    ValueEnforcer.notNull (aParticipantID, "ParticipantID");
+    ValueEnforcer.notEmpty (sSMLID, "SMLID");
+
+    m_aLock.lock ();
+    try
+    {
+      m_aMap.put (aParticipantID, sSMLID);
+      if (m_aMap.size () > m_nMaxEntries)
+      {
+        // Remove the least recently used entry
+        final Iterator <IParticipantIdentifier> it = m_aMap.keySet ().iterator ();
+        it.next ();
+        it.remove ();
+      }
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * Forget the SML of the provided participant.
+   *
+   * @param aParticipantID
+   *        The participant ID. May not be <code>null</code>.
+   */
+  public void removePreferredSMLID (@NonNull final IParticipantIdentifier aParticipantID)
+  {
+    ValueEnforcer.notNull (aParticipantID, "ParticipantID");
+
+    m_aLock.lock ();
+    try
+    {
+      m_aMap.remove (aParticipantID);
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  @Nonnegative
+  public int getEntryCount ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      return m_aMap.size ();
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("MaxEntries", m_nMaxEntries)
+                                       .append ("EntryCount", getEntryCount ())
+                                       .getToString ();
+  }
+}
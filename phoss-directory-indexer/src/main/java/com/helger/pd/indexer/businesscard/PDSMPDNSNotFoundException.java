@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.businesscard;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.smpclient.url.SMPDNSResolutionException;
+
+/**
+ * Special {@link SMPDNSResolutionException} to be thrown by an {@link IPDSMPDNSResolver} if the
+ * DNS definitively reported that there is no record for a participant (e.g. NXDOMAIN). Only these
+ * failures are remembered for the full negative TTL of {@link PDCachingSMPURLProvider} - all other
+ * failures are considered transient.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+public class PDSMPDNSNotFoundException extends SMPDNSResolutionException
+{
+  public PDSMPDNSNotFoundException (@NonNull final String sMsg)
+  {
+    super (sMsg);
+  }
+
+  public PDSMPDNSNotFoundException (@NonNull final String sMsg, @NonNull final Throwable aCause)
+  {
+    super (sMsg, aCause);
+  }
+}
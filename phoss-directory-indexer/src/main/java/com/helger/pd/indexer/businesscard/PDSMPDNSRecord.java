@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.businesscard;
+
+import java.net.URI;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+
+/**
+ * The result of resolving the SMP of a participant via DNS.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+@Immutable
+public final class PDSMPDNSRecord
+{
+  private final URI m_aSMPURI;
+  private final long m_nTTLSeconds;
+
+  /**
+   * Constructor
+   *
+   * @param aSMPURI
+   *        The resolved SMP URI. May not be <code>null</code>.
+   * @param nTTLSeconds
+   *        The time to live of the underlying DNS record in seconds. Must be &ge; 0.
+   */
+  public PDSMPDNSRecord (@NonNull final URI aSMPURI, @Nonnegative final long nTTLSeconds)
+  {
+    ValueEnforcer.notNull (aSMPURI, "SMPURI");
+    ValueEnforcer.isGE0 (nTTLSeconds, "TTLSeconds");
+    m_aSMPURI = aSMPURI;
+    m_nTTLSeconds = nTTLSeconds;
+  }
+
+  @NonNull
+  public URI getSMPURI ()
+  {
+    return m_aSMPURI;
+  }
+
+  @Nonnegative
+  public long getTTLSeconds ()
+  {
+    return m_nTTLSeconds;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("SMPURI", m_aSMPURI)
+                                       .append ("TTLSeconds", m_nTTLSeconds)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.businesscard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+import org.apache.hc.client5.http.auth.AuthScope;
+import org.apache.hc.client5.http.auth.Credentials;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
+import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
+import org.apache.hc.client5.http.ssl.TrustAllStrategy;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.util.TimeValue;
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.httpclient.HttpClientSettings;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * A long-lived HTTP client with a connection pool that is shared by all SMP queries of the
+ * {@link SMPBusinessCardProvider}. Connections to the same SMP are kept alive and reused between
+ * the service group query and the business card query of a participant as well as between
+ * participants of the same SMP. As all connections use the same SSL context, TLS sessions are
+ * resumed.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+@ThreadSafe
+public final class PDSMPHttpClient implements Closeable
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (PDSMPHttpClient.class);
+
+  private final PoolingHttpClientConnectionManager m_aConnMgr;
+  private final CloseableHttpClient m_aHttpClient;
+
+  /**
+   * Constructor
+   *
+   * @param nMaxConnectionsPerRoute
+   *        The maximum number of connections per SMP host. Must be &gt; 0.
+   * @param nMaxConnectionsTotal
+   *        The maximum number of connections in total. Must be &gt; 0.
+   * @param nIdleSeconds
+   *        The number of seconds after which idle connections are closed. Must be &gt; 0.
+   * @param aProxy
+   *        The HTTP proxy to use. May be <code>null</code>.
+   * @param aProxyCredentials
+   *        The credentials for the HTTP proxy. May be <code>null</code>.
+   * @param bTrustAll
+   *        <code>true</code> to trust all TLS certificates and host names. Not recommended for
+   *        production.
+   * @throws GeneralSecurityException
+   *         If the SSL context cannot be created
+   */
+  public PDSMPHttpClient (@Nonnegative final int nMaxConnectionsPerRoute,
+                          @Nonnegative final int nMaxConnectionsTotal,
+                          @Nonnegative final int nIdleSeconds,
+                          @Nullable final HttpHost aProxy,
+                          @Nullable final Credentials aProxyCredentials,
+                          final boolean bTrustAll) throws GeneralSecurityException
+  {
+    ValueEnforcer.isGT0 (nMaxConnectionsPerRoute, "MaxConnectionsPerRoute");
+    ValueEnforcer.isGT0 (nMaxConnectionsTotal, "MaxConnectionsTotal");
+    ValueEnforcer.isGT0 (nIdleSeconds, "IdleSeconds");
+
+    final DefaultClientTlsStrategy aTlsStrategy;
+    if (bTrustAll)
+    {
+      aTlsStrategy = new DefaultClientTlsStrategy (SSLContexts.custom ()
+                                                              .loadTrustMaterial (TrustAllStrategy.INSTANCE)
+                                                              .build (),
+                                                   NoopHostnameVerifier.INSTANCE);
+      LOGGER.warn ("Trusting all TLS configurations - not recommended for production");
+    }
+    else
+      aTlsStrategy = new DefaultClientTlsStrategy (SSLContexts.createSystemDefault ());
+
+    m_aConnMgr = PoolingHttpClientConnectionManagerBuilder.create ()
+                                                          .setTlsSocketStrategy (aTlsStrategy)
+                                                          .setMaxConnPerRoute (nMaxConnectionsPerRoute)
+                                                          .setMaxConnTotal (nMaxConnectionsTotal)
+                                                          .setDefaultConnectionConfig (ConnectionConfig.custom ()
+                                                                                                       .setConnectTimeout (HttpClientSettings.DEFAULT_CONNECT_TIMEOUT)
+                                                                                                       .setSocketTimeout (HttpClientSettings.DEFAULT_RESPONSE_TIMEOUT)
+                                                                                                       // Check connections that were idle for a while before reuse
+                                                                                                       .setValidateAfterInactivity (TimeValue.ofSeconds (2))
+                                                                                                       .build ())
+                                                          .build ();
+
+    final HttpClientBuilder aBuilder = HttpClients.custom ()
+                                                  .setConnectionManager (m_aConnMgr)
+                                                  .setDefaultRequestConfig (RequestConfig.custom ()
+                                                                                         .setResponseTimeout (HttpClientSettings.DEFAULT_RESPONSE_TIMEOUT)
+                                                                                         .build ())
+                                                  .evictExpiredConnections ()
+                                                  .evictIdleConnections (TimeValue.ofSeconds (nIdleSeconds));
+    if (aProxy != null)
+    {
+      aBuilder.setProxy (aProxy);
+      if (aProxyCredentials != null)
+      {
+        final BasicCredentialsProvider aCredentialsProvider = new BasicCredentialsProvider ();
+        aCredentialsProvider.setCredentials (new AuthScope (aProxy), aProxyCredentials);
+        aBuilder.setDefaultCredentialsProvider (aCredentialsProvider);
+      }
+    }
+    m_aHttpClient = aBuilder.build ();
+  }
+
+  /**
+   * Execute the provided request with a pooled connection.
+   *
+   * @param <T>
+   *        The result type
+   * @param aRequest
+   *        The request to execute. May not be <code>null</code>.
+   * @param aResponseHandler
+   *        The response handler to use. May not be <code>null</code>.
+   * @return The result of the response handler.
+   * @throws IOException
+   *         In case of an error
+   */
+  @Nullable
+  public <T> T execute (@NonNull final ClassicHttpRequest aRequest,
+                        @NonNull final HttpClientResponseHandler <? extends T> aResponseHandler) throws IOException
+  {
+    return m_aHttpClient.execute (aRequest, aResponseHandler);
+  }
+
+  /**
+   * @return The current statistics of the connection pool over all SMP hosts. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  public PoolStats getTotalStats ()
+  {
+    return m_aConnMgr.getTotalStats ();
+  }
+
+  /**
+   * @return The number of SMP hosts (routes) that have connections in the pool. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getRouteCount ()
+  {
+    return m_aConnMgr.getRoutes ().size ();
+  }
+
+  public void close () throws IOException
+  {
+    // Closes the connection manager as well
+    m_aHttpClient.close ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("TotalStats", m_aConnMgr.getTotalStats ()).getToString ();
+  }
+}
@@ -16,26 +16,48 @@
  */
 package com.helger.pd.indexer.businesscard;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.net.UnknownHostException;
 import java.security.GeneralSecurityException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.apache.hc.client5.http.HttpResponseException;
 import org.apache.hc.client5.http.auth.Credentials;
 import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.jspecify.annotations.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.helger.annotation.style.VisibleForTesting;
+import com.helger.base.concurrent.BasicThreadFactoryBuilder;
+import com.helger.base.concurrent.ExecutorServiceHelper;
 import com.helger.base.enforce.ValueEnforcer;
+import com.helger.collection.commons.CommonsArrayList;
 import com.helger.collection.commons.ICommonsList;
 import com.helger.http.CHttp;
-import com.helger.httpclient.HttpClientManager;
+import com.helger.pd.indexer.index.EIndexerFailureClass;
+import com.helger.pd.indexer.index.IndexerWorkItemQueue;
 import com.helger.pd.indexer.mgr.PDMetaManager;
 import com.helger.pd.indexer.settings.PDServerConfiguration;
 import com.helger.peppol.businesscard.generic.PDBusinessCard;
@@ -62,16 +84,98 @@ import jakarta.annotation.Nullable;
  *
  * @author Philip Helger
  */
-public class SMPBusinessCardProvider implements IPDBusinessCardProvider
+public class SMPBusinessCardProvider implements IPDBusinessCardProvider, Closeable
 {
   private static final Logger LOGGER = LoggerFactory.getLogger (SMPBusinessCardProvider.class);
   private static final Consumer <String> UNHANDLED_HREF_HANDLER = x -> {
     LOGGER.error ("Failed to get document type from href '" + x + "'");
   };
 
+  /**
+   * The outcome of querying a single SML in the background. The handlers passed to
+   * {@link SMPBusinessCardProvider#getBusinessCard(IParticipantIdentifier, Consumer, Consumer)}
+   * are not thread-safe, so everything is collected here and forwarded on the calling thread.
+   */
+  private static final class SMLQueryResult
+  {
+    private final ISMLInfo m_aSML;
+    private final ICommonsList <String> m_aErrorMsgs = new CommonsArrayList <> ();
+    private final ICommonsList <EIndexerFailureClass> m_aFailureClasses = new CommonsArrayList <> ();
+    private PDExtendedBusinessCard m_aBC;
+    private ICommonsList <IDocumentTypeIdentifier> m_aNotModifiedDocTypeIDs;
+
+    SMLQueryResult (@NonNull final ISMLInfo aSML)
+    {
+      m_aSML = aSML;
+    }
+  }
+
+  /**
+   * The response of the business card API of an SMP.
+   */
+  private static final class BusinessCardResponse
+  {
+    private final PDBusinessCard m_aBusinessCard;
+    private final PDBusinessCardValidators m_aValidators;
+    private final boolean m_bNotModified;
+
+    BusinessCardResponse (@Nullable final PDBusinessCard aBusinessCard,
+                          @NonNull final PDBusinessCardValidators aValidators,
+                          final boolean bNotModified)
+    {
+      m_aBusinessCard = aBusinessCard;
+      m_aValidators = aValidators;
+      m_bNotModified = bNotModified;
+    }
+  }
+
+  /**
+   * A business card query that runs in the background.
+   */
+  private static final class BusinessCardQuery
+  {
+    private final HttpGet m_aRequest;
+    private final Future <BusinessCardResponse> m_aFuture;
+
+    BusinessCardQuery (@NonNull final HttpGet aRequest, @NonNull final Future <BusinessCardResponse> aFuture)
+    {
+      m_aRequest = aRequest;
+      m_aFuture = aFuture;
+    }
+
+    /**
+     * Stop the query if the result is not needed. The HTTP request is aborted, so that the pooled
+     * connection is released immediately instead of when the SMP eventually responds.
+     */
+    void abort ()
+    {
+      m_aRequest.cancel ();
+      m_aFuture.cancel (true);
+    }
+  }
+
+  /**
+   * The query of the service group of a participant with a specific SMP API.
+   *
+   * @param <T>
+   *        The service group type of the SMP API.
+   */
+  @FunctionalInterface
+  interface IServiceGroupQuery <T>
+  {
+    @Nullable
+    T getServiceGroupOrNull () throws SMPClientException;
+  }
+
   private final ESMPAPIType m_eSMPMode;
-  private final ISMPURLProvider m_aURLProvider;
+  private final PDCachingSMPURLProvider m_aURLProvider;
   private final Supplier <? extends ICommonsList <? extends ISMLInfo>> m_aSMLInfoProvider;
+  private final PDSMPHttpClient m_aHttpClient;
+  // Executes the business card queries concurrently to the service group queries and the queries of
+  // multiple SMLs
+  private final ExecutorService m_aFetchExecutor;
+  // The SML that answered the last time per participant
+  private final PDPreferredSMLCache m_aPreferredSMLs;
 
   /**
    * Constructor.
@@ -79,7 +183,9 @@ public class SMPBusinessCardProvider implements IPDBusinessCardProvider
    * @param eSMPMode
    *        SMP Mode to use.
    * @param aURLProvider
-   *        The URL provider to be used. Must be non-<code>null</code> if SML is to be used.
+   *        The URL provider to be used. Must be non-<code>null</code> if SML is to be used. If it is
+   *        not a {@link PDCachingSMPURLProvider}, it is wrapped in one that is configured via
+   *        {@link PDServerConfiguration}.
    * @param aSMLInfoProvider
    *        The supplier for all {@link ISMLInfo} objects to be tried (may be more then one)
    */
@@ -92,8 +198,103 @@ public class SMPBusinessCardProvider implements IPDBusinessCardProvider
     // aSMLInfoProvider may be null
 
     m_eSMPMode = eSMPMode;
-    m_aURLProvider = aURLProvider;
+    if (aURLProvider instanceof final PDCachingSMPURLProvider aCachingURLProvider)
+      m_aURLProvider = aCachingURLProvider;
+    else
+    {
+      // Avoid a DNS lookup for every participant
+      final IPDSMPDNSResolver aResolver = IPDSMPDNSResolver.createFromURLProvider (aURLProvider,
+                                                                                  PDServerConfiguration.getSMPClientDNSCacheTTLSeconds ());
+      m_aURLProvider = new PDCachingSMPURLProvider (aResolver,
+                                                    PDServerConfiguration.getSMPClientDNSCacheMaxEntries (),
+                                                    PDServerConfiguration.getSMPClientDNSNegativeCacheTTLSeconds (),
+                                                    PDServerConfiguration.getSMPClientDNSNegativeCacheTransientTTLSeconds (),
+                                                    PDServerConfiguration.getSMPClientDNSNegativeCacheMaxEntries ());
+    }
     m_aSMLInfoProvider = aSMLInfoProvider;
+    try
+    {
+      m_aHttpClient = new PDSMPHttpClient (PDServerConfiguration.getSMPClientPoolMaxPerRoute (),
+                                           PDServerConfiguration.getSMPClientPoolMaxTotal (),
+                                           PDServerConfiguration.getSMPClientPoolIdleSeconds (),
+                                           _getHttpProxy (),
+                                           _getHttpProxyCredentials (),
+                                           PDServerConfiguration.isSMPTLSTrustAll ());
+    }
+    catch (final GeneralSecurityException ex)
+    {
+      throw new IllegalStateException ("Failed to set SSL Context or Hostname verifier", ex);
+    }
+    m_aFetchExecutor = _createFetchExecutor ();
+    m_aPreferredSMLs = new PDPreferredSMLCache (PDServerConfiguration.getSMPClientPreferredSMLMaxEntries ());
+  }
+
+  @NonNull
+  private static ExecutorService _createFetchExecutor ()
+  {
+    // The queries mostly wait for the network, which is cheap on virtual threads
+    final ExecutorService aVirtualExecutor = IndexerWorkItemQueue.createVirtualThreadExecutorOrNull ("pd-smp-fetch-vt-");
+    if (aVirtualExecutor != null)
+    {
+      LOGGER.info ("SMP queries use virtual threads");
+      return aVirtualExecutor;
+    }
+
+    final int nMaxThreads = PDServerConfiguration.getSMPClientFetchMaxThreads ();
+    LOGGER.info ("SMP queries use at most " + nMaxThreads + " background threads");
+    // If all threads are busy, the query is executed in the calling thread. Queuing it instead may
+    // dead lock, as the queries of multiple SMLs start business card queries themselves.
+    return new ThreadPoolExecutor (0,
+                                   nMaxThreads,
+                                   60L,
+                                   TimeUnit.SECONDS,
+                                   new SynchronousQueue <> (),
+                                   new BasicThreadFactoryBuilder ().namingPattern ("pd-smp-fetch-%d")
+                                                                   .daemon (true)
+                                                                   .priority (Thread.NORM_PRIORITY)
+                                                                   .build (),
+                                   (aTask, aExecutor) -> {
+                                     if (aExecutor.isShutdown ())
+                                       throw new RejectedExecutionException ("The SMP query executor was shut down");
+                                     aTask.run ();
+                                   });
+  }
+
+  /**
+   * @return The pooled HTTP client that is used for all SMP queries. Never <code>null</code>.
+   * @since 0.16.1
+   */
+  @NonNull
+  public final PDSMPHttpClient getHttpClient ()
+  {
+    return m_aHttpClient;
+  }
+
+  /**
+   * @return The caching URL provider that is used for all SMP DNS lookups. Never
+   *         <code>null</code>.
+   * @since 0.16.1
+   */
+  @NonNull
+  public final PDCachingSMPURLProvider getURLProvider ()
+  {
+    return m_aURLProvider;
+  }
+
+  /**
+   * @return The cache of the SMLs that answered per participant. Never <code>null</code>.
+   * @since 0.16.1
+   */
+  @NonNull
+  public final PDPreferredSMLCache getPreferredSMLCache ()
+  {
+    return m_aPreferredSMLs;
+  }
+
+  public void close () throws IOException
+  {
+    ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (m_aFetchExecutor);
+    m_aHttpClient.close ();
   }
 
   @Nullable
@@ -133,52 +334,110 @@ public class SMPBusinessCardProvider implements IPDBusinessCardProvider
   }
 
   @Nullable
-  @VisibleForTesting
-  PDExtendedBusinessCard getBusinessCardPeppolSMP (@NonNull final IParticipantIdentifier aParticipantID,
-                                                   @NonNull final SMPClientReadOnly aSMPClient,
-                                                   @NonNull final Consumer <String> aErrorMsgHandler)
+  private static String _getHeaderValue (@NonNull final ClassicHttpResponse aHttpResponse,
+                                         @NonNull final String sHeaderName)
   {
-    LOGGER.info ("Querying BusinessCard for '" +
-                 aParticipantID.getURIEncoded () +
-                 "' from Peppol SMP '" +
-                 aSMPClient.getSMPHostURI () +
-                 "'");
+    final Header aHeader = aHttpResponse.getFirstHeader (sHeaderName);
+    return aHeader == null ? null : aHeader.getValue ();
+  }
+
+  @NonNull
+  private static BusinessCardResponse _handleBusinessCardResponse (@NonNull final ClassicHttpResponse aHttpResponse) throws IOException
+  {
+    final PDBusinessCardValidators aValidators = new PDBusinessCardValidators (_getHeaderValue (aHttpResponse,
+                                                                                                HttpHeaders.ETAG),
+                                                                               _getHeaderValue (aHttpResponse,
+                                                                                                HttpHeaders.LAST_MODIFIED));
+    if (aHttpResponse.getCode () == CHttp.HTTP_NOT_MODIFIED)
+    {
+      // Unchanged since the last time
+      EntityUtils.consume (aHttpResponse.getEntity ());
+      return new BusinessCardResponse (null, aValidators, true);
+    }
+    return new BusinessCardResponse (new PDSMPHttpResponseHandlerBusinessCard ().handleResponse (aHttpResponse),
+                                     aValidators,
+                                     false);
+  }
 
-    // First query the service group
-    final com.helger.xsds.peppol.smp1.ServiceGroupType aServiceGroup;
+  /**
+   * Start the query of the business card of the provided participant in the background.
+   *
+   * @param sSMPHostURI
+   *        The SMP host URI with a trailing slash. May not be <code>null</code>.
+   * @param aParticipantID
+   *        The participant ID to query. May not be <code>null</code>.
+   * @param aKnownValidators
+   *        The HTTP cache validators of the last retrieval. If present, a conditional request is
+   *        sent. May be <code>null</code>.
+   * @return The running business card query. Never <code>null</code>.
+   */
+  @NonNull
+  private BusinessCardQuery _startBusinessCardQuery (@NonNull final String sSMPHostURI,
+                                                                 @NonNull final IParticipantIdentifier aParticipantID,
+                                                                 @Nullable final PDBusinessCardValidators aKnownValidators)
+  {
+    // Use the optional business card API
+    final HttpGet aRequest = new HttpGet (sSMPHostURI + "businesscard/" + aParticipantID.getURIPercentEncoded ());
+    if (aKnownValidators != null)
+    {
+      if (aKnownValidators.getETag () != null)
+        aRequest.setHeader (HttpHeaders.IF_NONE_MATCH, aKnownValidators.getETag ());
+      if (aKnownValidators.getLastModified () != null)
+        aRequest.setHeader (HttpHeaders.IF_MODIFIED_SINCE, aKnownValidators.getLastModified ());
+    }
+    return new BusinessCardQuery (aRequest,
+                                  m_aFetchExecutor.submit ( () -> m_aHttpClient.execute (aRequest,
+                                                                                         SMPBusinessCardProvider::_handleBusinessCardResponse)));
+  }
+
+  /**
+   * Wait for the business card query started with
+   * {@link #_startBusinessCardQuery(String, IParticipantIdentifier, PDBusinessCardValidators)}.
+   *
+   * @param aBusinessCardQuery
+   *        The running business card query. May not be <code>null</code>.
+   * @param aParticipantID
+   *        The participant ID that is queried. May not be <code>null</code>.
+   * @param aErrorMsgHandler
+   *        Handler to capture errors on what went wrong. May not be <code>null</code>.
+   * @param aFailureClassHandler
+   *        Handler to capture the classes of the failures. May not be <code>null</code>.
+   * @return <code>null</code> if the business card could not be retrieved. A non-<code>null</code>
+   *         response either contains the business card or is "not modified".
+   */
+  @Nullable
+  private static BusinessCardResponse _joinBusinessCardQuery (@NonNull final BusinessCardQuery aBusinessCardQuery,
+                                                              @NonNull final IParticipantIdentifier aParticipantID,
+                                                              @NonNull final Consumer <String> aErrorMsgHandler,
+                                                              @NonNull final Consumer <EIndexerFailureClass> aFailureClassHandler)
+  {
+    final BusinessCardResponse aResponse;
     try
     {
-      aServiceGroup = aSMPClient.getServiceGroupOrNull (aParticipantID);
+      aResponse = aBusinessCardQuery.m_aFuture.get ();
     }
-    catch (final SMPClientException ex)
+    catch (final InterruptedException ex)
     {
-      final String sErrorMsg = "Error querying SMP for ServiceGroup of '" +
+      Thread.currentThread ().interrupt ();
+      aBusinessCardQuery.abort ();
+      final String sErrorMsg = "Interrupted while querying SMP for BusinessCard of '" +
                                aParticipantID.getURIEncoded () +
-                               "'. Details: " +
-                               ex.getMessage ();
-      LOGGER.error (sErrorMsg, ex);
+                               "'";
+      LOGGER.warn (sErrorMsg);
       aErrorMsgHandler.accept (sErrorMsg);
+      aFailureClassHandler.accept (EIndexerFailureClass.OTHER);
       return null;
     }
-    // If the service group is present, try querying the business card
-    final PDBusinessCard aBusinessCard;
-    try (final HttpClientManager aHCM = HttpClientManager.create (aSMPClient.httpClientSettings ()))
-    {
-      // Use the optional business card API
-      final HttpGet aRequest = new HttpGet (aSMPClient.getSMPHostURI () +
-                                            "businesscard/" +
-                                            aParticipantID.getURIPercentEncoded ());
-      aBusinessCard = aHCM.execute (aRequest, new PDSMPHttpResponseHandlerBusinessCard ());
-    }
-    catch (final IOException ex)
+    catch (final ExecutionException ex)
     {
-      if ((ex instanceof final HttpResponseException aHREx && aHREx.getStatusCode () == CHttp.HTTP_NOT_FOUND) ||
-          ex instanceof UnknownHostException)
+      final Throwable aCause = ex.getCause ();
+      if ((aCause instanceof final HttpResponseException aHREx && aHREx.getStatusCode () == CHttp.HTTP_NOT_FOUND) ||
+          aCause instanceof UnknownHostException)
       {
         final String sErrorMsg = "No BusinessCard available for '" +
                                  aParticipantID.getURIEncoded () +
                                  "' - not in configured SML? Details: " +
-                                 ex.getMessage ();
+                                 aCause.getMessage ();
         LOGGER.warn (sErrorMsg);
         aErrorMsgHandler.accept (sErrorMsg);
       }
@@ -188,48 +447,72 @@ public class SMPBusinessCardProvider implements IPDBusinessCardProvider
         final String sErrorMsg = "Error querying SMP for BusinessCard of '" +
                                  aParticipantID.getURIEncoded () +
                                  "'. Details: " +
-                                 ex.getMessage ();
-        LOGGER.error (sErrorMsg, ex);
+                                 aCause.getMessage ();
+        LOGGER.error (sErrorMsg, aCause);
         aErrorMsgHandler.accept (sErrorMsg);
       }
+      aFailureClassHandler.accept (EIndexerFailureClass.getFromException (aCause));
       return null;
     }
 
-    if (aBusinessCard == null)
+    if (!aResponse.m_bNotModified && aResponse.m_aBusinessCard == null)
     {
       // No extension present - no need to try again
       final String sErrorMsg = "Failed to get SMP BusinessCard of '" + aParticipantID.getURIEncoded () + "'";
       LOGGER.warn (sErrorMsg);
       aErrorMsgHandler.accept (sErrorMsg);
+      aFailureClassHandler.accept (EIndexerFailureClass.NOT_FOUND);
       return null;
     }
-
-    // Query all document types
-    final IIdentifierFactory aIdentifierFactory = PDMetaManager.getIdentifierFactory ();
-    final ICommonsList <IDocumentTypeIdentifier> aDocumentTypeIDs = SMPClientReadOnly.getAllDocumentTypes (aServiceGroup,
-                                                                                                           aIdentifierFactory,
-                                                                                                           UNHANDLED_HREF_HANDLER);
-
-    return new PDExtendedBusinessCard (aBusinessCard, aDocumentTypeIDs);
+    return aResponse;
   }
 
+  /**
+   * Query the business card of the provided participant concurrently to its service group and
+   * combine both. If the service group query fails or the participant has no service group, the
+   * business card query is aborted.
+   *
+   * @param <T>
+   *        The service group type of the SMP API.
+   * @param aParticipantID
+   *        The participant ID to query. May not be <code>null</code>.
+   * @param sSMPHostURI
+   *        The SMP host URI with a trailing slash. May not be <code>null</code>.
+   * @param aServiceGroupQuery
+   *        The query of the service group of the participant. May not be <code>null</code>.
+   * @param aDocumentTypeIDExtractor
+   *        The function to extract all document types from the service group. May not be
+   *        <code>null</code>.
+   * @param aKnownValidators
+   *        The HTTP cache validators of the last retrieval. May be <code>null</code>.
+   * @param aErrorMsgHandler
+   *        Handler to capture errors on what went wrong. May not be <code>null</code>.
+   * @param aFailureClassHandler
+   *        Handler to capture the classes of the failures. May not be <code>null</code>.
+   * @param aNotModifiedHandler
+   *        Handler that receives the current document types, if the business card is unchanged.
+   *        May not be <code>null</code>.
+   * @return <code>null</code> if the business card could not be retrieved or is unchanged.
+   */
   @Nullable
   @VisibleForTesting
-  PDExtendedBusinessCard getBusinessCardBDXR1 (@NonNull final IParticipantIdentifier aParticipantID,
-                                               @NonNull final BDXRClientReadOnly aSMPClient,
-                                               @NonNull final Consumer <String> aErrorMsgHandler)
+  <T> PDExtendedBusinessCard queryBusinessCard (@NonNull final IParticipantIdentifier aParticipantID,
+                                                @NonNull final String sSMPHostURI,
+                                                @NonNull final IServiceGroupQuery <T> aServiceGroupQuery,
+                                                @NonNull final Function <? super T, ICommonsList <IDocumentTypeIdentifier>> aDocumentTypeIDExtractor,
+                                                @Nullable final PDBusinessCardValidators aKnownValidators,
+                                                @NonNull final Consumer <String> aErrorMsgHandler,
+                                                @NonNull final Consumer <EIndexerFailureClass> aFailureClassHandler,
+                                                @NonNull final Consumer <? super ICommonsList <IDocumentTypeIdentifier>> aNotModifiedHandler)
   {
-    LOGGER.info ("Querying BusinessCard for '" +
-                 aParticipantID.getURIEncoded () +
-                 "' from OASIS BDXR SMP v1 '" +
-                 aSMPClient.getSMPHostURI () +
-                 "'");
+    // Query the business card concurrently to the service group
+    final BusinessCardQuery aBusinessCardQuery = _startBusinessCardQuery (sSMPHostURI, aParticipantID, aKnownValidators);
 
-    // First query the service group
-    final com.helger.xsds.bdxr.smp1.ServiceGroupType aServiceGroup;
+    // Query the service group
+    final T aServiceGroup;
     try
     {
-      aServiceGroup = aSMPClient.getServiceGroupOrNull (aParticipantID);
+      aServiceGroup = aServiceGroupQuery.getServiceGroupOrNull ();
     }
     catch (final SMPClientException ex)
     {
@@ -239,65 +522,106 @@ public class SMPBusinessCardProvider implements IPDBusinessCardProvider
                                ex.getMessage ();
       LOGGER.error (sErrorMsg, ex);
       aErrorMsgHandler.accept (sErrorMsg);
+      aFailureClassHandler.accept (EIndexerFailureClass.getFromException (ex));
+      aBusinessCardQuery.abort ();
       return null;
     }
-    // If the service group is present, try querying the business card
-    final PDBusinessCard aBusinessCard;
-    try (final HttpClientManager aHCM = HttpClientManager.create (aSMPClient.httpClientSettings ()))
-    {
-      // Use the optional business card API
-      final HttpGet aRequest = new HttpGet (aSMPClient.getSMPHostURI () +
-                                            "businesscard/" +
-                                            aParticipantID.getURIPercentEncoded ());
-      aBusinessCard = aHCM.execute (aRequest, new PDSMPHttpResponseHandlerBusinessCard ());
-    }
-    catch (final IOException ex)
+    catch (final RuntimeException ex)
     {
-      if ((ex instanceof final HttpResponseException aHREx && aHREx.getStatusCode () == CHttp.HTTP_NOT_FOUND) ||
-          ex instanceof UnknownHostException)
-      {
-        final String sErrorMsg = "No BusinessCard available for '" +
-                                 aParticipantID.getURIEncoded () +
-                                 "' - not in configured SML? Details: " +
-                                 ex.getMessage ();
-        LOGGER.warn (sErrorMsg);
-        aErrorMsgHandler.accept (sErrorMsg);
-      }
-      else
-      {
-        final String sErrorMsg = "Error querying SMP for BusinessCard of '" +
-                                 aParticipantID.getURIEncoded () +
-                                 "'. Details: " +
-                                 ex.getMessage ();
-        LOGGER.error (sErrorMsg, ex);
-        aErrorMsgHandler.accept (sErrorMsg);
-      }
-      return null;
+      aBusinessCardQuery.abort ();
+      throw ex;
     }
 
-    if (aBusinessCard == null)
+    if (aServiceGroup == null)
     {
-      // No extension present - no need to try again
-      final String sErrorMsg = "Failed to get SMP BusinessCard of '" + aParticipantID.getURIEncoded () + "'";
+      // The participant is not registered at this SMP - the business card is of no use
+      aBusinessCardQuery.abort ();
+      final String sErrorMsg = "No ServiceGroup available for '" + aParticipantID.getURIEncoded () + "'";
       LOGGER.warn (sErrorMsg);
       aErrorMsgHandler.accept (sErrorMsg);
+      aFailureClassHandler.accept (EIndexerFailureClass.NOT_FOUND);
       return null;
     }
 
+    // Wait for the business card query that was started concurrently
+    final BusinessCardResponse aBCResponse = _joinBusinessCardQuery (aBusinessCardQuery,
+                                                                     aParticipantID,
+                                                                     aErrorMsgHandler,
+                                                                     aFailureClassHandler);
+    if (aBCResponse == null)
+      return null;
+
     // Query all document types
+    final ICommonsList <IDocumentTypeIdentifier> aDocumentTypeIDs = aDocumentTypeIDExtractor.apply (aServiceGroup);
+
+    if (aBCResponse.m_bNotModified)
+    {
+      aNotModifiedHandler.accept (aDocumentTypeIDs);
+      return null;
+    }
+    return new PDExtendedBusinessCard (aBCResponse.m_aBusinessCard, aDocumentTypeIDs, aBCResponse.m_aValidators);
+  }
+
+  @Nullable
+  @VisibleForTesting
+  PDExtendedBusinessCard getBusinessCardPeppolSMP (@NonNull final IParticipantIdentifier aParticipantID,
+                                                   @NonNull final SMPClientReadOnly aSMPClient,
+                                                   @Nullable final PDBusinessCardValidators aKnownValidators,
+                                                   @NonNull final Consumer <String> aErrorMsgHandler,
+                                                   @NonNull final Consumer <EIndexerFailureClass> aFailureClassHandler,
+                                                   @NonNull final Consumer <? super ICommonsList <IDocumentTypeIdentifier>> aNotModifiedHandler)
+  {
+    LOGGER.info ("Querying BusinessCard for '" +
+                 aParticipantID.getURIEncoded () +
+                 "' from Peppol SMP '" +
+                 aSMPClient.getSMPHostURI () +
+                 "'");
+
     final IIdentifierFactory aIdentifierFactory = PDMetaManager.getIdentifierFactory ();
-    final ICommonsList <IDocumentTypeIdentifier> aDocumentTypeIDs = BDXRClientReadOnly.getAllDocumentTypes (aServiceGroup,
-                                                                                                            aIdentifierFactory,
-                                                                                                            UNHANDLED_HREF_HANDLER);
+    return queryBusinessCard (aParticipantID,
+                              aSMPClient.getSMPHostURI (),
+                              () -> aSMPClient.getServiceGroupOrNull (aParticipantID),
+                              x -> SMPClientReadOnly.getAllDocumentTypes (x, aIdentifierFactory, UNHANDLED_HREF_HANDLER),
+                              aKnownValidators,
+                              aErrorMsgHandler,
+                              aFailureClassHandler,
+                              aNotModifiedHandler);
+  }
 
-    return new PDExtendedBusinessCard (aBusinessCard, aDocumentTypeIDs);
+  @Nullable
+  @VisibleForTesting
+  PDExtendedBusinessCard getBusinessCardBDXR1 (@NonNull final IParticipantIdentifier aParticipantID,
+                                               @NonNull final BDXRClientReadOnly aSMPClient,
+                                               @Nullable final PDBusinessCardValidators aKnownValidators,
+                                               @NonNull final Consumer <String> aErrorMsgHandler,
+                                               @NonNull final Consumer <EIndexerFailureClass> aFailureClassHandler,
+                                               @NonNull final Consumer <? super ICommonsList <IDocumentTypeIdentifier>> aNotModifiedHandler)
+  {
+    LOGGER.info ("Querying BusinessCard for '" +
+                 aParticipantID.getURIEncoded () +
+                 "' from OASIS BDXR SMP v1 '" +
+                 aSMPClient.getSMPHostURI () +
+                 "'");
+
+    final IIdentifierFactory aIdentifierFactory = PDMetaManager.getIdentifierFactory ();
+    return queryBusinessCard (aParticipantID,
+                              aSMPClient.getSMPHostURI (),
+                              () -> aSMPClient.getServiceGroupOrNull (aParticipantID),
+                              x -> BDXRClientReadOnly.getAllDocumentTypes (x, aIdentifierFactory, UNHANDLED_HREF_HANDLER),
+                              aKnownValidators,
+                              aErrorMsgHandler,
+                              aFailureClassHandler,
+                              aNotModifiedHandler);
   }
 
   @Nullable
   @VisibleForTesting
   PDExtendedBusinessCard getBusinessCardBDXR2 (@NonNull final IParticipantIdentifier aParticipantID,
                                                @NonNull final BDXR2ClientReadOnly aSMPClient,
-                                               @NonNull final Consumer <String> aErrorMsgHandler)
+                                               @Nullable final PDBusinessCardValidators aKnownValidators,
+                                               @NonNull final Consumer <String> aErrorMsgHandler,
+                                               @NonNull final Consumer <EIndexerFailureClass> aFailureClassHandler,
+                                               @NonNull final Consumer <? super ICommonsList <IDocumentTypeIdentifier>> aNotModifiedHandler)
   {
     LOGGER.info ("Querying BusinessCard for '" +
                  aParticipantID.getURIEncoded () +
@@ -305,106 +629,296 @@ public class SMPBusinessCardProvider implements IPDBusinessCardProvider
                  aSMPClient.getSMPHostURI () +
                  "'");
 
-    // First query the service group
-    final com.helger.xsds.bdxr.smp2.ServiceGroupType aServiceGroup;
+    final IIdentifierFactory aIdentifierFactory = PDMetaManager.getIdentifierFactory ();
+    return queryBusinessCard (aParticipantID,
+                              aSMPClient.getSMPHostURI (),
+                              () -> aSMPClient.getServiceGroupOrNull (aParticipantID),
+                              x -> BDXR2ClientReadOnly.getAllDocumentTypes (x, aIdentifierFactory),
+                              aKnownValidators,
+                              aErrorMsgHandler,
+                              aFailureClassHandler,
+                              aNotModifiedHandler);
+  }
+
+  private static void _configureSMPClient (@NonNull final AbstractGenericSMPClient <?> aSMPClient)
+  {
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("Now configuring the the SMP client");
+
+    // Proxy and TLS are configured in the pooled HTTP client
+
+    // Eat all we can get
+    aSMPClient.setXMLSchemaValidation (false);
+  }
+
+  /**
+   * Query the business card of the provided participant from the SMP that is registered in the
+   * provided SML.
+   *
+   * @param aParticipantID
+   *        The participant ID to query. May not be <code>null</code>.
+   * @param aSML
+   *        The SML to use. May not be <code>null</code>.
+   * @param aKnownValidators
+   *        The HTTP cache validators of the last retrieval. May be <code>null</code>.
+   * @param aErrorMsgHandler
+   *        Handler to capture errors on what went wrong. May not be <code>null</code>.
+   * @param aFailureClassHandler
+   *        Handler to capture the classes of the failures. May not be <code>null</code>.
+   * @param aNotModifiedHandler
+   *        Handler that receives the current document types, if the business card is unchanged.
+   *        May not be <code>null</code>.
+   * @return <code>null</code> if the business card could not be retrieved or is unchanged.
+   */
+  @Nullable
+  private PDExtendedBusinessCard _getBusinessCardFromSML (@NonNull final IParticipantIdentifier aParticipantID,
+                                                          @NonNull final ISMLInfo aSML,
+                                                          @Nullable final PDBusinessCardValidators aKnownValidators,
+                                                          @NonNull final Consumer <String> aErrorMsgHandler,
+                                                          @NonNull final Consumer <EIndexerFailureClass> aFailureClassHandler,
+                                                          @NonNull final Consumer <? super ICommonsList <IDocumentTypeIdentifier>> aNotModifiedHandler)
+  {
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("Now trying with SML " + aSML);
+
+    PDExtendedBusinessCard aBC = null;
     try
     {
-      aServiceGroup = aSMPClient.getServiceGroupOrNull (aParticipantID);
+      // Create SMP client and query SMP
+      // The SMP clients use the shared connection pool
+      switch (m_eSMPMode)
+      {
+        case PEPPOL:
+        {
+          final SMPClientReadOnly aSMPClient = new CachingSMPClientReadOnly (m_aURLProvider, aParticipantID, aSML)
+          {
+            @Override
+            public <T> T executeRequest (@NonNull final HttpUriRequestBase aRequest,
+                                         @NonNull final HttpClientResponseHandler <T> aResponseHandler) throws IOException
+            {
+              return m_aHttpClient.execute (aRequest, aResponseHandler);
+            }
+          };
+          _configureSMPClient (aSMPClient);
+          aBC = getBusinessCardPeppolSMP (aParticipantID,
+                                          aSMPClient,
+                                          aKnownValidators,
+                                          aErrorMsgHandler,
+                                          aFailureClassHandler,
+                                          aNotModifiedHandler);
+          break;
+        }
+        case OASIS_BDXR_V1:
+        {
+          final BDXRClientReadOnly aSMPClient = new BDXRClientReadOnly (m_aURLProvider, aParticipantID, aSML)
+          {
+            @Override
+            public <T> T executeRequest (@NonNull final HttpUriRequestBase aRequest,
+                                         @NonNull final HttpClientResponseHandler <T> aResponseHandler) throws IOException
+            {
+              return m_aHttpClient.execute (aRequest, aResponseHandler);
+            }
+          };
+          _configureSMPClient (aSMPClient);
+          aBC = getBusinessCardBDXR1 (aParticipantID,
+                                      aSMPClient,
+                                      aKnownValidators,
+                                      aErrorMsgHandler,
+                                      aFailureClassHandler,
+                                      aNotModifiedHandler);
+          break;
+        }
+        case OASIS_BDXR_V2:
+        {
+          final BDXR2ClientReadOnly aSMPClient = new BDXR2ClientReadOnly (m_aURLProvider, aParticipantID, aSML)
+          {
+            @Override
+            public <T> T executeRequest (@NonNull final HttpUriRequestBase aRequest,
+                                         @NonNull final HttpClientResponseHandler <T> aResponseHandler) throws IOException
+            {
+              return m_aHttpClient.execute (aRequest, aResponseHandler);
+            }
+          };
+          _configureSMPClient (aSMPClient);
+          aBC = getBusinessCardBDXR2 (aParticipantID,
+                                      aSMPClient,
+                                      aKnownValidators,
+                                      aErrorMsgHandler,
+                                      aFailureClassHandler,
+                                      aNotModifiedHandler);
+          break;
+        }
+        default:
+          throw new IllegalStateException ("Unsupported SMP mode " + m_eSMPMode);
+      }
+    }
+    catch (final SMPDNSResolutionException ex)
+    {
+      // Happens if a non-existing URL is queried
+      final String sErrorMsg = "Failed to resolve SMP DNS entry: " + ex.getMessage ();
+      LOGGER.error (sErrorMsg);
+      aErrorMsgHandler.accept (sErrorMsg);
+      aFailureClassHandler.accept (EIndexerFailureClass.DNS);
     }
-    catch (final SMPClientException ex)
+    catch (final Exception ex)
     {
-      final String sErrorMsg = "Error querying SMP for ServiceGroup of '" +
-                               aParticipantID.getURIEncoded () +
-                               "'. Details: " +
-                               ex.getMessage ();
+      // Catch-all to be on the safe side
+      final String sErrorMsg = "Failed to query SMP. Details: " + ex.getMessage ();
       LOGGER.error (sErrorMsg, ex);
       aErrorMsgHandler.accept (sErrorMsg);
-      return null;
+      aFailureClassHandler.accept (EIndexerFailureClass.getFromException (ex));
     }
+    return aBC;
+  }
 
-    // If the service group is present, try querying the business card
-    final PDBusinessCard aBusinessCard;
-    try (final HttpClientManager aHCM = HttpClientManager.create (aSMPClient.httpClientSettings ()))
-    {
-      // Use the optional business card API
-      // TODO is the path "bdxr-smp-2" needed? Well, the PD is not yet
-      // specified for this SMP type....
-      final HttpGet aRequest = new HttpGet (aSMPClient.getSMPHostURI () +
-                                            "businesscard/" +
-                                            aParticipantID.getURIPercentEncoded ());
-      aBusinessCard = aHCM.execute (aRequest, new PDSMPHttpResponseHandlerBusinessCard ());
-    }
-    catch (final IOException ex)
+  /**
+   * Query the business card of the provided participant from all provided SMLs. The SML that
+   * answered the last time for this participant is tried first. All other SMLs are queried in
+   * parallel and the first business card found is used. All other queries are cancelled.
+   *
+   * @param aParticipantID
+   *        The participant ID to query. May not be <code>null</code>.
+   * @param aSMLs
+   *        The SMLs to use. May neither be <code>null</code> nor empty.
+   * @param aKnownValidators
+   *        The HTTP cache validators of the last retrieval. May be <code>null</code>.
+   * @param aErrorMsgHandler
+   *        Handler to capture errors on what went wrong. May not be <code>null</code>.
+   * @param aFailureClassHandler
+   *        Handler to capture the classes of the failures. May not be <code>null</code>.
+   * @param aNotModifiedHandler
+   *        Handler that receives the current document types, if the business card is unchanged.
+   *        May not be <code>null</code>.
+   * @return <code>null</code> if the business card could not be retrieved from any SML or is
+   *         unchanged.
+   */
+  @Nullable
+  private PDExtendedBusinessCard _getBusinessCardFromAllSMLs (@NonNull final IParticipantIdentifier aParticipantID,
+                                                              @NonNull final ICommonsList <? extends ISMLInfo> aSMLs,
+                                                              @Nullable final PDBusinessCardValidators aKnownValidators,
+                                                              @NonNull final Consumer <String> aErrorMsgHandler,
+                                                              @NonNull final Consumer <EIndexerFailureClass> aFailureClassHandler,
+                                                              @NonNull final Consumer <? super ICommonsList <IDocumentTypeIdentifier>> aNotModifiedHandler)
+  {
+    final ICommonsList <ISMLInfo> aRemainingSMLs = new CommonsArrayList <> (aSMLs);
+
+    // Try the SML that answered the last time first
+    final String sPreferredSMLID = m_aPreferredSMLs.getPreferredSMLID (aParticipantID);
+    if (sPreferredSMLID != null)
     {
-      if ((ex instanceof final HttpResponseException aHREx && aHREx.getStatusCode () == CHttp.HTTP_NOT_FOUND) ||
-          ex instanceof UnknownHostException)
+      final ISMLInfo aPreferredSML = aRemainingSMLs.findFirst (x -> sPreferredSMLID.equals (x.getID ()));
+      if (aPreferredSML != null)
       {
-        final String sErrorMsg = "No BusinessCard available for '" +
-                                 aParticipantID.getURIEncoded () +
-                                 "' - not in configured SML? Details: " +
-                                 ex.getMessage ();
-        LOGGER.warn (sErrorMsg);
-        aErrorMsgHandler.accept (sErrorMsg);
+        final AtomicBoolean aNotModified = new AtomicBoolean (false);
+        final PDExtendedBusinessCard aBC = _getBusinessCardFromSML (aParticipantID,
+                                                                    aPreferredSML,
+                                                                    aKnownValidators,
+                                                                    aErrorMsgHandler,
+                                                                    aFailureClassHandler,
+                                                                    x -> {
+                                                                      aNotModified.set (true);
+                                                                      aNotModifiedHandler.accept (x);
+                                                                    });
+        if (aBC != null || aNotModified.get ())
+          return aBC;
+        aRemainingSMLs.remove (aPreferredSML);
       }
-      else
+    }
+
+    // Query all other SMLs in parallel
+    final CompletionService <SMLQueryResult> aCompletionService = new ExecutorCompletionService <> (m_aFetchExecutor);
+    final ICommonsList <Future <SMLQueryResult>> aQueries = new CommonsArrayList <> ();
+    try
+    {
+      for (final ISMLInfo aSML : aRemainingSMLs)
+        aQueries.add (aCompletionService.submit ( () -> {
+          final SMLQueryResult aResult = new SMLQueryResult (aSML);
+          aResult.m_aBC = _getBusinessCardFromSML (aParticipantID,
+                                                   aSML,
+                                                   aKnownValidators,
+                                                   aResult.m_aErrorMsgs::add,
+                                                   aResult.m_aFailureClasses::add,
+                                                   x -> aResult.m_aNotModifiedDocTypeIDs = x.getClone ());
+          return aResult;
+        }));
+
+      // Use the first business card found
+      for (int i = 0; i < aQueries.size (); ++i)
       {
-        final String sErrorMsg = "Error querying SMP for BusinessCard of '" +
-                                 aParticipantID.getURIEncoded () +
-                                 "'. Details: " +
-                                 ex.getMessage ();
-        LOGGER.error (sErrorMsg, ex);
-        aErrorMsgHandler.accept (sErrorMsg);
+        final SMLQueryResult aResult;
+        try
+        {
+          aResult = aCompletionService.take ().get ();
+        }
+        catch (final InterruptedException ex)
+        {
+          Thread.currentThread ().interrupt ();
+          final String sErrorMsg = "Interrupted while querying SMLs for BusinessCard of '" +
+                                   aParticipantID.getURIEncoded () +
+                                   "'";
+          LOGGER.warn (sErrorMsg);
+          aErrorMsgHandler.accept (sErrorMsg);
+          aFailureClassHandler.accept (EIndexerFailureClass.OTHER);
+          return null;
+        }
+        catch (final ExecutionException ex)
+        {
+          // Catch-all to be on the safe side
+          final String sErrorMsg = "Failed to query SMP. Details: " + ex.getCause ().getMessage ();
+          LOGGER.error (sErrorMsg, ex.getCause ());
+          aErrorMsgHandler.accept (sErrorMsg);
+          aFailureClassHandler.accept (EIndexerFailureClass.getFromException (ex.getCause ()));
+          continue;
+        }
+
+        aResult.m_aErrorMsgs.forEach (aErrorMsgHandler);
+        aResult.m_aFailureClasses.forEach (aFailureClassHandler);
+        if (aResult.m_aBC != null || aResult.m_aNotModifiedDocTypeIDs != null)
+        {
+          // Remember for the next time
+          m_aPreferredSMLs.setPreferredSMLID (aParticipantID, aResult.m_aSML.getID ());
+          if (aResult.m_aNotModifiedDocTypeIDs != null)
+            aNotModifiedHandler.accept (aResult.m_aNotModifiedDocTypeIDs);
+          return aResult.m_aBC;
+        }
       }
-      return null;
     }
-
-    if (aBusinessCard == null)
+    finally
     {
-      // No extension present - no need to try again
-      final String sErrorMsg = "Failed to get SMP BusinessCard of '" + aParticipantID.getURIEncoded () + "'";
-      LOGGER.warn (sErrorMsg);
-      aErrorMsgHandler.accept (sErrorMsg);
-      return null;
+      // Cancel all queries that are still running
+      for (final Future <SMLQueryResult> aQuery : aQueries)
+        aQuery.cancel (true);
     }
 
-    // Query all document types
-    final IIdentifierFactory aIdentifierFactory = PDMetaManager.getIdentifierFactory ();
-    final ICommonsList <IDocumentTypeIdentifier> aDocumentTypeIDs = BDXR2ClientReadOnly.getAllDocumentTypes (aServiceGroup,
-                                                                                                             aIdentifierFactory);
-
-    return new PDExtendedBusinessCard (aBusinessCard, aDocumentTypeIDs);
+    // Found nowhere
+    m_aPreferredSMLs.removePreferredSMLID (aParticipantID);
+    return null;
   }
 
-  private void _configureSMPClient (@NonNull final AbstractGenericSMPClient <?> aSMPClient)
+  @Nullable
+  public PDExtendedBusinessCard getBusinessCard (@NonNull final IParticipantIdentifier aParticipantID,
+                                                 @NonNull final Consumer <String> aErrorMsgHandler)
   {
-    if (LOGGER.isDebugEnabled ())
-      LOGGER.debug ("Now configuring the the SMP client");
-
-    aSMPClient.httpClientSettings ()
-              .getGeneralProxy ()
-              .setProxyHost (_getHttpProxy ())
-              .setProxyCredentials (_getHttpProxyCredentials ());
-    if (PDServerConfiguration.isSMPTLSTrustAll ())
-      try
-      {
-        aSMPClient.httpClientSettings ().setSSLContextTrustAll ();
-        aSMPClient.httpClientSettings ().setHostnameVerifierVerifyAll ();
-        LOGGER.warn ("Trusting all TLS configurations - not recommended for production");
-      }
-      catch (final GeneralSecurityException ex)
-      {
-        throw new IllegalStateException ("Failed to set SSL Context or Hostname verifier", ex);
-      }
+    return getBusinessCard (aParticipantID, aErrorMsgHandler, x -> {});
+  }
 
-    // Eat all we can get
-    aSMPClient.setXMLSchemaValidation (false);
+  @Nullable
+  public PDExtendedBusinessCard getBusinessCard (@NonNull final IParticipantIdentifier aParticipantID,
+                                                 @NonNull final Consumer <String> aErrorMsgHandler,
+                                                 @NonNull final Consumer <EIndexerFailureClass> aFailureClassHandler)
+  {
+    return getBusinessCard (aParticipantID, null, aErrorMsgHandler, aFailureClassHandler, x -> {});
   }
 
   @Nullable
   public PDExtendedBusinessCard getBusinessCard (@NonNull final IParticipantIdentifier aParticipantID,
-                                                 @NonNull final Consumer <String> aErrorMsgHandler)
+                                                 @Nullable final PDBusinessCardValidators aKnownValidators,
+                                                 @NonNull final Consumer <String> aErrorMsgHandler,
+                                                 @NonNull final Consumer <EIndexerFailureClass> aFailureClassHandler,
+                                                 @NonNull final Consumer <? super ICommonsList <IDocumentTypeIdentifier>> aNotModifiedHandler)
   {
     ValueEnforcer.notNull (aParticipantID, "ParticipantID");
+    ValueEnforcer.notNull (aNotModifiedHandler, "NotModifiedHandler");
 
     final ICommonsList <? extends ISMLInfo> aSMLs = m_aSMLInfoProvider.get ();
 
@@ -421,98 +935,30 @@ public class SMPBusinessCardProvider implements IPDBusinessCardProvider
       final String sErrorMsg = "SMLInfoProvider returned an empty list!";
       LOGGER.error (sErrorMsg);
       aErrorMsgHandler.accept (sErrorMsg);
+      aFailureClassHandler.accept (EIndexerFailureClass.OTHER);
     }
 
-    // SML auto detect
+    final AtomicBoolean aNotModified = new AtomicBoolean (false);
+    final Consumer <ICommonsList <IDocumentTypeIdentifier>> aRealNotModifiedHandler = x -> {
+      aNotModified.set (true);
+      aNotModifiedHandler.accept (x);
+    };
     PDExtendedBusinessCard aBC = null;
-    for (final ISMLInfo aSML : aSMLs)
-    {
-      if (LOGGER.isDebugEnabled ())
-        LOGGER.debug ("Now trying with SML " + aSML);
-
-      // Create SMP client and query SMP
-      switch (m_eSMPMode)
-      {
-        case PEPPOL:
-        {
-          try
-          {
-            final SMPClientReadOnly aSMPClient = new CachingSMPClientReadOnly (m_aURLProvider, aParticipantID, aSML);
-            _configureSMPClient (aSMPClient);
-            aBC = getBusinessCardPeppolSMP (aParticipantID, aSMPClient, aErrorMsgHandler);
-          }
-          catch (final SMPDNSResolutionException ex)
-          {
-            // Happens if a non-existing URL is queried
-            final String sErrorMsg = "Failed to resolve SMP DNS entry: " + ex.getMessage ();
-            LOGGER.error (sErrorMsg);
-            aErrorMsgHandler.accept (sErrorMsg);
-          }
-          catch (final Exception ex)
-          {
-            // Catch-all to be on the safe side
-            final String sErrorMsg = "Failed to query SMP. Details: " + ex.getMessage ();
-            LOGGER.error (sErrorMsg, ex);
-            aErrorMsgHandler.accept (sErrorMsg);
-          }
-          break;
-        }
-        case OASIS_BDXR_V1:
-        {
-          try
-          {
-            final BDXRClientReadOnly aSMPClient = new BDXRClientReadOnly (m_aURLProvider, aParticipantID, aSML);
-            _configureSMPClient (aSMPClient);
-            aBC = getBusinessCardBDXR1 (aParticipantID, aSMPClient, aErrorMsgHandler);
-          }
-          catch (final SMPDNSResolutionException ex)
-          {
-            // Happens if a non-existing URL is queried
-            final String sErrorMsg = "Failed to resolve SMP DNS entry: " + ex.getMessage ();
-            LOGGER.error (sErrorMsg);
-            aErrorMsgHandler.accept (sErrorMsg);
-          }
-          catch (final Exception ex)
-          {
-            // Catch-all to be on the safe side
-            final String sErrorMsg = "Failed to query SMP. Details: " + ex.getMessage ();
-            LOGGER.error (sErrorMsg, ex);
-            aErrorMsgHandler.accept (sErrorMsg);
-          }
-          break;
-        }
-        case OASIS_BDXR_V2:
-        {
-          try
-          {
-            final BDXR2ClientReadOnly aSMPClient = new BDXR2ClientReadOnly (m_aURLProvider, aParticipantID, aSML);
-            _configureSMPClient (aSMPClient);
-            aBC = getBusinessCardBDXR2 (aParticipantID, aSMPClient, aErrorMsgHandler);
-          }
-          catch (final SMPDNSResolutionException ex)
-          {
-            // Happens if a non-existing URL is queried
-            final String sErrorMsg = "Failed to resolve SMP DNS entry: " + ex.getMessage ();
-            LOGGER.error (sErrorMsg);
-            aErrorMsgHandler.accept (sErrorMsg);
-          }
-          catch (final Exception ex)
-          {
-            // Catch-all to be on the safe side
-            final String sErrorMsg = "Failed to query SMP. Details: " + ex.getMessage ();
-            LOGGER.error (sErrorMsg, ex);
-            aErrorMsgHandler.accept (sErrorMsg);
-          }
-          break;
-        }
-        default:
-          throw new IllegalStateException ("Unsupported SMP mode " + m_eSMPMode);
-      }
-
-      // Found one? Use the first one
-      if (aBC != null)
-        break;
-    }
+    if (aSMLs.size () == 1)
+      aBC = _getBusinessCardFromSML (aParticipantID,
+                                     aSMLs.getFirstOrNull (),
+                                     aKnownValidators,
+                                     aErrorMsgHandler,
+                                     aFailureClassHandler,
+                                     aRealNotModifiedHandler);
+    else
+      if (aSMLs.size () > 1)
+        aBC = _getBusinessCardFromAllSMLs (aParticipantID,
+                                           aSMLs,
+                                           aKnownValidators,
+                                           aErrorMsgHandler,
+                                           aFailureClassHandler,
+                                           aRealNotModifiedHandler);
 
     if (aBC != null)
     {
@@ -525,13 +971,41 @@ public class SMPBusinessCardProvider implements IPDBusinessCardProvider
                    " document types");
     }
     else
-    {
-      LOGGER.warn ("Found NO BusinessCard for '" + aParticipantID.getURIEncoded () + "'");
-    }
+      if (aNotModified.get ())
+      {
+        LOGGER.info ("BusinessCard of '" + aParticipantID.getURIEncoded () + "' is unchanged");
+      }
+      else
+      {
+        LOGGER.warn ("Found NO BusinessCard for '" + aParticipantID.getURIEncoded () + "'");
+      }
 
     return aBC;
   }
 
+  @Override
+  @Nullable
+  public String getSMPHostNameOrNull (@NonNull final IParticipantIdentifier aParticipantID)
+  {
+    ValueEnforcer.notNull (aParticipantID, "ParticipantID");
+
+    final ICommonsList <? extends ISMLInfo> aSMLs = getAllSMLsToUse ();
+    if (aSMLs != null)
+      for (final ISMLInfo aSML : aSMLs)
+      {
+        try
+        {
+          // Usually the first SML that knows the participant provides the business card
+          return m_aURLProvider.getSMPURIOfParticipant (aParticipantID, aSML).getHost ();
+        }
+        catch (final SMPDNSResolutionException ex)
+        {
+          // Try the next SML
+        }
+      }
+    return null;
+  }
+
   @NonNull
   public static SMPBusinessCardProvider createWithSMLAutoDetect (@NonNull final ESMPAPIType eSMPMode,
                                                                  @NonNull final ISMPURLProvider aURLProvider,
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.index;
+
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+
+import org.apache.hc.client5.http.HttpResponseException;
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.CheckForSigned;
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.base.id.IHasID;
+import com.helger.base.lang.EnumHelper;
+import com.helger.base.name.IHasDisplayName;
+import com.helger.http.CHttp;
+import com.helger.smpclient.url.SMPDNSResolutionException;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * The classes of reasons why the execution of an indexer work item failed. Each class has its own
+ * retry policy.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+public enum EIndexerFailureClass implements IHasID <String>, IHasDisplayName
+{
+  /** The SMP of the participant could not be resolved via DNS */
+  DNS ("dns", "DNS failure", true, 15, 240, 3),
+  /** The SMP does not know the participant or has no business card for it */
+  NOT_FOUND ("notfound", "Not found", true, 60, 240, 1),
+  /** The SMP responded with an HTTP 5xx status code */
+  SERVER_ERROR ("servererror", "SMP server error", false, 5, 120, -1),
+  /** The SMP could not be reached in time */
+  TIMEOUT ("timeout", "Timeout", false, 5, 120, -1),
+  /** Writing to the local index failed */
+  STORAGE ("storage", "Storage failure", false, 1, 30, -1),
+  /** Anything else */
+  OTHER ("other", "Other", false, 5, 120, -1);
+
+  private final String m_sID;
+  private final String m_sDisplayName;
+  private final boolean m_bPermanent;
+  private final int m_nDefaultInitialDelayMinutes;
+  private final int m_nDefaultMaxDelayMinutes;
+  private final int m_nDefaultMaxRetries;
+
+  private EIndexerFailureClass (@NonNull @Nonempty final String sID,
+                                @NonNull @Nonempty final String sDisplayName,
+                                final boolean bPermanent,
+                                @Nonnegative final int nDefaultInitialDelayMinutes,
+                                @Nonnegative final int nDefaultMaxDelayMinutes,
+                                final int nDefaultMaxRetries)
+  {
+    m_sID = sID;
+    m_sDisplayName = sDisplayName;
+    m_bPermanent = bPermanent;
+    m_nDefaultInitialDelayMinutes = nDefaultInitialDelayMinutes;
+    m_nDefaultMaxDelayMinutes = nDefaultMaxDelayMinutes;
+    m_nDefaultMaxRetries = nDefaultMaxRetries;
+  }
+
+  @NonNull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  @NonNull
+  @Nonempty
+  public String getDisplayName ()
+  {
+    return m_sDisplayName;
+  }
+
+  /**
+   * @return <code>true</code> if a retry will most likely fail again, <code>false</code> if the
+   *         failure is most likely transient.
+   */
+  public boolean isPermanent ()
+  {
+    return m_bPermanent;
+  }
+
+  /**
+   * @return The default delay in minutes before the first retry. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getDefaultInitialDelayMinutes ()
+  {
+    return m_nDefaultInitialDelayMinutes;
+  }
+
+  /**
+   * @return The default maximum delay in minutes between two retries. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getDefaultMaxDelayMinutes ()
+  {
+    return m_nDefaultMaxDelayMinutes;
+  }
+
+  /**
+   * @return The default maximum number of retries. Values &lt; 0 mean that the number of retries
+   *         is only limited by the maximum retry duration.
+   */
+  @CheckForSigned
+  public int getDefaultMaxRetries ()
+  {
+    return m_nDefaultMaxRetries;
+  }
+
+  @Nullable
+  public static EIndexerFailureClass getFromIDOrNull (@Nullable final String sID)
+  {
+    return EnumHelper.getFromIDOrNull (EIndexerFailureClass.class, sID);
+  }
+
+  /**
+   * Determine the failure class from an exception and its causes.
+   *
+   * @param aException
+   *        The exception to check. May be <code>null</code>.
+   * @return {@link #OTHER} if the exception is not specific enough. Never <code>null</code>.
+   */
+  @NonNull
+  public static EIndexerFailureClass getFromException (@Nullable final Throwable aException)
+  {
+    Throwable t = aException;
+    // Limit the depth in case of cyclic causes
+    for (int i = 0; t != null && i < 10; ++i, t = t.getCause ())
+    {
+      if (t instanceof SMPDNSResolutionException || t instanceof UnknownHostException)
+        return DNS;
+      if (t instanceof final HttpResponseException aHREx)
+      {
+        final int nStatusCode = aHREx.getStatusCode ();
+        if (nStatusCode == CHttp.HTTP_NOT_FOUND || nStatusCode == CHttp.HTTP_GONE)
+          return NOT_FOUND;
+        if (nStatusCode >= CHttp.HTTP_INTERNAL_SERVER_ERROR)
+          return SERVER_ERROR;
+        return OTHER;
+      }
+      // Includes socket and connect timeouts
+      if (t instanceof InterruptedIOException || t instanceof ConnectException)
+        return TIMEOUT;
+    }
+    return OTHER;
+  }
+
+  /**
+   * Combine the failure classes of multiple failed attempts of the same work item (e.g. with
+   * different SMLs). A transient failure wins over a permanent one, because a retry may succeed.
+   *
+   * @param eExisting
+   *        The failure class determined so far. May be <code>null</code>.
+   * @param eNew
+   *        The new failure class. May not be <code>null</code>.
+   * @return The combined failure class. Never <code>null</code>.
+   */
+  @NonNull
+  public static EIndexerFailureClass getCombined (@Nullable final EIndexerFailureClass eExisting,
+                                                  @NonNull final EIndexerFailureClass eNew)
+  {
+    if (eExisting == null || (eExisting.isPermanent () && !eNew.isPermanent ()))
+      return eNew;
+    return eExisting;
+  }
+}
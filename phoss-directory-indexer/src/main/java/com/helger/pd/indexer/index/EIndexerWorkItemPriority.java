@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.index;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.id.IHasID;
+import com.helger.base.lang.EnumHelper;
+import com.helger.base.name.IHasDisplayName;
+import com.helger.pd.indexer.storage.CPDStorage;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * The priority classes of indexer work items. Each priority has its own lane in the
+ * {@link IndexerWorkItemPriorityQueue} and the lanes are served according to their weights.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+public enum EIndexerWorkItemPriority implements IHasID <String>, IHasDisplayName
+{
+  /** Changes triggered by an SMP or manually by an administrator */
+  INTERACTIVE ("interactive", "Interactive", 16),
+  /** Changes triggered by imports and the duplicate elimination */
+  BULK ("bulk", "Bulk", 4),
+  /** Synchronization of all business cards */
+  BACKGROUND ("background", "Background", 1);
+
+  private final String m_sID;
+  private final String m_sDisplayName;
+  private final int m_nDefaultWeight;
+
+  private EIndexerWorkItemPriority (@NonNull @Nonempty final String sID,
+                                    @NonNull @Nonempty final String sDisplayName,
+                                    @Nonnegative final int nDefaultWeight)
+  {
+    m_sID = sID;
+    m_sDisplayName = sDisplayName;
+    m_nDefaultWeight = nDefaultWeight;
+  }
+
+  @NonNull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  @NonNull
+  @Nonempty
+  public String getDisplayName ()
+  {
+    return m_sDisplayName;
+  }
+
+  /**
+   * @return The default weight of this priority, relative to the other priorities. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getDefaultWeight ()
+  {
+    return m_nDefaultWeight;
+  }
+
+  @Nullable
+  public static EIndexerWorkItemPriority getFromIDOrNull (@Nullable final String sID)
+  {
+    return EnumHelper.getFromIDOrNull (EIndexerWorkItemPriority.class, sID);
+  }
+
+  /**
+   * Determine the priority of the provided work item from its type and owner ID.
+   *
+   * @param aItem
+   *        The work item to check. May not be <code>null</code>.
+   * @return The priority and never <code>null</code>.
+   */
+  @NonNull
+  public static EIndexerWorkItemPriority getPriorityOf (@NonNull final IIndexerWorkItem aItem)
+  {
+    ValueEnforcer.notNull (aItem, "Item");
+
+    final String sOwnerID = aItem.getOwnerID ();
+    if (aItem.getType () == EIndexerWorkItemType.SYNC || CPDStorage.OWNER_SYNC_JOB.equals (sOwnerID))
+      return BACKGROUND;
+    if (CPDStorage.OWNER_IMPORT_TRIGGERED.equals (sOwnerID) || CPDStorage.OWNER_DUPLICATE_ELIMINATION.equals (sOwnerID))
+      return BULK;
+    // SMP requests and manual actions
+    return INTERACTIVE;
+  }
+}
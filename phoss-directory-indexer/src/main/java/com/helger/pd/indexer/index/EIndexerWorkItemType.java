@@ -19,6 +19,7 @@ package com.helger.pd.indexer.index;
 import org.jspecify.annotations.NonNull;
 
 import com.helger.annotation.Nonempty;
+import com.helger.base.enforce.ValueEnforcer;
 import com.helger.base.id.IHasID;
 import com.helger.base.lang.EnumHelper;
 import com.helger.base.name.IHasDisplayName;
@@ -62,6 +63,23 @@ public enum EIndexerWorkItemType implements IHasID <String>, IHasDisplayName
     return m_sDisplayName;
   }
 
+  /**
+   * Check if a newer work item of this type makes a pending older work item of the provided type
+   * for the same participant obsolete, because only the final state matters. A deletion cancels a
+   * pending creation or synchronization, a creation/update includes a synchronization and
+   * overrides a pending deletion. A synchronization never overrides an explicit request.
+   *
+   * @param eOlder
+   *        The type of the older pending work item. May not be <code>null</code>.
+   * @return <code>true</code> if the older work item doesn't need to be executed anymore.
+   * @since 0.16.1
+   */
+  public boolean supersedes (@NonNull final EIndexerWorkItemType eOlder)
+  {
+    ValueEnforcer.notNull (eOlder, "Older");
+    return this != SYNC && this != eOlder;
+  }
+
   @Nullable
   public static EIndexerWorkItemType getFromIDOrNull (@Nullable final String sID)
   {
@@ -0,0 +1,468 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.index;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.GuardedBy;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.string.StringHelper;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Limits the number of work items that are processed at the same time per SMP host. Work items for
+ * a host that already reached the limit are parked in a queue of that host, with one queue per
+ * {@link EIndexerWorkItemPriority}. The priorities of the parked work items are served in the same
+ * weighted order as in the {@link IndexerWorkItemPriorityQueue}, so that an interactive work item
+ * does not wait behind all background work items of the same host. Within a priority, parked work
+ * items are handed out round-robin across all hosts as soon as the host has a free slot, so that a
+ * single SMP with many participants does not block the work items of all other SMPs.<br>
+ * Work items for which no host can be determined (e.g. deletions) are never limited.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+@ThreadSafe
+public final class IndexerSMPHostLimiter
+{
+  /**
+   * A work item that may be processed now. It must be passed to
+   * {@link IndexerSMPHostLimiter#release(Lease)} after processing.
+   */
+  @Immutable
+  public static final class Lease
+  {
+    private final IIndexerWorkItem m_aItem;
+    private final String m_sHost;
+
+    Lease (@NonNull final IIndexerWorkItem aItem, @Nullable final String sHost)
+    {
+      m_aItem = aItem;
+      m_sHost = sHost;
+    }
+
+    /**
+     * @return The work item to be processed. Never <code>null</code>.
+     */
+    @NonNull
+    public IIndexerWorkItem getWorkItem ()
+    {
+      return m_aItem;
+    }
+
+    /**
+     * @return The SMP host of the work item or <code>null</code> if it is not limited.
+     */
+    @Nullable
+    public String getHost ()
+    {
+      return m_sHost;
+    }
+  }
+
+  /**
+   * The status of a single SMP host.
+   */
+  @Immutable
+  public static final class HostStatus
+  {
+    private final String m_sHost;
+    private final int m_nInFlight;
+    private final int m_nParked;
+
+    HostStatus (@NonNull final String sHost, final int nInFlight, final int nParked)
+    {
+      m_sHost = sHost;
+      m_nInFlight = nInFlight;
+      m_nParked = nParked;
+    }
+
+    @NonNull
+    public String getHost ()
+    {
+      return m_sHost;
+    }
+
+    @Nonnegative
+    public int getInFlightCount ()
+    {
+      return m_nInFlight;
+    }
+
+    @Nonnegative
+    public int getParkedCount ()
+    {
+      return m_nParked;
+    }
+  }
+
+  private static final class HostState
+  {
+    private int m_nInFlight = 0;
+    private int m_nParked = 0;
+    // One FIFO per priority
+    private final Map <EIndexerWorkItemPriority, ArrayDeque <IIndexerWorkItem>> m_aParked = new EnumMap <> (EIndexerWorkItemPriority.class);
+
+    HostState ()
+    {
+      for (final EIndexerWorkItemPriority ePriority : EIndexerWorkItemPriority.values ())
+        m_aParked.put (ePriority, new ArrayDeque <> ());
+    }
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (IndexerSMPHostLimiter.class);
+
+  private final int m_nMaxPerHost;
+  private final Function <? super IIndexerWorkItem, String> m_aHostResolver;
+  private final Lock m_aLock = new ReentrantLock ();
+  @GuardedBy ("m_aLock")
+  private final Map <String, HostState> m_aHosts = new HashMap <> ();
+  // Per priority all hosts with parked items of that priority, each contained once
+  @GuardedBy ("m_aLock")
+  private final Map <EIndexerWorkItemPriority, ArrayDeque <String>> m_aRoundRobin = new EnumMap <> (EIndexerWorkItemPriority.class);
+  @GuardedBy ("m_aLock")
+  private final IndexerWorkItemPriorityScheduler m_aScheduler;
+  @GuardedBy ("m_aLock")
+  private int m_nParkedCount = 0;
+
+  /**
+   * Constructor
+   *
+   * @param nMaxPerHost
+   *        The maximum number of work items processed at the same time per SMP host. Must be &gt;
+   *        0.
+   * @param aHostResolver
+   *        The function to determine the SMP host of a work item. It may return <code>null</code>
+   *        if the work item does not need an SMP or if the host is unknown. May not be
+   *        <code>null</code>.
+   */
+  public IndexerSMPHostLimiter (@Nonnegative final int nMaxPerHost,
+                                @NonNull final Function <? super IIndexerWorkItem, String> aHostResolver)
+  {
+    this (nMaxPerHost, aHostResolver, EIndexerWorkItemPriority::getDefaultWeight);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param nMaxPerHost
+   *        The maximum number of work items processed at the same time per SMP host. Must be &gt;
+   *        0.
+   * @param aHostResolver
+   *        The function to determine the SMP host of a work item. It may return <code>null</code>
+   *        if the work item does not need an SMP or if the host is unknown. May not be
+   *        <code>null</code>.
+   * @param aWeightProvider
+   *        The provider of the weight of each priority. All weights must be &gt; 0. May not be
+   *        <code>null</code>.
+   */
+  public IndexerSMPHostLimiter (@Nonnegative final int nMaxPerHost,
+                                @NonNull final Function <? super IIndexerWorkItem, String> aHostResolver,
+                                @NonNull final ToIntFunction <EIndexerWorkItemPriority> aWeightProvider)
+  {
+    ValueEnforcer.isGT0 (nMaxPerHost, "MaxPerHost");
+    ValueEnforcer.notNull (aHostResolver, "HostResolver");
+    m_nMaxPerHost = nMaxPerHost;
+    m_aHostResolver = aHostResolver;
+    m_aScheduler = new IndexerWorkItemPriorityScheduler (aWeightProvider);
+    for (final EIndexerWorkItemPriority ePriority : EIndexerWorkItemPriority.values ())
+      m_aRoundRobin.put (ePriority, new ArrayDeque <> ());
+  }
+
+  /**
+   * @return The maximum number of work items processed at the same time per SMP host. Always &gt;
+   *         0.
+   */
+  @Nonnegative
+  public int getMaxPerHost ()
+  {
+    return m_nMaxPerHost;
+  }
+
+  @Nullable
+  private String _resolveHost (@NonNull final IIndexerWorkItem aItem)
+  {
+    try
+    {
+      return m_aHostResolver.apply (aItem);
+    }
+    catch (final RuntimeException ex)
+    {
+      // Let the fetch itself report the problem
+      LOGGER.warn ("Failed to determine the SMP host of " + aItem.getLogText () + ": " + ex.getMessage ());
+      return null;
+    }
+  }
+
+  /**
+   * Determine the SMP host of the provided work item and check if it may be processed now. If the
+   * host already reached the limit, the work item is parked.
+   *
+   * @param aItem
+   *        The work item to check. May not be <code>null</code>.
+   * @return The lease to process the work item now, or <code>null</code> if the work item was
+   *         parked.
+   */
+  @Nullable
+  public Lease tryAcquire (@NonNull final IIndexerWorkItem aItem)
+  {
+    ValueEnforcer.notNull (aItem, "Item");
+
+    // Resolve outside of the lock, as it may require DNS lookups
+    final String sHost = _resolveHost (aItem);
+    if (StringHelper.isEmpty (sHost))
+      return new Lease (aItem, null);
+
+    final EIndexerWorkItemPriority ePriority = EIndexerWorkItemPriority.getPriorityOf (aItem);
+    m_aLock.lock ();
+    try
+    {
+      final HostState aState = m_aHosts.computeIfAbsent (sHost, k -> new HostState ());
+      // Don't overtake items that are already parked
+      if (aState.m_nInFlight < m_nMaxPerHost && aState.m_nParked == 0)
+      {
+        aState.m_nInFlight++;
+        return new Lease (aItem, sHost);
+      }
+
+      final ArrayDeque <IIndexerWorkItem> aParked = aState.m_aParked.get (ePriority);
+      if (aParked.isEmpty ())
+        m_aRoundRobin.get (ePriority).addLast (sHost);
+      aParked.addLast (aItem);
+      aState.m_nParked++;
+      m_nParkedCount++;
+      return null;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  // Must be called with the lock held
+  private boolean _hasPollableParked (@NonNull final EIndexerWorkItemPriority ePriority)
+  {
+    for (final String sHost : m_aRoundRobin.get (ePriority))
+      if (m_aHosts.get (sHost).m_nInFlight < m_nMaxPerHost)
+        return true;
+    return false;
+  }
+
+  /**
+   * Get the next parked work item of a host that has a free slot. The priorities are served with
+   * the same weighted round-robin as in the {@link IndexerWorkItemPriorityQueue}, and within a
+   * priority the hosts are served round-robin.
+   *
+   * @return The lease to process the work item now, or <code>null</code> if no parked work item
+   *         can be processed now.
+   */
+  @Nullable
+  public Lease pollParked ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      if (m_nParkedCount == 0)
+        return null;
+
+      // Only priorities with a parked item of a host with a free slot are considered
+      final EIndexerWorkItemPriority ePriority = m_aScheduler.select (this::_hasPollableParked);
+      if (ePriority == null)
+        return null;
+
+      final ArrayDeque <String> aRoundRobin = m_aRoundRobin.get (ePriority);
+      for (int i = aRoundRobin.size (); i > 0; --i)
+      {
+        final String sHost = aRoundRobin.pollFirst ();
+        final HostState aState = m_aHosts.get (sHost);
+        if (aState.m_nInFlight < m_nMaxPerHost)
+        {
+          final ArrayDeque <IIndexerWorkItem> aParked = aState.m_aParked.get (ePriority);
+          final IIndexerWorkItem aItem = aParked.pollFirst ();
+          aState.m_nParked--;
+          m_nParkedCount--;
+          aState.m_nInFlight++;
+          // Other hosts are served first
+          if (!aParked.isEmpty ())
+            aRoundRobin.addLast (sHost);
+          else
+            if (aRoundRobin.isEmpty ())
+            {
+              // Don't keep credits of a priority that has nothing to do
+              m_aScheduler.reset (ePriority);
+            }
+          return new Lease (aItem, sHost);
+        }
+        aRoundRobin.addLast (sHost);
+      }
+      // Cannot happen, as the priority was selected because of a host with a free slot
+      return null;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * Release the slot of a processed work item.
+   *
+   * @param aLease
+   *        The lease returned by {@link #tryAcquire(IIndexerWorkItem)} or {@link #pollParked()}.
+   *        May not be <code>null</code>.
+   */
+  public void release (@NonNull final Lease aLease)
+  {
+    ValueEnforcer.notNull (aLease, "Lease");
+
+    final String sHost = aLease.getHost ();
+    if (sHost != null)
+    {
+      m_aLock.lock ();
+      try
+      {
+        final HostState aState = m_aHosts.get (sHost);
+        aState.m_nInFlight--;
+        if (aState.m_nInFlight == 0 && aState.m_nParked == 0)
+          m_aHosts.remove (sHost);
+      }
+      finally
+      {
+        m_aLock.unlock ();
+      }
+    }
+  }
+
+  /**
+   * @return The number of parked work items. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getParkedCount ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      return m_nParkedCount;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * @return A copy of all parked work items. Never <code>null</code> but maybe empty.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <IIndexerWorkItem> getAllParked ()
+  {
+    final ICommonsList <IIndexerWorkItem> ret = new CommonsArrayList <> ();
+    m_aLock.lock ();
+    try
+    {
+      for (final HostState aState : m_aHosts.values ())
+        for (final ArrayDeque <IIndexerWorkItem> aParked : aState.m_aParked.values ())
+          ret.addAll (aParked);
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+    return ret;
+  }
+
+  /**
+   * Remove all parked work items.
+   *
+   * @return The removed work items. Never <code>null</code> but maybe empty.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <IIndexerWorkItem> drainParked ()
+  {
+    final ICommonsList <IIndexerWorkItem> ret = new CommonsArrayList <> ();
+    m_aLock.lock ();
+    try
+    {
+      for (final HostState aState : m_aHosts.values ())
+      {
+        for (final ArrayDeque <IIndexerWorkItem> aParked : aState.m_aParked.values ())
+        {
+          ret.addAll (aParked);
+          aParked.clear ();
+        }
+        aState.m_nParked = 0;
+      }
+      for (final ArrayDeque <String> aRoundRobin : m_aRoundRobin.values ())
+        aRoundRobin.clear ();
+      m_aScheduler.resetAll ();
+      m_nParkedCount = 0;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+    return ret;
+  }
+
+  /**
+   * @return The status of all hosts with work items in flight or parked. Never <code>null</code>
+   *         but maybe empty.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <HostStatus> getAllHostStatus ()
+  {
+    final ICommonsList <HostStatus> ret = new CommonsArrayList <> ();
+    m_aLock.lock ();
+    try
+    {
+      m_aHosts.forEach ( (k, v) -> ret.add (new HostStatus (k, v.m_nInFlight, v.m_nParked)));
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+    return ret;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("MaxPerHost", m_nMaxPerHost).getToString ();
+  }
+}
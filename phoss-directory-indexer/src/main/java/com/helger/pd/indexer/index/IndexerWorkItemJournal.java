@@ -0,0 +1,661 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.index;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.GuardedBy;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+
+/**
+ * An append-only, segment based write-ahead log for indexer work items. Every queued work item is
+ * written as a "queued" record and every finished work item as a "done" record. Upon startup all
+ * segments are replayed, and all work items without a "done" record are available via
+ * {@link #getAllReplayedItems()}, so that they survive a crash of the JVM.<br>
+ * Records are collected in memory and written by the first thread that waits for its record to
+ * become durable ("group commit"). So a single write and fsync covers the records of all threads
+ * that appended in the meantime.<br>
+ * A new segment is started when the current one exceeds the configured size. Old segments are
+ * deleted as soon as they and all segments before them contain no more open work items.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+@ThreadSafe
+public final class IndexerWorkItemJournal implements Closeable
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (IndexerWorkItemJournal.class);
+
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".wal";
+  private static final byte RECORD_QUEUED = 1;
+  private static final byte RECORD_DONE = 2;
+  // Records are way smaller - anything bigger is considered corrupt
+  private static final int MAX_RECORD_LENGTH = 64 * 1024;
+  // Segment of an open work item that is not yet written to a segment
+  private static final long SEGMENT_UNWRITTEN = -1;
+
+  private final File m_aDirectory;
+  private final long m_nMaxSegmentBytes;
+  private final boolean m_bFsync;
+  private final ICommonsList <IIndexerWorkItem> m_aReplayedItems;
+
+  private final Lock m_aLock = new ReentrantLock ();
+  private final Condition m_aDurableCond = m_aLock.newCondition ();
+  @GuardedBy ("m_aLock")
+  private final ByteArrayOutputStream m_aBuffer = new ByteArrayOutputStream ();
+  // IDs of the work items queued in m_aBuffer
+  @GuardedBy ("m_aLock")
+  private List <String> m_aBufferedIDs = new ArrayList <> ();
+  @GuardedBy ("m_aLock")
+  private long m_nAppendedSeq = 0;
+  @GuardedBy ("m_aLock")
+  private long m_nDurableSeq = 0;
+  @GuardedBy ("m_aLock")
+  private boolean m_bSyncInProgress = false;
+  @GuardedBy ("m_aLock")
+  private boolean m_bClosed = false;
+  // A failed write leaves the segment in an undefined state, so no further writes are possible
+  @GuardedBy ("m_aLock")
+  private IOException m_aFailure;
+  // Work item ID to segment number
+  @GuardedBy ("m_aLock")
+  private final Map <String, Long> m_aOpenItems = new HashMap <> ();
+  // Segment number to number of open work items
+  @GuardedBy ("m_aLock")
+  private final Map <Long, Integer> m_aOpenPerSegment = new HashMap <> ();
+  @GuardedBy ("m_aLock")
+  private long m_nOldestSegment;
+  @GuardedBy ("m_aLock")
+  private long m_nRecordCount = 0;
+  @GuardedBy ("m_aLock")
+  private long m_nSyncCount = 0;
+
+  // Only accessed by the thread performing the sync
+  private FileChannel m_aChannel;
+  private long m_nSegment;
+  private long m_nSegmentBytes;
+
+  /**
+   * Constructor. Replays all existing segments in the provided directory and starts a new segment
+   * that contains all open work items.
+   *
+   * @param aDirectory
+   *        The directory to store the segments in. Is created if it does not exist. May not be
+   *        <code>null</code>.
+   * @param nMaxSegmentBytes
+   *        The number of bytes after which a new segment is started. Must be &gt; 0.
+   * @param bFsync
+   *        <code>true</code> to force all written records to the storage device before they are
+   *        considered durable.
+   * @throws IOException
+   *         If the segments cannot be read or written
+   */
+  public IndexerWorkItemJournal (@NonNull final File aDirectory,
+                                 @Nonnegative final long nMaxSegmentBytes,
+                                 final boolean bFsync) throws IOException
+  {
+    ValueEnforcer.notNull (aDirectory, "Directory");
+    ValueEnforcer.isGT0 (nMaxSegmentBytes, "MaxSegmentBytes");
+    m_aDirectory = aDirectory;
+    m_nMaxSegmentBytes = nMaxSegmentBytes;
+    m_bFsync = bFsync;
+
+    Files.createDirectories (aDirectory.toPath ());
+
+    // Replay all existing segments
+    final TreeMap <Long, File> aSegments = _getAllSegments (aDirectory);
+    final Map <String, IIndexerWorkItem> aOpen = new LinkedHashMap <> ();
+    for (final Map.Entry <Long, File> aEntry : aSegments.entrySet ())
+      _replaySegment (aEntry.getValue (), aOpen);
+    m_aReplayedItems = new CommonsArrayList <> (aOpen.values ());
+
+    // Start a fresh segment with all open work items
+    m_nSegment = aSegments.isEmpty () ? 1 : aSegments.lastKey ().longValue () + 1;
+    _openSegment ();
+    m_nOldestSegment = m_nSegment;
+    for (final IIndexerWorkItem aItem : m_aReplayedItems)
+      _appendNoWait (aItem);
+    _awaitDurable (m_nAppendedSeq);
+
+    // Now the old segments are obsolete
+    for (final File aFile : aSegments.values ())
+      Files.deleteIfExists (aFile.toPath ());
+
+    if (!aSegments.isEmpty ())
+      LOGGER.info ("Replayed " +
+                   aSegments.size () +
+                   " indexer write-ahead log segment(s) with " +
+                   m_aReplayedItems.size () +
+                   " open work item(s)");
+  }
+
+  @NonNull
+  private static TreeMap <Long, File> _getAllSegments (@NonNull final File aDirectory)
+  {
+    final TreeMap <Long, File> ret = new TreeMap <> ();
+    final File [] aFiles = aDirectory.listFiles ();
+    if (aFiles != null)
+      for (final File aFile : aFiles)
+      {
+        final String sName = aFile.getName ();
+        if (aFile.isFile () && sName.startsWith (SEGMENT_PREFIX) && sName.endsWith (SEGMENT_SUFFIX))
+        {
+          try
+          {
+            ret.put (Long.valueOf (sName.substring (SEGMENT_PREFIX.length (),
+                                                    sName.length () - SEGMENT_SUFFIX.length ())),
+                     aFile);
+          }
+          catch (final NumberFormatException ex)
+          {
+            LOGGER.warn ("Ignoring unexpected file '" + aFile.getAbsolutePath () + "' in the write-ahead log directory");
+          }
+        }
+      }
+    return ret;
+  }
+
+  @NonNull
+  private File _getSegmentFile (final long nSegment)
+  {
+    return new File (m_aDirectory, SEGMENT_PREFIX + String.format ("%016d", Long.valueOf (nSegment)) + SEGMENT_SUFFIX);
+  }
+
+  private static void _replaySegment (@NonNull final File aFile, @NonNull final Map <String, IIndexerWorkItem> aOpen)
+                                                                                                                    throws IOException
+  {
+    try (final InputStream aIS = Files.newInputStream (aFile.toPath ());
+         final DataInputStream aDIS = new DataInputStream (new BufferedInputStream (aIS)))
+    {
+      final CRC32 aCRC = new CRC32 ();
+      while (true)
+      {
+        final int nLength;
+        try
+        {
+          nLength = aDIS.readInt ();
+        }
+        catch (final EOFException ex)
+        {
+          // Regular end of segment
+          return;
+        }
+
+        try
+        {
+          if (nLength < 0 || nLength > MAX_RECORD_LENGTH)
+            throw new IOException ("Invalid record length " + nLength);
+          final byte nType = aDIS.readByte ();
+          final byte [] aPayload = new byte [nLength];
+          aDIS.readFully (aPayload);
+          final int nCRC = aDIS.readInt ();
+
+          aCRC.reset ();
+          aCRC.update (nType);
+          aCRC.update (aPayload);
+          if ((int) aCRC.getValue () != nCRC)
+            throw new IOException ("Checksum mismatch");
+
+          final DataInputStream aPayloadIS = new DataInputStream (new ByteArrayInputStream (aPayload));
+          final String sID = aPayloadIS.readUTF ();
+          switch (nType)
+          {
+            case RECORD_QUEUED:
+            {
+              final LocalDateTime aCreationDT = LocalDateTime.parse (aPayloadIS.readUTF ());
+              final String sParticipantID = aPayloadIS.readUTF ();
+              final EIndexerWorkItemType eType = EIndexerWorkItemType.getFromIDOrNull (aPayloadIS.readUTF ());
+              final String sOwnerID = aPayloadIS.readUTF ();
+              final String sRequestingHost = aPayloadIS.readUTF ();
+              if (eType == null)
+                throw new IOException ("Invalid work item type");
+              aOpen.putIfAbsent (sID,
+                                 new IndexerWorkItem (sID,
+                                                      aCreationDT,
+                                                      IndexerWorkItemMicroTypeConverter.parseParticipantID (sParticipantID),
+                                                      eType,
+                                                      sOwnerID,
+                                                      sRequestingHost));
+              break;
+            }
+            case RECORD_DONE:
+              aOpen.remove (sID);
+              break;
+            default:
+              throw new IOException ("Invalid record type " + nType);
+          }
+        }
+        catch (final IOException | RuntimeException ex)
+        {
+          // A torn write at the end of the segment, because of a crash
+          LOGGER.warn ("Stopping replay of indexer write-ahead log segment '" +
+                       aFile.getAbsolutePath () +
+                       "' at a corrupt or truncated record: " +
+                       ex.getMessage ());
+          return;
+        }
+      }
+    }
+  }
+
+  private void _openSegment () throws IOException
+  {
+    m_aChannel = FileChannel.open (_getSegmentFile (m_nSegment).toPath (),
+                                   StandardOpenOption.CREATE_NEW,
+                                   StandardOpenOption.WRITE);
+    m_nSegmentBytes = 0;
+  }
+
+  @NonNull
+  private static byte [] _encodeRecord (final byte nType, @NonNull final byte [] aPayload)
+  {
+    final CRC32 aCRC = new CRC32 ();
+    aCRC.update (nType);
+    aCRC.update (aPayload);
+
+    final ByteBuffer aBB = ByteBuffer.allocate (4 + 1 + aPayload.length + 4);
+    aBB.putInt (aPayload.length);
+    aBB.put (nType);
+    aBB.put (aPayload);
+    aBB.putInt ((int) aCRC.getValue ());
+    return aBB.array ();
+  }
+
+  @NonNull
+  private static byte [] _encodeQueued (@NonNull final IIndexerWorkItem aItem)
+  {
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream (128);
+    try (final DataOutputStream aDOS = new DataOutputStream (aBAOS))
+    {
+      aDOS.writeUTF (aItem.getID ());
+      aDOS.writeUTF (aItem.getCreationDateTime ().toString ());
+      aDOS.writeUTF (aItem.getParticipantID ().getURIEncoded ());
+      aDOS.writeUTF (aItem.getType ().getID ());
+      aDOS.writeUTF (aItem.getOwnerID ());
+      aDOS.writeUTF (aItem.getRequestingHost ());
+    }
+    catch (final IOException ex)
+    {
+      throw new UncheckedIOException (ex);
+    }
+    return _encodeRecord (RECORD_QUEUED, aBAOS.toByteArray ());
+  }
+
+  @NonNull
+  private static byte [] _encodeDone (@NonNull final String sID)
+  {
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream (32);
+    try (final DataOutputStream aDOS = new DataOutputStream (aBAOS))
+    {
+      aDOS.writeUTF (sID);
+    }
+    catch (final IOException ex)
+    {
+      throw new UncheckedIOException (ex);
+    }
+    return _encodeRecord (RECORD_DONE, aBAOS.toByteArray ());
+  }
+
+  /**
+   * Wait until all records up to the provided sequence number are written. If no other thread is
+   * currently writing, the calling thread writes all pending records of all threads at once.
+   *
+   * @param nSeq
+   *        The sequence number to wait for.
+   */
+  private void _awaitDurable (final long nSeq)
+  {
+    m_aLock.lock ();
+    try
+    {
+      while (m_nDurableSeq < nSeq)
+      {
+        if (m_bSyncInProgress)
+        {
+          // Another thread writes - it may cover our record as well
+          m_aDurableCond.awaitUninterruptibly ();
+          continue;
+        }
+        if (m_aFailure != null)
+          throw new UncheckedIOException ("Failed to write the indexer write-ahead log", m_aFailure);
+        if (m_bClosed)
+          throw new IllegalStateException ("The indexer write-ahead log is already closed");
+
+        // We are the one to write everything pending
+        m_bSyncInProgress = true;
+        final byte [] aBytes = m_aBuffer.toByteArray ();
+        m_aBuffer.reset ();
+        final List <String> aIDs = m_aBufferedIDs;
+        m_aBufferedIDs = new ArrayList <> ();
+        final long nTargetSeq = m_nAppendedSeq;
+
+        IOException aException = null;
+        m_aLock.unlock ();
+        try
+        {
+          if (m_nSegmentBytes >= m_nMaxSegmentBytes)
+          {
+            // The old segment was already forced by the previous sync
+            m_aChannel.close ();
+            m_nSegment++;
+            _openSegment ();
+          }
+          final ByteBuffer aBB = ByteBuffer.wrap (aBytes);
+          while (aBB.hasRemaining ())
+            m_aChannel.write (aBB);
+          if (m_bFsync)
+            m_aChannel.force (false);
+          m_nSegmentBytes += aBytes.length;
+        }
+        catch (final IOException ex)
+        {
+          aException = ex;
+        }
+        finally
+        {
+          m_aLock.lock ();
+        }
+
+        m_bSyncInProgress = false;
+        m_aDurableCond.signalAll ();
+        if (aException != null)
+        {
+          LOGGER.error ("Failed to write the indexer write-ahead log segment " + m_nSegment, aException);
+          m_aFailure = aException;
+          throw new UncheckedIOException ("Failed to write the indexer write-ahead log", aException);
+        }
+
+        final long nSegment = m_nSegment;
+        m_nDurableSeq = nTargetSeq;
+        m_nSyncCount++;
+        for (final String sID : aIDs)
+          if (m_aOpenItems.replace (sID, Long.valueOf (SEGMENT_UNWRITTEN), Long.valueOf (nSegment)))
+            m_aOpenPerSegment.merge (Long.valueOf (nSegment), Integer.valueOf (1), Integer::sum);
+        _deleteObsoleteSegments (nSegment);
+      }
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  @GuardedBy ("m_aLock")
+  private void _deleteObsoleteSegments (final long nCurrentSegment)
+  {
+    // Only a prefix of segments may be deleted, because the "done" records of a segment may refer
+    // to work items in previous segments
+    while (m_nOldestSegment < nCurrentSegment &&
+           m_aOpenPerSegment.getOrDefault (Long.valueOf (m_nOldestSegment), Integer.valueOf (0)).intValue () == 0)
+    {
+      m_aOpenPerSegment.remove (Long.valueOf (m_nOldestSegment));
+      final File aFile = _getSegmentFile (m_nOldestSegment);
+      if (aFile.exists () && !aFile.delete ())
+        LOGGER.warn ("Failed to delete obsolete indexer write-ahead log segment '" + aFile.getAbsolutePath () + "'");
+      m_nOldestSegment++;
+    }
+  }
+
+  /**
+   * Add a "queued" record for the provided work item to the in-memory buffer.
+   *
+   * @param aItem
+   *        The work item that was queued. May not be <code>null</code>.
+   * @return The sequence number of the record or -1 if the work item is already open.
+   */
+  private long _appendNoWait (@NonNull final IIndexerWorkItem aItem)
+  {
+    final byte [] aRecord = _encodeQueued (aItem);
+    m_aLock.lock ();
+    try
+    {
+      if (m_bClosed)
+        throw new IllegalStateException ("The indexer write-ahead log is already closed");
+      if (m_aOpenItems.putIfAbsent (aItem.getID (), Long.valueOf (SEGMENT_UNWRITTEN)) != null)
+        return -1;
+      m_aBuffer.write (aRecord, 0, aRecord.length);
+      m_aBufferedIDs.add (aItem.getID ());
+      m_nRecordCount++;
+      return ++m_nAppendedSeq;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * Append a "queued" record for the provided work item and wait until it is durable. If the work
+   * item is already open, nothing happens.
+   *
+   * @param aItem
+   *        The work item that was queued. May not be <code>null</code>.
+   * @throws UncheckedIOException
+   *         If writing failed now or before
+   */
+  public void append (@NonNull final IIndexerWorkItem aItem)
+  {
+    ValueEnforcer.notNull (aItem, "Item");
+
+    final long nSeq = _appendNoWait (aItem);
+    if (nSeq > 0)
+      _awaitDurable (nSeq);
+  }
+
+  /**
+   * Append a "done" record for the provided work item. This does not wait until the record is
+   * durable, because losing it only means that the work item is executed once more after a crash.
+   * If the work item is not open, nothing happens.
+   *
+   * @param aItem
+   *        The work item that was finished. May not be <code>null</code>.
+   */
+  public void markDone (@NonNull final IIndexerWorkItem aItem)
+  {
+    ValueEnforcer.notNull (aItem, "Item");
+
+    final byte [] aRecord = _encodeDone (aItem.getID ());
+    m_aLock.lock ();
+    try
+    {
+      if (m_bClosed || m_aFailure != null)
+        return;
+      final Long aSegment = m_aOpenItems.remove (aItem.getID ());
+      if (aSegment == null)
+        return;
+      if (aSegment.longValue () != SEGMENT_UNWRITTEN)
+        m_aOpenPerSegment.merge (aSegment, Integer.valueOf (-1), Integer::sum);
+      m_aBuffer.write (aRecord, 0, aRecord.length);
+      m_nRecordCount++;
+      ++m_nAppendedSeq;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * @return All work items that were open when the write-ahead log was opened, in the order they
+   *         were queued. Never <code>null</code> but maybe empty.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <IIndexerWorkItem> getAllReplayedItems ()
+  {
+    return m_aReplayedItems.getClone ();
+  }
+
+  /**
+   * @return The number of currently open work items. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getOpenItemCount ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      return m_aOpenItems.size ();
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * @return The number of records appended since the write-ahead log was opened. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getRecordCount ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      return m_nRecordCount;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * @return The number of write operations (each one covering potentially many records) since the
+   *         write-ahead log was opened. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getSyncCount ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      return m_nSyncCount;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * @return The number of segment files currently existing. Always &ge; 1 while open.
+   */
+  @Nonnegative
+  public int getSegmentCount ()
+  {
+    return _getAllSegments (m_aDirectory).size ();
+  }
+
+  /**
+   * @return <code>true</code> if the records are forced to the storage device.
+   */
+  public boolean isFsync ()
+  {
+    return m_bFsync;
+  }
+
+  /**
+   * Write all pending records and close the current segment. All work items that are still open
+   * are replayed when the write-ahead log is opened the next time.
+   */
+  public void close () throws IOException
+  {
+    final long nSeq;
+    m_aLock.lock ();
+    try
+    {
+      if (m_bClosed)
+        return;
+      nSeq = m_nAppendedSeq;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+
+    try
+    {
+      _awaitDurable (nSeq);
+    }
+    catch (final UncheckedIOException ex)
+    {
+      throw ex.getCause ();
+    }
+    finally
+    {
+      m_aLock.lock ();
+      try
+      {
+        m_bClosed = true;
+        // Wait for a concurrent writer
+        while (m_bSyncInProgress)
+          m_aDurableCond.awaitUninterruptibly ();
+        m_aChannel.close ();
+      }
+      finally
+      {
+        m_aLock.unlock ();
+      }
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Directory", m_aDirectory)
+                                       .append ("MaxSegmentBytes", m_nMaxSegmentBytes)
+                                       .append ("Fsync", m_bFsync)
+                                       .getToString ();
+  }
+}
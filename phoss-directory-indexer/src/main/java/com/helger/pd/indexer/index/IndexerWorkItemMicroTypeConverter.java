@@ -63,15 +63,18 @@ public final class IndexerWorkItemMicroTypeConverter implements IMicroTypeConver
     return aElement;
   }
 
-  @Nullable
-  public IndexerWorkItem convertToNative (@NonNull final IMicroElement aElement)
+  /**
+   * Parse a persisted participant ID with the configured identifier factory.
+   *
+   * @param sParticipantID
+   *        The URI encoded participant ID. May be <code>null</code>.
+   * @return The parsed participant ID. Never <code>null</code>.
+   * @throws IllegalStateException
+   *         If the participant ID cannot be parsed
+   */
+  @NonNull
+  static IParticipantIdentifier parseParticipantID (@Nullable final String sParticipantID)
   {
-    final String sID = aElement.getAttributeValue (ATTR_ID);
-
-    final LocalDateTime aCreationDT = aElement.getAttributeValueWithConversion (ATTR_CREATION_DATE_TIME,
-                                                                                LocalDateTime.class);
-
-    final String sParticipantID = StringHelper.trim (aElement.getAttributeValue (ATTR_PARTICIPANT_ID));
     IParticipantIdentifier aParticipantID = PDMetaManager.getIdentifierFactory ()
                                                          .parseParticipantIdentifier (sParticipantID);
     if (aParticipantID == null)
@@ -87,6 +90,19 @@ public final class IndexerWorkItemMicroTypeConverter implements IMicroTypeConver
     }
     if (aParticipantID == null)
       throw new IllegalStateException ("Failed to parse participant identifier '" + sParticipantID + "'");
+    return aParticipantID;
+  }
+
+  @Nullable
+  public IndexerWorkItem convertToNative (@NonNull final IMicroElement aElement)
+  {
+    final String sID = aElement.getAttributeValue (ATTR_ID);
+
+    final LocalDateTime aCreationDT = aElement.getAttributeValueWithConversion (ATTR_CREATION_DATE_TIME,
+                                                                                LocalDateTime.class);
+
+    final String sParticipantID = StringHelper.trim (aElement.getAttributeValue (ATTR_PARTICIPANT_ID));
+    final IParticipantIdentifier aParticipantID = parseParticipantID (sParticipantID);
 
     final String sTypeID = aElement.getAttributeValue (ATTR_TYPE);
     final EIndexerWorkItemType eType = EIndexerWorkItemType.getFromIDOrNull (sTypeID);
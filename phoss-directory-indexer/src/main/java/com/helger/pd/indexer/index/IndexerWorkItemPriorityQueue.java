@@ -0,0 +1,335 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.index;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.GuardedBy;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * A blocking queue for indexer work items with one FIFO lane per
+ * {@link EIndexerWorkItemPriority}. The lanes are served with a smooth weighted round-robin, so
+ * that each non-empty lane gets a share of the dequeued items according to its weight. A lane with
+ * a low weight is never starved, but a few interactive items are served within the next few
+ * dequeues even if hundreds of thousands of background items are waiting.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+@ThreadSafe
+public final class IndexerWorkItemPriorityQueue
+{
+  private final Lock m_aLock = new ReentrantLock ();
+  private final Condition m_aNotEmpty = m_aLock.newCondition ();
+  @GuardedBy ("m_aLock")
+  private final Map <EIndexerWorkItemPriority, ArrayDeque <IIndexerWorkItem>> m_aLanes = new EnumMap <> (EIndexerWorkItemPriority.class);
+  @GuardedBy ("m_aLock")
+  private final IndexerWorkItemPriorityScheduler m_aScheduler;
+  // Control objects that are served before all work items
+  @GuardedBy ("m_aLock")
+  private final ArrayDeque <Object> m_aSignals = new ArrayDeque <> ();
+  @GuardedBy ("m_aLock")
+  private int m_nSize = 0;
+
+  /**
+   * Constructor using the default weights of all priorities.
+   */
+  public IndexerWorkItemPriorityQueue ()
+  {
+    this (EIndexerWorkItemPriority::getDefaultWeight);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aWeightProvider
+   *        The provider of the weight of each priority. All weights must be &gt; 0. May not be
+   *        <code>null</code>.
+   */
+  public IndexerWorkItemPriorityQueue (@NonNull final ToIntFunction <EIndexerWorkItemPriority> aWeightProvider)
+  {
+    m_aScheduler = new IndexerWorkItemPriorityScheduler (aWeightProvider);
+    for (final EIndexerWorkItemPriority ePriority : EIndexerWorkItemPriority.values ())
+      m_aLanes.put (ePriority, new ArrayDeque <> ());
+  }
+
+  /**
+   * Get the weight of the provided priority.
+   *
+   * @param ePriority
+   *        The priority to query. May not be <code>null</code>.
+   * @return The weight. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getWeight (@NonNull final EIndexerWorkItemPriority ePriority)
+  {
+    ValueEnforcer.notNull (ePriority, "Priority");
+    return m_aScheduler.getWeight (ePriority);
+  }
+
+  /**
+   * Add a work item at the end of the lane of its priority.
+   *
+   * @param aItem
+   *        The work item to add. May not be <code>null</code>.
+   */
+  public void add (@NonNull final IIndexerWorkItem aItem)
+  {
+    ValueEnforcer.notNull (aItem, "Item");
+    final EIndexerWorkItemPriority ePriority = EIndexerWorkItemPriority.getPriorityOf (aItem);
+
+    m_aLock.lock ();
+    try
+    {
+      m_aLanes.get (ePriority).addLast (aItem);
+      m_nSize++;
+      m_aNotEmpty.signal ();
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * Add a control object that is served before all work items.
+   *
+   * @param aSignal
+   *        The control object. May not be <code>null</code>.
+   */
+  void addSignal (@NonNull final Object aSignal)
+  {
+    m_aLock.lock ();
+    try
+    {
+      m_aSignals.addLast (aSignal);
+      m_aNotEmpty.signal ();
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  // Must be called with the lock held
+  @Nullable
+  private Object _dequeue ()
+  {
+    if (!m_aSignals.isEmpty ())
+      return m_aSignals.pollFirst ();
+    if (m_nSize == 0)
+      return null;
+
+    // Smooth weighted round-robin across all non-empty lanes
+    final EIndexerWorkItemPriority eBest = m_aScheduler.select (x -> !m_aLanes.get (x).isEmpty ());
+    m_nSize--;
+    final ArrayDeque <IIndexerWorkItem> aLane = m_aLanes.get (eBest);
+    final IIndexerWorkItem ret = aLane.pollFirst ();
+    if (aLane.isEmpty ())
+    {
+      // Don't keep credits of a lane that has nothing to do
+      m_aScheduler.reset (eBest);
+    }
+    return ret;
+  }
+
+  /**
+   * Get and remove the next object, waiting if necessary.
+   *
+   * @param nTimeout
+   *        The maximum time to wait.
+   * @param eUnit
+   *        The time unit of the timeout. May not be <code>null</code>.
+   * @return The next work item or control object, or <code>null</code> if the timeout elapsed.
+   * @throws InterruptedException
+   *         If interrupted while waiting
+   */
+  @Nullable
+  public Object poll (final long nTimeout, @NonNull final TimeUnit eUnit) throws InterruptedException
+  {
+    long nNanos = eUnit.toNanos (nTimeout);
+    m_aLock.lockInterruptibly ();
+    try
+    {
+      Object ret;
+      while ((ret = _dequeue ()) == null)
+      {
+        if (nNanos <= 0)
+          return null;
+        nNanos = m_aNotEmpty.awaitNanos (nNanos);
+      }
+      return ret;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * Get and remove the next object, waiting until one is available.
+   *
+   * @return The next work item or control object. Never <code>null</code>.
+   * @throws InterruptedException
+   *         If interrupted while waiting
+   */
+  @NonNull
+  public Object take () throws InterruptedException
+  {
+    m_aLock.lockInterruptibly ();
+    try
+    {
+      Object ret;
+      while ((ret = _dequeue ()) == null)
+        m_aNotEmpty.await ();
+      return ret;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * @return The number of contained work items. Always &ge; 0.
+   */
+  @Nonnegative
+  public int size ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      return m_nSize;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * Get the number of contained work items of a single priority.
+   *
+   * @param ePriority
+   *        The priority to query. May not be <code>null</code>.
+   * @return The number of work items. Always &ge; 0.
+   */
+  @Nonnegative
+  public int size (@NonNull final EIndexerWorkItemPriority ePriority)
+  {
+    ValueEnforcer.notNull (ePriority, "Priority");
+    m_aLock.lock ();
+    try
+    {
+      return m_aLanes.get (ePriority).size ();
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * @return A copy of all contained work items, ordered by priority. Never <code>null</code> but
+   *         maybe empty.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <IIndexerWorkItem> getAll ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      final ICommonsList <IIndexerWorkItem> ret = new CommonsArrayList <> (m_nSize);
+      for (final ArrayDeque <IIndexerWorkItem> aLane : m_aLanes.values ())
+        ret.addAll (aLane);
+      return ret;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * Remove all work items. Control objects are kept.
+   *
+   * @return The removed work items, ordered by priority. Never <code>null</code> but maybe empty.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <IIndexerWorkItem> drainAll ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      final ICommonsList <IIndexerWorkItem> ret = new CommonsArrayList <> (m_nSize);
+      for (final ArrayDeque <IIndexerWorkItem> aLane : m_aLanes.values ())
+      {
+        ret.addAll (aLane);
+        aLane.clear ();
+      }
+      m_nSize = 0;
+      return ret;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * Remove all work items and control objects.
+   */
+  public void clear ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      drainAll ();
+      m_aSignals.clear ();
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Scheduler", m_aScheduler).getToString ();
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.index;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Selects the next {@link EIndexerWorkItemPriority} lane to be served with a smooth weighted
+ * round-robin, so that each lane with pending work gets a share according to its weight. It is
+ * used for the intake queue as well as for the parked work items of the SMP host limiter, so that
+ * both are served in the same order.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+@NotThreadSafe
+final class IndexerWorkItemPriorityScheduler
+{
+  private static final EIndexerWorkItemPriority [] PRIORITIES = EIndexerWorkItemPriority.values ();
+
+  private final int [] m_aWeights = new int [PRIORITIES.length];
+  // The current credits of the smooth weighted round-robin
+  private final int [] m_aCredits = new int [PRIORITIES.length];
+
+  /**
+   * Constructor
+   *
+   * @param aWeightProvider
+   *        The provider of the weight of each priority. All weights must be &gt; 0. May not be
+   *        <code>null</code>.
+   */
+  IndexerWorkItemPriorityScheduler (@NonNull final ToIntFunction <EIndexerWorkItemPriority> aWeightProvider)
+  {
+    ValueEnforcer.notNull (aWeightProvider, "WeightProvider");
+    for (final EIndexerWorkItemPriority ePriority : PRIORITIES)
+    {
+      final int nWeight = aWeightProvider.applyAsInt (ePriority);
+      ValueEnforcer.isGT0 (nWeight, "Weight of " + ePriority);
+      m_aWeights[ePriority.ordinal ()] = nWeight;
+    }
+  }
+
+  @Nonnegative
+  int getWeight (@NonNull final EIndexerWorkItemPriority ePriority)
+  {
+    return m_aWeights[ePriority.ordinal ()];
+  }
+
+  /**
+   * Select the lane to be served next.
+   *
+   * @param aHasWork
+   *        Checks if a lane has work that can be served now. May not be <code>null</code>.
+   * @return The selected priority or <code>null</code> if no lane has work.
+   */
+  @Nullable
+  EIndexerWorkItemPriority select (@NonNull final Predicate <EIndexerWorkItemPriority> aHasWork)
+  {
+    int nTotalWeight = 0;
+    EIndexerWorkItemPriority eBest = null;
+    for (final EIndexerWorkItemPriority ePriority : PRIORITIES)
+      if (aHasWork.test (ePriority))
+      {
+        final int nIndex = ePriority.ordinal ();
+        m_aCredits[nIndex] += m_aWeights[nIndex];
+        nTotalWeight += m_aWeights[nIndex];
+        if (eBest == null || m_aCredits[nIndex] > m_aCredits[eBest.ordinal ()])
+          eBest = ePriority;
+      }
+    if (eBest != null)
+      m_aCredits[eBest.ordinal ()] -= nTotalWeight;
+    return eBest;
+  }
+
+  /**
+   * Forget the credits of a lane that has nothing to do any more.
+   *
+   * @param ePriority
+   *        The priority of the lane. May not be <code>null</code>.
+   */
+  void reset (@NonNull final EIndexerWorkItemPriority ePriority)
+  {
+    m_aCredits[ePriority.ordinal ()] = 0;
+  }
+
+  /**
+   * Forget the credits of all lanes.
+   */
+  void resetAll ()
+  {
+    Arrays.fill (m_aCredits, 0);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Weights", m_aWeights).getToString ();
+  }
+}
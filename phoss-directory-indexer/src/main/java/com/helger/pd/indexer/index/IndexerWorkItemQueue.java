@@ -16,75 +16,573 @@
  */
 package com.helger.pd.indexer.index;
 
+import java.lang.reflect.Method;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.GuardedBy;
+import com.helger.annotation.concurrent.ThreadSafe;
 import com.helger.annotation.style.ReturnsMutableCopy;
 import com.helger.annotation.style.ReturnsMutableObject;
 import com.helger.base.concurrent.BasicThreadFactoryBuilder;
 import com.helger.base.concurrent.ExecutorServiceHelper;
 import com.helger.base.enforce.ValueEnforcer;
-import com.helger.base.reflection.GenericReflection;
 import com.helger.base.state.ESuccess;
+import com.helger.base.timing.StopWatch;
+import com.helger.base.tostring.ToStringGenerator;
 import com.helger.collection.commons.CommonsArrayList;
 import com.helger.collection.commons.ICommonsList;
-import com.helger.commons.concurrent.collector.ConcurrentCollectorSingle;
 import com.helger.commons.concurrent.collector.IConcurrentPerformer;
+import com.helger.pd.indexer.settings.PDServerConfiguration;
+import com.helger.statistics.api.IMutableStatisticsHandlerTimer;
+import com.helger.statistics.impl.StatisticsManager;
+
+import jakarta.annotation.Nullable;
 
 /**
  * The indexer queue that holds all items to be indexed initially. If indexing fails, items are
  * shifted to the re-index list (see {@link com.helger.pd.indexer.reindex.ReIndexWorkItemList})
- * where graceful retries will happen.
+ * where graceful retries will happen.<br>
+ * The items are kept in one lane per {@link EIndexerWorkItemPriority}, so that e.g. SMP requests
+ * are not delayed by a running synchronization of all business cards.<br>
+ * The queue is processed by a pool of workers. By default the pool has a fixed size. In elastic
+ * mode the pool grows up to a maximum size, if the queued items cannot be processed within the
+ * target drain time at the observed processing time per item, and shrinks back to the minimum size
+ * if the workers are no longer needed.<br>
+ * In virtual thread mode (Java 21 or later) each work item is processed on its own virtual thread
+ * and only the number of work items in flight is limited. This suits the work items, as they spend
+ * nearly all of their time waiting for the SMPs.<br>
+ * Optionally the number of work items processed at the same time per SMP host is limited (see
+ * {@link IndexerSMPHostLimiter}).
  *
  * @author Philip Helger
  */
+@ThreadSafe
 public final class IndexerWorkItemQueue
 {
-  private static final int MAX_PARALLEL = 4;
-  private final LinkedBlockingQueue <Object> m_aQueue;
+  private static final Logger LOGGER = LoggerFactory.getLogger (IndexerWorkItemQueue.class);
+  private static final IMutableStatisticsHandlerTimer STATS_PERFORM_TIMER = StatisticsManager.getTimerHandler (IndexerWorkItemQueue.class.getName () +
+                                                                                                                "$perform");
+  // Wakes up a single worker so that it terminates
+  private static final Object STOP_OBJECT = new Object ();
+  // The weight of the latest measurement in the average processing time
+  private static final double PROCESSING_TIME_WEIGHT = 0.2;
+
+  private final IConcurrentPerformer <IIndexerWorkItem> m_aPerformer;
+  private final int m_nMinWorkers;
+  private final int m_nMaxWorkers;
+  private final int m_nTargetDrainSeconds;
+  private final int m_nIdleSeconds;
+  private final IndexerWorkItemPriorityQueue m_aQueue;
   private final ThreadFactory m_aThreadFactory = new BasicThreadFactoryBuilder ().namingPattern ("pd-indexer-%d")
                                                                                  .daemon (false)
                                                                                  .priority (Thread.NORM_PRIORITY)
                                                                                  .build ();
-  private final ExecutorService m_aSenderThreadPool = new ThreadPoolExecutor (MAX_PARALLEL,
-                                                                              MAX_PARALLEL,
-                                                                              60L,
-                                                                              TimeUnit.SECONDS,
-                                                                              new SynchronousQueue <> (),
-                                                                              m_aThreadFactory);
-  private final ConcurrentCollectorSingle <IIndexerWorkItem> [] m_aImmediateCollector = GenericReflection.uncheckedCast (new ConcurrentCollectorSingle [MAX_PARALLEL]);
+  private final ThreadPoolExecutor m_aWorkerPool;
+  // Only set in virtual thread mode
+  private final ExecutorService m_aVirtualExecutor;
+  private final Semaphore m_aInFlightPermits;
+  private final int m_nMaxInFlight;
+  // Only set if the concurrency per SMP host is limited
+  private final IndexerSMPHostLimiter m_aHostLimiter;
+  private final AtomicBoolean m_aStopped = new AtomicBoolean (false);
+
+  private final Lock m_aLock = new ReentrantLock ();
+  @GuardedBy ("m_aLock")
+  private int m_nWorkerCount = 0;
+  @GuardedBy ("m_aLock")
+  private int m_nPeakWorkerCount = 0;
+  @GuardedBy ("m_aLock")
+  private double m_dAvgProcessingMillis = -1;
+
+  private final AtomicInteger m_aActiveWorkers = new AtomicInteger (0);
+  private final AtomicLong m_aProcessedItems = new AtomicLong (0);
 
   /**
-   * Constructor.
+   * Constructor using the worker settings from {@link PDServerConfiguration}.
    *
    * @param aPerformer
    *        The executor that will effective handle work items (e.g. retrieve from SMP).
    */
   public IndexerWorkItemQueue (@NonNull final IConcurrentPerformer <IIndexerWorkItem> aPerformer)
+  {
+    this (aPerformer, null);
+  }
+
+  /**
+   * Constructor using the worker settings from {@link PDServerConfiguration}.
+   *
+   * @param aPerformer
+   *        The executor that will effective handle work items (e.g. retrieve from SMP).
+   * @param aHostResolver
+   *        The function to determine the SMP host of a work item. May be <code>null</code> in
+   *        which case the concurrency per SMP host is never limited.
+   * @since 0.16.1
+   */
+  public IndexerWorkItemQueue (@NonNull final IConcurrentPerformer <IIndexerWorkItem> aPerformer,
+                               @Nullable final Function <? super IIndexerWorkItem, String> aHostResolver)
+  {
+    this (aPerformer,
+          PDServerConfiguration.getIndexerWorkers (),
+          PDServerConfiguration.isIndexerWorkersElastic () ? PDServerConfiguration.getIndexerWorkersMax ()
+                                                           : PDServerConfiguration.getIndexerWorkers (),
+          PDServerConfiguration.getIndexerWorkersTargetDrainSeconds (),
+          PDServerConfiguration.getIndexerWorkersIdleSeconds (),
+          PDServerConfiguration.isIndexerVirtualThreads (),
+          PDServerConfiguration.getIndexerVirtualThreadsMaxInFlight (),
+          _createHostLimiter (aHostResolver),
+          new IndexerWorkItemPriorityQueue (PDServerConfiguration::getIndexerPriorityWeight));
+  }
+
+  @Nullable
+  private static IndexerSMPHostLimiter _createHostLimiter (@Nullable final Function <? super IIndexerWorkItem, String> aHostResolver)
+  {
+    if (aHostResolver == null)
+      return null;
+    final int nMaxPerHost = PDServerConfiguration.getIndexerSMPHostMaxConcurrency ();
+    return nMaxPerHost > 0 ? new IndexerSMPHostLimiter (nMaxPerHost,
+                                                        aHostResolver,
+                                                        PDServerConfiguration::getIndexerPriorityWeight) : null;
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param aPerformer
+   *        The executor that will effective handle work items (e.g. retrieve from SMP).
+   * @param nMinWorkers
+   *        The minimum number of workers. Must be &gt; 0.
+   * @param nMaxWorkers
+   *        The maximum number of workers. Must be &ge; the minimum number of workers. If it is
+   *        equal to the minimum, the pool has a fixed size.
+   * @param nTargetDrainSeconds
+   *        The number of seconds in which the elastic pool should be able to process all queued
+   *        items. Must be &gt; 0.
+   * @param nIdleSeconds
+   *        The number of seconds after which an idle worker above the minimum is stopped. Must be
+   *        &gt; 0.
+   * @param bVirtualThreads
+   *        <code>true</code> to process each work item on its own virtual thread. If the JVM does
+   *        not support virtual threads, the worker settings are used instead.
+   * @param nMaxInFlight
+   *        The maximum number of work items processed at the same time in virtual thread mode.
+   *        Must be &gt; 0.
+   * @param aHostLimiter
+   *        The limiter for the concurrency per SMP host. May be <code>null</code> for no limit.
+   * @param aQueue
+   *        The queue holding the work items. May not be <code>null</code>.
+   * @since 0.16.1
+   */
+  public IndexerWorkItemQueue (@NonNull final IConcurrentPerformer <IIndexerWorkItem> aPerformer,
+                               @Nonnegative final int nMinWorkers,
+                               @Nonnegative final int nMaxWorkers,
+                               @Nonnegative final int nTargetDrainSeconds,
+                               @Nonnegative final int nIdleSeconds,
+                               final boolean bVirtualThreads,
+                               @Nonnegative final int nMaxInFlight,
+                               @Nullable final IndexerSMPHostLimiter aHostLimiter,
+                               @NonNull final IndexerWorkItemPriorityQueue aQueue)
   {
     ValueEnforcer.notNull (aPerformer, "Performer");
-    // Use an indefinite queue for holding tasks
-    // It's a thread-safe collection
-    m_aQueue = new LinkedBlockingQueue <> ();
+    ValueEnforcer.isGT0 (nMinWorkers, "MinWorkers");
+    ValueEnforcer.isTrue (nMaxWorkers >= nMinWorkers, "MaxWorkers must be >= MinWorkers");
+    ValueEnforcer.isGT0 (nTargetDrainSeconds, "TargetDrainSeconds");
+    ValueEnforcer.isGT0 (nIdleSeconds, "IdleSeconds");
+    ValueEnforcer.isGT0 (nMaxInFlight, "MaxInFlight");
+    ValueEnforcer.notNull (aQueue, "Queue");
+
+    m_aPerformer = aPerformer;
+    m_aQueue = aQueue;
+    m_nMinWorkers = nMinWorkers;
+    m_nMaxWorkers = nMaxWorkers;
+    m_nTargetDrainSeconds = nTargetDrainSeconds;
+    m_nIdleSeconds = nIdleSeconds;
+    // Each worker occupies a thread until it terminates. The number of workers is limited by this
+    // class, so that a retired worker that did not yet return its thread never causes a rejection
+    m_aWorkerPool = new ThreadPoolExecutor (0,
+                                            Integer.MAX_VALUE,
+                                            60L,
+                                            TimeUnit.SECONDS,
+                                            new SynchronousQueue <> (),
+                                            m_aThreadFactory);
+
+    ExecutorService aVirtualExecutor = null;
+    if (bVirtualThreads)
+    {
+      aVirtualExecutor = createVirtualThreadExecutorOrNull ("pd-indexer-vt-");
+      if (aVirtualExecutor == null)
+        LOGGER.warn ("Virtual threads are not supported by this JVM - using platform worker threads instead");
+    }
+    m_aVirtualExecutor = aVirtualExecutor;
+    m_aInFlightPermits = aVirtualExecutor == null ? null : new Semaphore (nMaxInFlight);
+    m_nMaxInFlight = nMaxInFlight;
+    m_aHostLimiter = aHostLimiter;
+    if (aHostLimiter != null)
+      LOGGER.info ("Indexer work queue processes at most " + aHostLimiter.getMaxPerHost () + " items per SMP host");
+
+    if (isVirtualThreads ())
+    {
+      // A single platform thread hands the items over to the virtual threads
+      m_aWorkerPool.execute (this::_runDispatcher);
+      LOGGER.info ("Indexer work queue uses virtual threads with at most " + nMaxInFlight + " items in flight");
+    }
+    else
+    {
+      // Start the minimum number of workers
+      _adjustWorkerCount ();
+
+      LOGGER.info ("Indexer work queue uses " +
+                   (isElastic () ? "between " + nMinWorkers + " and " + nMaxWorkers + " elastic" : nMinWorkers) +
+                   " workers");
+    }
+  }
+
+  /**
+   * Create an executor that starts a new virtual thread for each task. Virtual threads are only
+   * available in Java 21 or later, so they are resolved via reflection.
+   *
+   * @param sNamePrefix
+   *        The prefix of the thread names. May not be <code>null</code>.
+   * @return <code>null</code> if the JVM does not support virtual threads.
+   */
+  @Nullable
+  public static ExecutorService createVirtualThreadExecutorOrNull (@NonNull final String sNamePrefix)
+  {
+    try
+    {
+      // Thread.ofVirtual ().name (sNamePrefix, 0).factory ()
+      final Object aBuilder = Thread.class.getMethod ("ofVirtual").invoke (null);
+      final Class <?> aBuilderClass = Class.forName ("java.lang.Thread$Builder");
+      aBuilderClass.getMethod ("name", String.class, long.class).invoke (aBuilder, sNamePrefix, Long.valueOf (0));
+      final ThreadFactory aFactory = (ThreadFactory) aBuilderClass.getMethod ("factory").invoke (aBuilder);
+
+      final Method aCreate = Executors.class.getMethod ("newThreadPerTaskExecutor", ThreadFactory.class);
+      return (ExecutorService) aCreate.invoke (null, aFactory);
+    }
+    catch (final ReflectiveOperationException | RuntimeException ex)
+    {
+      // Not available or preview features disabled
+      return null;
+    }
+  }
+
+  /**
+   * Get the number of workers needed to process the queued items within the target drain time.
+   *
+   * @param nQueueLength
+   *        The current queue length. Must be &ge; 0.
+   * @param dAvgProcessingMillis
+   *        The average processing time per item in milliseconds. Values &lt; 0 mean that no item
+   *        was processed so far.
+   * @param nMinWorkers
+   *        The minimum number of workers.
+   * @param nMaxWorkers
+   *        The maximum number of workers.
+   * @param nTargetDrainSeconds
+   *        The target drain time in seconds. Must be &gt; 0.
+   * @return The number of workers between the minimum and the maximum.
+   */
+  static int getTargetWorkerCount (@Nonnegative final int nQueueLength,
+                                   final double dAvgProcessingMillis,
+                                   @Nonnegative final int nMinWorkers,
+                                   @Nonnegative final int nMaxWorkers,
+                                   @Nonnegative final int nTargetDrainSeconds)
+  {
+    // Nothing measured yet - wait for the first item to be processed
+    if (dAvgProcessingMillis < 0)
+      return nMinWorkers;
+
+    final double dNeeded = Math.ceil (nQueueLength * dAvgProcessingMillis / (nTargetDrainSeconds * 1000d));
+    return (int) Math.max (nMinWorkers, Math.min (nMaxWorkers, dNeeded));
+  }
+
+  // Must be called with the lock held
+  private int _getTargetWorkerCount ()
+  {
+    return getTargetWorkerCount (m_aQueue.size (),
+                                 m_dAvgProcessingMillis,
+                                 m_nMinWorkers,
+                                 m_nMaxWorkers,
+                                 m_nTargetDrainSeconds);
+  }
 
-    // Start the collector(s)
-    for (int i = 0; i < MAX_PARALLEL; ++i)
+  /**
+   * Start new workers until the target number of workers is reached.
+   */
+  private void _adjustWorkerCount ()
+  {
+    if (m_aStopped.get ())
+      return;
+
+    m_aLock.lock ();
+    try
     {
-      m_aImmediateCollector[i] = new ConcurrentCollectorSingle <> (m_aQueue);
-      m_aImmediateCollector[i].setPerformer (aPerformer);
-      m_aSenderThreadPool.submit (m_aImmediateCollector[i]::collect);
+      final int nTarget = _getTargetWorkerCount ();
+      while (m_nWorkerCount < nTarget)
+      {
+        try
+        {
+          m_aWorkerPool.execute (this::_runWorker);
+        }
+        catch (final RejectedExecutionException ex)
+        {
+          // Pool is shutting down
+          break;
+        }
+        m_nWorkerCount++;
+        m_nPeakWorkerCount = Math.max (m_nPeakWorkerCount, m_nWorkerCount);
+      }
+    }
+    finally
+    {
+      m_aLock.unlock ();
     }
   }
 
   /**
-   * Stop the indexer work queue immediately.
+   * Check if the current worker should terminate, because there are more workers than needed.
+   *
+   * @param bIdle
+   *        <code>true</code> if the worker was idle for the configured time, <code>false</code> if
+   *        it just processed an item.
+   * @return <code>true</code> if the worker should terminate. In that case the worker count was
+   *         already decremented.
+   */
+  private boolean _tryRetireWorker (final boolean bIdle)
+  {
+    m_aLock.lock ();
+    try
+    {
+      final int nLimit = bIdle ? m_nMinWorkers : _getTargetWorkerCount ();
+      if (m_nWorkerCount > nLimit)
+      {
+        m_nWorkerCount--;
+        return true;
+      }
+      return false;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  private void _onProcessed (final long nMillis)
+  {
+    m_aProcessedItems.incrementAndGet ();
+    STATS_PERFORM_TIMER.addTime (nMillis);
+
+    m_aLock.lock ();
+    try
+    {
+      if (m_dAvgProcessingMillis < 0)
+        m_dAvgProcessingMillis = nMillis;
+      else
+        m_dAvgProcessingMillis += PROCESSING_TIME_WEIGHT * (nMillis - m_dAvgProcessingMillis);
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  private void _processItem (@NonNull final IIndexerWorkItem aItem)
+  {
+    m_aActiveWorkers.incrementAndGet ();
+    final StopWatch aSW = StopWatch.createdStarted ();
+    try
+    {
+      m_aPerformer.runAsync (aItem);
+    }
+    catch (final Exception ex)
+    {
+      LOGGER.error ("Failed to perform indexer work item " + aItem.getLogText (), ex);
+    }
+    finally
+    {
+      m_aActiveWorkers.decrementAndGet ();
+      _onProcessed (aSW.stopAndGetMillis ());
+    }
+  }
+
+  /**
+   * Check if the work item may be processed now.
+   *
+   * @param aItem
+   *        The work item to check. May not be <code>null</code>.
+   * @return <code>null</code> if the work item was parked, because its SMP host is busy.
+   */
+  @Nullable
+  private IndexerSMPHostLimiter.Lease _tryAcquire (@NonNull final IIndexerWorkItem aItem)
+  {
+    if (m_aHostLimiter == null)
+      return new IndexerSMPHostLimiter.Lease (aItem, null);
+    return m_aHostLimiter.tryAcquire (aItem);
+  }
+
+  /**
+   * @return The next parked work item, whose SMP host has a free slot. <code>null</code> if there
+   *         is none or if the queue is stopped.
+   */
+  @Nullable
+  private IndexerSMPHostLimiter.Lease _pollParked ()
+  {
+    if (m_aHostLimiter == null || m_aStopped.get ())
+      return null;
+    return m_aHostLimiter.pollParked ();
+  }
+
+  private void _processLease (@NonNull final IndexerSMPHostLimiter.Lease aLease)
+  {
+    try
+    {
+      _processItem (aLease.getWorkItem ());
+    }
+    finally
+    {
+      if (m_aHostLimiter != null)
+        m_aHostLimiter.release (aLease);
+    }
+  }
+
+  private void _runDispatcher ()
+  {
+    try
+    {
+      while (true)
+      {
+        // Wait for a free slot first, so that the items stay in the queue until they are processed
+        m_aInFlightPermits.acquire ();
+        final Object aObj = m_aQueue.take ();
+        if (aObj == STOP_OBJECT)
+        {
+          m_aInFlightPermits.release ();
+          break;
+        }
+
+        final IIndexerWorkItem aItem = (IIndexerWorkItem) aObj;
+        try
+        {
+          m_aVirtualExecutor.execute ( () -> {
+            try
+            {
+              // Continue with the parked items that can be processed now
+              IndexerSMPHostLimiter.Lease aLease = _tryAcquire (aItem);
+              while (aLease != null)
+              {
+                _processLease (aLease);
+                aLease = _pollParked ();
+              }
+            }
+            finally
+            {
+              m_aInFlightPermits.release ();
+            }
+          });
+        }
+        catch (final RejectedExecutionException ex)
+        {
+          m_aInFlightPermits.release ();
+          LOGGER.error ("Failed to start a virtual thread for indexer work item " + aItem.getLogText (), ex);
+        }
+      }
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+    }
+  }
+
+  private void _runWorker ()
+  {
+    boolean bCounted = true;
+    try
+    {
+      while (true)
+      {
+        // Parked items of SMP hosts with a free slot come first - they are served by priority as
+        // well
+        IndexerSMPHostLimiter.Lease aLease = _pollParked ();
+        if (aLease == null)
+        {
+          final Object aObj = m_aQueue.poll (m_nIdleSeconds, TimeUnit.SECONDS);
+          if (aObj == STOP_OBJECT)
+            break;
+
+          if (aObj == null)
+          {
+            // Idle for too long
+            if (isElastic () && _tryRetireWorker (true))
+            {
+              bCounted = false;
+              break;
+            }
+            continue;
+          }
+
+          aLease = _tryAcquire ((IIndexerWorkItem) aObj);
+          if (aLease == null)
+          {
+            // Parked until its SMP host has a free slot
+            continue;
+          }
+        }
+
+        _processLease (aLease);
+
+        // Don't retire while there are parked items, as the idle workers would not notice them
+        if (isElastic () && getParkedItemCount () == 0)
+        {
+          // Grow or shrink depending on the new measurement
+          if (_tryRetireWorker (false))
+          {
+            bCounted = false;
+            break;
+          }
+          _adjustWorkerCount ();
+        }
+      }
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+    }
+    finally
+    {
+      if (bCounted)
+      {
+        m_aLock.lock ();
+        try
+        {
+          m_nWorkerCount--;
+        }
+        finally
+        {
+          m_aLock.unlock ();
+        }
+      }
+    }
+  }
+
+  /**
+   * Stop the indexer work queue immediately. Work items that are currently processed are finished.
    *
    * @return The list of all remaining objects in the queue. Never <code>null</code>.
    */
@@ -92,18 +590,31 @@ public final class IndexerWorkItemQueue
   @ReturnsMutableCopy
   public ICommonsList <IIndexerWorkItem> stop ()
   {
+    final ICommonsList <IIndexerWorkItem> aRemainingItems = new CommonsArrayList <> ();
+
     // don't take any more actions
-    for (int i = 0; i < MAX_PARALLEL; ++i)
-      m_aImmediateCollector[i].stopQueuingNewObjects ();
+    if (!m_aStopped.getAndSet (true))
+    {
+      // Get all remaining objects and save them for later reuse
+      aRemainingItems.addAll (m_aQueue.drainAll ());
 
-    // Get all remaining objects and save them for later reuse
-    final ICommonsList <IIndexerWorkItem> aRemainingItems = new CommonsArrayList <> ();
-    for (int i = 0; i < MAX_PARALLEL; ++i)
-      aRemainingItems.addAll (m_aImmediateCollector[i].drainQueue ());
+      // Wake up all workers (or the dispatcher) - they terminate after the current item
+      for (int i = 0; i < m_nMaxWorkers; ++i)
+        m_aQueue.addSignal (STOP_OBJECT);
 
-    // Shutdown the thread pool afterwards
-    ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (m_aSenderThreadPool);
+      // Shutdown the thread pool afterwards
+      ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (m_aWorkerPool);
+      if (m_aVirtualExecutor != null)
+      {
+        // Wait for the items in flight
+        ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (m_aVirtualExecutor);
+      }
+      m_aQueue.clear ();
 
+      // Items may have been parked until all workers finished
+      if (m_aHostLimiter != null)
+        aRemainingItems.addAll (m_aHostLimiter.drainParked ());
+    }
     return aRemainingItems;
   }
 
@@ -113,7 +624,7 @@ public final class IndexerWorkItemQueue
    */
   @NonNull
   @ReturnsMutableObject
-  public LinkedBlockingQueue <Object> internalGetQueue ()
+  public IndexerWorkItemPriorityQueue internalGetQueue ()
   {
     return m_aQueue;
   }
@@ -129,16 +640,199 @@ public final class IndexerWorkItemQueue
   public ESuccess queueObject (@NonNull final IIndexerWorkItem aItem)
   {
     ValueEnforcer.notNull (aItem, "Item");
-    // Always queue at the first - as they all work on the same queue
-    return m_aImmediateCollector[0].queueObject (aItem);
+
+    if (m_aStopped.get ())
+      return ESuccess.FAILURE;
+
+    m_aQueue.add (aItem);
+    if (isElastic ())
+      _adjustWorkerCount ();
+    return ESuccess.SUCCESS;
   }
 
   /**
-   * @return The amount of elements currently in the queue.
+   * @return The amount of elements currently in the queue, including the ones waiting for a busy
+   *         SMP host.
    */
   @Nonnegative
   public int getQueueLength ()
   {
-    return m_aQueue.size ();
+    return m_aQueue.size () + getParkedItemCount ();
+  }
+
+  /**
+   * @return A copy of all work items in the queue, including the ones waiting for a busy SMP host.
+   *         Never <code>null</code> but maybe empty.
+   * @since 0.16.1
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <IIndexerWorkItem> getAllQueuedItems ()
+  {
+    final ICommonsList <IIndexerWorkItem> ret = m_aQueue.getAll ();
+    if (m_aHostLimiter != null)
+      ret.addAll (m_aHostLimiter.getAllParked ());
+    return ret;
+  }
+
+  /**
+   * @return The number of work items waiting for a busy SMP host. Always &ge; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public int getParkedItemCount ()
+  {
+    return m_aHostLimiter == null ? 0 : m_aHostLimiter.getParkedCount ();
+  }
+
+  /**
+   * @return The limiter for the concurrency per SMP host or <code>null</code> if the concurrency is
+   *         not limited.
+   * @since 0.16.1
+   */
+  @Nullable
+  public IndexerSMPHostLimiter getHostLimiter ()
+  {
+    return m_aHostLimiter;
+  }
+
+  /**
+   * @return <code>true</code> if the number of workers is elastic, <code>false</code> if it is
+   *         fixed.
+   * @since 0.16.1
+   */
+  public boolean isElastic ()
+  {
+    return m_aVirtualExecutor == null && m_nMaxWorkers > m_nMinWorkers;
+  }
+
+  /**
+   * @return <code>true</code> if each work item is processed on its own virtual thread,
+   *         <code>false</code> if platform worker threads are used.
+   * @since 0.16.1
+   */
+  public boolean isVirtualThreads ()
+  {
+    return m_aVirtualExecutor != null;
+  }
+
+  /**
+   * @return The maximum number of work items processed at the same time in virtual thread mode.
+   *         Always &gt; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public int getMaxInFlightCount ()
+  {
+    return m_nMaxInFlight;
+  }
+
+  /**
+   * @return The minimum number of workers. Always &gt; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public int getMinWorkerCount ()
+  {
+    return m_nMinWorkers;
+  }
+
+  /**
+   * @return The maximum number of workers. Always &ge; {@link #getMinWorkerCount()}.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public int getMaxWorkerCount ()
+  {
+    return m_nMaxWorkers;
+  }
+
+  /**
+   * @return The current number of platform workers (the pool size). Always 0 in virtual thread
+   *         mode.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public int getWorkerCount ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      return m_nWorkerCount;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * @return The highest number of workers since startup. Always &ge; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public int getPeakWorkerCount ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      return m_nPeakWorkerCount;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * @return The number of work items currently processed. Always &ge; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public int getActiveWorkerCount ()
+  {
+    return m_aActiveWorkers.get ();
+  }
+
+  /**
+   * @return The number of items processed since startup. Always &ge; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public long getProcessedItemCount ()
+  {
+    return m_aProcessedItems.get ();
+  }
+
+  /**
+   * @return The moving average of the processing time per item in milliseconds (mostly the SMP
+   *         round trips) or a value &lt; 0 if no item was processed so far.
+   * @since 0.16.1
+   */
+  public double getAverageProcessingMillis ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      return m_dAvgProcessingMillis;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("MinWorkers", m_nMinWorkers)
+                                       .append ("MaxWorkers", m_nMaxWorkers)
+                                       .append ("TargetDrainSeconds", m_nTargetDrainSeconds)
+                                       .append ("IdleSeconds", m_nIdleSeconds)
+                                       .append ("VirtualThreads", isVirtualThreads ())
+                                       .append ("MaxInFlight", m_nMaxInFlight)
+                                       .append ("HostLimiter", m_aHostLimiter)
+                                       .append ("QueueLength", getQueueLength ())
+                                       .getToString ();
   }
 }
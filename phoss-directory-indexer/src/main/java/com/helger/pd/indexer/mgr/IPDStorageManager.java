@@ -24,6 +24,7 @@ import org.jspecify.annotations.NonNull;
 import com.helger.annotation.CheckForSigned;
 import com.helger.base.state.ESuccess;
 import com.helger.pd.indexer.businesscard.PDExtendedBusinessCard;
+import com.helger.pd.indexer.storage.PDStoredContentInfo;
 import com.helger.pd.indexer.storage.PDStoredMetaData;
 import com.helger.peppolid.IParticipantIdentifier;
 
@@ -55,6 +56,53 @@ public interface IPDStorageManager extends Closeable
                                 @NonNull PDExtendedBusinessCard aExtBI,
                                 @NonNull PDStoredMetaData aMetaData) throws IOException;
 
+  /**
+   * Create a new entry or update an existing entry, and store the provided content information
+   * with it.<br>
+   * The default implementation ignores the content information and calls
+   * {@link #createOrUpdateEntry(IParticipantIdentifier, PDExtendedBusinessCard, PDStoredMetaData)}.
+   *
+   * @param aParticipantID
+   *        Participant identifier it is all about.
+   * @param aExtBI
+   *        The extended business card with the document type identifiers.
+   * @param aMetaData
+   *        The additional meta data to be stored.
+   * @param aContentInfo
+   *        The content information to be stored. May be <code>null</code>.
+   * @return {@link ESuccess#SUCCESS} upon success, {@link ESuccess#FAILURE} on error.
+   * @throws IOException
+   *         in case of IO error
+   * @since 0.16.1
+   */
+  @NonNull
+  default ESuccess createOrUpdateEntry (@NonNull final IParticipantIdentifier aParticipantID,
+                                        @NonNull final PDExtendedBusinessCard aExtBI,
+                                        @NonNull final PDStoredMetaData aMetaData,
+                                        @Nullable final PDStoredContentInfo aContentInfo) throws IOException
+  {
+    return createOrUpdateEntry (aParticipantID, aExtBI, aMetaData);
+  }
+
+  /**
+   * Get the content information that was stored with the entry of the provided participant. It is
+   * used to detect unchanged business cards.<br>
+   * The default implementation returns <code>null</code>.
+   *
+   * @param aParticipantID
+   *        Participant identifier it is all about.
+   * @return <code>null</code> if the participant is not contained or if no content information
+   *         was stored.
+   * @throws IOException
+   *         in case of IO error
+   * @since 0.16.1
+   */
+  @Nullable
+  default PDStoredContentInfo getContentInfoOrNull (@NonNull final IParticipantIdentifier aParticipantID) throws IOException
+  {
+    return null;
+  }
+
   /**
    * Delete an existing entry (not recoverable).
    *
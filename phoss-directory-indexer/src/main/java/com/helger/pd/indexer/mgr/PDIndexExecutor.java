@@ -16,7 +16,11 @@
  */
 package com.helger.pd.indexer.mgr;
 
-import java.util.function.BiConsumer;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 import org.jspecify.annotations.NonNull;
@@ -24,14 +28,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.helger.annotation.Nonnegative;
+import com.helger.base.equals.EqualsHelper;
 import com.helger.base.state.ESuccess;
 import com.helger.collection.commons.CommonsArrayList;
 import com.helger.collection.commons.ICommonsList;
 import com.helger.pd.indexer.businesscard.IPDBusinessCardProvider;
 import com.helger.pd.indexer.businesscard.PDExtendedBusinessCard;
+import com.helger.pd.indexer.index.EIndexerFailureClass;
+import com.helger.pd.indexer.index.EIndexerWorkItemType;
 import com.helger.pd.indexer.index.IIndexerWorkItem;
+import com.helger.pd.indexer.settings.PDServerConfiguration;
+import com.helger.pd.indexer.storage.PDStoredContentInfo;
+import com.helger.pd.indexer.storage.PDStoredMetaData;
+import com.helger.peppolid.IDocumentTypeIdentifier;
 import com.helger.peppolid.IParticipantIdentifier;
 
+import jakarta.annotation.Nullable;
+
 /**
  * Internal class to execute a single work item. It is invoked by the {@link PDIndexerManager}.
  *
@@ -39,11 +52,187 @@ import com.helger.peppolid.IParticipantIdentifier;
  */
 final class PDIndexExecutor
 {
+  /**
+   * Callback interface that is invoked if the execution of a work item failed.
+   *
+   * @author Philip Helger
+   * @since 0.16.1
+   */
+  @FunctionalInterface
+  interface IFailureHandler
+  {
+    /**
+     * @param aWorkItem
+     *        The work item that failed. Never <code>null</code>.
+     * @param aErrorMsgs
+     *        The error messages collected. Never <code>null</code>.
+     * @param eFailureClass
+     *        The class of the failure, determining the retry policy. Never <code>null</code>.
+     */
+    void onFailure (@NonNull IIndexerWorkItem aWorkItem,
+                    @NonNull ICommonsList <String> aErrorMsgs,
+                    @NonNull EIndexerFailureClass eFailureClass);
+  }
+
   private static final Logger LOGGER = LoggerFactory.getLogger (PDIndexExecutor.class);
+  // Limits the concurrent index writes independent of the number of concurrent SMP fetches
+  private static final Semaphore WRITE_PERMITS = new Semaphore (PDServerConfiguration.getIndexerMaxConcurrentWrites (),
+                                                                true);
+  private static final AtomicLong UNCHANGED_COUNT = new AtomicLong (0);
 
   private PDIndexExecutor ()
   {}
 
+  @NonNull
+  private static ESuccess _createOrUpdateEntry (@NonNull final IPDStorageManager aStorageMgr,
+                                                @NonNull final IIndexerWorkItem aWorkItem,
+                                                @NonNull final PDExtendedBusinessCard aBI,
+                                                @Nullable final PDStoredContentInfo aKnownContentInfo) throws IOException
+  {
+    final PDStoredMetaData aMetaData = aWorkItem.getAsMetaData ();
+    final PDStoredContentInfo aContentInfo = PDStoredContentInfo.create (aBI, aMetaData);
+    if (aKnownContentInfo != null &&
+        aKnownContentInfo.getContentHash ().equals (aContentInfo.getContentHash ()) &&
+        EqualsHelper.equals (aKnownContentInfo.getValidators (), aContentInfo.getValidators ()))
+    {
+      // Nothing to write
+      LOGGER.info ("The BusinessCard of " + aWorkItem.getLogText () + " is unchanged - not updating the index");
+      UNCHANGED_COUNT.incrementAndGet ();
+      return ESuccess.SUCCESS;
+    }
+
+    WRITE_PERMITS.acquireUninterruptibly ();
+    try
+    {
+      return aStorageMgr.createOrUpdateEntry (aWorkItem.getParticipantID (), aBI, aMetaData, aContentInfo);
+    }
+    finally
+    {
+      WRITE_PERMITS.release ();
+    }
+  }
+
+  @Nullable
+  private static PDStoredContentInfo _getContentInfoOrNull (@NonNull final IPDStorageManager aStorageMgr,
+                                                            @NonNull final IParticipantIdentifier aParticipantID)
+  {
+    try
+    {
+      return aStorageMgr.getContentInfoOrNull (aParticipantID);
+    }
+    catch (final IOException ex)
+    {
+      // Just fetch and write unconditionally
+      LOGGER.warn ("Failed to read the stored content information of '" +
+                   aParticipantID.getURIEncoded () +
+                   "': " +
+                   ex.getMessage ());
+      return null;
+    }
+  }
+
+  /**
+   * Get the business card of the participant, using a conditional request if the participant is
+   * already contained in the index.
+   *
+   * @param aBCProvider
+   *        The business card provider to use. May not be <code>null</code>.
+   * @param aWorkItem
+   *        The work item that is executed. May not be <code>null</code>.
+   * @param aKnownContentInfo
+   *        The content information stored in the index. May be <code>null</code>.
+   * @param aErrorMsgHandler
+   *        Handler to capture errors on what went wrong. May not be <code>null</code>.
+   * @param aFailureClassHandler
+   *        Handler to capture the classes of the failures. May not be <code>null</code>.
+   * @param aUnchanged
+   *        Is set to <code>true</code> if the business card and the document types are unchanged.
+   *        May not be <code>null</code>.
+   * @return <code>null</code> if the business card could not be retrieved or is unchanged.
+   */
+  @Nullable
+  private static PDExtendedBusinessCard _getBusinessCard (@NonNull final IPDBusinessCardProvider aBCProvider,
+                                                          @NonNull final IIndexerWorkItem aWorkItem,
+                                                          @Nullable final PDStoredContentInfo aKnownContentInfo,
+                                                          @NonNull final Consumer <String> aErrorMsgHandler,
+                                                          @NonNull final Consumer <EIndexerFailureClass> aFailureClassHandler,
+                                                          @NonNull final AtomicBoolean aUnchanged)
+  {
+    final IParticipantIdentifier aParticipantID = aWorkItem.getParticipantID ();
+    if (aKnownContentInfo == null || aKnownContentInfo.getValidators () == null)
+      return aBCProvider.getBusinessCard (aParticipantID, aErrorMsgHandler, aFailureClassHandler);
+
+    final AtomicReference <ICommonsList <IDocumentTypeIdentifier>> aNotModifiedDocTypeIDs = new AtomicReference <> ();
+    final PDExtendedBusinessCard aBI = aBCProvider.getBusinessCard (aParticipantID,
+                                                                    aKnownContentInfo.getValidators (),
+                                                                    aErrorMsgHandler,
+                                                                    aFailureClassHandler,
+                                                                    aNotModifiedDocTypeIDs::set);
+    if (aBI != null || aNotModifiedDocTypeIDs.get () == null)
+      return aBI;
+
+    // The business card is unchanged - check the document types and the owner
+    final String sContentHash = PDStoredContentInfo.getContentHash (aKnownContentInfo.getBusinessCardHash (),
+                                                                    aNotModifiedDocTypeIDs.get (),
+                                                                    aWorkItem.getOwnerID ());
+    if (sContentHash.equals (aKnownContentInfo.getContentHash ()))
+    {
+      LOGGER.info ("The BusinessCard of " + aWorkItem.getLogText () + " is not modified - not updating the index");
+      UNCHANGED_COUNT.incrementAndGet ();
+      aUnchanged.set (true);
+      return null;
+    }
+
+    // Something else changed - the business card is needed to update the index
+    return aBCProvider.getBusinessCard (aParticipantID, aErrorMsgHandler, aFailureClassHandler);
+  }
+
+  /**
+   * @return The number of business cards that were not written to the index, because they were
+   *         unchanged. Always &ge; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static long getUnchangedCount ()
+  {
+    return UNCHANGED_COUNT.get ();
+  }
+
+  @NonNull
+  private static ESuccess _deleteEntry (@NonNull final IPDStorageManager aStorageMgr,
+                                        @NonNull final IIndexerWorkItem aWorkItem) throws IOException
+  {
+    WRITE_PERMITS.acquireUninterruptibly ();
+    try
+    {
+      return ESuccess.valueOf (aStorageMgr.deleteEntry (aWorkItem.getParticipantID (),
+                                                        aWorkItem.getAsMetaData (),
+                                                        true) >= 0);
+    }
+    finally
+    {
+      WRITE_PERMITS.release ();
+    }
+  }
+
+  /**
+   * Determine the SMP host that will be queried when executing the provided work item.
+   *
+   * @param aWorkItem
+   *        The work item to check. May not be <code>null</code>.
+   * @return <code>null</code> if the work item doesn't query an SMP or if the host is unknown.
+   */
+  @Nullable
+  public static String getSMPHostNameOrNull (@NonNull final IIndexerWorkItem aWorkItem)
+  {
+    // Deletions don't query the SMP
+    if (aWorkItem.getType () == EIndexerWorkItemType.DELETE)
+      return null;
+
+    final IPDBusinessCardProvider aBCProvider = PDMetaManager.getBusinessCardProviderOrNull ();
+    return aBCProvider == null ? null : aBCProvider.getSMPHostNameOrNull (aWorkItem.getParticipantID ());
+  }
+
   /**
    * This method is responsible for executing the specified work item depending on its type.
    *
@@ -56,7 +245,8 @@ final class PDIndexExecutor
    * @param aSuccessHandler
    *        A callback that is invoked upon success only.
    * @param aFailureHandler
-   *        A callback that is invoked upon failure only.
+   *        A callback that is invoked upon failure only. It receives the failure class that
+   *        determines the retry policy.
    * @return {@link ESuccess}
    */
   @NonNull
@@ -64,7 +254,7 @@ final class PDIndexExecutor
                                           @NonNull final IIndexerWorkItem aWorkItem,
                                           @Nonnegative final int nRetryCount,
                                           @NonNull final Consumer <? super IIndexerWorkItem> aSuccessHandler,
-                                          @NonNull final BiConsumer <? super IIndexerWorkItem, ? super ICommonsList <String>> aFailureHandler)
+                                          @NonNull final IFailureHandler aFailureHandler)
   {
     LOGGER.info ("Execute work item " +
                  aWorkItem.getLogText () +
@@ -72,6 +262,10 @@ final class PDIndexExecutor
                  (nRetryCount > 0 ? "retry #" + nRetryCount : "initial try"));
 
     final ICommonsList <String> aErrorMsgs = new CommonsArrayList <> ();
+    // The failure class is reported by the business card provider or determined here
+    final AtomicReference <EIndexerFailureClass> aFailureClass = new AtomicReference <> ();
+    final Consumer <EIndexerFailureClass> aFailureClassHandler = e -> aFailureClass.accumulateAndGet (e,
+                                                                                                     EIndexerFailureClass::getCombined);
     final IPDBusinessCardProvider aBCProvider = PDMetaManager.getBusinessCardProviderOrNull ();
     if (aBCProvider == null)
     {
@@ -79,6 +273,7 @@ final class PDIndexExecutor
       // Maybe null upon shutdown - in that case ignore it and don't reindex
       LOGGER.error (sErrorMsg);
       aErrorMsgs.add (sErrorMsg);
+      aFailureClassHandler.accept (EIndexerFailureClass.OTHER);
     }
     else
     {
@@ -92,63 +287,92 @@ final class PDIndexExecutor
           case CREATE_UPDATE:
           {
             // Get BI from participant (e.g. from SMP)
-            final PDExtendedBusinessCard aBI = aBCProvider.getBusinessCard (aParticipantID, aErrorMsgs::add);
-            if (aBI == null)
+            final PDStoredContentInfo aKnownContentInfo = _getContentInfoOrNull (aStorageMgr, aParticipantID);
+            final AtomicBoolean aUnchanged = new AtomicBoolean (false);
+            final PDExtendedBusinessCard aBI = _getBusinessCard (aBCProvider,
+                                                                 aWorkItem,
+                                                                 aKnownContentInfo,
+                                                                 aErrorMsgs::add,
+                                                                 aFailureClassHandler,
+                                                                 aUnchanged);
+            if (aUnchanged.get ())
             {
-              // No/invalid extension present - no need to try again
-              eSuccess = ESuccess.FAILURE;
-              final String sErrorMsg = "Failed to retrieve BusinessCard from SMP";
-              aErrorMsgs.add (sErrorMsg);
+              // Nothing to do
+              eSuccess = ESuccess.SUCCESS;
             }
             else
-            {
-              // Got data - put in storage
-              eSuccess = aStorageMgr.createOrUpdateEntry (aParticipantID, aBI, aWorkItem.getAsMetaData ());
-              if (eSuccess.isFailure ())
+              if (aBI == null)
               {
-                final String sErrorMsg = "Successfully retrieved BusinessCard but failed to store the data.";
+                // No/invalid extension present. Only the provider knows if this is permanent - if
+                // it reports no failure class, OTHER is used below
+                eSuccess = ESuccess.FAILURE;
+                final String sErrorMsg = "Failed to retrieve BusinessCard from SMP";
                 aErrorMsgs.add (sErrorMsg);
               }
-            }
+              else
+              {
+                // Got data - put in storage
+                eSuccess = _createOrUpdateEntry (aStorageMgr, aWorkItem, aBI, aKnownContentInfo);
+                if (eSuccess.isFailure ())
+                {
+                  final String sErrorMsg = "Successfully retrieved BusinessCard but failed to store the data.";
+                  aErrorMsgs.add (sErrorMsg);
+                  aFailureClassHandler.accept (EIndexerFailureClass.STORAGE);
+                }
+              }
             break;
           }
           case DELETE:
           {
             // Really delete it
-            eSuccess = ESuccess.valueOf (aStorageMgr.deleteEntry (aParticipantID, aWorkItem.getAsMetaData (), true) >=
-                                         0);
+            eSuccess = _deleteEntry (aStorageMgr, aWorkItem);
             if (eSuccess.isFailure ())
             {
               final String sErrorMsg = "Failed to delete the BusinessCard from the index";
               aErrorMsgs.add (sErrorMsg);
+              aFailureClassHandler.accept (EIndexerFailureClass.STORAGE);
             }
             break;
           }
           case SYNC:
           {
             // Get BI from participant (e.g. from SMP)
-            final PDExtendedBusinessCard aBI = aBCProvider.getBusinessCard (aParticipantID, aErrorMsgs::add);
-            if (aBI == null)
+            final PDStoredContentInfo aKnownContentInfo = _getContentInfoOrNull (aStorageMgr, aParticipantID);
+            final AtomicBoolean aUnchanged = new AtomicBoolean (false);
+            final PDExtendedBusinessCard aBI = _getBusinessCard (aBCProvider,
+                                                                 aWorkItem,
+                                                                 aKnownContentInfo,
+                                                                 aErrorMsgs::add,
+                                                                 aFailureClassHandler,
+                                                                 aUnchanged);
+            if (aUnchanged.get ())
             {
-              // No/invalid extension present - delete from index
-              eSuccess = ESuccess.valueOf (aStorageMgr.deleteEntry (aParticipantID, aWorkItem.getAsMetaData (), true) >=
-                                           0);
-              if (eSuccess.isFailure ())
-              {
-                final String sErrorMsg = "Failed to retrieve the BusinessCard and failed to remove the data from the index.";
-                aErrorMsgs.add (sErrorMsg);
-              }
+              // Nothing to do
+              eSuccess = ESuccess.SUCCESS;
             }
             else
-            {
-              // Got data - put in storage
-              eSuccess = aStorageMgr.createOrUpdateEntry (aParticipantID, aBI, aWorkItem.getAsMetaData ());
-              if (eSuccess.isFailure ())
+              if (aBI == null)
               {
-                final String sErrorMsg = "Successfully retrieved BusinessCard but failed to store the data.";
-                aErrorMsgs.add (sErrorMsg);
+                // No/invalid extension present - delete from index
+                eSuccess = _deleteEntry (aStorageMgr, aWorkItem);
+                if (eSuccess.isFailure ())
+                {
+                  final String sErrorMsg = "Failed to retrieve the BusinessCard and failed to remove the data from the index.";
+                  aErrorMsgs.add (sErrorMsg);
+                  aFailureClassHandler.accept (EIndexerFailureClass.STORAGE);
+                }
+              }
+              else
+              {
+                // Got data - put in storage
+                eSuccess = _createOrUpdateEntry (aStorageMgr, aWorkItem, aBI, aKnownContentInfo);
+                if (eSuccess.isFailure ())
+                {
+                  final String sErrorMsg = "Successfully retrieved BusinessCard but failed to store the data.";
+                  aErrorMsgs.add (sErrorMsg);
+                  aFailureClassHandler.accept (EIndexerFailureClass.STORAGE);
+                }
               }
-            }
             break;
           }
           default:
@@ -173,12 +397,20 @@ final class PDIndexExecutor
         final String sErrorMsg = "Error in executing work item " + aWorkItem.getLogText () + " - " + ex.getMessage ();
         LOGGER.error (sErrorMsg, ex);
         aErrorMsgs.add (sErrorMsg);
+        // Only the storage manager throws IOExceptions
+        if (ex instanceof IOException)
+          aFailureClassHandler.accept (EIndexerFailureClass.STORAGE);
+        else
+          aFailureClassHandler.accept (EIndexerFailureClass.getFromException (ex));
         // Fall through
       }
     }
 
     // Invoke failure handler
-    aFailureHandler.accept (aWorkItem, aErrorMsgs);
+    final EIndexerFailureClass eFailureClass = aFailureClass.get ();
+    aFailureHandler.onFailure (aWorkItem,
+                               aErrorMsgs,
+                               eFailureClass != null ? eFailureClass : EIndexerFailureClass.OTHER);
 
     LOGGER.warn ("Failure processing executing work item " + aWorkItem.getLogText ());
 
@@ -19,7 +19,18 @@ package com.helger.pd.indexer.mgr;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
@@ -27,27 +38,32 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.helger.annotation.Nonempty;
-import com.helger.annotation.concurrent.GuardedBy;
-import com.helger.base.concurrent.SimpleReadWriteLock;
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.style.VisibleForTesting;
+import com.helger.base.concurrent.BasicThreadFactoryBuilder;
+import com.helger.base.concurrent.ExecutorServiceHelper;
 import com.helger.base.enforce.ValueEnforcer;
 import com.helger.base.state.EChange;
 import com.helger.base.tostring.ToStringGenerator;
-import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.CommonsArrayList;
 import com.helger.collection.commons.ICommonsList;
-import com.helger.collection.commons.ICommonsSet;
 import com.helger.dao.DAOException;
 import com.helger.datetime.helper.PDTFactory;
 import com.helger.io.file.FileOperationManager;
 import com.helger.pd.indexer.businesscard.IPDBusinessCardProvider;
+import com.helger.pd.indexer.index.EIndexerFailureClass;
 import com.helger.pd.indexer.index.EIndexerWorkItemType;
 import com.helger.pd.indexer.index.IIndexerWorkItem;
 import com.helger.pd.indexer.index.IndexerWorkItem;
+import com.helger.pd.indexer.index.IndexerWorkItemJournal;
 import com.helger.pd.indexer.index.IndexerWorkItemQueue;
 import com.helger.pd.indexer.job.ReIndexJob;
 import com.helger.pd.indexer.reindex.IReIndexWorkItem;
 import com.helger.pd.indexer.reindex.IReIndexWorkItemList;
+import com.helger.pd.indexer.reindex.ReIndexRetryPolicy;
 import com.helger.pd.indexer.reindex.ReIndexWorkItem;
 import com.helger.pd.indexer.reindex.ReIndexWorkItemList;
+import com.helger.pd.indexer.settings.PDServerConfiguration;
 import com.helger.peppolid.IParticipantIdentifier;
 import com.helger.photon.io.WebFileIO;
 import com.helger.quartz.SimpleScheduleBuilder;
@@ -74,38 +90,100 @@ public final class PDIndexerManager implements Closeable
   private static final String ELEMENT_ROOT = "root";
   private static final String ELEMENT_ITEM = "item";
 
-  private final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
   private final IPDStorageManager m_aStorageMgr;
   private final File m_aIndexerWorkItemFile;
   private final ReIndexWorkItemList m_aReIndexList;
   private final ReIndexWorkItemList m_aDeadList;
+  private final IndexerWorkItemJournal m_aJournal;
   private final IndexerWorkItemQueue m_aIndexerWorkQueue;
+  private final ExecutorService m_aReIndexExecutor;
   private final TriggerKey m_aTriggerKey;
 
   /**
-   * This set contains all work items that are not yet finished. It contains all items in the
-   * indexer work queue as well as the ones in the re-index work item list. Once the items are moved
-   * to the dead list, they are removed from here.
+   * This map contains the state of all work items per participant that are not yet finished. It
+   * contains the types of all items in the indexer work queue as well as the ones in the re-index
+   * work item list. Once the items are moved to the dead list, they are removed from here.<br>
+   * Additionally it contains the latest work item per participant that is in the indexer work queue
+   * and was not yet started. Older queued work items of the same participant that were superseded by
+   * a newer one are skipped when they are dequeued.<br>
+   * The states are immutable and are replaced atomically per participant, so that no global lock is
+   * needed.
    */
-  @GuardedBy ("m_aRWLock")
-  private final ICommonsSet <IIndexerWorkItem> m_aUniqueItems = new CommonsHashSet <> ();
+  private final ConcurrentHashMap <IParticipantIdentifier, PDParticipantWorkState> m_aWorkStates = new ConcurrentHashMap <> ();
+  private final AtomicLong m_aCoalescedItems = new AtomicLong (0);
+  private final AtomicLong m_aCarriedOverReIndexItems = new AtomicLong (0);
 
   // Status vars
   private final GlobalQuartzScheduler m_aScheduler;
 
+  private void _markDone (@NonNull final IIndexerWorkItem aWorkItem)
+  {
+    // Failed work items are persisted as part of the re-index list
+    if (m_aJournal != null)
+      m_aJournal.markDone (aWorkItem);
+  }
+
+  /**
+   * Atomically replace the work state of a participant.
+   *
+   * @param aParticipantID
+   *        The participant ID. May not be <code>null</code>.
+   * @param aOld
+   *        The previous state as read from the map. May be <code>null</code>.
+   * @param aNew
+   *        The new state. May not be <code>null</code>. Empty states are removed from the map.
+   * @return <code>true</code> if the state was replaced, <code>false</code> if the state of the
+   *         participant was modified concurrently.
+   */
+  private boolean _replaceWorkState (@NonNull final IParticipantIdentifier aParticipantID,
+                                     @Nullable final PDParticipantWorkState aOld,
+                                     @NonNull final PDParticipantWorkState aNew)
+  {
+    if (aOld == null)
+      return aNew.isEmpty () || m_aWorkStates.putIfAbsent (aParticipantID, aNew) == null;
+    if (aNew.isEmpty ())
+      return m_aWorkStates.remove (aParticipantID, aOld);
+    return m_aWorkStates.replace (aParticipantID, aOld, aNew);
+  }
+
+  private void _removeOpenWorkItem (@NonNull final IIndexerWorkItem aWorkItem)
+  {
+    // Returning null removes the mapping
+    m_aWorkStates.computeIfPresent (aWorkItem.getParticipantID (), (k, v) -> {
+      final PDParticipantWorkState aNew = v.getWithoutOpenType (aWorkItem.getType ());
+      return aNew.isEmpty () ? null : aNew;
+    });
+  }
+
   private void _onIndexSuccess (@NonNull final IIndexerWorkItem aWorkItem)
   {
-    m_aRWLock.writeLocked ( () -> m_aUniqueItems.remove (aWorkItem));
+    _removeOpenWorkItem (aWorkItem);
+  }
+
+  private void _moveToDeadList (@NonNull final ReIndexWorkItem aItem)
+  {
+    // remove it from the overall list but move to dead item list
+    _removeOpenWorkItem (aItem.getWorkItem ());
+
+    m_aDeadList.addItem (aItem, false);
+    LOGGER.info ("Added " + aItem.getLogText () + " to the dead list");
   }
 
   private void _onIndexFailure (@NonNull final IIndexerWorkItem aWorkItem,
-                                @Nullable final ICommonsList <String> aErrorMsgs)
+                                @NonNull final ICommonsList <String> aErrorMsgs,
+                                @NonNull final EIndexerFailureClass eFailureClass)
   {
     // if (PDServerConfiguration.getConfig ().getAsBoolean ("reindex.enabled", true))
     // Initially add to re-index list
 
-    m_aReIndexList.addItem (new ReIndexWorkItem (aWorkItem, aErrorMsgs), true);
-    // Keep it in the "Unique items" list until re-indexing worked
+    final ReIndexWorkItem aReIndexItem = new ReIndexWorkItem (aWorkItem, aErrorMsgs, eFailureClass);
+    if (ReIndexRetryPolicy.getPolicyOf (eFailureClass).isRetryAllowed (0))
+    {
+      m_aReIndexList.addItem (aReIndexItem, true);
+      // Keep it in the work states until re-indexing worked
+    }
+    else
+      _moveToDeadList (aReIndexItem);
   }
 
   private void _onReIndexSuccess (@NonNull final IIndexerWorkItem aWorkItem)
@@ -114,9 +192,16 @@ public final class PDIndexerManager implements Closeable
   }
 
   private void _onReIndexFailure (@NonNull final IReIndexWorkItem aReIndexItem,
-                                  @Nullable final ICommonsList <String> aErrorMsgs)
+                                  @NonNull final ICommonsList <String> aErrorMsgs,
+                                  @NonNull final EIndexerFailureClass eFailureClass)
   {
-    m_aReIndexList.incRetryCountAndAddItem (aReIndexItem, aErrorMsgs);
+    if (ReIndexRetryPolicy.getPolicyOf (eFailureClass).isRetryAllowed (aReIndexItem.getRetryCount () + 1))
+      m_aReIndexList.incRetryCountAndAddItem (aReIndexItem, aErrorMsgs, eFailureClass);
+    else
+    {
+      // Don't retry failures that will most likely fail again
+      _moveToDeadList (m_aReIndexList.incRetryCount (aReIndexItem, aErrorMsgs, eFailureClass));
+    }
   }
 
   /**
@@ -124,7 +209,8 @@ public final class PDIndexerManager implements Closeable
    * Initialized the work item queue, the re-index queue and the dead-queue.<br>
    * Schedules the re-index job.<br>
    * Read all work items persisted to disk. This happens when the application is shutdown while
-   * elements are still in the queue.<br>
+   * elements are still in the queue, or if the write-ahead log is enabled and the application
+   * crashed.<br>
    * Please note that the queuing of the items might directly trigger the usage of the
    * {@link PDMetaManager#getBusinessCardProvider()} so make sure to call
    * {@link PDMetaManager#setBusinessCardProvider(IPDBusinessCardProvider)} before calling this
@@ -148,12 +234,43 @@ public final class PDIndexerManager implements Closeable
     // Dead list
     m_aDeadList = new ReIndexWorkItemList ("dead-work-items.xml");
 
+    // Write-ahead log
+    if (PDServerConfiguration.isIndexerWALEnabled ())
+    {
+      final File aWALDir = WebFileIO.getDataIO ().getFile ("indexer-wal");
+      try
+      {
+        m_aJournal = new IndexerWorkItemJournal (aWALDir,
+                                                 PDServerConfiguration.getIndexerWALSegmentMB () * 1024L * 1024L,
+                                                 PDServerConfiguration.isIndexerWALFsync ());
+      }
+      catch (final IOException ex)
+      {
+        throw new DAOException ("Failed to open the indexer write-ahead log in " + aWALDir, ex);
+      }
+    }
+    else
+      m_aJournal = null;
+
     // Main worker to perform the jobs
-    m_aIndexerWorkQueue = new IndexerWorkItemQueue (aQueueItem -> PDIndexExecutor.executeWorkItem (m_aStorageMgr,
-                                                                                                   aQueueItem,
-                                                                                                   0,
-                                                                                                   this::_onIndexSuccess,
-                                                                                                   this::_onIndexFailure));
+    m_aIndexerWorkQueue = new IndexerWorkItemQueue (aQueueItem -> {
+      try
+      {
+        if (_startPendingWorkItem (aQueueItem))
+          PDIndexExecutor.executeWorkItem (m_aStorageMgr, aQueueItem, 0, this::_onIndexSuccess, this::_onIndexFailure);
+      }
+      finally
+      {
+        _markDone (aQueueItem);
+      }
+    }, PDIndexExecutor::getSMPHostNameOrNull);
+
+    // Executes the re-index work items of a single re-index job run
+    m_aReIndexExecutor = Executors.newFixedThreadPool (PDServerConfiguration.getReIndexParallelism (),
+                                                       new BasicThreadFactoryBuilder ().namingPattern ("pd-reindex-%d")
+                                                                                       .daemon (false)
+                                                                                       .priority (Thread.NORM_PRIORITY)
+                                                                                       .build ());
 
     // Schedule re-index job
     m_aTriggerKey = ReIndexJob.schedule (SimpleScheduleBuilder.repeatMinutelyForever (1));
@@ -177,34 +294,88 @@ public final class PDIndexerManager implements Closeable
       // Delete the files to ensure it is not read again next startup time
       FileOperationManager.INSTANCE.deleteFile (m_aIndexerWorkItemFile);
     }
+
+    if (m_aJournal != null)
+    {
+      // Work items that were not finished before the last shutdown or crash
+      for (final IIndexerWorkItem aWorkItem : m_aJournal.getAllReplayedItems ())
+        if (_queueUniqueWorkItem (aWorkItem).isUnchanged ())
+          _markDone (aWorkItem);
+    }
   }
 
   public void close () throws IOException
   {
     // Get all remaining objects and save them for late reuse
     final ICommonsList <IIndexerWorkItem> aRemainingWorkItems = m_aIndexerWorkQueue.stop ();
-    if (aRemainingWorkItems.isNotEmpty ())
+    // Superseded work items would be executed again after the restart
+    aRemainingWorkItems.removeIf (x -> {
+      final PDParticipantWorkState aState = m_aWorkStates.get (x.getParticipantID ());
+      return aState == null || aState.getPending () != x;
+    });
+    if (m_aJournal != null)
     {
-      LOGGER.info ("Persisting " + aRemainingWorkItems.size () + " indexer work items");
-      final IMicroDocument aDoc = new MicroDocument ();
-      final IMicroElement eRoot = aDoc.addElement (ELEMENT_ROOT);
-      for (final IIndexerWorkItem aItem : aRemainingWorkItems)
-        eRoot.addChild (MicroTypeConverter.convertToMicroElement (aItem, ELEMENT_ITEM));
-      if (MicroWriter.writeToFile (aDoc, m_aIndexerWorkItemFile).isFailure ())
-        throw new IllegalStateException ("Failed to write IndexerWorkItems to " + m_aIndexerWorkItemFile);
+      // The remaining work items are still open in the write-ahead log
+      if (aRemainingWorkItems.isNotEmpty ())
+        LOGGER.info ("Leaving " + aRemainingWorkItems.size () + " indexer work items in the write-ahead log");
+      m_aJournal.close ();
     }
+    else
+      if (aRemainingWorkItems.isNotEmpty ())
+      {
+        LOGGER.info ("Persisting " + aRemainingWorkItems.size () + " indexer work items");
+        final IMicroDocument aDoc = new MicroDocument ();
+        final IMicroElement eRoot = aDoc.addElement (ELEMENT_ROOT);
+        for (final IIndexerWorkItem aItem : aRemainingWorkItems)
+          eRoot.addChild (MicroTypeConverter.convertToMicroElement (aItem, ELEMENT_ITEM));
+        if (MicroWriter.writeToFile (aDoc, m_aIndexerWorkItemFile).isFailure ())
+          throw new IllegalStateException ("Failed to write IndexerWorkItems to " + m_aIndexerWorkItemFile);
+      }
 
     // Unschedule the job to avoid problems on shutdown. Use the saved instance
     // because GlobalQuartzScheduler.getInstance() would fail because the global
     // scope is already in destruction.
     m_aScheduler.unscheduleJob (m_aTriggerKey);
+    // Re-index work items that were not started are carried over
+    ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (m_aReIndexExecutor);
 
     // Close Lucene index etc.
     m_aStorageMgr.close ();
   }
 
   /**
-   * Queue a single work item of any type. If the item is already in the queue, it is ignored.
+   * Called by the indexer work queue before a work item is executed.
+   *
+   * @param aWorkItem
+   *        The dequeued work item. May not be <code>null</code>.
+   * @return <code>true</code> if the work item should be executed, <code>false</code> if it was
+   *         superseded by a newer work item of the same participant.
+   */
+  private boolean _startPendingWorkItem (@NonNull final IIndexerWorkItem aWorkItem)
+  {
+    final IParticipantIdentifier aParticipantID = aWorkItem.getParticipantID ();
+    boolean bCurrent;
+    while (true)
+    {
+      final PDParticipantWorkState aOld = m_aWorkStates.get (aParticipantID);
+      // Identity check, as superseded items may be equal to the current one
+      bCurrent = aOld != null && aOld.getPending () == aWorkItem;
+      if (!bCurrent || _replaceWorkState (aParticipantID, aOld, aOld.getWithPending (null)))
+        break;
+      // Concurrent modification - try again
+    }
+    if (!bCurrent)
+      LOGGER.info ("Skipping work item " + aWorkItem.getLogText () + " because it was superseded");
+    return bCurrent;
+  }
+
+  /**
+   * Queue a single work item of any type. A queued work item of the same participant that was not
+   * yet started is superseded, if the new work item makes it obsolete (see
+   * {@link EIndexerWorkItemType#supersedes(EIndexerWorkItemType)}), even if an older work item of
+   * the new type is currently running. If the queued work item makes the new one obsolete, the new
+   * one is ignored. If no work item is pending, the new one is ignored if a work item of the same
+   * type is already in the queue or the re-index list.
    *
    * @param aWorkItem
    *        Work item to be queued. May not be <code>null</code>.
@@ -215,37 +386,104 @@ public final class PDIndexerManager implements Closeable
   {
     ValueEnforcer.notNull (aWorkItem, "WorkItem");
 
-    // Check for duplicate
-    m_aRWLock.writeLock ().lock ();
-    try
+    final IParticipantIdentifier aParticipantID = aWorkItem.getParticipantID ();
+    final EIndexerWorkItemType eType = aWorkItem.getType ();
+
+    // Check for duplicate and register it in a single atomic step
+    IIndexerWorkItem aSuperseded;
+    while (true)
     {
-      if (!m_aUniqueItems.add (aWorkItem))
+      final PDParticipantWorkState aOld = m_aWorkStates.get (aParticipantID);
+      final IIndexerWorkItem aPending = aOld == null ? null : aOld.getPending ();
+      // A running work item of the same type doesn't cover the new one, if a newer work item of
+      // another type is pending - otherwise the pending one would be executed last
+      if (aPending == null && aOld != null && aOld.isOpen (eType))
       {
         LOGGER.info ("Ignoring work item " +
                      aWorkItem.getLogText () +
                      " because it is already in the queue/re-index list!");
         return EChange.UNCHANGED;
       }
+
+      if (aPending != null && !eType.supersedes (aPending.getType ()))
+      {
+        m_aCoalescedItems.incrementAndGet ();
+        LOGGER.info ("Ignoring work item " +
+                     aWorkItem.getLogText () +
+                     " because the queued work item " +
+                     aPending.getLogText () +
+                     " covers it");
+        return EChange.UNCHANGED;
+      }
+
+      PDParticipantWorkState aNew = aOld == null ? PDParticipantWorkState.EMPTY : aOld;
+      if (aPending != null)
+      {
+        // The old one stays in the queue but is skipped
+        aNew = aNew.getWithoutOpenType (aPending.getType ());
+      }
+      aNew = aNew.getWithOpenType (eType).getWithPending (aWorkItem);
+      if (_replaceWorkState (aParticipantID, aOld, aNew))
+      {
+        aSuperseded = aPending;
+        break;
+      }
+      // Concurrent modification of the same participant - try again
     }
-    finally
+
+    if (aSuperseded != null)
+    {
+      m_aCoalescedItems.incrementAndGet ();
+      LOGGER.info ("The work item " + aWorkItem.getLogText () + " supersedes the queued " + aSuperseded.getLogText ());
+    }
+
+    if (m_aJournal != null)
     {
-      m_aRWLock.writeLock ().unlock ();
+      try
+      {
+        // Write ahead - blocks until it is durable
+        m_aJournal.append (aWorkItem);
+      }
+      catch (final UncheckedIOException ex)
+      {
+        // Still queue it - it just won't survive a crash
+        LOGGER.error ("Failed to write work item " + aWorkItem.getLogText () + " to the write-ahead log", ex);
+      }
+      if (aSuperseded != null)
+        m_aJournal.markDone (aSuperseded);
     }
 
     // Queue it
     if (m_aIndexerWorkQueue.queueObject (aWorkItem).isFailure ())
     {
       LOGGER.error ("Failed to queue work item " + aWorkItem.getLogText ());
+      _markDone (aWorkItem);
       return EChange.UNCHANGED;
     }
     LOGGER.info ("Queued work item " + aWorkItem.getLogText ());
 
     // Remove the entry from the other lists to avoid spamming the dead list
-    if (m_aReIndexList.getAndRemoveEntry (x -> x.getWorkItem ().equals (aWorkItem)) != null)
+    final IReIndexWorkItem aReIndexItem = m_aReIndexList.getAndRemoveEntryOfWorkItem (aWorkItem);
+    if (aReIndexItem != null)
+    {
+      // It was counted as open
+      _removeOpenWorkItem (aReIndexItem.getWorkItem ());
       LOGGER.info ("Removed the new work item " + aWorkItem.getLogText () + " from the re-index list");
-    if (m_aDeadList.getAndRemoveEntry (x -> x.getWorkItem ().equals (aWorkItem)) != null)
+    }
+    if (m_aDeadList.getAndRemoveEntryOfWorkItem (aWorkItem) != null)
       LOGGER.info ("Removed the new work item " + aWorkItem.getLogText () + " from the dead list");
 
+    // Retries of the same participant that are superseded by the new item are obsolete as well
+    final Predicate <IReIndexWorkItem> aSuperseded = x -> eType.supersedes (x.getWorkItem ().getType ());
+    for (final IReIndexWorkItem aItem : m_aReIndexList.getAndRemoveAllEntriesOfParticipant (aParticipantID,
+                                                                                          aSuperseded))
+    {
+      _removeOpenWorkItem (aItem.getWorkItem ());
+      LOGGER.info ("Removed the superseded work item " + aItem.getLogText () + " from the re-index list");
+    }
+    for (final IReIndexWorkItem aItem : m_aDeadList.getAndRemoveAllEntriesOfParticipant (aParticipantID, aSuperseded))
+      LOGGER.info ("Removed the superseded work item " + aItem.getLogText () + " from the dead list");
+
     return EChange.CHANGED;
   }
 
@@ -282,49 +520,163 @@ public final class PDIndexerManager implements Closeable
   public void expireOldEntries ()
   {
     // Expire old entries
-    final ICommonsList <IReIndexWorkItem> aExpiredItems = m_aReIndexList.getAndRemoveAllEntries (IReIndexWorkItem::isExpired);
+    final ICommonsList <IReIndexWorkItem> aExpiredItems = m_aReIndexList.getAndRemoveAllExpiredEntries (PDTFactory.getCurrentLocalDateTime ());
     if (aExpiredItems.isNotEmpty ())
     {
       LOGGER.info ("Expiring " + aExpiredItems.size () + " re-index work items and move them to the dead list");
 
+      // move all to the dead item list
       for (final IReIndexWorkItem aItem : aExpiredItems)
-      {
-        // remove them from the overall list but move to dead item list
-        m_aRWLock.writeLocked ( () -> m_aUniqueItems.remove (aItem.getWorkItem ()));
-
-        // move all to the dead item list
-        m_aDeadList.addItem ((ReIndexWorkItem) aItem, false);
-        LOGGER.info ("Added " + aItem.getLogText () + " to the dead list");
-      }
+        _moveToDeadList ((ReIndexWorkItem) aItem);
     }
   }
 
   /**
    * Re-index all entries that are ready to be re-indexed now. This is called from a scheduled job
-   * only.
+   * only.<br>
+   * The entries are executed in parallel (see {@link PDServerConfiguration#getReIndexParallelism()}).
+   * Entries that were not started within the time budget of a single run (see
+   * {@link PDServerConfiguration#getReIndexTimeBudgetSeconds()}) are put back into the re-index
+   * list without counting a retry, so that they are the first ones in the next run.
    */
   public void reIndexParticipantDataSynchronously ()
   {
-    final LocalDateTime aNow = PDTFactory.getCurrentLocalDateTime ();
+    reIndexParticipantDataSynchronously (PDTFactory.getCurrentLocalDateTime (),
+                                         TimeUnit.SECONDS.toNanos (PDServerConfiguration.getReIndexTimeBudgetSeconds ()));
+  }
+
+  /**
+   * Re-index all entries that are ready to be re-indexed at the provided date time.
+   *
+   * @param aNow
+   *        The date time to determine the entries to re-index. May not be <code>null</code>.
+   * @param nTimeBudgetNanos
+   *        The time in nanoseconds this run may start new work items. Must be &ge; 0.
+   * @see #reIndexParticipantDataSynchronously()
+   */
+  @VisibleForTesting
+  void reIndexParticipantDataSynchronously (@NonNull final LocalDateTime aNow,
+                                            @Nonnegative final long nTimeBudgetNanos)
+  {
+    ValueEnforcer.notNull (aNow, "Now");
+    ValueEnforcer.isGE0 (nTimeBudgetNanos, "TimeBudgetNanos");
 
-    // Get and remove all items to re-index "now"
-    final ICommonsList <IReIndexWorkItem> aReIndexNowItems = m_aReIndexList.getAndRemoveAllEntries (aWorkItem -> aWorkItem.isRetryPossible (aNow));
+    final long nDeadlineNanos = System.nanoTime () + nTimeBudgetNanos;
+
+    // Get and remove all items to re-index "now" - oldest first
+    final ICommonsList <IReIndexWorkItem> aReIndexNowItems = m_aReIndexList.getAndRemoveAllRetryableEntries (aNow);
 
     if (LOGGER.isDebugEnabled ())
       LOGGER.debug ("Re-indexing " + aReIndexNowItems.size () + " work items");
 
+    final AtomicInteger aCarriedOver = new AtomicInteger (0);
+    final ICommonsList <Future <?>> aFutures = new CommonsArrayList <> (aReIndexNowItems.size ());
     for (final IReIndexWorkItem aReIndexItem : aReIndexNowItems)
     {
-      LOGGER.info ("Try to re-index " + aReIndexItem.getLogText ());
+      final Runnable aTask = () -> {
+        if (System.nanoTime () - nDeadlineNanos >= 0)
+        {
+          // Time budget exhausted - the retry count stays the same
+          m_aReIndexList.addItem ((ReIndexWorkItem) aReIndexItem, false);
+          aCarriedOver.incrementAndGet ();
+          return;
+        }
+
+        LOGGER.info ("Try to re-index " + aReIndexItem.getLogText ());
+
+        PDIndexExecutor.executeWorkItem (m_aStorageMgr,
+                                         aReIndexItem.getWorkItem (),
+                                         1 + aReIndexItem.getRetryCount (),
+                                         this::_onReIndexSuccess,
+                                         (aFailureItem, aErrorMsgs, eFailureClass) -> _onReIndexFailure (aReIndexItem,
+                                                                                                         aErrorMsgs,
+                                                                                                         eFailureClass));
+      };
+      try
+      {
+        aFutures.add (m_aReIndexExecutor.submit (aTask));
+      }
+      catch (final RejectedExecutionException ex)
+      {
+        // Shutting down
+        m_aReIndexList.addItem ((ReIndexWorkItem) aReIndexItem, false);
+        aCarriedOver.incrementAndGet ();
+      }
+    }
+
+    // Wait until this run is finished, so that runs don't overlap
+    for (final Future <?> aFuture : aFutures)
+    {
+      try
+      {
+        aFuture.get ();
+      }
+      catch (final InterruptedException ex)
+      {
+        LOGGER.warn ("Interrupted while waiting for the re-index work items");
+        Thread.currentThread ().interrupt ();
+        break;
+      }
+      catch (final ExecutionException ex)
+      {
+        LOGGER.error ("Error executing a re-index work item", ex.getCause ());
+      }
+    }
 
-      PDIndexExecutor.executeWorkItem (m_aStorageMgr,
-                                       aReIndexItem.getWorkItem (),
-                                       1 + aReIndexItem.getRetryCount (),
-                                       this::_onReIndexSuccess,
-                                       (aFailureItem, aErrorMsgs) -> _onReIndexFailure (aReIndexItem, aErrorMsgs));
+    if (aCarriedOver.get () > 0)
+    {
+      m_aCarriedOverReIndexItems.addAndGet (aCarriedOver.get ());
+      LOGGER.info ("Carried over " +
+                   aCarriedOver.get () +
+                   " of " +
+                   aReIndexNowItems.size () +
+                   " re-index work items to the next run");
     }
   }
 
+  /**
+   * @return The number of due re-index work items that were not started within the time budget of
+   *         a re-index run and were therefore carried over to the next run. Always &ge; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public long getCarriedOverReIndexItemCount ()
+  {
+    return m_aCarriedOverReIndexItems.get ();
+  }
+
+  /**
+   * @return The number of work items that were not executed, because they were superseded by or
+   *         covered by another queued work item of the same participant. Always &ge; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public long getCoalescedItemCount ()
+  {
+    return m_aCoalescedItems.get ();
+  }
+
+  /**
+   * @return The number of work items that were not written to the index, because the business card
+   *         and the document types of the participant were unchanged. Always &ge; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public long getUnchangedItemCount ()
+  {
+    return PDIndexExecutor.getUnchangedCount ();
+  }
+
+  /**
+   * @return The write-ahead log of the queued work items or <code>null</code> if it is disabled.
+   * @since 0.16.1
+   */
+  @Nullable
+  public IndexerWorkItemJournal getJournal ()
+  {
+    return m_aJournal;
+  }
+
   /**
    * @return The queue with all work items. Never <code>null</code> but maybe empty.
    */
@@ -358,7 +710,7 @@ public final class PDIndexerManager implements Closeable
   public String toString ()
   {
     return ToStringGenerator.getDerived (super.toString ())
-                            .append ("UniqueItems", m_aUniqueItems)
+                            .append ("WorkStates", m_aWorkStates)
                             .append ("ReIndexList", m_aReIndexList)
                             .append ("DeadList", m_aDeadList)
                             .append ("IndexerWorkQueue", m_aIndexerWorkQueue)
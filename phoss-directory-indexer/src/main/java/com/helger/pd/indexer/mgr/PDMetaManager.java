@@ -134,6 +134,10 @@ public final class PDMetaManager extends AbstractGlobalSingleton
     StreamHelper.close (m_aIndex);
     StreamHelper.close (m_aStorageMgr);
     StreamHelper.close (m_aIndexerMgr);
+
+    // Release the pooled SMP connections
+    if (getBusinessCardProviderOrNull () instanceof final AutoCloseable aCloseable)
+      StreamHelper.close (aCloseable);
   }
 
   @NonNull
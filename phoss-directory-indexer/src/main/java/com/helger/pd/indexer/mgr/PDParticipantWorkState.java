@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.mgr;
+
+import java.util.Arrays;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.pd.indexer.index.EIndexerWorkItemType;
+import com.helger.pd.indexer.index.IIndexerWorkItem;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Internal class that contains the state of all unfinished work items of a single participant. It
+ * is used by the {@link PDIndexerManager}. Instances are immutable, so that the state of a
+ * participant can be replaced atomically.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+@Immutable
+final class PDParticipantWorkState
+{
+  /** The state without any unfinished work item */
+  static final PDParticipantWorkState EMPTY = new PDParticipantWorkState (new int [EIndexerWorkItemType.values ().length],
+                                                                          null);
+
+  // The number of work items per type (by ordinal) in the indexer work queue or the re-index list.
+  // A running work item and a newer pending one may have the same type.
+  private final int [] m_aOpenCounts;
+  // The latest work item in the indexer work queue that was not yet started
+  private final IIndexerWorkItem m_aPending;
+
+  private PDParticipantWorkState (@NonNull final int [] aOpenCounts, @Nullable final IIndexerWorkItem aPending)
+  {
+    m_aOpenCounts = aOpenCounts;
+    m_aPending = aPending;
+  }
+
+  /**
+   * @return <code>true</code> if there is neither an open nor a pending work item.
+   */
+  boolean isEmpty ()
+  {
+    for (final int n : m_aOpenCounts)
+      if (n > 0)
+        return false;
+    return m_aPending == null;
+  }
+
+  /**
+   * @param eType
+   *        The work item type to check. May not be <code>null</code>.
+   * @return <code>true</code> if at least one work item of the provided type is in the indexer work
+   *         queue or in the re-index list.
+   */
+  boolean isOpen (@NonNull final EIndexerWorkItemType eType)
+  {
+    return m_aOpenCounts[eType.ordinal ()] > 0;
+  }
+
+  /**
+   * @return The latest queued work item that was not yet started. May be <code>null</code>.
+   */
+  @Nullable
+  IIndexerWorkItem getPending ()
+  {
+    return m_aPending;
+  }
+
+  /**
+   * @param eType
+   *        The type of the work item that was added. May not be <code>null</code>.
+   * @return A new state with one more open work item of the provided type.
+   */
+  @NonNull
+  PDParticipantWorkState getWithOpenType (@NonNull final EIndexerWorkItemType eType)
+  {
+    final int [] aOpenCounts = m_aOpenCounts.clone ();
+    aOpenCounts[eType.ordinal ()]++;
+    return new PDParticipantWorkState (aOpenCounts, m_aPending);
+  }
+
+  /**
+   * @param eType
+   *        The type of the work item that was finished or superseded. May not be <code>null</code>.
+   * @return A state with one open work item of the provided type less. If no work item of the
+   *         provided type is open, this is returned.
+   */
+  @NonNull
+  PDParticipantWorkState getWithoutOpenType (@NonNull final EIndexerWorkItemType eType)
+  {
+    if (!isOpen (eType))
+      return this;
+    final int [] aOpenCounts = m_aOpenCounts.clone ();
+    aOpenCounts[eType.ordinal ()]--;
+    return new PDParticipantWorkState (aOpenCounts, m_aPending);
+  }
+
+  @NonNull
+  PDParticipantWorkState getWithPending (@Nullable final IIndexerWorkItem aPending)
+  {
+    if (aPending == m_aPending)
+      return this;
+    return new PDParticipantWorkState (m_aOpenCounts, aPending);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("OpenCounts", Arrays.toString (m_aOpenCounts))
+                                       .append ("Pending", m_aPending)
+                                       .getToString ();
+  }
+}
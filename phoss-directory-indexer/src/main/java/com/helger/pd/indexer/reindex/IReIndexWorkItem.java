@@ -28,6 +28,7 @@ import com.helger.base.name.IHasDisplayName;
 import com.helger.base.type.ITypedObject;
 import com.helger.collection.commons.ICommonsList;
 import com.helger.datetime.helper.PDTFactory;
+import com.helger.pd.indexer.index.EIndexerFailureClass;
 import com.helger.pd.indexer.index.IIndexerWorkItem;
 
 import jakarta.annotation.Nullable;
@@ -89,6 +90,13 @@ public interface IReIndexWorkItem extends ITypedObject <String>, IHasDisplayName
   @NonNull
   LocalDateTime getNextRetryDT ();
 
+  /**
+   * @return The class of the last failure. Determines the retry policy. Never <code>null</code>.
+   * @since 0.16.1
+   */
+  @NonNull
+  EIndexerFailureClass getFailureClass ();
+
   /**
    * Check if the passed date time qualifies the entry for the next retry.
    *
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.reindex;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.CheckForSigned;
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.pd.indexer.index.EIndexerFailureClass;
+import com.helger.pd.indexer.settings.PDServerConfiguration;
+
+/**
+ * The retry policy for failed indexer work items. The delay between two retries starts with the
+ * initial delay and is doubled with every retry until the maximum delay is reached. Only the first
+ * half of each delay is fixed, the second half is random ("jitter"), so that many work items that
+ * failed at the same time (e.g. because an SMP was down) are not retried at the same time.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+@Immutable
+public final class ReIndexRetryPolicy
+{
+  private final int m_nInitialDelayMinutes;
+  private final int m_nMaxDelayMinutes;
+  private final int m_nMaxRetries;
+
+  /**
+   * Constructor
+   *
+   * @param nInitialDelayMinutes
+   *        The delay before the first retry in minutes. Must be &gt; 0.
+   * @param nMaxDelayMinutes
+   *        The maximum delay between two retries in minutes. Must be &ge; the initial delay.
+   * @param nMaxRetries
+   *        The maximum number of retries. Values &lt; 0 mean that the number of retries is only
+   *        limited by the maximum retry duration.
+   */
+  public ReIndexRetryPolicy (@Nonnegative final int nInitialDelayMinutes,
+                             @Nonnegative final int nMaxDelayMinutes,
+                             @CheckForSigned final int nMaxRetries)
+  {
+    ValueEnforcer.isGT0 (nInitialDelayMinutes, "InitialDelayMinutes");
+    ValueEnforcer.isTrue (nMaxDelayMinutes >= nInitialDelayMinutes,
+                          "MaxDelayMinutes must be >= InitialDelayMinutes");
+    m_nInitialDelayMinutes = nInitialDelayMinutes;
+    m_nMaxDelayMinutes = nMaxDelayMinutes;
+    m_nMaxRetries = nMaxRetries;
+  }
+
+  @Nonnegative
+  public int getInitialDelayMinutes ()
+  {
+    return m_nInitialDelayMinutes;
+  }
+
+  @Nonnegative
+  public int getMaxDelayMinutes ()
+  {
+    return m_nMaxDelayMinutes;
+  }
+
+  @CheckForSigned
+  public int getMaxRetries ()
+  {
+    return m_nMaxRetries;
+  }
+
+  /**
+   * Check if another retry is allowed.
+   *
+   * @param nRetryCount
+   *        The number of retries performed so far. Must be &ge; 0.
+   * @return <code>true</code> if another retry is allowed, <code>false</code> if the work item
+   *         should be moved to the dead list.
+   */
+  public boolean isRetryAllowed (@Nonnegative final int nRetryCount)
+  {
+    return m_nMaxRetries < 0 || nRetryCount < m_nMaxRetries;
+  }
+
+  /**
+   * Get the delay before the next retry.
+   *
+   * @param nRetryCount
+   *        The number of retries performed so far. Must be &ge; 0.
+   * @param dRandom
+   *        The random value for the jitter. Must be &ge; 0 and &lt; 1.
+   * @return The delay in seconds. Always &gt; 0.
+   */
+  @Nonnegative
+  public long getDelaySeconds (@Nonnegative final int nRetryCount, final double dRandom)
+  {
+    final long nMaxSeconds = m_nMaxDelayMinutes * 60L;
+    long nDelay = m_nInitialDelayMinutes * 60L;
+    for (int i = 0; i < nRetryCount && nDelay < nMaxSeconds; ++i)
+      nDelay *= 2;
+    nDelay = Math.min (nDelay, nMaxSeconds);
+
+    final long nFixed = nDelay / 2;
+    return nFixed + (long) (dRandom * (nDelay - nFixed));
+  }
+
+  /**
+   * Get the date time of the next retry.
+   *
+   * @param aBaseDT
+   *        The date time of the last failure. May not be <code>null</code>.
+   * @param nRetryCount
+   *        The number of retries performed so far. Must be &ge; 0.
+   * @return The next retry date time. Never <code>null</code>.
+   */
+  @NonNull
+  public LocalDateTime getNextRetryDT (@NonNull final LocalDateTime aBaseDT, @Nonnegative final int nRetryCount)
+  {
+    return aBaseDT.plusSeconds (getDelaySeconds (nRetryCount, ThreadLocalRandom.current ().nextDouble ()));
+  }
+
+  /**
+   * Get the configured retry policy for the provided failure class.
+   *
+   * @param eFailureClass
+   *        The failure class to use. May not be <code>null</code>.
+   * @return The retry policy. Never <code>null</code>.
+   */
+  @NonNull
+  public static ReIndexRetryPolicy getPolicyOf (@NonNull final EIndexerFailureClass eFailureClass)
+  {
+    ValueEnforcer.notNull (eFailureClass, "FailureClass");
+    return new ReIndexRetryPolicy (PDServerConfiguration.getReIndexInitialDelayMinutes (eFailureClass),
+                                   PDServerConfiguration.getReIndexMaxDelayMinutes (eFailureClass),
+                                   PDServerConfiguration.getReIndexMaxRetries (eFailureClass));
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("InitialDelayMinutes", m_nInitialDelayMinutes)
+                                       .append ("MaxDelayMinutes", m_nMaxDelayMinutes)
+                                       .append ("MaxRetries", m_nMaxRetries)
+                                       .getToString ();
+  }
+}
@@ -31,6 +31,7 @@ import com.helger.base.type.ObjectType;
 import com.helger.collection.commons.CommonsArrayList;
 import com.helger.collection.commons.ICommonsList;
 import com.helger.datetime.helper.PDTFactory;
+import com.helger.pd.indexer.index.EIndexerFailureClass;
 import com.helger.pd.indexer.index.IIndexerWorkItem;
 import com.helger.pd.indexer.settings.PDServerConfiguration;
 
@@ -51,16 +52,36 @@ public class ReIndexWorkItem implements IReIndexWorkItem
   private int m_nRetries;
   private LocalDateTime m_aPreviousRetryDT;
   private LocalDateTime m_aNextRetryDT;
+  private EIndexerFailureClass m_eFailureClass;
   private final ICommonsList <String> m_aErrorMsgs = new CommonsArrayList <> ();
 
   public ReIndexWorkItem (@NonNull final IIndexerWorkItem aWorkItem, @NonNull final ICommonsList <String> aErrorMsgs)
   {
-    // The next retry happens from now in the configured number of minutes
+    this (aWorkItem, aErrorMsgs, EIndexerFailureClass.OTHER);
+  }
+
+  /**
+   * Constructor for a work item that failed initially.
+   *
+   * @param aWorkItem
+   *        The original work item to be handled.
+   * @param aErrorMsgs
+   *        Error messages received
+   * @param eFailureClass
+   *        The failure class of the initial failure. Determines the next retry time.
+   * @since 0.16.1
+   */
+  public ReIndexWorkItem (@NonNull final IIndexerWorkItem aWorkItem,
+                          @NonNull final ICommonsList <String> aErrorMsgs,
+                          @NonNull final EIndexerFailureClass eFailureClass)
+  {
+    // The next retry happens according to the retry policy
     this (aWorkItem,
           aWorkItem.getCreationDateTime ().plusHours (PDServerConfiguration.getReIndexMaxRetryHours ()),
           0,
           (LocalDateTime) null,
-          PDTFactory.getCurrentLocalDateTime ().plusMinutes (PDServerConfiguration.getReIndexRetryMinutes ()),
+          ReIndexRetryPolicy.getPolicyOf (eFailureClass).getNextRetryDT (PDTFactory.getCurrentLocalDateTime (), 0),
+          eFailureClass,
           aErrorMsgs);
   }
 
@@ -77,6 +98,8 @@ public class ReIndexWorkItem implements IReIndexWorkItem
    *        The last retry time. May be <code>null</code> if no retry happened so far.
    * @param aNextRetryDT
    *        The next retry time. Must be &ge; now.
+   * @param eFailureClass
+   *        The failure class of the last failure.
    * @param aErrorMsgs
    *        Error messages received
    */
@@ -85,6 +108,7 @@ public class ReIndexWorkItem implements IReIndexWorkItem
                    final int nRetries,
                    @Nullable final LocalDateTime aPreviousRetryDT,
                    @NonNull final LocalDateTime aNextRetryDT,
+                   @NonNull final EIndexerFailureClass eFailureClass,
                    @NonNull final ICommonsList <String> aErrorMsgs)
   {
     m_aWorkItem = ValueEnforcer.notNull (aWorkItem, "WorkItem");
@@ -94,6 +118,7 @@ public class ReIndexWorkItem implements IReIndexWorkItem
     if (nRetries > 0)
       ValueEnforcer.notNull (aPreviousRetryDT, "PreviousRetryDT");
     m_aNextRetryDT = ValueEnforcer.notNull (aNextRetryDT, "NextRetryDT");
+    m_eFailureClass = ValueEnforcer.notNull (eFailureClass, "FailureClass");
     m_aErrorMsgs.addAll (aErrorMsgs);
   }
 
@@ -140,14 +165,27 @@ public class ReIndexWorkItem implements IReIndexWorkItem
     return m_aNextRetryDT;
   }
 
+  @NonNull
+  public EIndexerFailureClass getFailureClass ()
+  {
+    return m_eFailureClass;
+  }
+
   /**
-   * Increment the number of retries and update the previous and the next retry datetime.
+   * Increment the number of retries and update the previous and the next retry datetime according
+   * to the retry policy of the provided failure class.
+   *
+   * @param eFailureClass
+   *        The failure class of the failed retry. May not be <code>null</code>.
+   * @since 0.16.1
    */
-  public void incRetryCount ()
+  public void incRetryCount (@NonNull final EIndexerFailureClass eFailureClass)
   {
+    ValueEnforcer.notNull (eFailureClass, "FailureClass");
     m_nRetries++;
+    m_eFailureClass = eFailureClass;
     m_aPreviousRetryDT = PDTFactory.getCurrentLocalDateTime ();
-    m_aNextRetryDT = m_aPreviousRetryDT.plusMinutes (PDServerConfiguration.getReIndexRetryMinutes ());
+    m_aNextRetryDT = ReIndexRetryPolicy.getPolicyOf (eFailureClass).getNextRetryDT (m_aPreviousRetryDT, m_nRetries);
   }
 
   @NonNull
@@ -194,6 +232,7 @@ public class ReIndexWorkItem implements IReIndexWorkItem
                                        .append ("Retries", m_nRetries)
                                        .append ("PreviousRetryDT", m_aPreviousRetryDT)
                                        .append ("NextRetryDT", m_aNextRetryDT)
+                                       .append ("FailureClass", m_eFailureClass)
                                        .append ("ErrorMessages", m_aErrorMsgs)
                                        .getToString ();
   }
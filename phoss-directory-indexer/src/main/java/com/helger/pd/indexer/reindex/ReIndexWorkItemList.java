@@ -16,6 +16,11 @@
  */
 package com.helger.pd.indexer.reindex;
 
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.TreeSet;
 import java.util.function.Predicate;
 
 import org.jspecify.annotations.NonNull;
@@ -23,19 +28,29 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.GuardedBy;
 import com.helger.annotation.concurrent.ThreadSafe;
 import com.helger.annotation.style.ReturnsMutableCopy;
 import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.state.EChange;
 import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashMap;
 import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
 import com.helger.dao.DAOException;
+import com.helger.pd.indexer.index.EIndexerFailureClass;
+import com.helger.pd.indexer.index.IIndexerWorkItem;
+import com.helger.peppolid.IParticipantIdentifier;
 import com.helger.photon.io.dao.AbstractPhotonMapBasedWALDAO;
 
 import jakarta.annotation.Nullable;
 
 /**
  * This is the list with {@link IReIndexWorkItem} objects. It is solely used in the
- * {@link com.helger.pd.indexer.mgr.PDIndexerManager} for "re-index" and "dead" work items.
+ * {@link com.helger.pd.indexer.mgr.PDIndexerManager} for "re-index" and "dead" work items.<br>
+ * Additionally to the items by ID, the items are indexed by participant ID, by next retry date
+ * time and by maximum retry date time, so that the frequent lookups don't need to scan the whole
+ * list.
  *
  * @author Philip Helger
  */
@@ -45,10 +60,65 @@ public final class ReIndexWorkItemList extends AbstractPhotonMapBasedWALDAO <IRe
                                        IReIndexWorkItemList
 {
   private static final Logger LOGGER = LoggerFactory.getLogger (ReIndexWorkItemList.class);
+  // The ID makes the order total, as the date times are not unique
+  private static final Comparator <ReIndexWorkItem> NEXT_RETRY_ORDER = Comparator.comparing (ReIndexWorkItem::getNextRetryDT)
+                                                                                 .thenComparing (ReIndexWorkItem::getID);
+  private static final Comparator <ReIndexWorkItem> MAX_RETRY_ORDER = Comparator.comparing (ReIndexWorkItem::getMaxRetryDT)
+                                                                                .thenComparing (ReIndexWorkItem::getID);
+
+  @GuardedBy ("m_aRWLock")
+  private final ICommonsMap <IParticipantIdentifier, ICommonsList <ReIndexWorkItem>> m_aByParticipant = new CommonsHashMap <> ();
+  @GuardedBy ("m_aRWLock")
+  private final NavigableSet <ReIndexWorkItem> m_aByNextRetry = new TreeSet <> (NEXT_RETRY_ORDER);
+  @GuardedBy ("m_aRWLock")
+  private final NavigableSet <ReIndexWorkItem> m_aByMaxRetry = new TreeSet <> (MAX_RETRY_ORDER);
 
   public ReIndexWorkItemList (@Nullable final String sFilename) throws DAOException
   {
     super (ReIndexWorkItem.class, sFilename);
+    // Index all items read from disk
+    final ICommonsList <IReIndexWorkItem> aAll = getAll ();
+    m_aRWLock.writeLocked ( () -> {
+      for (final IReIndexWorkItem aItem : aAll)
+        _addToIndex ((ReIndexWorkItem) aItem);
+    });
+  }
+
+  @GuardedBy ("m_aRWLock")
+  private void _addToIndex (@NonNull final ReIndexWorkItem aItem)
+  {
+    m_aByParticipant.computeIfAbsent (aItem.getWorkItem ().getParticipantID (), k -> new CommonsArrayList <> (1))
+                    .add (aItem);
+    m_aByNextRetry.add (aItem);
+    m_aByMaxRetry.add (aItem);
+  }
+
+  @GuardedBy ("m_aRWLock")
+  private void _internalAdd (@NonNull final ReIndexWorkItem aItem)
+  {
+    internalCreateItem (aItem);
+    _addToIndex (aItem);
+  }
+
+  @GuardedBy ("m_aRWLock")
+  @Nullable
+  private ReIndexWorkItem _internalRemove (@NonNull final String sID)
+  {
+    final ReIndexWorkItem ret = internalDeleteItem (sID);
+    if (ret != null)
+    {
+      final IParticipantIdentifier aParticipantID = ret.getWorkItem ().getParticipantID ();
+      final ICommonsList <ReIndexWorkItem> aList = m_aByParticipant.get (aParticipantID);
+      if (aList != null)
+      {
+        aList.remove (ret);
+        if (aList.isEmpty ())
+          m_aByParticipant.remove (aParticipantID);
+      }
+      m_aByNextRetry.remove (ret);
+      m_aByMaxRetry.remove (ret);
+    }
+    return ret;
   }
 
   /**
@@ -64,25 +134,46 @@ public final class ReIndexWorkItemList extends AbstractPhotonMapBasedWALDAO <IRe
   public void addItem (@NonNull final ReIndexWorkItem aItem, final boolean bLog) throws IllegalStateException
   {
     ValueEnforcer.notNull (aItem, "Item");
-    m_aRWLock.writeLocked ( () -> { internalCreateItem (aItem); });
+    m_aRWLock.writeLocked ( () -> _internalAdd (aItem));
     if (bLog)
       LOGGER.info ("Added " + aItem.getLogText () + " to re-try list for retry #" + (aItem.getRetryCount () + 1));
   }
 
-  public void incRetryCountAndAddItem (@NonNull final IReIndexWorkItem aItem,
-                                       @NonNull final ICommonsList <String> aErrorMsg)
+  /**
+   * Increment the retry count of an item that is not contained in the list, after a failed retry.
+   *
+   * @param aItem
+   *        The item that failed. May not be <code>null</code>.
+   * @param aErrorMsg
+   *        The error messages of the failed retry. May not be <code>null</code>.
+   * @param eFailureClass
+   *        The failure class of the failed retry. May not be <code>null</code>.
+   * @return The item. Never <code>null</code>.
+   * @since 0.16.1
+   */
+  @NonNull
+  public ReIndexWorkItem incRetryCount (@NonNull final IReIndexWorkItem aItem,
+                                        @NonNull final ICommonsList <String> aErrorMsg,
+                                        @NonNull final EIndexerFailureClass eFailureClass)
   {
     ValueEnforcer.notNull (aItem, "Item");
 
     // Item is not in the list anymore, therefore we need to cast it :(
     final ReIndexWorkItem aRealItem = (ReIndexWorkItem) aItem;
     m_aRWLock.writeLocked ( () -> {
-      aRealItem.incRetryCount ();
+      aRealItem.incRetryCount (eFailureClass);
       // Now it is 1-based
       final int nRetryIdx = aRealItem.getRetryCount ();
       aRealItem.addErrorMessages (aErrorMsg.getAllMapped (x -> "[Retry " + nRetryIdx + "] " + x));
     });
-    addItem (aRealItem, true);
+    return aRealItem;
+  }
+
+  public void incRetryCountAndAddItem (@NonNull final IReIndexWorkItem aItem,
+                                       @NonNull final ICommonsList <String> aErrorMsg,
+                                       @NonNull final EIndexerFailureClass eFailureClass)
+  {
+    addItem (incRetryCount (aItem, aErrorMsg, eFailureClass), true);
   }
 
   @Nullable
@@ -92,7 +183,116 @@ public final class ReIndexWorkItemList extends AbstractPhotonMapBasedWALDAO <IRe
     if (aWorkItem == null)
       return null;
 
-    return m_aRWLock.writeLockedGet ( () -> internalDeleteItem (aWorkItem.getID ()));
+    return m_aRWLock.writeLockedGet ( () -> _internalRemove (aWorkItem.getID ()));
+  }
+
+  /**
+   * Find and remove the entry of a work item that is equal to the provided one (same participant
+   * ID and type).
+   *
+   * @param aWorkItem
+   *        The work item to search. May not be <code>null</code>.
+   * @return <code>null</code> if no such entry exists.
+   * @since 0.16.1
+   */
+  @Nullable
+  public IReIndexWorkItem getAndRemoveEntryOfWorkItem (@NonNull final IIndexerWorkItem aWorkItem)
+  {
+    ValueEnforcer.notNull (aWorkItem, "WorkItem");
+    return m_aRWLock.writeLockedGet ( () -> {
+      final ICommonsList <ReIndexWorkItem> aList = m_aByParticipant.get (aWorkItem.getParticipantID ());
+      final ReIndexWorkItem aMatch = aList == null ? null : aList.findFirst (x -> x.getWorkItem ().equals (aWorkItem));
+      return aMatch == null ? null : _internalRemove (aMatch.getID ());
+    });
+  }
+
+  /**
+   * Remove all entries of the provided participant that match the provided predicate.
+   *
+   * @param aParticipantID
+   *        The participant ID to search. May not be <code>null</code>.
+   * @param aFilter
+   *        The predicate to use on the entries of the participant. May not be <code>null</code>.
+   * @return The removed entries. Never <code>null</code> but maybe empty.
+   * @since 0.16.1
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <IReIndexWorkItem> getAndRemoveAllEntriesOfParticipant (@NonNull final IParticipantIdentifier aParticipantID,
+                                                                             @NonNull final Predicate <? super IReIndexWorkItem> aFilter)
+  {
+    ValueEnforcer.notNull (aParticipantID, "ParticipantID");
+    ValueEnforcer.notNull (aFilter, "Filter");
+    final ICommonsList <IReIndexWorkItem> ret = new CommonsArrayList <> ();
+    m_aRWLock.writeLocked ( () -> {
+      final ICommonsList <ReIndexWorkItem> aList = m_aByParticipant.get (aParticipantID);
+      if (aList != null)
+      {
+        // Operate on a copy for removal!
+        for (final ReIndexWorkItem aItem : aList.getClone ())
+          if (aFilter.test (aItem))
+          {
+            ret.add (aItem);
+            _internalRemove (aItem.getID ());
+          }
+      }
+    });
+    return ret;
+  }
+
+  /**
+   * Remove all entries that are ready to be retried at the provided date time, ordered by their
+   * next retry date time.
+   *
+   * @param aDT
+   *        The date time to check. May not be <code>null</code>.
+   * @return The removed entries. Never <code>null</code> but maybe empty.
+   * @see IReIndexWorkItem#isRetryPossible(LocalDateTime)
+   * @since 0.16.1
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <IReIndexWorkItem> getAndRemoveAllRetryableEntries (@NonNull final LocalDateTime aDT)
+  {
+    ValueEnforcer.notNull (aDT, "DT");
+    return m_aRWLock.writeLockedGet ( () -> _getAndRemoveAllBefore (m_aByNextRetry, x -> x.isRetryPossible (aDT)));
+  }
+
+  /**
+   * Remove all entries where the maximum retry date time is before the provided date time.
+   *
+   * @param aDT
+   *        The date time to check. May not be <code>null</code>.
+   * @return The removed entries. Never <code>null</code> but maybe empty.
+   * @since 0.16.1
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <IReIndexWorkItem> getAndRemoveAllExpiredEntries (@NonNull final LocalDateTime aDT)
+  {
+    ValueEnforcer.notNull (aDT, "DT");
+    return m_aRWLock.writeLockedGet ( () -> _getAndRemoveAllBefore (m_aByMaxRetry,
+                                                                    x -> x.getMaxRetryDT ().isBefore (aDT)));
+  }
+
+  @GuardedBy ("m_aRWLock")
+  @NonNull
+  private ICommonsList <IReIndexWorkItem> _getAndRemoveAllBefore (@NonNull final NavigableSet <ReIndexWorkItem> aIndex,
+                                                                  @NonNull final Predicate <ReIndexWorkItem> aBefore)
+  {
+    // The index is ordered, so stop at the first non-matching entry
+    final ICommonsList <IReIndexWorkItem> ret = new CommonsArrayList <> ();
+    final Iterator <ReIndexWorkItem> it = aIndex.iterator ();
+    while (it.hasNext ())
+    {
+      final ReIndexWorkItem aItem = it.next ();
+      if (!aBefore.test (aItem))
+        break;
+      ret.add (aItem);
+    }
+    for (final IReIndexWorkItem aItem : ret)
+      _internalRemove (aItem.getID ());
+    return ret;
   }
 
   @NonNull
@@ -108,7 +308,7 @@ public final class ReIndexWorkItemList extends AbstractPhotonMapBasedWALDAO <IRe
         if (aFilter.test (aWorkItem))
         {
           ret.add (aWorkItem);
-          internalDeleteItem (aWorkItem.getID ());
+          _internalRemove (aWorkItem.getID ());
         }
     });
     return ret;
@@ -132,4 +332,12 @@ public final class ReIndexWorkItemList extends AbstractPhotonMapBasedWALDAO <IRe
   {
     return getOfID (sID);
   }
+
+  @NonNull
+  public EChange deleteItem (@Nullable final String sID)
+  {
+    if (sID == null)
+      return EChange.UNCHANGED;
+    return EChange.valueOf (m_aRWLock.writeLockedGet ( () -> _internalRemove (sID)) != null);
+  }
 }
@@ -23,6 +23,7 @@ import org.jspecify.annotations.NonNull;
 import com.helger.base.string.StringParser;
 import com.helger.collection.commons.CommonsArrayList;
 import com.helger.collection.commons.ICommonsList;
+import com.helger.pd.indexer.index.EIndexerFailureClass;
 import com.helger.pd.indexer.index.IIndexerWorkItem;
 import com.helger.pd.indexer.index.IndexerWorkItem;
 import com.helger.xml.microdom.IMicroElement;
@@ -46,6 +47,7 @@ public final class ReIndexWorkItemMicroTypeConverter implements IMicroTypeConver
   private static final IMicroQName ATTR_RETRY_COUNT = new MicroQName ("retries");
   private static final IMicroQName ATTR_PREVIOUS_RETRY_DT = new MicroQName ("prevretrydt");
   private static final IMicroQName ATTR_NEXT_RETRY_DT = new MicroQName ("nextretrydt");
+  private static final IMicroQName ATTR_FAILURE_CLASS = new MicroQName ("failureclass");
   private static final String ELEMENT_ERROR = "error";
 
   @Nullable
@@ -61,6 +63,7 @@ public final class ReIndexWorkItemMicroTypeConverter implements IMicroTypeConver
     aElement.setAttribute (ATTR_RETRY_COUNT, aValue.getRetryCount ());
     aElement.setAttributeWithConversion (ATTR_PREVIOUS_RETRY_DT, aValue.getPreviousRetryDT ());
     aElement.setAttributeWithConversion (ATTR_NEXT_RETRY_DT, aValue.getNextRetryDT ());
+    aElement.setAttribute (ATTR_FAILURE_CLASS, aValue.getFailureClass ().getID ());
     for (final String sError : aValue.errorMessages ())
       aElement.addElementNS (sNamespaceURI, ELEMENT_ERROR).addText (sError);
     return aElement;
@@ -85,11 +88,21 @@ public final class ReIndexWorkItemMicroTypeConverter implements IMicroTypeConver
     final LocalDateTime aNextRetryDT = aElement.getAttributeValueWithConversion (ATTR_NEXT_RETRY_DT,
                                                                                  LocalDateTime.class);
 
+    // Not present in older versions
+    final String sFailureClass = aElement.getAttributeValue (ATTR_FAILURE_CLASS);
+    final EIndexerFailureClass eFailureClass = EIndexerFailureClass.getFromIDOrNull (sFailureClass);
+
     final ICommonsList <String> aErrorMsgs = new CommonsArrayList <> ();
     for (final IMicroElement e : aElement.getAllChildElements (aElement.getNamespaceURI (), ELEMENT_ERROR))
       aErrorMsgs.add (e.getTextContentTrimmed ());
 
-    return new ReIndexWorkItem (aWorkItem, aMaxRetryDT, nRetryCount, aPreviousRetryDT, aNextRetryDT, aErrorMsgs);
+    return new ReIndexWorkItem (aWorkItem,
+                                aMaxRetryDT,
+                                nRetryCount,
+                                aPreviousRetryDT,
+                                aNextRetryDT,
+                                eFailureClass != null ? eFailureClass : EIndexerFailureClass.OTHER,
+                                aErrorMsgs);
   }
 
 }
@@ -19,16 +19,27 @@ package com.helger.pd.indexer.searchindex;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 
 import org.jspecify.annotations.NonNull;
 
 import com.helger.annotation.CheckForSigned;
 import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.numeric.mutable.MutableInt;
+import com.helger.base.string.StringParser;
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.CommonsTreeMap;
 import com.helger.collection.commons.ICommonsList;
 import com.helger.collection.commons.ICommonsOrderedMap;
+import com.helger.collection.commons.ICommonsSortedMap;
 import com.helger.pd.indexer.searchindex.query.IPDIndexQuery;
+import com.helger.pd.indexer.searchindex.query.PDIndexQueryMatchAll;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryTerm;
+import com.helger.pd.indexer.storage.field.PDField;
 
 import jakarta.annotation.Nullable;
 
@@ -42,6 +53,18 @@ import jakarta.annotation.Nullable;
  */
 public interface IPDIndex extends Closeable
 {
+  /** The cursor type of the default implementation of searchAfter */
+  String CURSOR_TYPE_OFFSET = "offset";
+
+  /**
+   * The maximum value of offset plus limit of {@link #search(IPDIndexQuery, int, int)}. All hits up
+   * to this position need to be kept in memory. This is the same as the OpenSearch default of
+   * <code>index.max_result_window</code>.
+   *
+   * @since 0.16.1
+   */
+  int MAX_SEARCH_WINDOW = 10_000;
+
   /**
    * @return <code>true</code> if the index is currently shutting down. In that case no more index
    *         access is possible.
@@ -60,6 +83,25 @@ public interface IPDIndex extends Closeable
   @NonNull
   ICommonsOrderedMap <String, String> getIndexInformation () throws IOException;
 
+  /**
+   * Get the generation of the index data that is currently visible to searches. Every change that
+   * becomes visible to searches must result in a higher generation, so that search results can
+   * safely be cached per generation.<br>
+   * The default implementation returns -1, because not every search engine can determine this
+   * cheaply and consistently across all writers of the index.
+   *
+   * @return The current search generation, or a value &lt; 0 if the implementation cannot provide
+   *         it. In the latter case search results must not be cached.
+   * @throws IOException
+   *         On index error
+   * @since 0.16.1
+   */
+  @CheckForSigned
+  default long getSearchGeneration () throws IOException
+  {
+    return -1;
+  }
+
   /**
    * Split a user provided query string into the terms that are relevant for querying, using the
    * same rules that were used when the field was indexed. This will e.g. remove ":" from a word.
@@ -116,20 +158,148 @@ public interface IPDIndex extends Closeable
   @CheckForSigned
   int getCount (@NonNull IPDIndexQuery aQuery) throws IOException;
 
+  /**
+   * Search a window of the documents matching the provided query, ordered by relevance, and
+   * determine the total number of matching documents in the same execution. Only the stored fields
+   * of the documents in the requested window are loaded.
+   *
+   * @param aQuery
+   *        Query to execute. May not be <code>null</code>.
+   * @param nOffset
+   *        The 0-based index of the first hit to return. Must be &ge; 0.
+   * @param nLimit
+   *        The maximum number of hits to return. Must be &gt; 0.
+   * @return The search result with at most <code>nLimit</code> hits and the total hit count. Never
+   *         <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If offset plus limit exceeds {@link #MAX_SEARCH_WINDOW}
+   * @throws IOException
+   *         On index error
+   * @since 0.16.1
+   */
+  @NonNull
+  PDIndexSearchResult <PDIndexDocument> search (@NonNull IPDIndexQuery aQuery,
+                                                @Nonnegative int nOffset,
+                                                @Nonnegative int nLimit) throws IOException;
+
+  /**
+   * Search the next window of documents matching the provided query, ordered by relevance, starting
+   * after the position described by the provided cursor. The total number of matching documents is
+   * determined in the same execution. Other than with {@link #search(IPDIndexQuery, int, int)} the
+   * costs of retrieving a window don't depend on the number of hits before it, if the
+   * implementation supports native cursors.<br>
+   * The default implementation uses cursors that contain the offset of the next window and
+   * delegates to {@link #search(IPDIndexQuery, int, int)}.
+   *
+   * @param aQuery
+   *        Query to execute. May not be <code>null</code>. Must be the same query for all windows of
+   *        the same cursor chain.
+   * @param sCursor
+   *        The opaque cursor as returned by {@link PDIndexSearchResult#getNextCursor()} of the
+   *        previous window. May be <code>null</code> to retrieve the first window.
+   * @param nLimit
+   *        The maximum number of hits to return. Must be &gt; 0 and &le; {@link #MAX_SEARCH_WINDOW}.
+   * @return The search result with at most <code>nLimit</code> hits, the total hit count and the
+   *         cursor for the next window, if there are more hits. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the provided cursor is invalid
+   * @throws IOException
+   *         On index error
+   * @since 0.16.1
+   */
+  @NonNull
+  default PDIndexSearchResult <PDIndexDocument> searchAfter (@NonNull final IPDIndexQuery aQuery,
+                                                             @Nullable final String sCursor,
+                                                             @Nonnegative final int nLimit) throws IOException
+  {
+    int nOffset = 0;
+    if (sCursor != null)
+    {
+      final ICommonsList <String> aValues = PDIndexSearchCursor.decode (sCursor, CURSOR_TYPE_OFFSET, 1);
+      nOffset = aValues == null ? -1 : StringParser.parseInt (aValues.getFirstOrNull (), -1);
+      if (nOffset < 0)
+        throw new IllegalArgumentException ("The provided search cursor is invalid");
+    }
+
+    final PDIndexSearchResult <PDIndexDocument> aResult = search (aQuery, nOffset, nLimit);
+    final int nNextOffset = nOffset + aResult.getHitCount ();
+    final String sNextCursor = aResult.getHitCount () > 0 && nNextOffset < aResult.getTotalHitCount () ? PDIndexSearchCursor.encode (CURSOR_TYPE_OFFSET,
+                                                                                                                                      Integer.toString (nNextOffset))
+                                                                                                        : null;
+    return new PDIndexSearchResult <> (aResult.getAllHits (), aResult.getTotalHitCount (), sNextCursor);
+  }
+
+  /**
+   * Search all documents matching the provided query and pass each of them with all stored fields
+   * to the provided {@link Consumer}.
+   *
+   * @param aQuery
+   *        Query to execute. May not be <code>null</code>.
+   * @param nMaxResultCount
+   *        Maximum number of results. Values &le; 0 mean all.
+   * @param aConsumer
+   *        The consumer of the matching documents. May not be <code>null</code>.
+   * @throws IOException
+   *         On index error
+   * @see #searchAll(IPDIndexQuery, int, Set, Consumer)
+   */
+  default void searchAll (@NonNull final IPDIndexQuery aQuery,
+                          @CheckForSigned final int nMaxResultCount,
+                          @NonNull final Consumer <? super PDIndexDocument> aConsumer) throws IOException
+  {
+    searchAll (aQuery, nMaxResultCount, null, aConsumer);
+  }
+
   /**
    * Search all documents matching the provided query and pass each of them to the provided
-   * {@link Consumer}.
+   * {@link Consumer}. Only the requested stored fields are loaded from the index, which massively
+   * reduces the amount of data to be read for full index scans that only need a few fields.
    *
    * @param aQuery
    *        Query to execute. May not be <code>null</code>.
    * @param nMaxResultCount
    *        Maximum number of results. Values &le; 0 mean all.
+   * @param aFieldsToLoad
+   *        The names of the fields to be contained in the result documents (see
+   *        <code>PDField.getAllFieldNames</code>). May be <code>null</code> to load all stored
+   *        fields.
    * @param aConsumer
    *        The consumer of the matching documents. May not be <code>null</code>.
    * @throws IOException
    *         On index error
+   * @since 0.16.1
    */
   void searchAll (@NonNull IPDIndexQuery aQuery,
                   @CheckForSigned int nMaxResultCount,
+                  @Nullable Set <String> aFieldsToLoad,
                   @NonNull Consumer <? super PDIndexDocument> aConsumer) throws IOException;
+
+  /**
+   * Iterate all distinct participant IDs contained in the index, sorted ascending by their stored
+   * value. For each participant ID the number of documents (business entities) is provided as
+   * well.<br>
+   * The default implementation performs a full index scan only loading the participant ID field.
+   * Implementations are encouraged to provide a more efficient implementation that does not touch
+   * the stored fields.
+   *
+   * @param aConsumer
+   *        The consumer that takes the stored participant ID value and the number of documents with
+   *        that value. May not be <code>null</code>.
+   * @throws IOException
+   *         On index error
+   * @since 0.16.1
+   */
+  default void forEachDistinctParticipantID (@NonNull final ObjIntConsumer <String> aConsumer) throws IOException
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    final String sFieldName = PDField.PARTICIPANT_ID.getFieldName ();
+    final ICommonsSortedMap <String, MutableInt> aMap = new CommonsTreeMap <> ();
+    searchAll (PDIndexQueryMatchAll.INSTANCE, -1, new CommonsHashSet <> (sFieldName), aDoc -> {
+      final PDIndexField aField = aDoc.getFieldOfName (sFieldName);
+      if (aField != null && aField.getStringValue () != null)
+        aMap.computeIfAbsent (aField.getStringValue (), k -> new MutableInt (0)).inc ();
+    });
+    aMap.forEach ( (k, v) -> aConsumer.accept (k, v.intValue ()));
+  }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.searchindex;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.string.StringHelper;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Helper class to create and read the opaque search cursors used by
+ * {@link IPDIndex#searchAfter(com.helger.pd.indexer.searchindex.query.IPDIndexQuery, String, int)}.
+ * A cursor consists of a type and a list of values, that are only interpreted by the index
+ * implementation that created the cursor. The serialized form is URL safe.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+@Immutable
+public final class PDIndexSearchCursor
+{
+  private static final char SEPARATOR = '\n';
+
+  private PDIndexSearchCursor ()
+  {}
+
+  /**
+   * Create a new cursor.
+   *
+   * @param sType
+   *        The cursor type, identifying the creator. May neither be <code>null</code> nor empty and
+   *        may not contain a line break.
+   * @param aValues
+   *        The values of the cursor. May not be <code>null</code>. Only the last value may contain
+   *        a line break.
+   * @return The URL safe opaque cursor string. Never <code>null</code>.
+   */
+  @NonNull
+  @Nonempty
+  public static String encode (@NonNull @Nonempty final String sType, @NonNull final String... aValues)
+  {
+    ValueEnforcer.notEmpty (sType, "Type");
+    ValueEnforcer.notNullNoNullValue (aValues, "Values");
+
+    final StringBuilder aSB = new StringBuilder (sType);
+    for (final String sValue : aValues)
+      aSB.append (SEPARATOR).append (sValue);
+    return Base64.getUrlEncoder ().withoutPadding ().encodeToString (aSB.toString ().getBytes (StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Read a cursor previously created with {@link #encode(String, String...)}.
+   *
+   * @param sCursor
+   *        The opaque cursor string. May be <code>null</code>.
+   * @param sExpectedType
+   *        The expected cursor type. May neither be <code>null</code> nor empty.
+   * @param nExpectedValueCount
+   *        The expected number of values.
+   * @return <code>null</code> if the cursor is invalid, has a different type or a different number
+   *         of values.
+   */
+  @Nullable
+  @ReturnsMutableCopy
+  public static ICommonsList <String> decode (@Nullable final String sCursor,
+                                              @NonNull @Nonempty final String sExpectedType,
+                                              final int nExpectedValueCount)
+  {
+    ValueEnforcer.notEmpty (sExpectedType, "ExpectedType");
+
+    if (StringHelper.isEmpty (sCursor))
+      return null;
+
+    final String sDecoded;
+    try
+    {
+      sDecoded = new String (Base64.getUrlDecoder ().decode (sCursor), StandardCharsets.UTF_8);
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // Not Base64
+      return null;
+    }
+
+    // The type and the values - the last value may contain the separator
+    final ICommonsList <String> aParts = new CommonsArrayList <> (StringHelper.getExploded (SEPARATOR,
+                                                                                           sDecoded,
+                                                                                           1 + nExpectedValueCount));
+    if (aParts.size () != 1 + nExpectedValueCount || !aParts.getFirstOrNull ().equals (sExpectedType))
+      return null;
+    aParts.removeFirst ();
+    return aParts;
+  }
+}
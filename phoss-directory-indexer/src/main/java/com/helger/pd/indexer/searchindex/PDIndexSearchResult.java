@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.searchindex;
+
+import java.util.function.Function;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.CheckForSigned;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.string.StringHelper;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * The result of a single search execution: the requested window of hits plus the total number of
+ * matching documents and optionally the cursor to retrieve the next window.
+ *
+ * @author Philip Helger
+ * @param <T>
+ *        The hit type
+ * @since 0.16.1
+ */
+@Immutable
+public final class PDIndexSearchResult <T>
+{
+  private final ICommonsList <T> m_aHits;
+  private final int m_nTotalHitCount;
+  private final String m_sNextCursor;
+
+  /**
+   * Constructor without a next cursor.
+   *
+   * @param aHits
+   *        The hits of the requested window, in the order of relevance. May not be
+   *        <code>null</code>.
+   * @param nTotalHitCount
+   *        The total number of matching documents, independent of the requested window. A value
+   *        &lt; 0 indicates an error.
+   */
+  public PDIndexSearchResult (@NonNull final Iterable <? extends T> aHits, @CheckForSigned final int nTotalHitCount)
+  {
+    this (aHits, nTotalHitCount, null);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aHits
+   *        The hits of the requested window, in the order of relevance. May not be
+   *        <code>null</code>.
+   * @param nTotalHitCount
+   *        The total number of matching documents, independent of the requested window. A value
+   *        &lt; 0 indicates an error.
+   * @param sNextCursor
+   *        The opaque cursor to retrieve the hits after the last hit of this result. May be
+   *        <code>null</code> if there are no more hits.
+   */
+  public PDIndexSearchResult (@NonNull final Iterable <? extends T> aHits,
+                              @CheckForSigned final int nTotalHitCount,
+                              @Nullable final String sNextCursor)
+  {
+    ValueEnforcer.notNull (aHits, "Hits");
+    m_aHits = new CommonsArrayList <> (aHits);
+    m_nTotalHitCount = nTotalHitCount;
+    m_sNextCursor = sNextCursor;
+  }
+
+  /**
+   * @return A copy of all hits of the requested window, in the order of relevance. Never
+   *         <code>null</code> but maybe empty.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <T> getAllHits ()
+  {
+    return m_aHits.getClone ();
+  }
+
+  /**
+   * @return The number of hits in the requested window. Always &ge; 0.
+   */
+  public int getHitCount ()
+  {
+    return m_aHits.size ();
+  }
+
+  /**
+   * @return The total number of matching documents, independent of the requested window. A value
+   *         &lt; 0 indicates an error.
+   */
+  @CheckForSigned
+  public int getTotalHitCount ()
+  {
+    return m_nTotalHitCount;
+  }
+
+  /**
+   * @return The opaque cursor to retrieve the hits after the last hit of this result. May be
+   *         <code>null</code> if there are no more hits or if the search was not cursor based.
+   */
+  @Nullable
+  public String getNextCursor ()
+  {
+    return m_sNextCursor;
+  }
+
+  /**
+   * @return <code>true</code> if a next cursor is present, <code>false</code> if not.
+   */
+  public boolean hasNextCursor ()
+  {
+    return StringHelper.isNotEmpty (m_sNextCursor);
+  }
+
+  /**
+   * Convert all hits to a different type.
+   *
+   * @param <U>
+   *        The destination hit type
+   * @param aConverter
+   *        The converter to be applied on every hit. May not be <code>null</code>.
+   * @return A new search result with the converted hits and the same total hit count and next
+   *         cursor. Never <code>null</code>.
+   */
+  @NonNull
+  public <U> PDIndexSearchResult <U> getConverted (@NonNull final Function <? super T, ? extends U> aConverter)
+  {
+    ValueEnforcer.notNull (aConverter, "Converter");
+    return new PDIndexSearchResult <> (new CommonsArrayList <> (m_aHits, aConverter), m_nTotalHitCount, m_sNextCursor);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Hits", m_aHits)
+                                       .append ("TotalHitCount", m_nTotalHitCount)
+                                       .appendIfNotNull ("NextCursor", m_sNextCursor)
+                                       .getToString ();
+  }
+
+  /**
+   * Create an empty search result, used to indicate an error.
+   *
+   * @param <T>
+   *        The hit type
+   * @return A new empty search result with a total hit count of -1. Never <code>null</code>.
+   */
+  @NonNull
+  public static <T> PDIndexSearchResult <T> createError ()
+  {
+    return new PDIndexSearchResult <> (new CommonsArrayList <> (), -1);
+  }
+}
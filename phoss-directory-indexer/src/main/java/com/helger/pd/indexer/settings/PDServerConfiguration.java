@@ -34,6 +34,8 @@ import com.helger.config.Config;
 import com.helger.config.ConfigFactory;
 import com.helger.config.IConfig;
 import com.helger.config.source.MultiConfigurationValueProvider;
+import com.helger.pd.indexer.index.EIndexerFailureClass;
+import com.helger.pd.indexer.index.EIndexerWorkItemPriority;
 import com.helger.peppol.sml.ESMPAPIType;
 import com.helger.peppolid.factory.BDXR1IdentifierFactory;
 import com.helger.peppolid.factory.BDXR2IdentifierFactory;
@@ -74,6 +76,151 @@ public final class PDServerConfiguration extends AbstractGlobalSingleton
    */
   public static final String DEFAULT_SEARCHINDEX_TYPE = "lucene";
 
+  /**
+   * The default maximum number of business entities kept in the query result cache.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_SEARCHINDEX_RESULTCACHE_MAX_DOCUMENTS = 10_000;
+
+  /**
+   * The default number of indexer workers, and the minimum number in elastic mode.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_INDEXER_WORKERS = 4;
+
+  /**
+   * The default maximum number of indexer workers in elastic mode.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_INDEXER_WORKERS_MAX = 32;
+
+  /**
+   * The default time in seconds in which elastic indexer workers should be able to process the
+   * queued items.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_INDEXER_WORKERS_TARGET_DRAIN_SECONDS = 60;
+
+  /**
+   * The default number of seconds after which an idle elastic indexer worker is stopped.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_INDEXER_WORKERS_IDLE_SECONDS = 60;
+
+  /**
+   * The default maximum number of work items processed at the same time in virtual thread mode.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_INDEXER_VIRTUALTHREADS_MAX_INFLIGHT = 10_000;
+
+  /**
+   * The default maximum number of work items writing to the search index at the same time.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_INDEXER_MAX_CONCURRENT_WRITES = 8;
+
+  /**
+   * The default size of a single indexer write-ahead log segment in megabytes.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_INDEXER_WAL_SEGMENT_MB = 64;
+
+  /**
+   * The default number of re-index work items executed in parallel.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_REINDEX_PARALLELISM = 4;
+
+  /**
+   * The default number of seconds a single re-index run may start new work items. It is below the
+   * one minute interval of the re-index job.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_REINDEX_TIMEBUDGET_SECONDS = 50;
+
+  /**
+   * The default maximum number of pooled connections per SMP host.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_SMPCLIENT_POOL_MAX_PER_ROUTE = 10;
+
+  /**
+   * The default maximum number of pooled connections to all SMP hosts.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_SMPCLIENT_POOL_MAX_TOTAL = 100;
+
+  /**
+   * The default number of seconds after which idle pooled SMP connections are closed.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_SMPCLIENT_POOL_IDLE_SECONDS = 30;
+
+  /**
+   * The default maximum number of threads for concurrent SMP queries, if virtual threads are not
+   * available.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_SMPCLIENT_FETCH_MAX_THREADS = 100;
+
+  /**
+   * The default maximum number of participants for which the SML that answered is remembered.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_SMPCLIENT_PREFERRED_SML_MAX_ENTRIES = 100_000;
+
+  /**
+   * The default number of seconds a resolved SMP URI is cached, if the TTL of the DNS record is
+   * not available.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_SMPCLIENT_DNS_CACHE_TTL_SECONDS = 300;
+
+  /**
+   * The default maximum number of resolved SMP URIs that are cached.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_SMPCLIENT_DNS_CACHE_MAX_ENTRIES = 100_000;
+
+  /**
+   * The default number of seconds a participant that does not exist in DNS is cached.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_SMPCLIENT_DNS_NEGATIVECACHE_TTL_SECONDS = 600;
+
+  /**
+   * The default number of seconds a participant that could not be resolved via DNS because of a
+   * transient failure (e.g. a timeout) is cached.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_SMPCLIENT_DNS_NEGATIVECACHE_TRANSIENT_TTL_SECONDS = 10;
+
+  /**
+   * The default maximum number of cached participants that could not be resolved via DNS.
+   *
+   * @since 0.16.1
+   */
+  public static final int DEFAULT_SMPCLIENT_DNS_NEGATIVECACHE_MAX_ENTRIES = 10_000;
+
   /**
    * @return The configuration value provider for phase4 that contains backward compatibility
    *         support.
@@ -248,6 +395,49 @@ public final class PDServerConfiguration extends AbstractGlobalSingleton
     return getConfig ().getAsString ("searchindex.type", DEFAULT_SEARCHINDEX_TYPE);
   }
 
+  /**
+   * Read value of <code>searchindex.ngram.index</code>. Defaults to <code>false</code>.
+   *
+   * @return <code>true</code> if the n-gram shadow fields should be written for all newly indexed
+   *         business entities, <code>false</code> otherwise.
+   * @since 0.16.1
+   */
+  public static boolean isSearchIndexNGramIndex ()
+  {
+    return getConfig ().getAsBoolean ("searchindex.ngram.index", false);
+  }
+
+  /**
+   * Read value of <code>searchindex.ngram.query</code>. Defaults to <code>false</code>. This should
+   * only be enabled after all business entities were indexed with the n-gram shadow fields.
+   *
+   * @return <code>true</code> if "contains" queries should be performed as prefix lookups on the
+   *         n-gram shadow fields, <code>false</code> if they should use wildcard queries.
+   * @since 0.16.1
+   */
+  public static boolean isSearchIndexNGramQuery ()
+  {
+    return getConfig ().getAsBoolean ("searchindex.ngram.query", false);
+  }
+
+  /**
+   * Read value of <code>searchindex.resultcache.maxdocuments</code>. Defaults to
+   * {@link #DEFAULT_SEARCHINDEX_RESULTCACHE_MAX_DOCUMENTS}.
+   *
+   * @return The maximum number of business entities (plus one per cached count) that are kept in
+   *         the query result cache. 0 disables the cache. Always &ge; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getSearchIndexResultCacheMaxDocuments ()
+  {
+    final int ret = getConfig ().getAsInt ("searchindex.resultcache.maxdocuments",
+                                           DEFAULT_SEARCHINDEX_RESULTCACHE_MAX_DOCUMENTS);
+    if (ret < 0)
+      throw new IllegalStateException ("The searchindex.resultcache.maxdocuments property must be >= 0!");
+    return ret;
+  }
+
   /**
    * Read value of <code>indexer.clientcert.validation</code>. Defaults to <code>true</code>.
    *
@@ -337,7 +527,9 @@ public final class PDServerConfiguration extends AbstractGlobalSingleton
   /**
    * Read value of <code>reindex.retryminutes</code>. Defaults to <code>5</code>.
    *
-   * @return The number of minutes between retries. Always &ge; 0.
+   * @return The number of minutes before the first retry of work items that failed for an
+   *         unspecific reason (see {@link #getReIndexInitialDelayMinutes(EIndexerFailureClass)}).
+   *         Always &ge; 0.
    */
   @Nonnegative
   public static int getReIndexRetryMinutes ()
@@ -348,6 +540,101 @@ public final class PDServerConfiguration extends AbstractGlobalSingleton
     return ret;
   }
 
+  /**
+   * Read value of <code>reindex.policy.</code><em>failure class ID</em><code>.initialminutes</code>.
+   * Defaults to {@link EIndexerFailureClass#getDefaultInitialDelayMinutes()}, and for
+   * {@link EIndexerFailureClass#OTHER} to {@link #getReIndexRetryMinutes()}.
+   *
+   * @param eFailureClass
+   *        The failure class to query. May not be <code>null</code>.
+   * @return The delay in minutes before the first retry of a work item that failed with the
+   *         provided failure class. Always &gt; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getReIndexInitialDelayMinutes (@NonNull final EIndexerFailureClass eFailureClass)
+  {
+    final String sKey = "reindex.policy." + eFailureClass.getID () + ".initialminutes";
+    final int nDefault = eFailureClass == EIndexerFailureClass.OTHER ? Math.max (getReIndexRetryMinutes (), 1)
+                                                                     : eFailureClass.getDefaultInitialDelayMinutes ();
+    final int ret = getConfig ().getAsInt (sKey, nDefault);
+    if (ret <= 0)
+      throw new IllegalStateException ("The " + sKey + " property must be > 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>reindex.policy.</code><em>failure class ID</em><code>.maxminutes</code>.
+   * Defaults to {@link EIndexerFailureClass#getDefaultMaxDelayMinutes()}.
+   *
+   * @param eFailureClass
+   *        The failure class to query. May not be <code>null</code>.
+   * @return The maximum delay in minutes between two retries of a work item that failed with the
+   *         provided failure class. Always &ge; {@link #getReIndexInitialDelayMinutes(EIndexerFailureClass)}.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getReIndexMaxDelayMinutes (@NonNull final EIndexerFailureClass eFailureClass)
+  {
+    final String sKey = "reindex.policy." + eFailureClass.getID () + ".maxminutes";
+    final int nInitial = getReIndexInitialDelayMinutes (eFailureClass);
+    final int ret = getConfig ().getAsInt (sKey, Math.max (nInitial, eFailureClass.getDefaultMaxDelayMinutes ()));
+    if (ret < nInitial)
+      throw new IllegalStateException ("The " + sKey + " property must be >= the initial delay!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>reindex.policy.</code><em>failure class ID</em><code>.maxretries</code>.
+   * Defaults to {@link EIndexerFailureClass#getDefaultMaxRetries()}.
+   *
+   * @param eFailureClass
+   *        The failure class to query. May not be <code>null</code>.
+   * @return The maximum number of retries of a work item that failed with the provided failure
+   *         class, before it is moved to the dead list. Values &lt; 0 mean that the number of
+   *         retries is only limited by {@link #getReIndexMaxRetryHours()}.
+   * @since 0.16.1
+   */
+  @CheckForSigned
+  public static int getReIndexMaxRetries (@NonNull final EIndexerFailureClass eFailureClass)
+  {
+    return getConfig ().getAsInt ("reindex.policy." + eFailureClass.getID () + ".maxretries",
+                                  eFailureClass.getDefaultMaxRetries ());
+  }
+
+  /**
+   * Read value of <code>reindex.parallelism</code>. Defaults to
+   * {@link #DEFAULT_REINDEX_PARALLELISM}.
+   *
+   * @return The maximum number of re-index work items executed at the same time. Always &gt; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getReIndexParallelism ()
+  {
+    final int ret = getConfig ().getAsInt ("reindex.parallelism", DEFAULT_REINDEX_PARALLELISM);
+    if (ret <= 0)
+      throw new IllegalStateException ("The reindex.parallelism property must be > 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>reindex.timebudget.seconds</code>. Defaults to
+   * {@link #DEFAULT_REINDEX_TIMEBUDGET_SECONDS}.
+   *
+   * @return The number of seconds a single re-index run may start new work items. Work items that
+   *         were not started in time are retried in the next run. Always &gt; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getReIndexTimeBudgetSeconds ()
+  {
+    final int ret = getConfig ().getAsInt ("reindex.timebudget.seconds", DEFAULT_REINDEX_TIMEBUDGET_SECONDS);
+    if (ret <= 0)
+      throw new IllegalStateException ("The reindex.timebudget.seconds property must be > 0!");
+    return ret;
+  }
+
   /**
    * Read value of <code>http.proxyHost</code>.
    *
@@ -425,6 +712,180 @@ public final class PDServerConfiguration extends AbstractGlobalSingleton
     return getConfig ().getAsBoolean ("smp.tls.trust-all", false);
   }
 
+  /**
+   * Read value of <code>smpclient.pool.maxperroute</code>. Defaults to
+   * {@link #DEFAULT_SMPCLIENT_POOL_MAX_PER_ROUTE}.
+   *
+   * @return The maximum number of pooled connections per SMP host. Always &gt; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getSMPClientPoolMaxPerRoute ()
+  {
+    final int ret = getConfig ().getAsInt ("smpclient.pool.maxperroute", DEFAULT_SMPCLIENT_POOL_MAX_PER_ROUTE);
+    if (ret <= 0)
+      throw new IllegalStateException ("The smpclient.pool.maxperroute property must be > 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>smpclient.pool.maxtotal</code>. Defaults to
+   * {@link #DEFAULT_SMPCLIENT_POOL_MAX_TOTAL}.
+   *
+   * @return The maximum number of pooled connections to all SMP hosts. Always &gt; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getSMPClientPoolMaxTotal ()
+  {
+    final int ret = getConfig ().getAsInt ("smpclient.pool.maxtotal", DEFAULT_SMPCLIENT_POOL_MAX_TOTAL);
+    if (ret <= 0)
+      throw new IllegalStateException ("The smpclient.pool.maxtotal property must be > 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>smpclient.pool.idle.seconds</code>. Defaults to
+   * {@link #DEFAULT_SMPCLIENT_POOL_IDLE_SECONDS}.
+   *
+   * @return The number of seconds after which idle pooled SMP connections are closed. Always &gt;
+   *         0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getSMPClientPoolIdleSeconds ()
+  {
+    final int ret = getConfig ().getAsInt ("smpclient.pool.idle.seconds", DEFAULT_SMPCLIENT_POOL_IDLE_SECONDS);
+    if (ret <= 0)
+      throw new IllegalStateException ("The smpclient.pool.idle.seconds property must be > 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>smpclient.fetch.maxthreads</code>. Defaults to
+   * {@link #DEFAULT_SMPCLIENT_FETCH_MAX_THREADS}. It is only used if virtual threads are not
+   * available.
+   *
+   * @return The maximum number of threads for concurrent SMP queries. Always &gt; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getSMPClientFetchMaxThreads ()
+  {
+    final int ret = getConfig ().getAsInt ("smpclient.fetch.maxthreads", DEFAULT_SMPCLIENT_FETCH_MAX_THREADS);
+    if (ret <= 0)
+      throw new IllegalStateException ("The smpclient.fetch.maxthreads property must be > 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>smpclient.preferredsml.maxentries</code>. Defaults to
+   * {@link #DEFAULT_SMPCLIENT_PREFERRED_SML_MAX_ENTRIES}.
+   *
+   * @return The maximum number of participants for which the SML that answered is remembered.
+   *         Always &gt; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getSMPClientPreferredSMLMaxEntries ()
+  {
+    final int ret = getConfig ().getAsInt ("smpclient.preferredsml.maxentries",
+                                           DEFAULT_SMPCLIENT_PREFERRED_SML_MAX_ENTRIES);
+    if (ret <= 0)
+      throw new IllegalStateException ("The smpclient.preferredsml.maxentries property must be > 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>smpclient.dns.cache.ttl.seconds</code>. Defaults to
+   * {@link #DEFAULT_SMPCLIENT_DNS_CACHE_TTL_SECONDS}.
+   *
+   * @return The number of seconds a resolved SMP URI is cached. 0 disables the cache. Always &ge;
+   *         0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getSMPClientDNSCacheTTLSeconds ()
+  {
+    final int ret = getConfig ().getAsInt ("smpclient.dns.cache.ttl.seconds",
+                                           DEFAULT_SMPCLIENT_DNS_CACHE_TTL_SECONDS);
+    if (ret < 0)
+      throw new IllegalStateException ("The smpclient.dns.cache.ttl.seconds property must be >= 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>smpclient.dns.cache.maxentries</code>. Defaults to
+   * {@link #DEFAULT_SMPCLIENT_DNS_CACHE_MAX_ENTRIES}.
+   *
+   * @return The maximum number of resolved SMP URIs that are cached. 0 disables the cache. Always
+   *         &ge; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getSMPClientDNSCacheMaxEntries ()
+  {
+    final int ret = getConfig ().getAsInt ("smpclient.dns.cache.maxentries",
+                                           DEFAULT_SMPCLIENT_DNS_CACHE_MAX_ENTRIES);
+    if (ret < 0)
+      throw new IllegalStateException ("The smpclient.dns.cache.maxentries property must be >= 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>smpclient.dns.negativecache.ttl.seconds</code>. Defaults to
+   * {@link #DEFAULT_SMPCLIENT_DNS_NEGATIVECACHE_TTL_SECONDS}.
+   *
+   * @return The number of seconds a participant that does not exist in DNS is cached. 0 disables
+   *         the caching of these participants. Always &ge; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getSMPClientDNSNegativeCacheTTLSeconds ()
+  {
+    final int ret = getConfig ().getAsInt ("smpclient.dns.negativecache.ttl.seconds",
+                                           DEFAULT_SMPCLIENT_DNS_NEGATIVECACHE_TTL_SECONDS);
+    if (ret < 0)
+      throw new IllegalStateException ("The smpclient.dns.negativecache.ttl.seconds property must be >= 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>smpclient.dns.negativecache.transient.ttl.seconds</code>. Defaults to
+   * {@link #DEFAULT_SMPCLIENT_DNS_NEGATIVECACHE_TRANSIENT_TTL_SECONDS}.
+   *
+   * @return The number of seconds a participant that could not be resolved because of a transient
+   *         failure is cached. 0 disables the caching of these participants. Always &ge; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getSMPClientDNSNegativeCacheTransientTTLSeconds ()
+  {
+    final int ret = getConfig ().getAsInt ("smpclient.dns.negativecache.transient.ttl.seconds",
+                                           DEFAULT_SMPCLIENT_DNS_NEGATIVECACHE_TRANSIENT_TTL_SECONDS);
+    if (ret < 0)
+      throw new IllegalStateException ("The smpclient.dns.negativecache.transient.ttl.seconds property must be >= 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>smpclient.dns.negativecache.maxentries</code>. Defaults to
+   * {@link #DEFAULT_SMPCLIENT_DNS_NEGATIVECACHE_MAX_ENTRIES}.
+   *
+   * @return The maximum number of participants that could not be resolved that are cached. 0
+   *         disables the negative cache. Always &ge; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getSMPClientDNSNegativeCacheMaxEntries ()
+  {
+    final int ret = getConfig ().getAsInt ("smpclient.dns.negativecache.maxentries",
+                                           DEFAULT_SMPCLIENT_DNS_NEGATIVECACHE_MAX_ENTRIES);
+    if (ret < 0)
+      throw new IllegalStateException ("The smpclient.dns.negativecache.maxentries property must be >= 0!");
+    return ret;
+  }
+
   @NonNull
   public static IIdentifierFactory getIdentifierFactory ()
   {
@@ -457,6 +918,207 @@ public final class PDServerConfiguration extends AbstractGlobalSingleton
     return getConfig ().getAsBoolean ("sync.businesscards", false);
   }
 
+  /**
+   * Read value of <code>indexer.workers</code>. Defaults to {@link #DEFAULT_INDEXER_WORKERS}.
+   *
+   * @return The number of indexer workers that process the indexer work queue in parallel. In
+   *         elastic mode this is the minimum number of workers. Always &gt; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getIndexerWorkers ()
+  {
+    final int ret = getConfig ().getAsInt ("indexer.workers", DEFAULT_INDEXER_WORKERS);
+    if (ret <= 0)
+      throw new IllegalStateException ("The indexer.workers property must be > 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>indexer.workers.elastic</code>. Defaults to <code>false</code>.
+   *
+   * @return <code>true</code> if the number of indexer workers should grow and shrink between
+   *         {@link #getIndexerWorkers()} and {@link #getIndexerWorkersMax()}, based on the queue
+   *         length and the observed processing time per item.
+   * @since 0.16.1
+   */
+  public static boolean isIndexerWorkersElastic ()
+  {
+    return getConfig ().getAsBoolean ("indexer.workers.elastic", false);
+  }
+
+  /**
+   * Read value of <code>indexer.workers.max</code>. Defaults to {@link #DEFAULT_INDEXER_WORKERS_MAX}.
+   * Only used in elastic mode.
+   *
+   * @return The maximum number of indexer workers. Always &ge; {@link #getIndexerWorkers()}.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getIndexerWorkersMax ()
+  {
+    final int ret = getConfig ().getAsInt ("indexer.workers.max", DEFAULT_INDEXER_WORKERS_MAX);
+    if (ret < getIndexerWorkers ())
+      throw new IllegalStateException ("The indexer.workers.max property must be >= indexer.workers!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>indexer.workers.targetdrain.seconds</code>. Defaults to
+   * {@link #DEFAULT_INDEXER_WORKERS_TARGET_DRAIN_SECONDS}. Only used in elastic mode.
+   *
+   * @return The number of seconds in which the elastic workers should be able to process all queued
+   *         items. Always &gt; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getIndexerWorkersTargetDrainSeconds ()
+  {
+    final int ret = getConfig ().getAsInt ("indexer.workers.targetdrain.seconds",
+                                           DEFAULT_INDEXER_WORKERS_TARGET_DRAIN_SECONDS);
+    if (ret <= 0)
+      throw new IllegalStateException ("The indexer.workers.targetdrain.seconds property must be > 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>indexer.workers.idle.seconds</code>. Defaults to
+   * {@link #DEFAULT_INDEXER_WORKERS_IDLE_SECONDS}. Only used in elastic mode.
+   *
+   * @return The number of seconds after which an idle worker above the minimum is stopped. Always
+   *         &gt; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getIndexerWorkersIdleSeconds ()
+  {
+    final int ret = getConfig ().getAsInt ("indexer.workers.idle.seconds", DEFAULT_INDEXER_WORKERS_IDLE_SECONDS);
+    if (ret <= 0)
+      throw new IllegalStateException ("The indexer.workers.idle.seconds property must be > 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>indexer.virtualthreads</code>. Defaults to <code>false</code>.
+   *
+   * @return <code>true</code> if each indexer work item should be processed on its own virtual
+   *         thread. Only effective if the JVM supports virtual threads (Java 21 or later),
+   *         otherwise the platform worker threads are used.
+   * @since 0.16.1
+   */
+  public static boolean isIndexerVirtualThreads ()
+  {
+    return getConfig ().getAsBoolean ("indexer.virtualthreads", false);
+  }
+
+  /**
+   * Read value of <code>indexer.virtualthreads.maxinflight</code>. Defaults to
+   * {@link #DEFAULT_INDEXER_VIRTUALTHREADS_MAX_INFLIGHT}. Only used in virtual thread mode.
+   *
+   * @return The maximum number of indexer work items processed at the same time. Always &gt; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getIndexerVirtualThreadsMaxInFlight ()
+  {
+    final int ret = getConfig ().getAsInt ("indexer.virtualthreads.maxinflight",
+                                           DEFAULT_INDEXER_VIRTUALTHREADS_MAX_INFLIGHT);
+    if (ret <= 0)
+      throw new IllegalStateException ("The indexer.virtualthreads.maxinflight property must be > 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>indexer.maxconcurrentwrites</code>. Defaults to
+   * {@link #DEFAULT_INDEXER_MAX_CONCURRENT_WRITES}.
+   *
+   * @return The maximum number of work items that write to the search index at the same time,
+   *         independent of the number of work items fetching from SMPs. Always &gt; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getIndexerMaxConcurrentWrites ()
+  {
+    final int ret = getConfig ().getAsInt ("indexer.maxconcurrentwrites", DEFAULT_INDEXER_MAX_CONCURRENT_WRITES);
+    if (ret <= 0)
+      throw new IllegalStateException ("The indexer.maxconcurrentwrites property must be > 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>indexer.smphost.maxconcurrency</code>. Defaults to 0.
+   *
+   * @return The maximum number of indexer work items processed at the same time per SMP host.
+   *         Values &le; 0 mean unlimited.
+   * @since 0.16.1
+   */
+  public static int getIndexerSMPHostMaxConcurrency ()
+  {
+    return getConfig ().getAsInt ("indexer.smphost.maxconcurrency", 0);
+  }
+
+  /**
+   * Read value of <code>indexer.wal.enabled</code>. Defaults to <code>false</code>.
+   *
+   * @return <code>true</code> if all queued indexer work items should be written to a write-ahead
+   *         log, so that they survive a crash of the JVM.
+   * @since 0.16.1
+   */
+  public static boolean isIndexerWALEnabled ()
+  {
+    return getConfig ().getAsBoolean ("indexer.wal.enabled", false);
+  }
+
+  /**
+   * Read value of <code>indexer.wal.segment.mb</code>. Defaults to
+   * {@link #DEFAULT_INDEXER_WAL_SEGMENT_MB}.
+   *
+   * @return The size in megabytes after which a new write-ahead log segment is started. Always
+   *         &gt; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getIndexerWALSegmentMB ()
+  {
+    final int ret = getConfig ().getAsInt ("indexer.wal.segment.mb", DEFAULT_INDEXER_WAL_SEGMENT_MB);
+    if (ret <= 0)
+      throw new IllegalStateException ("The indexer.wal.segment.mb property must be > 0!");
+    return ret;
+  }
+
+  /**
+   * Read value of <code>indexer.wal.fsync</code>. Defaults to <code>true</code>.
+   *
+   * @return <code>true</code> if the write-ahead log should be forced to the storage device before
+   *         a work item is considered queued, <code>false</code> if writing it to the operating
+   *         system is sufficient.
+   * @since 0.16.1
+   */
+  public static boolean isIndexerWALFsync ()
+  {
+    return getConfig ().getAsBoolean ("indexer.wal.fsync", true);
+  }
+
+  /**
+   * Read value of <code>indexer.priority.weight.</code><em>priority ID</em>. Defaults to
+   * {@link EIndexerWorkItemPriority#getDefaultWeight()}.
+   *
+   * @param ePriority
+   *        The priority to query. May not be <code>null</code>.
+   * @return The share of the indexer work items dequeued from the lane of the provided priority,
+   *         relative to the other priorities. Always &gt; 0.
+   * @since 0.16.1
+   */
+  @Nonnegative
+  public static int getIndexerPriorityWeight (@NonNull final EIndexerWorkItemPriority ePriority)
+  {
+    final String sKey = "indexer.priority.weight." + ePriority.getID ();
+    final int ret = getConfig ().getAsInt (sKey, ePriority.getDefaultWeight ());
+    if (ret <= 0)
+      throw new IllegalStateException ("The " + sKey + " property must be > 0!");
+    return ret;
+  }
+
   /**
    * @return <code>true</code> if indexer request shadowing is enabled, <code>false</code>
    *         otherwise. Defaults to <code>false</code>.
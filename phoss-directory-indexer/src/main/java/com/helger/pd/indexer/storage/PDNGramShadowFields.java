@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.storage;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.CommonsLinkedHashMap;
+import com.helger.collection.commons.CommonsLinkedHashSet;
+import com.helger.collection.commons.ICommonsOrderedMap;
+import com.helger.collection.commons.ICommonsOrderedSet;
+import com.helger.collection.commons.ICommonsSet;
+import com.helger.pd.indexer.searchindex.EPDIndexFieldStore;
+import com.helger.pd.indexer.searchindex.EPDIndexFieldTokenize;
+import com.helger.pd.indexer.searchindex.IPDIndex;
+import com.helger.pd.indexer.searchindex.PDIndexDocument;
+import com.helger.pd.indexer.searchindex.PDIndexField;
+import com.helger.pd.indexer.searchindex.query.IPDIndexQuery;
+import com.helger.pd.indexer.searchindex.query.PDIndexQueryContains;
+import com.helger.pd.indexer.searchindex.query.PDIndexQueryPrefix;
+import com.helger.pd.indexer.settings.PDServerConfiguration;
+import com.helger.pd.indexer.storage.field.PDField;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * The n-gram shadow fields, that allow to answer "contains" queries without leading wildcards.
+ * For each term of a source field all suffixes (the n-grams that end at the end of the term) are
+ * indexed as single terms in a separate field. A term contains the query value, if one of its
+ * suffixes starts with the query value, so a "contains" query becomes a prefix lookup on the shadow
+ * field, which only needs to visit the matching part of the terms dictionary.<br>
+ * The shadow fields are written if <code>searchindex.ngram.index</code> is enabled and they are
+ * queried if <code>searchindex.ngram.query</code> is enabled.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+@Immutable
+public final class PDNGramShadowFields
+{
+  /** The suffix appended to the source field name to build the shadow field name */
+  public static final String FIELD_NAME_SUFFIX = "-ngram";
+  /** The minimum length of an indexed n-gram and of a query value using the shadow field */
+  public static final int MIN_NGRAM_LENGTH = 2;
+
+  private static final ICommonsSet <String> SOURCE_FIELD_NAMES = new CommonsHashSet <> (CPDStorage.FIELD_ALL_FIELDS,
+                                                                                        PDField.NAME.getFieldName (),
+                                                                                        PDField.ML_NAME.getFieldName (),
+                                                                                        PDField.WEBSITE_URI.getFieldName (),
+                                                                                        PDField.CONTACT_TYPE.getFieldName (),
+                                                                                        PDField.CONTACT_NAME.getFieldName (),
+                                                                                        PDField.CONTACT_PHONE.getFieldName (),
+                                                                                        PDField.CONTACT_EMAIL.getFieldName ());
+
+  private PDNGramShadowFields ()
+  {}
+
+  /**
+   * @return A copy of the names of all fields that have an n-gram shadow field. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public static ICommonsSet <String> getAllSourceFieldNames ()
+  {
+    return SOURCE_FIELD_NAMES.getClone ();
+  }
+
+  /**
+   * @param sFieldName
+   *        The field name to check. May be <code>null</code>.
+   * @return <code>true</code> if the provided field has an n-gram shadow field.
+   */
+  public static boolean hasShadowField (@Nullable final String sFieldName)
+  {
+    return SOURCE_FIELD_NAMES.contains (sFieldName);
+  }
+
+  /**
+   * @param sFieldName
+   *        The source field name. May neither be <code>null</code> nor empty.
+   * @return The name of the n-gram shadow field of the provided source field. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  @Nonempty
+  public static String getShadowFieldName (@NonNull @Nonempty final String sFieldName)
+  {
+    ValueEnforcer.notEmpty (sFieldName, "FieldName");
+    return sFieldName + FIELD_NAME_SUFFIX;
+  }
+
+  /**
+   * Get all n-grams of the provided term. These are all suffixes with at least
+   * {@link #MIN_NGRAM_LENGTH} characters.
+   *
+   * @param sTerm
+   *        The term to use. May not be <code>null</code>.
+   * @param aTarget
+   *        The target set to add the n-grams to. May not be <code>null</code>.
+   */
+  public static void addAllNGrams (@NonNull final String sTerm, @NonNull final ICommonsOrderedSet <String> aTarget)
+  {
+    for (int nStart = 0; nStart <= sTerm.length () - MIN_NGRAM_LENGTH; ++nStart)
+    {
+      // Don't split surrogate pairs
+      if (nStart > 0 && Character.isLowSurrogate (sTerm.charAt (nStart)))
+        continue;
+      aTarget.add (sTerm.substring (nStart));
+    }
+  }
+
+  /**
+   * Add the n-gram shadow fields for all source fields contained in the provided document. The
+   * values are split into terms with the rules of the provided index, so that the n-grams match
+   * the terms used in queries.
+   *
+   * @param aIndex
+   *        The search index whose term splitting rules should be used. May not be
+   *        <code>null</code>.
+   * @param aDoc
+   *        The document to be extended. May not be <code>null</code>.
+   * @throws IOException
+   *         If splitting a value into terms fails
+   */
+  public static void addShadowFields (@NonNull final IPDIndex aIndex, @NonNull final PDIndexDocument aDoc) throws IOException
+  {
+    ValueEnforcer.notNull (aIndex, "Index");
+    ValueEnforcer.notNull (aDoc, "Doc");
+
+    // Combine all values per field, so that each field needs to be split only once
+    final ICommonsOrderedMap <String, StringBuilder> aValues = new CommonsLinkedHashMap <> ();
+    for (final PDIndexField aField : aDoc.fields ())
+      if (hasShadowField (aField.getName ()) && !aField.isNumeric ())
+        aValues.computeIfAbsent (aField.getName (), k -> new StringBuilder ())
+               .append (aField.getStringValue ())
+               .append (' ');
+
+    for (final Map.Entry <String, StringBuilder> aEntry : aValues.entrySet ())
+    {
+      final String sValue = aEntry.getValue ().toString ().trim ();
+      if (sValue.isEmpty ())
+        continue;
+
+      final ICommonsOrderedSet <String> aNGrams = new CommonsLinkedHashSet <> ();
+      for (final String sTerm : aIndex.getSplitIntoTerms (aEntry.getKey (), sValue))
+        addAllNGrams (sTerm, aNGrams);
+
+      final String sShadowFieldName = getShadowFieldName (aEntry.getKey ());
+      for (final String sNGram : aNGrams)
+        aDoc.add (PDIndexField.createString (sShadowFieldName,
+                                             sNGram,
+                                             EPDIndexFieldStore.NO,
+                                             EPDIndexFieldTokenize.NO_TOKENIZE));
+    }
+  }
+
+  /**
+   * Create a query that matches all documents in which the provided field contains the provided
+   * value. If querying the shadow fields is enabled, the field has a shadow field and the value is
+   * long enough, a prefix query on the shadow field is created, otherwise a
+   * {@link PDIndexQueryContains}.
+   *
+   * @param sFieldName
+   *        The source field name. May neither be <code>null</code> nor empty.
+   * @param sValue
+   *        The value to search. May not be <code>null</code>.
+   * @return The query to use. Never <code>null</code>.
+   */
+  @NonNull
+  public static IPDIndexQuery getContainsQuery (@NonNull @Nonempty final String sFieldName,
+                                                @NonNull final String sValue)
+  {
+    if (PDServerConfiguration.isSearchIndexNGramQuery () && hasShadowField (sFieldName))
+    {
+      final IPDIndexQuery ret = getShadowFieldQuery (sFieldName, sValue);
+      if (ret != null)
+        return ret;
+    }
+    return new PDIndexQueryContains (sFieldName, sValue);
+  }
+
+  /**
+   * Create the prefix query on the shadow field of the provided field, independent of the
+   * configuration.
+   *
+   * @param sFieldName
+   *        The source field name. May neither be <code>null</code> nor empty.
+   * @param sValue
+   *        The value to search. May not be <code>null</code>.
+   * @return <code>null</code> if the value is too short to be looked up in the shadow field.
+   */
+  @Nullable
+  public static PDIndexQueryPrefix getShadowFieldQuery (@NonNull @Nonempty final String sFieldName,
+                                                        @NonNull final String sValue)
+  {
+    ValueEnforcer.notNull (sValue, "Value");
+    if (sValue.length () < MIN_NGRAM_LENGTH)
+      return null;
+    return new PDIndexQueryPrefix (getShadowFieldName (sFieldName), sValue);
+  }
+}
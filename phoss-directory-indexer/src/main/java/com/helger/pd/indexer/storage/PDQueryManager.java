@@ -35,7 +35,6 @@ import com.helger.pd.indexer.searchindex.IPDIndex;
 import com.helger.pd.indexer.searchindex.query.EPDIndexQueryOccur;
 import com.helger.pd.indexer.searchindex.query.IPDIndexQuery;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryBool;
-import com.helger.pd.indexer.searchindex.query.PDIndexQueryContains;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryTerm;
 import com.helger.pd.indexer.storage.field.PDField;
 import com.helger.peppolid.IDocumentTypeIdentifier;
@@ -96,7 +95,8 @@ public final class PDQueryManager
       return new PDIndexQueryTerm (sFieldName, sQueryText);
 
     // This works -> text ==> *text*
-    return new PDIndexQueryContains (sFieldName, sQueryText);
+    // Optionally performed as a prefix lookup on the n-gram shadow field
+    return PDNGramShadowFields.getContainsQuery (sFieldName, sQueryText);
   }
 
   /**
@@ -0,0 +1,429 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.storage;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.CheckForSigned;
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.functional.IThrowingSupplier;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.pd.indexer.searchindex.query.IPDIndexQuery;
+import com.helger.pd.indexer.searchindex.query.AbstractPDIndexQueryField;
+import com.helger.pd.indexer.searchindex.query.PDIndexQueryBool;
+import com.helger.pd.indexer.searchindex.query.PDIndexQueryContains;
+import com.helger.pd.indexer.searchindex.query.PDIndexQueryMatchAll;
+import com.helger.pd.indexer.searchindex.query.PDIndexQueryPrefix;
+import com.helger.pd.indexer.searchindex.query.PDIndexQueryTerm;
+
+/**
+ * A bounded cache for query results of {@link PDStorageManager}. Each result has a weight (the
+ * number of contained business entities plus one) and the least recently used results are evicted
+ * as soon as the total weight exceeds the configured maximum.<br>
+ * All results belong to a search generation of the index (see
+ * {@link com.helger.pd.indexer.searchindex.IPDIndex#getSearchGeneration()}). As soon as a newer
+ * generation is encountered, all cached results are dropped, so that a change of the index is
+ * never hidden by the cache. If the index cannot provide a generation, nothing is cached.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+@ThreadSafe
+public final class PDQueryResultCache
+{
+  private static final class Entry
+  {
+    private final Object m_aValue;
+    private final int m_nWeight;
+
+    Entry (@NonNull final Object aValue, final int nWeight)
+    {
+      m_aValue = aValue;
+      m_nWeight = nWeight;
+    }
+  }
+
+  private final int m_nMaxWeight;
+  private final Lock m_aLock = new ReentrantLock ();
+  // In access order, so that the eldest entry is the least recently used one
+  private final LinkedHashMap <String, Entry> m_aMap = new LinkedHashMap <> (16, 0.75f, true);
+  private long m_nGeneration = -1;
+  private int m_nWeight = 0;
+  private final AtomicLong m_aHits = new AtomicLong (0);
+  private final AtomicLong m_aMisses = new AtomicLong (0);
+  private final AtomicLong m_aEvictions = new AtomicLong (0);
+  private final AtomicLong m_aInvalidations = new AtomicLong (0);
+
+  /**
+   * Constructor
+   *
+   * @param nMaxWeight
+   *        The maximum total weight of all cached results. 0 disables the cache. Must be &ge; 0.
+   */
+  public PDQueryResultCache (@Nonnegative final int nMaxWeight)
+  {
+    ValueEnforcer.isGE0 (nMaxWeight, "MaxWeight");
+    m_nMaxWeight = nMaxWeight;
+  }
+
+  /**
+   * @return <code>true</code> if the cache is enabled, <code>false</code> if not.
+   */
+  public boolean isEnabled ()
+  {
+    return m_nMaxWeight > 0;
+  }
+
+  /**
+   * Get the cached result for the provided key or compute and cache it. The result is shared by all
+   * callers, so this method may only be used for immutable results.
+   *
+   * @param <T>
+   *        The result type
+   * @param sKey
+   *        The cache key, without the generation. May neither be <code>null</code> nor empty.
+   * @param nGeneration
+   *        The current search generation of the index. Values &lt; 0 bypass the cache.
+   * @param aSupplier
+   *        The supplier to compute the result if it is not cached. May not be <code>null</code>.
+   * @param aWeightFunc
+   *        The function to determine the weight of a computed result. May not be
+   *        <code>null</code>.
+   * @return The cached or computed result.
+   * @throws IOException
+   *         If the supplier throws it
+   * @see #getOrCompute(String, long, IThrowingSupplier, ToIntFunction, UnaryOperator)
+   */
+  public <T> T getOrCompute (@NonNull @Nonempty final String sKey,
+                             final long nGeneration,
+                             @NonNull final IThrowingSupplier <T, IOException> aSupplier,
+                             @NonNull final ToIntFunction <? super T> aWeightFunc) throws IOException
+  {
+    return getOrCompute (sKey, nGeneration, aSupplier, aWeightFunc, UnaryOperator.identity ());
+  }
+
+  /**
+   * Get the cached result for the provided key or compute and cache it. Each caller receives its
+   * own copy of a cached result, so that modifications by one caller never affect the cache or
+   * other callers.
+   *
+   * @param <T>
+   *        The result type
+   * @param sKey
+   *        The cache key, without the generation. May neither be <code>null</code> nor empty.
+   * @param nGeneration
+   *        The current search generation of the index. Values &lt; 0 bypass the cache.
+   * @param aSupplier
+   *        The supplier to compute the result if it is not cached. May not be <code>null</code>.
+   * @param aWeightFunc
+   *        The function to determine the weight of a computed result. May not be
+   *        <code>null</code>.
+   * @param aCopyFunc
+   *        The function to create a copy of a cached result for the caller. May not be
+   *        <code>null</code>.
+   * @return The cached or computed result.
+   * @throws IOException
+   *         If the supplier throws it
+   */
+  @SuppressWarnings ("unchecked")
+  public <T> T getOrCompute (@NonNull @Nonempty final String sKey,
+                             final long nGeneration,
+                             @NonNull final IThrowingSupplier <T, IOException> aSupplier,
+                             @NonNull final ToIntFunction <? super T> aWeightFunc,
+                             @NonNull final UnaryOperator <T> aCopyFunc) throws IOException
+  {
+    ValueEnforcer.notEmpty (sKey, "Key");
+    ValueEnforcer.notNull (aSupplier, "Supplier");
+    ValueEnforcer.notNull (aWeightFunc, "WeightFunc");
+    ValueEnforcer.notNull (aCopyFunc, "CopyFunc");
+
+    if (!isEnabled () || nGeneration < 0)
+      return aSupplier.get ();
+
+    final T aCachedValue;
+    m_aLock.lock ();
+    try
+    {
+      _onGeneration (nGeneration);
+      final Entry aEntry = nGeneration == m_nGeneration ? m_aMap.get (sKey) : null;
+      aCachedValue = aEntry == null ? null : (T) aEntry.m_aValue;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+    if (aCachedValue != null)
+    {
+      // The cached value itself is never handed out
+      m_aHits.incrementAndGet ();
+      return aCopyFunc.apply (aCachedValue);
+    }
+
+    // Compute outside of the lock, so that slow queries don't block other searches
+    m_aMisses.incrementAndGet ();
+    final T ret = aSupplier.get ();
+    if (ret != null)
+    {
+      // The weight must be at least 1, so that counts are bounded as well
+      final int nWeight = Math.max (aWeightFunc.applyAsInt (ret), 1);
+      if (nWeight <= m_nMaxWeight)
+      {
+        m_aLock.lock ();
+        try
+        {
+          _onGeneration (nGeneration);
+          // Never cache a result of an outdated generation
+          if (nGeneration == m_nGeneration)
+          {
+            final Entry aOld = m_aMap.put (sKey, new Entry (ret, nWeight));
+            if (aOld != null)
+              m_nWeight -= aOld.m_nWeight;
+            m_nWeight += nWeight;
+            _evict ();
+          }
+        }
+        finally
+        {
+          m_aLock.unlock ();
+        }
+        // The computed value may be cached now
+        return aCopyFunc.apply (ret);
+      }
+    }
+    return ret;
+  }
+
+  // Must be called with the lock held
+  private void _onGeneration (final long nGeneration)
+  {
+    if (nGeneration > m_nGeneration)
+    {
+      // Results of the old generation can never be used again
+      if (!m_aMap.isEmpty ())
+      {
+        m_aInvalidations.addAndGet (m_aMap.size ());
+        m_aMap.clear ();
+        m_nWeight = 0;
+      }
+      m_nGeneration = nGeneration;
+    }
+  }
+
+  // Must be called with the lock held
+  private void _evict ()
+  {
+    final Iterator <Entry> it = m_aMap.values ().iterator ();
+    while (m_nWeight > m_nMaxWeight && it.hasNext ())
+    {
+      m_nWeight -= it.next ().m_nWeight;
+      it.remove ();
+      m_aEvictions.incrementAndGet ();
+    }
+  }
+
+  /**
+   * Remove all cached results.
+   */
+  public void clear ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      m_aInvalidations.addAndGet (m_aMap.size ());
+      m_aMap.clear ();
+      m_nWeight = 0;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * @return The maximum total weight of all cached results. 0 means the cache is disabled.
+   */
+  @Nonnegative
+  public int getMaxWeight ()
+  {
+    return m_nMaxWeight;
+  }
+
+  /**
+   * @return The current total weight of all cached results. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getWeight ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      return m_nWeight;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * @return The number of currently cached results. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getSize ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      return m_aMap.size ();
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * @return The search generation of the cached results or -1 if no generation was encountered so
+   *         far.
+   */
+  @CheckForSigned
+  public long getGeneration ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      return m_nGeneration;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * @return The number of results served from the cache since startup. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getHitCount ()
+  {
+    return m_aHits.get ();
+  }
+
+  /**
+   * @return The number of results that had to be computed since startup. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getMissCount ()
+  {
+    return m_aMisses.get ();
+  }
+
+  /**
+   * @return The number of results removed because the maximum weight was exceeded. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getEvictionCount ()
+  {
+    return m_aEvictions.get ();
+  }
+
+  /**
+   * @return The number of results removed because the index changed. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getInvalidationCount ()
+  {
+    return m_aInvalidations.get ();
+  }
+
+  @NonNull
+  private static String _escape (@NonNull final String sValue)
+  {
+    final StringBuilder aSB = new StringBuilder (sValue.length ());
+    for (final char c : sValue.toCharArray ())
+    {
+      // Escape all characters with a special meaning in the canonical form
+      if (c == '\\' || c == '|' || c == ',' || c == '(' || c == ')')
+        aSB.append ('\\');
+      aSB.append (c);
+    }
+    return aSB.toString ();
+  }
+
+  @NonNull
+  private static String _getCanonicalFieldForm (@NonNull final String sType,
+                                                @NonNull final AbstractPDIndexQueryField aQuery)
+  {
+    return sType + '|' + _escape (aQuery.getFieldName ()) + '|' + _escape (aQuery.getValue ());
+  }
+
+  /**
+   * Get the canonical string representation of the provided query. It is equal for queries that
+   * always match the same documents with the same relevance, independent of the order of the
+   * clauses of boolean queries. Different queries never have the same canonical representation,
+   * because it contains the type of each query and all field names and values are escaped.
+   *
+   * @param aQuery
+   *        The query to use. May not be <code>null</code>.
+   * @return The canonical representation. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the query type is not supported
+   */
+  @NonNull
+  public static String getCanonicalForm (@NonNull final IPDIndexQuery aQuery)
+  {
+    ValueEnforcer.notNull (aQuery, "Query");
+
+    if (aQuery instanceof PDIndexQueryMatchAll)
+      return "matchall";
+    if (aQuery instanceof final PDIndexQueryTerm aTermQuery)
+      return _getCanonicalFieldForm ("term", aTermQuery);
+    if (aQuery instanceof final PDIndexQueryPrefix aPrefixQuery)
+      return _getCanonicalFieldForm ("prefix", aPrefixQuery);
+    if (aQuery instanceof final PDIndexQueryContains aContainsQuery)
+      return _getCanonicalFieldForm ("contains", aContainsQuery);
+    if (aQuery instanceof final PDIndexQueryBool aBoolQuery)
+    {
+      final ICommonsList <String> aClauses = new CommonsArrayList <> ();
+      for (final PDIndexQueryBool.Clause aClause : aBoolQuery.getAllClauses ())
+        aClauses.add (aClause.getOccur ().name () + '|' + getCanonicalForm (aClause.getQuery ()));
+      aClauses.sort (String::compareTo);
+      return "bool(" + String.join (",", aClauses) + ")";
+    }
+    throw new IllegalArgumentException ("Unsupported query type " + aQuery.getClass ().getName ());
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("MaxWeight", m_nMaxWeight).getToString ();
+  }
+}
@@ -18,14 +18,19 @@ package com.helger.pd.indexer.storage;
 
 import java.io.IOException;
 import java.util.Locale;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
 
 import org.jspecify.annotations.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.helger.annotation.CheckForSigned;
+import com.helger.annotation.Nonnegative;
 import com.helger.annotation.concurrent.Immutable;
 import com.helger.annotation.style.ReturnsMutableCopy;
 import com.helger.base.CGlobal;
@@ -43,6 +48,7 @@ import com.helger.collection.commons.ICommonsList;
 import com.helger.collection.commons.ICommonsMap;
 import com.helger.collection.commons.ICommonsSortedMap;
 import com.helger.datetime.web.PDTWebDateHelper;
+import com.helger.pd.indexer.businesscard.PDBusinessCardValidators;
 import com.helger.pd.indexer.businesscard.PDExtendedBusinessCard;
 import com.helger.pd.indexer.mgr.IPDStorageManager;
 import com.helger.pd.indexer.searchindex.EPDIndexFieldStore;
@@ -50,11 +56,14 @@ import com.helger.pd.indexer.searchindex.EPDIndexFieldTokenize;
 import com.helger.pd.indexer.searchindex.IPDIndex;
 import com.helger.pd.indexer.searchindex.PDIndexDocument;
 import com.helger.pd.indexer.searchindex.PDIndexField;
+import com.helger.pd.indexer.searchindex.PDIndexSearchResult;
 import com.helger.pd.indexer.searchindex.query.EPDIndexQueryOccur;
 import com.helger.pd.indexer.searchindex.query.IPDIndexQuery;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryBool;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryMatchAll;
+import com.helger.pd.indexer.settings.PDServerConfiguration;
 import com.helger.pd.indexer.storage.field.PDField;
+import com.helger.pd.indexer.storage.field.PDFieldSerializeException;
 import com.helger.peppol.businesscard.generic.PDBusinessCard;
 import com.helger.peppol.businesscard.generic.PDBusinessEntity;
 import com.helger.peppol.businesscard.generic.PDContact;
@@ -82,10 +91,34 @@ public final class PDStorageManager implements IPDStorageManager
                                                                                                                        "$query");
 
   private final IPDIndex m_aIndex;
+  private final PDQueryResultCache m_aResultCache;
 
+  /**
+   * Constructor using the query result cache size from
+   * {@link PDServerConfiguration#getSearchIndexResultCacheMaxDocuments()}.
+   *
+   * @param aIndex
+   *        The search index to use. May not be <code>null</code>.
+   */
   public PDStorageManager (@NonNull final IPDIndex aIndex)
+  {
+    this (aIndex, PDServerConfiguration.getSearchIndexResultCacheMaxDocuments ());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aIndex
+   *        The search index to use. May not be <code>null</code>.
+   * @param nResultCacheMaxDocuments
+   *        The maximum number of business entities in the query result cache. 0 disables the
+   *        cache. Must be &ge; 0.
+   * @since 0.16.1
+   */
+  public PDStorageManager (@NonNull final IPDIndex aIndex, @Nonnegative final int nResultCacheMaxDocuments)
   {
     m_aIndex = ValueEnforcer.notNull (aIndex, "Index");
+    m_aResultCache = new PDQueryResultCache (nResultCacheMaxDocuments);
   }
 
   public void close () throws IOException
@@ -121,6 +154,40 @@ public final class PDStorageManager implements IPDStorageManager
     }
   }
 
+  /**
+   * @return The cache for the results of {@link #getCount(IPDIndexQuery)},
+   *         {@link #getAllDocuments(IPDIndexQuery, int)} and
+   *         {@link #searchDocuments(IPDIndexQuery, int, int)}. Never <code>null</code>.
+   * @since 0.16.1
+   */
+  @NonNull
+  public PDQueryResultCache getResultCache ()
+  {
+    return m_aResultCache;
+  }
+
+  private <T> T _cachedSearch (@NonNull final String sKey,
+                               @NonNull final IThrowingSupplier <T, IOException> aSupplier,
+                               @NonNull final ToIntFunction <? super T> aWeightFunc,
+                               @NonNull final UnaryOperator <T> aCopyFunc) throws IOException
+  {
+    if (!m_aResultCache.isEnabled ())
+      return aSupplier.get ();
+
+    long nGeneration;
+    try
+    {
+      nGeneration = m_aIndex.getSearchGeneration ();
+    }
+    catch (final IOException ex)
+    {
+      // Don't use the cache if the generation is unknown
+      LOGGER.warn ("Failed to determine the search generation of the index", ex);
+      nGeneration = -1;
+    }
+    return m_aResultCache.getOrCompute (sKey, nGeneration, aSupplier, aWeightFunc, aCopyFunc);
+  }
+
   public boolean containsEntry (@Nullable final IParticipantIdentifier aParticipantID) throws IOException
   {
     if (aParticipantID == null)
@@ -136,6 +203,15 @@ public final class PDStorageManager implements IPDStorageManager
   public ESuccess createOrUpdateEntry (@NonNull final IParticipantIdentifier aParticipantID,
                                        @NonNull final PDExtendedBusinessCard aExtBI,
                                        @NonNull final PDStoredMetaData aMetaData) throws IOException
+  {
+    return createOrUpdateEntry (aParticipantID, aExtBI, aMetaData, null);
+  }
+
+  @NonNull
+  public ESuccess createOrUpdateEntry (@NonNull final IParticipantIdentifier aParticipantID,
+                                       @NonNull final PDExtendedBusinessCard aExtBI,
+                                       @NonNull final PDStoredMetaData aMetaData,
+                                       @Nullable final PDStoredContentInfo aContentInfo) throws IOException
   {
     ValueEnforcer.notNull (aParticipantID, "ParticipantID");
     ValueEnforcer.notNull (aExtBI, "ExtBI");
@@ -257,10 +333,28 @@ public final class PDStorageManager implements IPDStorageManager
                                              EPDIndexFieldStore.NO,
                                              EPDIndexFieldTokenize.TOKENIZE));
 
+        // Add the optional n-gram shadow fields for fast "contains" queries
+        if (PDServerConfiguration.isSearchIndexNGramIndex ())
+          PDNGramShadowFields.addShadowFields (m_aIndex, aDoc);
+
         // Add meta data (not part of the "all field" field!)
         aDoc.add (PDField.METADATA_CREATIONDT.getAsField (aMetaData.getCreationDT ()));
         aDoc.add (PDField.METADATA_OWNERID.getAsField (aMetaData.getOwnerID ()));
         aDoc.add (PDField.METADATA_REQUESTING_HOST.getAsField (aMetaData.getRequestingHost ()));
+        if (aContentInfo != null)
+        {
+          // Used to detect unchanged business cards
+          aDoc.add (PDField.METADATA_CONTENT_HASH.getAsField (aContentInfo.getContentHash ()));
+          aDoc.add (PDField.METADATA_BUSINESSCARD_HASH.getAsField (aContentInfo.getBusinessCardHash ()));
+          final PDBusinessCardValidators aValidators = aContentInfo.getValidators ();
+          if (aValidators != null)
+          {
+            if (aValidators.getETag () != null)
+              aDoc.add (PDField.METADATA_ETAG.getAsField (aValidators.getETag ()));
+            if (aValidators.getLastModified () != null)
+              aDoc.add (PDField.METADATA_LAST_MODIFIED.getAsField (aValidators.getLastModified ()));
+          }
+        }
 
         aDocs.add (aDoc);
       }
@@ -282,6 +376,32 @@ public final class PDStorageManager implements IPDStorageManager
     }
   }
 
+  @Nullable
+  public PDStoredContentInfo getContentInfoOrNull (@NonNull final IParticipantIdentifier aParticipantID) throws IOException
+  {
+    ValueEnforcer.notNull (aParticipantID, "ParticipantID");
+
+    // All documents of a participant contain the same content information
+    final ICommonsList <PDStoredContentInfo> ret = new CommonsArrayList <> ();
+    searchAll (PDField.PARTICIPANT_ID.getExactMatchQuery (aParticipantID),
+               1,
+               PDField.getAllFieldNames (PDField.METADATA_CONTENT_HASH,
+                                         PDField.METADATA_BUSINESSCARD_HASH,
+                                         PDField.METADATA_ETAG,
+                                         PDField.METADATA_LAST_MODIFIED),
+               aDoc -> {
+                 final String sContentHash = PDField.METADATA_CONTENT_HASH.getDocValue (aDoc);
+                 final String sBusinessCardHash = PDField.METADATA_BUSINESSCARD_HASH.getDocValue (aDoc);
+                 // Not present in documents written by older versions
+                 if (StringHelper.isNotEmpty (sContentHash) && StringHelper.isNotEmpty (sBusinessCardHash))
+                   ret.add (new PDStoredContentInfo (sContentHash,
+                                                     sBusinessCardHash,
+                                                     new PDBusinessCardValidators (PDField.METADATA_ETAG.getDocValue (aDoc),
+                                                                                   PDField.METADATA_LAST_MODIFIED.getDocValue (aDoc))));
+               });
+    return ret.getFirstOrNull ();
+  }
+
   @CheckForSigned
   public int deleteEntry (@NonNull final IParticipantIdentifier aParticipantID,
                           @Nullable final PDStoredMetaData aMetaData,
@@ -381,7 +501,10 @@ public final class PDStorageManager implements IPDStorageManager
     ValueEnforcer.notNull (aQuery, "Query");
     try
     {
-      return _timedSearch ( () -> Integer.valueOf (m_aIndex.getCount (aQuery)), aQuery).intValue ();
+      return _cachedSearch ("count " + PDQueryResultCache.getCanonicalForm (aQuery),
+                            () -> _timedSearch ( () -> Integer.valueOf (m_aIndex.getCount (aQuery)), aQuery),
+                            x -> 1,
+                            UnaryOperator.identity ()).intValue ();
     }
     catch (final IOException ex)
     {
@@ -421,11 +544,36 @@ public final class PDStorageManager implements IPDStorageManager
   public void searchAll (@NonNull final IPDIndexQuery aQuery,
                          @CheckForSigned final int nMaxResultCount,
                          @NonNull final Consumer <PDIndexDocument> aConsumer) throws IOException
+  {
+    searchAll (aQuery, nMaxResultCount, null, aConsumer);
+  }
+
+  /**
+   * Search all documents matching the passed query and pass the result on to the provided
+   * {@link Consumer}. Only the provided fields are loaded from the index.
+   *
+   * @param aQuery
+   *        Query to execute. May not be <code>null</code>.
+   * @param nMaxResultCount
+   *        Maximum number of results. Values &le; 0 mean all.
+   * @param aFieldsToLoad
+   *        The names of the fields to be loaded. May be <code>null</code> to load all fields. See
+   *        {@link PDField#getAllFieldNames(com.helger.pd.indexer.storage.field.AbstractPDField...)}
+   * @param aConsumer
+   *        The consumer of the partial index documents. May not be <code>null</code>.
+   * @throws IOException
+   *         On index error
+   * @since 0.16.1
+   */
+  public void searchAll (@NonNull final IPDIndexQuery aQuery,
+                         @CheckForSigned final int nMaxResultCount,
+                         @Nullable final Set <String> aFieldsToLoad,
+                         @NonNull final Consumer <PDIndexDocument> aConsumer) throws IOException
   {
     ValueEnforcer.notNull (aQuery, "Query");
     ValueEnforcer.notNull (aConsumer, "Consumer");
 
-    _timedSearch ( () -> m_aIndex.searchAll (aQuery, nMaxResultCount, aConsumer), aQuery);
+    _timedSearch ( () -> m_aIndex.searchAll (aQuery, nMaxResultCount, aFieldsToLoad, aConsumer), aQuery);
   }
 
   /**
@@ -453,7 +601,9 @@ public final class PDStorageManager implements IPDStorageManager
 
   /**
    * Get all {@link PDStoredBusinessEntity} objects matching the provided query. This is a
-   * specialization of {@link #searchAllDocuments(IPDIndexQuery, int, Consumer)}.
+   * specialization of {@link #searchAllDocuments(IPDIndexQuery, int, Consumer)}. The results are
+   * cached in the {@link #getResultCache() query result cache} - each call returns its own copies of
+   * the entities.
    *
    * @param aQuery
    *        The query to be executed. May not be <code>null</code>.
@@ -467,16 +617,114 @@ public final class PDStorageManager implements IPDStorageManager
   public ICommonsList <PDStoredBusinessEntity> getAllDocuments (@NonNull final IPDIndexQuery aQuery,
                                                                 @CheckForSigned final int nMaxResultCount)
   {
-    final ICommonsList <PDStoredBusinessEntity> aTargetList = new CommonsArrayList <> ();
+    ValueEnforcer.notNull (aQuery, "Query");
+
+    // All values <= 0 mean the same
+    final int nKeyMaxResultCount = Math.max (nMaxResultCount, 0);
+    final String sKey = "all " + nKeyMaxResultCount + " " + PDQueryResultCache.getCanonicalForm (aQuery);
+    final IThrowingSupplier <ICommonsList <PDStoredBusinessEntity>, IOException> aSupplier = () -> {
+      final ICommonsList <PDStoredBusinessEntity> aTargetList = new CommonsArrayList <> ();
+      searchAllDocuments (aQuery, nMaxResultCount, aTargetList::add);
+      return aTargetList;
+    };
     try
     {
-      searchAllDocuments (aQuery, nMaxResultCount, aTargetList::add);
+      return _cachedSearch (sKey,
+                            aSupplier,
+                            x -> x.size () + 1,
+                            x -> x.getAllMapped (PDStoredBusinessEntity::getClone));
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.error ("Error searching for documents with query " + aQuery, ex);
+      return new CommonsArrayList <> ();
+    }
+  }
+
+  /**
+   * Search a window of the {@link PDStoredBusinessEntity} objects matching the provided query and
+   * determine the total number of matches in a single index execution. Only the entities of the
+   * requested window are loaded. The results are cached in the {@link #getResultCache() query result
+   * cache} - each call returns its own copies of the entities.
+   *
+   * @param aQuery
+   *        The query to be executed. May not be <code>null</code>.
+   * @param nOffset
+   *        The 0-based index of the first entity to return. Must be &ge; 0.
+   * @param nLimit
+   *        The maximum number of entities to return. Must be &gt; 0.
+   * @return The search result. Never <code>null</code>. In case of an error the result is empty and
+   *         the total hit count is &lt; 0.
+   * @since 0.16.1
+   */
+  @NonNull
+  public PDIndexSearchResult <PDStoredBusinessEntity> searchDocuments (@NonNull final IPDIndexQuery aQuery,
+                                                                       @Nonnegative final int nOffset,
+                                                                       @Nonnegative final int nLimit)
+  {
+    ValueEnforcer.notNull (aQuery, "Query");
+    ValueEnforcer.isGE0 (nOffset, "Offset");
+    ValueEnforcer.isGT0 (nLimit, "Limit");
+
+    try
+    {
+      final String sKey = "search " + nOffset + " " + nLimit + " " + PDQueryResultCache.getCanonicalForm (aQuery);
+      return _cachedSearch (sKey, () -> {
+        final PDIndexSearchResult <PDIndexDocument> aResult = _timedSearch ( () -> m_aIndex.search (aQuery,
+                                                                                                    nOffset,
+                                                                                                    nLimit),
+                                                                            aQuery);
+        return aResult.getConverted (PDStoredBusinessEntity::create);
+      }, x -> x.getHitCount () + 1, x -> x.getConverted (PDStoredBusinessEntity::getClone));
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.error ("Error searching for documents with query " + aQuery, ex);
+      return PDIndexSearchResult.createError ();
+    }
+  }
+
+  /**
+   * Search the next window of the {@link PDStoredBusinessEntity} objects matching the provided
+   * query, starting after the provided cursor. Other than with
+   * {@link #searchDocuments(IPDIndexQuery, int, int)} the costs don't depend on the position of the
+   * window, if the underlying index supports native cursors.
+   *
+   * @param aQuery
+   *        The query to be executed. May not be <code>null</code>. Must be the same for all windows
+   *        of a cursor chain.
+   * @param sCursor
+   *        The cursor of the previous search result. May be <code>null</code> to retrieve the first
+   *        window.
+   * @param nLimit
+   *        The maximum number of entities to return. Must be &gt; 0.
+   * @return The search result including the next cursor. Never <code>null</code>. In case of an
+   *         error the result is empty and the total hit count is &lt; 0.
+   * @throws IllegalArgumentException
+   *         If the provided cursor is invalid
+   * @since 0.16.1
+   */
+  @NonNull
+  public PDIndexSearchResult <PDStoredBusinessEntity> searchDocumentsAfter (@NonNull final IPDIndexQuery aQuery,
+                                                                            @Nullable final String sCursor,
+                                                                            @Nonnegative final int nLimit)
+  {
+    ValueEnforcer.notNull (aQuery, "Query");
+    ValueEnforcer.isGT0 (nLimit, "Limit");
+
+    try
+    {
+      final PDIndexSearchResult <PDIndexDocument> aResult = _timedSearch ( () -> m_aIndex.searchAfter (aQuery,
+                                                                                                       sCursor,
+                                                                                                       nLimit),
+                                                                          aQuery);
+      return aResult.getConverted (PDStoredBusinessEntity::create);
     }
     catch (final IOException ex)
     {
       LOGGER.error ("Error searching for documents with query " + aQuery, ex);
+      return PDIndexSearchResult.createError ();
     }
-    return aTargetList;
   }
 
   @NonNull
@@ -506,24 +754,50 @@ public final class PDStorageManager implements IPDStorageManager
     return ret;
   }
 
+  /**
+   * Iterate all distinct participant IDs contained in the index, sorted by their stored value.
+   *
+   * @param aConsumer
+   *        The consumer that takes the stored participant ID value and the number of business
+   *        entities with that value. May not be <code>null</code>.
+   * @throws IOException
+   *         On index error
+   * @since 0.16.1
+   * @see IPDIndex#forEachDistinctParticipantID(ObjIntConsumer)
+   */
+  public void forEachDistinctParticipantID (@NonNull final ObjIntConsumer <String> aConsumer) throws IOException
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    _timedSearch ( () -> m_aIndex.forEachDistinctParticipantID (aConsumer), PDIndexQueryMatchAll.INSTANCE);
+  }
+
   @NonNull
   @ReturnsMutableCopy
   public ICommonsSortedMap <IParticipantIdentifier, MutableInt> getAllContainedParticipantIDs ()
   {
     // Map from ID to entity count
     final ICommonsSortedMap <IParticipantIdentifier, MutableInt> aTargetSet = new CommonsTreeMap <> ();
-    final IPDIndexQuery aQuery = PDIndexQueryMatchAll.INSTANCE;
     try
     {
-      searchAll (aQuery, -1, aDoc -> {
-        final IParticipantIdentifier aResolvedParticipantID = PDField.PARTICIPANT_ID.getDocValue (aDoc);
+      // The index provides the distinct values already - no need to load all documents
+      forEachDistinctParticipantID ( (sParticipantID, nDocCount) -> {
+        IParticipantIdentifier aResolvedParticipantID = null;
+        try
+        {
+          aResolvedParticipantID = PDField.PARTICIPANT_ID.getAsNativeValue (sParticipantID);
+        }
+        catch (final PDFieldSerializeException ex)
+        {
+          // Ignore unparsable participant IDs
+        }
         if (aResolvedParticipantID != null)
-          aTargetSet.computeIfAbsent (aResolvedParticipantID, k -> new MutableInt (0)).inc ();
+          aTargetSet.computeIfAbsent (aResolvedParticipantID, k -> new MutableInt (0)).inc (nDocCount);
       });
     }
     catch (final IOException ex)
     {
-      LOGGER.error ("Error searching for documents with query " + aQuery, ex);
+      LOGGER.error ("Error enumerating all distinct participant IDs", ex);
     }
     return aTargetSet;
   }
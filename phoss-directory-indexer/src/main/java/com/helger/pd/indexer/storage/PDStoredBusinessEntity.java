@@ -206,6 +206,30 @@ public final class PDStoredBusinessEntity
     m_aMetaData = aMetaData;
   }
 
+  /**
+   * @return A copy of this {@link PDStoredBusinessEntity}, so that modifications of the copy have
+   *         no impact on this object. The contained elements are immutable and therefore shared.
+   * @since 0.16.1
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public PDStoredBusinessEntity getClone ()
+  {
+    final PDStoredBusinessEntity ret = new PDStoredBusinessEntity ();
+    ret.m_aParticipantID = m_aParticipantID;
+    ret.m_aNames.addAll (m_aNames);
+    ret.m_sCountryCode = m_sCountryCode;
+    ret.m_sGeoInfo = m_sGeoInfo;
+    ret.m_aIdentifiers.addAll (m_aIdentifiers);
+    ret.m_aWebsiteURIs.addAll (m_aWebsiteURIs);
+    ret.m_aContacts.addAll (m_aContacts);
+    ret.m_sAdditionalInformation = m_sAdditionalInformation;
+    ret.m_aRegistrationDate = m_aRegistrationDate;
+    ret.m_aDocumentTypeIDs.addAll (m_aDocumentTypeIDs);
+    ret.m_aMetaData = m_aMetaData;
+    return ret;
+  }
+
   /**
    * @return Parts of this {@link PDStoredBusinessEntity} as a {@link PDBusinessEntity}.
    */
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.pd.indexer.businesscard.PDBusinessCardValidators;
+import com.helger.pd.indexer.businesscard.PDExtendedBusinessCard;
+import com.helger.peppol.businesscard.generic.PDBusinessCard;
+import com.helger.peppolid.IDocumentTypeIdentifier;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Information about the content of a participant that is stored in the index together with the
+ * business entities. It is used to detect unchanged business cards, so that the index is not
+ * rewritten.
+ *
+ * @author Philip Helger
+ * @since 0.16.1
+ */
+@Immutable
+public final class PDStoredContentInfo
+{
+  private final String m_sContentHash;
+  private final String m_sBusinessCardHash;
+  private final PDBusinessCardValidators m_aValidators;
+
+  /**
+   * Constructor
+   *
+   * @param sContentHash
+   *        The hash over everything that is written to the index. May neither be
+   *        <code>null</code> nor empty.
+   * @param sBusinessCardHash
+   *        The hash of the business card only. May neither be <code>null</code> nor empty.
+   * @param aValidators
+   *        The HTTP cache validators of the business card. May be <code>null</code>.
+   */
+  public PDStoredContentInfo (@NonNull @Nonempty final String sContentHash,
+                              @NonNull @Nonempty final String sBusinessCardHash,
+                              @Nullable final PDBusinessCardValidators aValidators)
+  {
+    ValueEnforcer.notEmpty (sContentHash, "ContentHash");
+    ValueEnforcer.notEmpty (sBusinessCardHash, "BusinessCardHash");
+    m_sContentHash = sContentHash;
+    m_sBusinessCardHash = sBusinessCardHash;
+    m_aValidators = aValidators == null || aValidators.isEmpty () ? null : aValidators;
+  }
+
+  /**
+   * @return The hash over the business card, the document types and the owner. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  @Nonempty
+  public String getContentHash ()
+  {
+    return m_sContentHash;
+  }
+
+  /**
+   * @return The hash over the business card only. Never <code>null</code>.
+   */
+  @NonNull
+  @Nonempty
+  public String getBusinessCardHash ()
+  {
+    return m_sBusinessCardHash;
+  }
+
+  /**
+   * @return The HTTP cache validators of the business card. May be <code>null</code>.
+   */
+  @Nullable
+  public PDBusinessCardValidators getValidators ()
+  {
+    return m_aValidators;
+  }
+
+  @NonNull
+  private static String _getSHA256Hex (@NonNull final String sValue)
+  {
+    try
+    {
+      final MessageDigest aDigest = MessageDigest.getInstance ("SHA-256");
+      return HexFormat.of ().formatHex (aDigest.digest (sValue.getBytes (StandardCharsets.UTF_8)));
+    }
+    catch (final NoSuchAlgorithmException ex)
+    {
+      throw new IllegalStateException ("SHA-256 algorithm not available", ex);
+    }
+  }
+
+  /**
+   * Get the hash of the provided business card. It is based on the JSON representation, so it is
+   * independent of the XML format the SMP returned.
+   *
+   * @param aBusinessCard
+   *        The business card to hash. May not be <code>null</code>.
+   * @return The hex encoded SHA-256 hash. Never <code>null</code>.
+   */
+  @NonNull
+  @Nonempty
+  public static String getBusinessCardHash (@NonNull final PDBusinessCard aBusinessCard)
+  {
+    ValueEnforcer.notNull (aBusinessCard, "BusinessCard");
+    return _getSHA256Hex (aBusinessCard.getAsJson ().getAsJsonString ());
+  }
+
+  /**
+   * Get the hash over everything that is written to the index for a participant, except for the
+   * creation date time and the requesting host.
+   *
+   * @param sBusinessCardHash
+   *        The hash of the business card. May neither be <code>null</code> nor empty.
+   * @param aDocumentTypeIDs
+   *        The document types of the participant. The order is irrelevant. May not be
+   *        <code>null</code>.
+   * @param sOwnerID
+   *        The owner ID of the participant. May not be <code>null</code>.
+   * @return The hex encoded SHA-256 hash. Never <code>null</code>.
+   */
+  @NonNull
+  @Nonempty
+  public static String getContentHash (@NonNull @Nonempty final String sBusinessCardHash,
+                                       @NonNull final Iterable <? extends IDocumentTypeIdentifier> aDocumentTypeIDs,
+                                       @NonNull final String sOwnerID)
+  {
+    ValueEnforcer.notEmpty (sBusinessCardHash, "BusinessCardHash");
+    ValueEnforcer.notNull (aDocumentTypeIDs, "DocumentTypeIDs");
+    ValueEnforcer.notNull (sOwnerID, "OwnerID");
+
+    // The SMP may return the document types in any order
+    final ICommonsList <String> aDocTypes = new CommonsArrayList <> ();
+    for (final IDocumentTypeIdentifier aDocTypeID : aDocumentTypeIDs)
+      aDocTypes.add (aDocTypeID.getURIEncoded ());
+    aDocTypes.sort (String::compareTo);
+
+    final StringBuilder aSB = new StringBuilder ();
+    aSB.append (sBusinessCardHash).append ('\n');
+    for (final String sDocType : aDocTypes)
+      aSB.append (sDocType).append ('\n');
+    aSB.append (sOwnerID);
+    return _getSHA256Hex (aSB.toString ());
+  }
+
+  /**
+   * Create the content information of the provided business card.
+   *
+   * @param aExtBI
+   *        The extended business card to be stored. May not be <code>null</code>.
+   * @param aMetaData
+   *        The metadata to be stored. May not be <code>null</code>.
+   * @return The new content information. Never <code>null</code>.
+   */
+  @NonNull
+  public static PDStoredContentInfo create (@NonNull final PDExtendedBusinessCard aExtBI,
+                                            @NonNull final PDStoredMetaData aMetaData)
+  {
+    ValueEnforcer.notNull (aExtBI, "ExtBI");
+    ValueEnforcer.notNull (aMetaData, "MetaData");
+
+    final String sBusinessCardHash = getBusinessCardHash (aExtBI.getBusinessCard ());
+    return new PDStoredContentInfo (getContentHash (sBusinessCardHash,
+                                                    aExtBI.getAllDocumentTypeIDs (),
+                                                    aMetaData.getOwnerID ()),
+                                    sBusinessCardHash,
+                                    aExtBI.getValidators ());
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("ContentHash", m_sContentHash)
+                                       .append ("BusinessCardHash", m_sBusinessCardHash)
+                                       .appendIfNotNull ("Validators", m_aValidators)
+                                       .getToString ();
+  }
+}
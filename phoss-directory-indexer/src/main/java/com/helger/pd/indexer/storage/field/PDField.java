@@ -18,6 +18,12 @@ package com.helger.pd.indexer.storage.field;
 
 import java.time.LocalDateTime;
 
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.ICommonsSet;
 import com.helger.datetime.helper.PDTFactory;
 import com.helger.pd.indexer.searchindex.EPDIndexFieldStore;
 import com.helger.pd.indexer.searchindex.EPDIndexFieldTokenize;
@@ -93,7 +99,38 @@ public final class PDField
   public static final PDStringField <String> METADATA_REQUESTING_HOST = PDStringField.createString ("md-requestinghost",
                                                                                                     EPDIndexFieldStore.YES,
                                                                                                     EPDIndexFieldTokenize.NO_TOKENIZE);
+  // Since 0.16.1
+  public static final PDStringField <String> METADATA_CONTENT_HASH = PDStringField.createString ("md-contenthash",
+                                                                                                 EPDIndexFieldStore.YES,
+                                                                                                 EPDIndexFieldTokenize.NO_TOKENIZE);
+  public static final PDStringField <String> METADATA_BUSINESSCARD_HASH = PDStringField.createString ("md-bchash",
+                                                                                                      EPDIndexFieldStore.YES,
+                                                                                                      EPDIndexFieldTokenize.NO_TOKENIZE);
+  public static final PDStringField <String> METADATA_ETAG = PDStringField.createString ("md-etag",
+                                                                                         EPDIndexFieldStore.YES,
+                                                                                         EPDIndexFieldTokenize.NO_TOKENIZE);
+  public static final PDStringField <String> METADATA_LAST_MODIFIED = PDStringField.createString ("md-lastmodified",
+                                                                                                  EPDIndexFieldStore.YES,
+                                                                                                  EPDIndexFieldTokenize.NO_TOKENIZE);
 
   private PDField ()
   {}
+
+  /**
+   * Get the names of all provided fields, e.g. to restrict the fields to be loaded from the index.
+   *
+   * @param aFields
+   *        The fields to use. May neither be <code>null</code> nor contain <code>null</code>
+   *        elements.
+   * @return A non-<code>null</code> set with all field names.
+   * @since 0.16.1
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public static ICommonsSet <String> getAllFieldNames (@NonNull final AbstractPDField <?, ?>... aFields)
+  {
+    ValueEnforcer.notNullNoNullValue (aFields, "Fields");
+
+    return new CommonsHashSet <> (aFields, AbstractPDField::getFieldName);
+  }
 }
@@ -28,9 +28,10 @@ import com.helger.pd.indexer.mgr.PDMetaManager;
 import com.helger.pd.indexer.searchindex.EPDIndexFieldStore;
 import com.helger.pd.indexer.searchindex.EPDIndexFieldTokenize;
 import com.helger.pd.indexer.searchindex.PDIndexField;
-import com.helger.pd.indexer.searchindex.query.PDIndexQueryContains;
+import com.helger.pd.indexer.searchindex.query.IPDIndexQuery;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryPrefix;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryTerm;
+import com.helger.pd.indexer.storage.PDNGramShadowFields;
 import com.helger.peppolid.IDocumentTypeIdentifier;
 import com.helger.peppolid.IParticipantIdentifier;
 
@@ -86,10 +87,19 @@ public class PDStringField <NATIVE_TYPE> extends AbstractPDField <NATIVE_TYPE, S
     return new PDIndexQueryPrefix (getFieldName (), _getSafeStorageValue (aValue));
   }
 
+  /**
+   * Create a "contains" query for this field. If enabled, it is answered via the n-gram shadow
+   * field.
+   *
+   * @param aValue
+   *        The value to search. May not be <code>null</code>.
+   * @return The query. Never <code>null</code>.
+   * @see PDNGramShadowFields#getContainsQuery(String, String)
+   */
   @NonNull
-  public PDIndexQueryContains getContainsQuery (@NonNull final NATIVE_TYPE aValue)
+  public IPDIndexQuery getContainsQuery (@NonNull final NATIVE_TYPE aValue)
   {
-    return new PDIndexQueryContains (getFieldName (), _getSafeStorageValue (aValue));
+    return PDNGramShadowFields.getContainsQuery (getFieldName (), _getSafeStorageValue (aValue));
   }
 
   @Override
@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.businesscard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.pd.indexer.index.PDIndexerTestHelper;
+import com.helger.peppol.sml.ISMLInfo;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.smpclient.url.ISMPURLProvider;
+import com.helger.smpclient.url.SMPDNSResolutionException;
+
+/**
+ * Test class for class {@link PDCachingSMPURLProvider}.
+ *
+ * @author Philip Helger
+ */
+public final class PDCachingSMPURLProviderTest
+{
+  private static final String ZONE = "test.sml.example.org";
+
+  @Test
+  public void testPositiveAndNegative () throws SMPDNSResolutionException
+  {
+    // In-memory DNS
+    final ICommonsMap <String, PDSMPDNSRecord> aRecords = new CommonsHashMap <> ();
+    aRecords.put (PDIndexerTestHelper.createParticipantID ("a").getURIEncoded (),
+                  new PDSMPDNSRecord (URI.create ("http://smp-a.example.org"), 60));
+    aRecords.put (PDIndexerTestHelper.createParticipantID ("b").getURIEncoded (),
+                  new PDSMPDNSRecord (URI.create ("http://smp-b.example.org"), 0));
+    final AtomicInteger aLookups = new AtomicInteger (0);
+    final IPDSMPDNSResolver aResolver = (aParticipantID, sSMLZoneName) -> {
+      aLookups.incrementAndGet ();
+      final PDSMPDNSRecord ret = aRecords.get (aParticipantID.getURIEncoded ());
+      if (ret == null)
+        throw new PDSMPDNSNotFoundException ("Not registered");
+      return ret;
+    };
+    final AtomicLong aNow = new AtomicLong (0);
+    final PDCachingSMPURLProvider aProvider = new PDCachingSMPURLProvider (aResolver, 10, 30, 5, 10, aNow::get);
+
+    // Cached for the TTL of the record
+    assertEquals (URI.create ("http://smp-a.example.org"),
+                  aProvider.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID ("a"), ZONE));
+    assertEquals (URI.create ("http://smp-a.example.org"),
+                  aProvider.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID ("a"), ZONE));
+    assertEquals (1, aLookups.get ());
+    assertEquals (1, aProvider.getHitCount ());
+    aNow.set (TimeUnit.SECONDS.toNanos (60));
+    aProvider.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID ("a"), ZONE);
+    assertEquals (2, aLookups.get ());
+
+    // TTL 0 is never cached
+    aProvider.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID ("b"), ZONE);
+    aProvider.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID ("b"), ZONE);
+    assertEquals (4, aLookups.get ());
+    assertEquals (1, aProvider.getEntryCount ());
+
+    // Negative cache
+    for (int i = 0; i < 2; ++i)
+      try
+      {
+        aProvider.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID ("c"), ZONE);
+        fail ();
+      }
+      catch (final SMPDNSResolutionException ex)
+      {
+        assertEquals ("Not registered", ex.getMessage ());
+      }
+    assertEquals (5, aLookups.get ());
+    assertEquals (1, aProvider.getNegativeHitCount ());
+    assertEquals (1, aProvider.getNegativeEntryCount ());
+
+    // Registered in the meantime, and the negative entry expired
+    aRecords.put (PDIndexerTestHelper.createParticipantID ("c").getURIEncoded (),
+                  new PDSMPDNSRecord (URI.create ("http://smp-c.example.org"), 60));
+    aNow.addAndGet (TimeUnit.SECONDS.toNanos (30));
+    assertEquals (URI.create ("http://smp-c.example.org"),
+                  aProvider.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID ("c"), ZONE));
+    assertEquals (6, aLookups.get ());
+  }
+
+  @Test
+  public void testIsNotFound ()
+  {
+    assertTrue (PDCachingSMPURLProvider.isNotFound (new PDSMPDNSNotFoundException ("x")));
+    assertTrue (PDCachingSMPURLProvider.isNotFound (new SMPDNSResolutionException ("x",
+                                                                                   new UnknownHostException ("y"))));
+    assertFalse (PDCachingSMPURLProvider.isNotFound (new SMPDNSResolutionException ("x")));
+    assertFalse (PDCachingSMPURLProvider.isNotFound (new SMPDNSResolutionException ("x",
+                                                                                    new SocketTimeoutException ("y"))));
+  }
+
+  @Test
+  public void testTransientFailure ()
+  {
+    final AtomicInteger aLookups = new AtomicInteger (0);
+    final IPDSMPDNSResolver aResolver = (aParticipantID, sSMLZoneName) -> {
+      aLookups.incrementAndGet ();
+      if (aParticipantID.getURIEncoded ().equals (PDIndexerTestHelper.createParticipantID ("gone").getURIEncoded ()))
+        throw new SMPDNSResolutionException ("NXDOMAIN", new UnknownHostException ("gone"));
+      throw new SMPDNSResolutionException ("Timeout", new SocketTimeoutException ("timeout"));
+    };
+    final AtomicLong aNow = new AtomicLong (0);
+    final PDCachingSMPURLProvider aProvider = new PDCachingSMPURLProvider (aResolver, 10, 30, 5, 10, aNow::get);
+
+    for (final String sValue : new String [] { "gone", "slow", "gone", "slow" })
+      try
+      {
+        aProvider.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID (sValue), ZONE);
+        fail ();
+      }
+      catch (final SMPDNSResolutionException ex)
+      {
+        // The cached failures can still be classified
+        assertEquals (sValue.equals ("gone"), PDCachingSMPURLProvider.isNotFound (ex));
+      }
+    assertEquals (2, aLookups.get ());
+    assertEquals (2, aProvider.getNegativeHitCount ());
+
+    // The transient failure is retried after the short TTL
+    aNow.set (TimeUnit.SECONDS.toNanos (5));
+    for (final String sValue : new String [] { "gone", "slow" })
+      try
+      {
+        aProvider.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID (sValue), ZONE);
+        fail ();
+      }
+      catch (final SMPDNSResolutionException ex)
+      {
+        // expected
+      }
+    assertEquals (3, aLookups.get ());
+    assertEquals (3, aProvider.getNegativeHitCount ());
+
+    // Without a transient TTL, transient failures are not cached at all
+    final PDCachingSMPURLProvider aProvider2 = new PDCachingSMPURLProvider (aResolver, 10, 30, 0, 10, aNow::get);
+    for (int i = 0; i < 2; ++i)
+      try
+      {
+        aProvider2.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID ("slow"), ZONE);
+        fail ();
+      }
+      catch (final SMPDNSResolutionException ex)
+      {
+        // expected
+      }
+    assertEquals (5, aLookups.get ());
+    assertEquals (0, aProvider2.getNegativeEntryCount ());
+  }
+
+  @Test
+  public void testFromURLProvider () throws SMPDNSResolutionException
+  {
+    final AtomicInteger aLookups = new AtomicInteger (0);
+    // Behaves like the peppol-commons URL providers
+    final ISMPURLProvider aURLProvider = new ISMPURLProvider ()
+    {
+      public URI getSMPURIOfParticipant (@NonNull final IParticipantIdentifier aParticipantID,
+                                         @NonNull final ISMLInfo aSMLInfo) throws SMPDNSResolutionException
+      {
+        return getSMPURIOfParticipant (aParticipantID, aSMLInfo.getDNSZone ());
+      }
+
+      public URI getSMPURIOfParticipant (@NonNull final IParticipantIdentifier aParticipantID,
+                                         @NonNull final String sSMLZoneName) throws SMPDNSResolutionException
+      {
+        aLookups.incrementAndGet ();
+        final String sDNSName = "B-hash." + aParticipantID.getScheme () + "." + sSMLZoneName;
+        if (aParticipantID.getURIEncoded ().equals (PDIndexerTestHelper.createParticipantID ("a").getURIEncoded ()))
+          return URI.create ("http://smp-a.example.org");
+        if (aParticipantID.getURIEncoded ().equals (PDIndexerTestHelper.createParticipantID ("gone").getURIEncoded ()))
+        {
+          // The DNS lookup succeeded but there is no NAPTR record
+          throw new SMPDNSResolutionException ("Failed to resolve '" + sDNSName + "'");
+        }
+        if (aParticipantID.getURIEncoded ()
+                          .equals (PDIndexerTestHelper.createParticipantID ("nxdomain").getURIEncoded ()))
+          throw new SMPDNSResolutionException ("Failed to resolve '" + sDNSName + "'",
+                                               new UnknownHostException (sDNSName));
+        throw new SMPDNSResolutionException ("Failed to resolve '" + sDNSName + "'",
+                                             new SocketTimeoutException ("timeout"));
+      }
+    };
+    final IPDSMPDNSResolver aResolver = IPDSMPDNSResolver.createFromURLProvider (aURLProvider, 60);
+
+    // Direct use of the resolver
+    final PDSMPDNSRecord aRecord = aResolver.resolve (PDIndexerTestHelper.createParticipantID ("a"), ZONE);
+    assertEquals (URI.create ("http://smp-a.example.org"), aRecord.getSMPURI ());
+    for (final String sValue : new String [] { "gone", "nxdomain" })
+      try
+      {
+        aResolver.resolve (PDIndexerTestHelper.createParticipantID (sValue), ZONE);
+        fail ();
+      }
+      catch (final PDSMPDNSNotFoundException ex)
+      {
+        // expected
+      }
+    try
+    {
+      aResolver.resolve (PDIndexerTestHelper.createParticipantID ("slow"), ZONE);
+      fail ();
+    }
+    catch (final SMPDNSResolutionException ex)
+    {
+      assertFalse (ex instanceof PDSMPDNSNotFoundException);
+    }
+    assertEquals (4, aLookups.get ());
+
+    // Wrapped in the cache - missing records use the long TTL, transient failures the short one
+    final AtomicLong aNow = new AtomicLong (0);
+    final PDCachingSMPURLProvider aProvider = new PDCachingSMPURLProvider (aResolver, 10, 30, 5, 10, aNow::get);
+    for (int i = 0; i < 2; ++i)
+      for (final String sValue : new String [] { "gone", "nxdomain", "slow" })
+        try
+        {
+          aProvider.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID (sValue), ZONE);
+          fail ();
+        }
+        catch (final SMPDNSResolutionException ex)
+        {
+          assertEquals (!sValue.equals ("slow"), PDCachingSMPURLProvider.isNotFound (ex));
+        }
+    assertEquals (7, aLookups.get ());
+    assertEquals (3, aProvider.getNegativeHitCount ());
+
+    // Only the transient failure is retried after the short TTL
+    aNow.set (TimeUnit.SECONDS.toNanos (5));
+    for (final String sValue : new String [] { "gone", "nxdomain", "slow" })
+      try
+      {
+        aProvider.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID (sValue), ZONE);
+        fail ();
+      }
+      catch (final SMPDNSResolutionException ex)
+      {
+        // expected
+      }
+    assertEquals (8, aLookups.get ());
+  }
+
+  @Test
+  public void testBounded () throws SMPDNSResolutionException
+  {
+    final AtomicInteger aLookups = new AtomicInteger (0);
+    final IPDSMPDNSResolver aResolver = (aParticipantID, sSMLZoneName) -> {
+      aLookups.incrementAndGet ();
+      return new PDSMPDNSRecord (URI.create ("http://smp.example.org"), 3600);
+    };
+    final PDCachingSMPURLProvider aProvider = new PDCachingSMPURLProvider (aResolver, 2, 30, 5, 2, () -> 0);
+    aProvider.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID ("a"), ZONE);
+    aProvider.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID ("b"), ZONE);
+    // Access "a" so that "b" is the least recently used one
+    aProvider.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID ("a"), ZONE);
+    aProvider.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID ("c"), ZONE);
+    assertEquals (2, aProvider.getEntryCount ());
+    assertEquals (3, aLookups.get ());
+
+    aProvider.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID ("a"), ZONE);
+    assertEquals (3, aLookups.get ());
+    aProvider.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID ("b"), ZONE);
+    assertEquals (4, aLookups.get ());
+
+    // Different zones are cached separately
+    aProvider.getSMPURIOfParticipant (PDIndexerTestHelper.createParticipantID ("b"), "other." + ZONE);
+    assertEquals (5, aLookups.get ());
+  }
+}
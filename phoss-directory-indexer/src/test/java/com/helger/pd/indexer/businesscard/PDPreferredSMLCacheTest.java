@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.businesscard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import com.helger.pd.indexer.index.PDIndexerTestHelper;
+
+/**
+ * Test class for class {@link PDPreferredSMLCache}.
+ *
+ * @author Philip Helger
+ */
+public final class PDPreferredSMLCacheTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final PDPreferredSMLCache aCache = new PDPreferredSMLCache (2);
+    assertNull (aCache.getPreferredSMLID (PDIndexerTestHelper.createParticipantID ("a")));
+
+    aCache.setPreferredSMLID (PDIndexerTestHelper.createParticipantID ("a"), "sml1");
+    aCache.setPreferredSMLID (PDIndexerTestHelper.createParticipantID ("b"), "sml2");
+    assertEquals ("sml1", aCache.getPreferredSMLID (PDIndexerTestHelper.createParticipantID ("a")));
+    assertEquals (2, aCache.getEntryCount ());
+
+    // Overwrite
+    aCache.setPreferredSMLID (PDIndexerTestHelper.createParticipantID ("a"), "sml2");
+    assertEquals ("sml2", aCache.getPreferredSMLID (PDIndexerTestHelper.createParticipantID ("a")));
+    assertEquals (2, aCache.getEntryCount ());
+
+    // "b" is the least recently used one
+    aCache.setPreferredSMLID (PDIndexerTestHelper.createParticipantID ("c"), "sml1");
+    assertEquals (2, aCache.getEntryCount ());
+    assertNull (aCache.getPreferredSMLID (PDIndexerTestHelper.createParticipantID ("b")));
+    assertEquals ("sml2", aCache.getPreferredSMLID (PDIndexerTestHelper.createParticipantID ("a")));
+    assertEquals ("sml1", aCache.getPreferredSMLID (PDIndexerTestHelper.createParticipantID ("c")));
+
+    aCache.removePreferredSMLID (PDIndexerTestHelper.createParticipantID ("a"));
+    assertNull (aCache.getPreferredSMLID (PDIndexerTestHelper.createParticipantID ("a")));
+    assertEquals (1, aCache.getEntryCount ());
+  }
+}
@@ -14,31 +14,30 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package com.helger.pd.indexer.lucene;
+package com.helger.pd.indexer.businesscard;
 
-import java.io.IOException;
+import static org.junit.Assert.assertEquals;
 
-import org.apache.lucene.document.Document;
-
-import jakarta.annotation.Nullable;
+import org.apache.hc.core5.pool.PoolStats;
+import org.junit.Test;
 
 /**
- * {@link Document} retrieval interface
+ * Test class for class {@link PDSMPHttpClient}.
  *
  * @author Philip Helger
  */
-@FunctionalInterface
-public interface ILuceneDocumentProvider
+public final class PDSMPHttpClientTest
 {
-  /**
-   * Get the Lucene document from the document ID
-   *
-   * @param nDocID
-   *        Internal Lucene Document ID
-   * @return The Document or <code>null</code>.
-   * @throws IOException
-   *         In case of a Lucene error
-   */
-  @Nullable
-  Document getDocument (int nDocID) throws IOException;
+  @Test
+  public void testBasic () throws Exception
+  {
+    try (final PDSMPHttpClient aClient = new PDSMPHttpClient (5, 20, 30, null, null, false))
+    {
+      final PoolStats aStats = aClient.getTotalStats ();
+      assertEquals (0, aStats.getLeased ());
+      assertEquals (0, aStats.getAvailable ());
+      assertEquals (20, aStats.getMax ());
+      assertEquals (0, aClient.getRouteCount ());
+    }
+  }
 }
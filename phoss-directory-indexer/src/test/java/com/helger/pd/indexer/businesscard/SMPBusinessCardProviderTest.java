@@ -18,9 +18,19 @@ package com.helger.pd.indexer.businesscard;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
+import org.jspecify.annotations.NonNull;
 import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
@@ -32,11 +42,16 @@ import com.helger.base.url.URLHelper;
 import com.helger.collection.commons.CommonsArrayList;
 import com.helger.collection.commons.ICommonsList;
 import com.helger.json.IJsonObject;
+import com.helger.pd.indexer.index.EIndexerFailureClass;
 import com.helger.pd.indexer.settings.PDServerConfiguration;
 import com.helger.peppol.sml.ESML;
+import com.helger.peppolid.IDocumentTypeIdentifier;
+import com.helger.peppolid.IParticipantIdentifier;
 import com.helger.peppolid.factory.PeppolIdentifierFactory;
 import com.helger.photon.app.mock.PhotonAppWebTestRule;
+import com.helger.smpclient.exception.SMPClientException;
 import com.helger.smpclient.peppol.SMPClientReadOnly;
+import com.sun.net.httpserver.HttpServer;
 
 /**
  * Test class for class {@link SMPBusinessCardProvider}.
@@ -48,10 +63,220 @@ public final class SMPBusinessCardProviderTest
   private static final Logger LOGGER = LoggerFactory.getLogger (SMPBusinessCardProviderTest.class);
   private static final Supplier <ICommonsList <ESML>> SML_SUPPLIER_ALL = () -> new CommonsArrayList <> (ESML.values ());
   private static final Supplier <ICommonsList <ESML>> SML_SUPPLIER_TEST_ONLY = () -> new CommonsArrayList <> (ESML.PEPPOL_TEST);
+  private static final IParticipantIdentifier PARTICIPANT_ID = PeppolIdentifierFactory.INSTANCE.createParticipantIdentifierWithDefaultScheme ("9915:test");
+  private static final IDocumentTypeIdentifier DOC_TYPE_ID = PeppolIdentifierFactory.INSTANCE.createDocumentTypeIdentifierWithDefaultScheme ("urn:test");
+  private static final String BUSINESS_CARD = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                                              "<BusinessCard xmlns=\"http://www.peppol.eu/schema/pd/businesscard/20180621/\">\n" +
+                                              "  <ParticipantIdentifier scheme=\"iso6523-actorid-upis\">9915:test</ParticipantIdentifier>\n" +
+                                              "  <BusinessEntity>\n" +
+                                              "    <Name>Test entity</Name>\n" +
+                                              "    <CountryCode>AT</CountryCode>\n" +
+                                              "  </BusinessEntity>\n" +
+                                              "</BusinessCard>\n";
 
   @Rule
   public final TestRule m_aRule = new PhotonAppWebTestRule ();
 
+  /**
+   * Start a local SMP that only serves the business card API.
+   *
+   * @param aRequested
+   *        Counted down when a business card is requested.
+   * @param aRelease
+   *        The business card is only returned after this latch was released.
+   * @return The started server. Never <code>null</code>.
+   */
+  @NonNull
+  private static HttpServer _startLocalSMP (@NonNull final CountDownLatch aRequested,
+                                            @NonNull final CountDownLatch aRelease) throws IOException
+  {
+    final HttpServer aServer = HttpServer.create (new InetSocketAddress ("localhost", 0), 0);
+    aServer.createContext ("/businesscard/", aExchange -> {
+      try
+      {
+        aRequested.countDown ();
+        if (aRelease.await (10, TimeUnit.SECONDS))
+        {
+          final byte [] aBytes = BUSINESS_CARD.getBytes (StandardCharsets.UTF_8);
+          aExchange.getResponseHeaders ().add ("Content-Type", "text/xml; charset=UTF-8");
+          aExchange.sendResponseHeaders (200, aBytes.length);
+          aExchange.getResponseBody ().write (aBytes);
+        }
+      }
+      catch (final InterruptedException ex)
+      {
+        Thread.currentThread ().interrupt ();
+      }
+      catch (final IOException ex)
+      {
+        // The client went away
+      }
+      finally
+      {
+        aExchange.close ();
+      }
+    });
+    // Each request needs its own thread, as it may block
+    aServer.setExecutor (Executors.newCachedThreadPool (r -> {
+      final Thread aThread = new Thread (r, "local-smp");
+      aThread.setDaemon (true);
+      return aThread;
+    }));
+    aServer.start ();
+    return aServer;
+  }
+
+  @NonNull
+  private static String _getSMPHostURI (@NonNull final HttpServer aServer)
+  {
+    return "http://localhost:" + aServer.getAddress ().getPort () + "/";
+  }
+
+  @NonNull
+  private static SMPBusinessCardProvider _createProvider ()
+  {
+    return SMPBusinessCardProvider.createWithSMLAutoDetect (PDServerConfiguration.getSMPMode (),
+                                                            PDServerConfiguration.getURLProvider (),
+                                                            SML_SUPPLIER_TEST_ONLY);
+  }
+
+  private static boolean _await (@NonNull final CountDownLatch aLatch)
+  {
+    try
+    {
+      return aLatch.await (10, TimeUnit.SECONDS);
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      return false;
+    }
+  }
+
+  private static void _assertConnectionReleased (@NonNull final SMPBusinessCardProvider aProvider) throws InterruptedException
+  {
+    // The local SMP is still blocking, so the connection is only released if the request was aborted
+    for (int i = 0; i < 50 && aProvider.getHttpClient ().getTotalStats ().getLeased () > 0; ++i)
+      Thread.sleep (100);
+    assertEquals (0, aProvider.getHttpClient ().getTotalStats ().getLeased ());
+  }
+
+  @Test
+  public void testQueryConcurrently () throws Exception
+  {
+    final CountDownLatch aRequested = new CountDownLatch (1);
+    final HttpServer aServer = _startLocalSMP (aRequested, new CountDownLatch (0));
+    try (final SMPBusinessCardProvider aProvider = _createProvider ())
+    {
+      final ICommonsList <String> aErrorMsgs = new CommonsArrayList <> ();
+      final PDExtendedBusinessCard aExtBC = aProvider.queryBusinessCard (PARTICIPANT_ID,
+                                                                         _getSMPHostURI (aServer),
+                                                                         () -> {
+                                                                           // Only succeeds, if the
+                                                                           // business card is
+                                                                           // queried concurrently
+                                                                           assertTrue (_await (aRequested));
+                                                                           return "ServiceGroup";
+                                                                         },
+                                                                         x -> new CommonsArrayList <> (DOC_TYPE_ID),
+                                                                         null,
+                                                                         aErrorMsgs::add,
+                                                                         x -> fail (),
+                                                                         x -> fail ());
+      assertTrue (aErrorMsgs.toString (), aErrorMsgs.isEmpty ());
+      assertNotNull (aExtBC);
+      assertEquals (1, aExtBC.getBusinessCard ().businessEntities ().size ());
+      assertEquals (1, aExtBC.getDocumentTypeCount ());
+      assertEquals (0, aProvider.getHttpClient ().getTotalStats ().getLeased ());
+    }
+    finally
+    {
+      aServer.stop (0);
+    }
+  }
+
+  @Test
+  public void testServiceGroupFailed () throws Exception
+  {
+    final CountDownLatch aRequested = new CountDownLatch (1);
+    final CountDownLatch aRelease = new CountDownLatch (1);
+    final HttpServer aServer = _startLocalSMP (aRequested, aRelease);
+    try (final SMPBusinessCardProvider aProvider = _createProvider ())
+    {
+      final ICommonsList <String> aErrorMsgs = new CommonsArrayList <> ();
+      final ICommonsList <EIndexerFailureClass> aFailureClasses = new CommonsArrayList <> ();
+      final PDExtendedBusinessCard aExtBC = aProvider.queryBusinessCard (PARTICIPANT_ID,
+                                                                         _getSMPHostURI (aServer),
+                                                                         () -> {
+                                                                           assertTrue (_await (aRequested));
+                                                                           throw new SMPClientException ("Simulated failure");
+                                                                         },
+                                                                         x -> {
+                                                                           fail ();
+                                                                           return null;
+                                                                         },
+                                                                         null,
+                                                                         aErrorMsgs::add,
+                                                                         aFailureClasses::add,
+                                                                         x -> fail ());
+      assertNull (aExtBC);
+      assertEquals (1, aErrorMsgs.size ());
+      assertTrue (aErrorMsgs.getFirstOrNull (), aErrorMsgs.getFirstOrNull ().contains ("ServiceGroup"));
+      assertEquals (new CommonsArrayList <> (EIndexerFailureClass.OTHER), aFailureClasses);
+
+      // The business card query was aborted without waiting for the SMP
+      _assertConnectionReleased (aProvider);
+    }
+    finally
+    {
+      aRelease.countDown ();
+      aServer.stop (0);
+    }
+  }
+
+  @Test
+  public void testNoServiceGroupCancelsBusinessCardQuery () throws Exception
+  {
+    final CountDownLatch aRequested = new CountDownLatch (1);
+    final CountDownLatch aRelease = new CountDownLatch (1);
+    final HttpServer aServer = _startLocalSMP (aRequested, aRelease);
+    try (final SMPBusinessCardProvider aProvider = _createProvider ())
+    {
+      final ICommonsList <String> aErrorMsgs = new CommonsArrayList <> ();
+      final ICommonsList <EIndexerFailureClass> aFailureClasses = new CommonsArrayList <> ();
+      final long nStart = System.nanoTime ();
+      final PDExtendedBusinessCard aExtBC = aProvider.queryBusinessCard (PARTICIPANT_ID,
+                                                                         _getSMPHostURI (aServer),
+                                                                         () -> {
+                                                                           assertTrue (_await (aRequested));
+                                                                           // Not registered at
+                                                                           // this SMP
+                                                                           return null;
+                                                                         },
+                                                                         x -> {
+                                                                           fail ();
+                                                                           return null;
+                                                                         },
+                                                                         null,
+                                                                         aErrorMsgs::add,
+                                                                         aFailureClasses::add,
+                                                                         x -> fail ());
+      // Did not wait for the business card
+      assertTrue (System.nanoTime () - nStart < TimeUnit.SECONDS.toNanos (5));
+      assertNull (aExtBC);
+      assertEquals (1, aErrorMsgs.size ());
+      assertEquals (new CommonsArrayList <> (EIndexerFailureClass.NOT_FOUND), aFailureClasses);
+
+      // The business card query was aborted without waiting for the SMP
+      _assertConnectionReleased (aProvider);
+    }
+    finally
+    {
+      aRelease.countDown ();
+      aServer.stop (0);
+    }
+  }
+
   @Test
   @Ignore ("Currently down")
   public void testFetch9915Test ()
@@ -113,7 +338,10 @@ public final class SMPBusinessCardProviderTest
                                                                                          SML_SUPPLIER_ALL);
     final PDExtendedBusinessCard aExtBI = aBI.getBusinessCardPeppolSMP (PeppolIdentifierFactory.INSTANCE.createParticipantIdentifierWithDefaultScheme ("9999:ghx"),
                                                                         new SMPClientReadOnly (URLHelper.getAsURI ("http://localhost:90")),
-                                                                        LOGGER::error);
+                                                                        null,
+                                                                        LOGGER::error,
+                                                                        x -> {},
+                                                                        x -> {});
     assertNotNull (aExtBI);
     LOGGER.info (aExtBI.toString ());
   }
@@ -127,7 +355,10 @@ public final class SMPBusinessCardProviderTest
                                                                                          SML_SUPPLIER_ALL);
     final PDExtendedBusinessCard aExtBI = aBI.getBusinessCardPeppolSMP (PeppolIdentifierFactory.INSTANCE.createParticipantIdentifierWithDefaultScheme ("9956:0471349823"),
                                                                         new SMPClientReadOnly (URLHelper.getAsURI ("https://int.babelway.net/smp/")),
-                                                                        LOGGER::error);
+                                                                        null,
+                                                                        LOGGER::error,
+                                                                        x -> {},
+                                                                        x -> {});
     assertNotNull (aExtBI);
     LOGGER.info (aExtBI.toString ());
   }
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+import org.apache.hc.client5.http.HttpResponseException;
+import org.junit.Test;
+
+/**
+ * Test class for class {@link EIndexerFailureClass}.
+ *
+ * @author Philip Helger
+ */
+public final class EIndexerFailureClassTest
+{
+  @Test
+  public void testBasic ()
+  {
+    for (final EIndexerFailureClass e : EIndexerFailureClass.values ())
+      assertSame (e, EIndexerFailureClass.getFromIDOrNull (e.getID ()));
+  }
+
+  @Test
+  public void testGetFromException ()
+  {
+    assertEquals (EIndexerFailureClass.OTHER, EIndexerFailureClass.getFromException (null));
+    assertEquals (EIndexerFailureClass.OTHER, EIndexerFailureClass.getFromException (new IOException ("x")));
+    assertEquals (EIndexerFailureClass.DNS, EIndexerFailureClass.getFromException (new UnknownHostException ("x")));
+    assertEquals (EIndexerFailureClass.TIMEOUT,
+                  EIndexerFailureClass.getFromException (new SocketTimeoutException ("x")));
+    assertEquals (EIndexerFailureClass.NOT_FOUND,
+                  EIndexerFailureClass.getFromException (new HttpResponseException (404, "x")));
+    assertEquals (EIndexerFailureClass.SERVER_ERROR,
+                  EIndexerFailureClass.getFromException (new HttpResponseException (503, "x")));
+    assertEquals (EIndexerFailureClass.OTHER,
+                  EIndexerFailureClass.getFromException (new HttpResponseException (400, "x")));
+    // Nested
+    assertEquals (EIndexerFailureClass.TIMEOUT,
+                  EIndexerFailureClass.getFromException (new IllegalStateException (new SocketTimeoutException ("x"))));
+  }
+
+  @Test
+  public void testGetCombined ()
+  {
+    assertEquals (EIndexerFailureClass.DNS, EIndexerFailureClass.getCombined (null, EIndexerFailureClass.DNS));
+    assertEquals (EIndexerFailureClass.TIMEOUT,
+                  EIndexerFailureClass.getCombined (EIndexerFailureClass.DNS, EIndexerFailureClass.TIMEOUT));
+    assertEquals (EIndexerFailureClass.TIMEOUT,
+                  EIndexerFailureClass.getCombined (EIndexerFailureClass.TIMEOUT, EIndexerFailureClass.NOT_FOUND));
+    assertEquals (EIndexerFailureClass.DNS,
+                  EIndexerFailureClass.getCombined (EIndexerFailureClass.DNS, EIndexerFailureClass.NOT_FOUND));
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.time.LocalDateTime;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+/**
+ * Test class for class {@link IndexerSMPHostLimiter}.
+ *
+ * @author Philip Helger
+ */
+public final class IndexerSMPHostLimiterTest
+{
+  @NonNull
+  private static IIndexerWorkItem _item (@NonNull final String sHost, final int nIndex)
+  {
+    // The owner ID is used as the SMP host
+    return PDIndexerTestHelper.createWorkItem (sHost + nIndex,
+                                               LocalDateTime.now (),
+                                               sHost + nIndex,
+                                               EIndexerWorkItemType.CREATE_UPDATE,
+                                               sHost);
+  }
+
+  @Test
+  public void testLimitAndRoundRobin ()
+  {
+    final IndexerSMPHostLimiter aLimiter = new IndexerSMPHostLimiter (1, IIndexerWorkItem::getOwnerID);
+
+    final IndexerSMPHostLimiter.Lease aA0 = aLimiter.tryAcquire (_item ("a", 0));
+    assertNotNull (aA0);
+    assertEquals ("a", aA0.getHost ());
+    // Host "a" is busy
+    assertNull (aLimiter.tryAcquire (_item ("a", 1)));
+    assertNull (aLimiter.tryAcquire (_item ("a", 2)));
+    final IndexerSMPHostLimiter.Lease aB0 = aLimiter.tryAcquire (_item ("b", 0));
+    assertNotNull (aB0);
+    assertNull (aLimiter.tryAcquire (_item ("b", 1)));
+    assertEquals (3, aLimiter.getParkedCount ());
+
+    // Both hosts are busy
+    assertNull (aLimiter.pollParked ());
+
+    aLimiter.release (aA0);
+    aLimiter.release (aB0);
+    // Hosts are served round-robin
+    final IndexerSMPHostLimiter.Lease aA1 = aLimiter.pollParked ();
+    assertEquals ("9915:a1", aA1.getWorkItem ().getParticipantID ().getValue ());
+    final IndexerSMPHostLimiter.Lease aB1 = aLimiter.pollParked ();
+    assertEquals ("9915:b1", aB1.getWorkItem ().getParticipantID ().getValue ());
+    assertNull (aLimiter.pollParked ());
+
+    // New items don't overtake parked ones
+    aLimiter.release (aA1);
+    assertNull (aLimiter.tryAcquire (_item ("a", 3)));
+    assertEquals ("9915:a2", aLimiter.pollParked ().getWorkItem ().getParticipantID ().getValue ());
+    assertEquals (1, aLimiter.drainParked ().size ());
+    assertEquals (0, aLimiter.getParkedCount ());
+  }
+
+  @NonNull
+  private static IIndexerWorkItem _item (@NonNull final EIndexerWorkItemType eType, final int nIndex)
+  {
+    return PDIndexerTestHelper.createWorkItem ("id" + nIndex,
+                                               LocalDateTime.now (),
+                                               eType.getID () + nIndex,
+                                               eType,
+                                               PDIndexerTestHelper.OWNER_ID);
+  }
+
+  @NonNull
+  private static String _value (@NonNull final IndexerSMPHostLimiter.Lease aLease)
+  {
+    return aLease.getWorkItem ().getParticipantID ().getValue ();
+  }
+
+  @Test
+  public void testPriorityOfParked ()
+  {
+    // All items go to the same SMP host
+    final IndexerSMPHostLimiter aLimiter = new IndexerSMPHostLimiter (1, x -> "smp");
+
+    final IndexerSMPHostLimiter.Lease aLease = aLimiter.tryAcquire (_item (EIndexerWorkItemType.CREATE_UPDATE, 0));
+    assertNotNull (aLease);
+    // Background items are parked, as the host is busy
+    for (int i = 0; i < 3; ++i)
+      assertNull (aLimiter.tryAcquire (_item (EIndexerWorkItemType.SYNC, i)));
+    // The interactive item has to be parked as well
+    final IIndexerWorkItem aInteractive = _item (EIndexerWorkItemType.CREATE_UPDATE, 1);
+    assertEquals (EIndexerWorkItemPriority.INTERACTIVE, EIndexerWorkItemPriority.getPriorityOf (aInteractive));
+    assertNull (aLimiter.tryAcquire (aInteractive));
+    assertEquals (4, aLimiter.getParkedCount ());
+    assertEquals (4, aLimiter.getAllHostStatus ().getFirstOrNull ().getParkedCount ());
+
+    // Host is still busy
+    assertNull (aLimiter.pollParked ());
+    aLimiter.release (aLease);
+
+    // The interactive item does not wait behind the background items
+    IndexerSMPHostLimiter.Lease aNext = aLimiter.pollParked ();
+    assertEquals (aInteractive, aNext.getWorkItem ());
+    assertNull (aLimiter.pollParked ());
+
+    // Afterwards the background items in FIFO order
+    for (int i = 0; i < 3; ++i)
+    {
+      aLimiter.release (aNext);
+      aNext = aLimiter.pollParked ();
+      assertEquals ("9915:" + EIndexerWorkItemType.SYNC.getID () + i, _value (aNext));
+    }
+    aLimiter.release (aNext);
+    assertEquals (0, aLimiter.getParkedCount ());
+    assertEquals (0, aLimiter.getAllHostStatus ().size ());
+  }
+
+  @Test
+  public void testWeightedParked ()
+  {
+    // Equal weights - the background items are not starved
+    final IndexerSMPHostLimiter aLimiter = new IndexerSMPHostLimiter (1, x -> "smp", x -> 1);
+
+    final IndexerSMPHostLimiter.Lease aLease = aLimiter.tryAcquire (_item (EIndexerWorkItemType.CREATE_UPDATE, 0));
+    assertNull (aLimiter.tryAcquire (_item (EIndexerWorkItemType.SYNC, 0)));
+    assertNull (aLimiter.tryAcquire (_item (EIndexerWorkItemType.SYNC, 1)));
+    assertNull (aLimiter.tryAcquire (_item (EIndexerWorkItemType.CREATE_UPDATE, 1)));
+    assertNull (aLimiter.tryAcquire (_item (EIndexerWorkItemType.CREATE_UPDATE, 2)));
+    aLimiter.release (aLease);
+
+    final String sCU = "9915:" + EIndexerWorkItemType.CREATE_UPDATE.getID ();
+    final String sSync = "9915:" + EIndexerWorkItemType.SYNC.getID ();
+    for (final String sExpected : new String [] { sCU + 1, sSync + 0, sCU + 2, sSync + 1 })
+    {
+      final IndexerSMPHostLimiter.Lease aNext = aLimiter.pollParked ();
+      assertEquals (sExpected, _value (aNext));
+      aLimiter.release (aNext);
+    }
+    assertNull (aLimiter.pollParked ());
+  }
+
+  @Test
+  public void testNoHost ()
+  {
+    final IndexerSMPHostLimiter aLimiter = new IndexerSMPHostLimiter (1, x -> null);
+    final IndexerSMPHostLimiter.Lease aLease = aLimiter.tryAcquire (_item ("a", 0));
+    assertNull (aLease.getHost ());
+    assertNotNull (aLimiter.tryAcquire (_item ("a", 1)));
+    aLimiter.release (aLease);
+    assertEquals (0, aLimiter.getAllHostStatus ().size ());
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.LocalDateTime;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.helger.collection.commons.ICommonsList;
+
+/**
+ * Test class for class {@link IndexerWorkItemJournal}.
+ *
+ * @author Philip Helger
+ */
+public final class IndexerWorkItemJournalTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  @NonNull
+  private static IIndexerWorkItem _item (final int nIndex)
+  {
+    return PDIndexerTestHelper.createWorkItem ("id" + nIndex,
+                                               LocalDateTime.of (2026, 1, 1, 12, 0, nIndex % 60),
+                                               "test" + nIndex,
+                                               EIndexerWorkItemType.CREATE_UPDATE,
+                                               PDIndexerTestHelper.OWNER_ID);
+  }
+
+  @Test
+  public void testReplay () throws IOException
+  {
+    final File aDir = m_aTempFolder.newFolder ();
+    try (final IndexerWorkItemJournal aJournal = new IndexerWorkItemJournal (aDir, 1024 * 1024, true))
+    {
+      assertTrue (aJournal.getAllReplayedItems ().isEmpty ());
+      for (int i = 0; i < 5; ++i)
+        aJournal.append (_item (i));
+      // Duplicate append is ignored
+      aJournal.append (_item (0));
+      aJournal.markDone (_item (1));
+      aJournal.markDone (_item (3));
+      // Not open
+      aJournal.markDone (_item (99));
+      assertEquals (3, aJournal.getOpenItemCount ());
+      assertEquals (7, aJournal.getRecordCount ());
+    }
+
+    try (final IndexerWorkItemJournal aJournal = new IndexerWorkItemJournal (aDir, 1024 * 1024, true))
+    {
+      final ICommonsList <IIndexerWorkItem> aReplayed = aJournal.getAllReplayedItems ();
+      assertEquals (3, aReplayed.size ());
+      // Order and content are retained
+      assertEquals (_item (0), aReplayed.get (0));
+      assertEquals (_item (2), aReplayed.get (1));
+      assertEquals (_item (4), aReplayed.get (2));
+      assertEquals (_item (4).getCreationDateTime (), aReplayed.get (2).getCreationDateTime ());
+      assertEquals (_item (4).getParticipantID (), aReplayed.get (2).getParticipantID ());
+      assertEquals (3, aJournal.getOpenItemCount ());
+      // Only the new segment is left
+      assertEquals (1, aJournal.getSegmentCount ());
+    }
+  }
+
+  @Test
+  public void testTruncatedTail () throws IOException
+  {
+    final File aDir = m_aTempFolder.newFolder ();
+    try (final IndexerWorkItemJournal aJournal = new IndexerWorkItemJournal (aDir, 1024 * 1024, false))
+    {
+      aJournal.append (_item (0));
+      aJournal.append (_item (1));
+    }
+
+    // Simulate a torn write of the last record
+    final File [] aFiles = aDir.listFiles ();
+    assertEquals (1, aFiles.length);
+    try (final RandomAccessFile aRAF = new RandomAccessFile (aFiles[0], "rw"))
+    {
+      aRAF.setLength (aRAF.length () - 3);
+    }
+
+    try (final IndexerWorkItemJournal aJournal = new IndexerWorkItemJournal (aDir, 1024 * 1024, false))
+    {
+      final ICommonsList <IIndexerWorkItem> aReplayed = aJournal.getAllReplayedItems ();
+      assertEquals (1, aReplayed.size ());
+      assertEquals (_item (0), aReplayed.get (0));
+    }
+  }
+
+  @Test
+  public void testSegmentRollover () throws IOException
+  {
+    final File aDir = m_aTempFolder.newFolder ();
+    // Very small segments, so that every sync starts a new segment
+    try (final IndexerWorkItemJournal aJournal = new IndexerWorkItemJournal (aDir, 1, false))
+    {
+      for (int i = 0; i < 10; ++i)
+        aJournal.append (_item (i));
+      assertEquals (10, aJournal.getSegmentCount ());
+
+      // The oldest segments are deleted, once all their items are done
+      aJournal.markDone (_item (0));
+      aJournal.markDone (_item (1));
+      aJournal.markDone (_item (5));
+      aJournal.append (_item (10));
+      assertEquals (9, aJournal.getSegmentCount ());
+    }
+
+    try (final IndexerWorkItemJournal aJournal = new IndexerWorkItemJournal (aDir, 1, false))
+    {
+      assertEquals (8, aJournal.getAllReplayedItems ().size ());
+      assertEquals (1, aJournal.getSegmentCount ());
+    }
+  }
+}
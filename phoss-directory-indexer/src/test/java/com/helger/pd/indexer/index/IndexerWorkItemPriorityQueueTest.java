@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+import com.helger.pd.indexer.storage.CPDStorage;
+
+/**
+ * Test class for class {@link IndexerWorkItemPriorityQueue}.
+ *
+ * @author Philip Helger
+ */
+public final class IndexerWorkItemPriorityQueueTest
+{
+  @NonNull
+  private static IIndexerWorkItem _item (@NonNull final EIndexerWorkItemType eType,
+                                         @NonNull final String sOwnerID,
+                                         final int nIndex)
+  {
+    return PDIndexerTestHelper.createWorkItem ("id" + nIndex, LocalDateTime.now (), "test" + nIndex, eType, sOwnerID);
+  }
+
+  @Test
+  public void testPriorityOf ()
+  {
+    assertEquals (EIndexerWorkItemPriority.INTERACTIVE,
+                  EIndexerWorkItemPriority.getPriorityOf (_item (EIndexerWorkItemType.CREATE_UPDATE, "CN=SMP_1", 0)));
+    assertEquals (EIndexerWorkItemPriority.INTERACTIVE,
+                  EIndexerWorkItemPriority.getPriorityOf (_item (EIndexerWorkItemType.DELETE,
+                                                                 CPDStorage.OWNER_MANUALLY_TRIGGERED,
+                                                                 0)));
+    assertEquals (EIndexerWorkItemPriority.BULK,
+                  EIndexerWorkItemPriority.getPriorityOf (_item (EIndexerWorkItemType.CREATE_UPDATE,
+                                                                 CPDStorage.OWNER_IMPORT_TRIGGERED,
+                                                                 0)));
+    assertEquals (EIndexerWorkItemPriority.BACKGROUND,
+                  EIndexerWorkItemPriority.getPriorityOf (_item (EIndexerWorkItemType.SYNC,
+                                                                 CPDStorage.OWNER_SYNC_JOB,
+                                                                 0)));
+  }
+
+  @Test
+  public void testWeightedDequeue () throws InterruptedException
+  {
+    final IndexerWorkItemPriorityQueue aQueue = new IndexerWorkItemPriorityQueue (x -> x.getDefaultWeight () > 1 ? 3
+                                                                                                                 : 1);
+    for (int i = 0; i < 100; ++i)
+      aQueue.add (_item (EIndexerWorkItemType.SYNC, CPDStorage.OWNER_SYNC_JOB, i));
+    for (int i = 0; i < 3; ++i)
+      aQueue.add (_item (EIndexerWorkItemType.CREATE_UPDATE, "CN=SMP_1", 1000 + i));
+    assertEquals (103, aQueue.size ());
+    assertEquals (3, aQueue.size (EIndexerWorkItemPriority.INTERACTIVE));
+
+    // All interactive items are served within the next 4 items
+    int nInteractive = 0;
+    for (int i = 0; i < 4; ++i)
+      if (EIndexerWorkItemPriority.getPriorityOf ((IIndexerWorkItem) aQueue.take ()) ==
+          EIndexerWorkItemPriority.INTERACTIVE)
+        nInteractive++;
+    assertEquals (3, nInteractive);
+
+    // Signals come first
+    final Object aSignal = new Object ();
+    aQueue.addSignal (aSignal);
+    assertSame (aSignal, aQueue.poll (1, TimeUnit.MILLISECONDS));
+
+    assertEquals (99, aQueue.drainAll ().size ());
+    assertNull (aQueue.poll (1, TimeUnit.MILLISECONDS));
+  }
+}
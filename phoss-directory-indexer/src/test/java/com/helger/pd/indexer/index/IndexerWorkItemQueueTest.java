@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.ExecutorService;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link IndexerWorkItemQueue}.
+ *
+ * @author Philip Helger
+ */
+public final class IndexerWorkItemQueueTest
+{
+  @Test
+  public void testGetTargetWorkerCount ()
+  {
+    // Nothing measured yet
+    assertEquals (4, IndexerWorkItemQueue.getTargetWorkerCount (100_000, -1, 4, 32, 60));
+    // Empty queue
+    assertEquals (4, IndexerWorkItemQueue.getTargetWorkerCount (0, 500, 4, 32, 60));
+    // 1200 items at 500ms each need 600s of work - 10 workers for 60s
+    assertEquals (10, IndexerWorkItemQueue.getTargetWorkerCount (1200, 500, 4, 32, 60));
+    assertEquals (11, IndexerWorkItemQueue.getTargetWorkerCount (1201, 500, 4, 32, 60));
+    // Limited by the maximum
+    assertEquals (32, IndexerWorkItemQueue.getTargetWorkerCount (100_000, 500, 4, 32, 60));
+    // Fixed size
+    assertEquals (4, IndexerWorkItemQueue.getTargetWorkerCount (100_000, 500, 4, 4, 60));
+  }
+
+  @Test
+  public void testCreateVirtualThreadExecutor ()
+  {
+    final ExecutorService aExecutor = IndexerWorkItemQueue.createVirtualThreadExecutorOrNull ("test-vt-");
+    if (Runtime.version ().feature () >= 21)
+    {
+      assertNotNull (aExecutor);
+      aExecutor.shutdown ();
+    }
+    else
+      assertNull (aExecutor);
+  }
+}
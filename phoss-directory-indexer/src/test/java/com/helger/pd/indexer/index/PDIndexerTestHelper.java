@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.index;
+
+import java.time.LocalDateTime;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.peppolid.factory.PeppolIdentifierFactory;
+
+/**
+ * Factory methods for participant identifiers and indexer work items used by the tests.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class PDIndexerTestHelper
+{
+  /** The owner ID of all created work items, unless specified otherwise */
+  public static final String OWNER_ID = "owner";
+  /** The requesting host of all created work items */
+  public static final String REQUESTING_HOST = "localhost";
+
+  private PDIndexerTestHelper ()
+  {}
+
+  /**
+   * @param sValue
+   *        The participant ID value without the "9915:" prefix. May neither be <code>null</code>
+   *        nor empty.
+   * @return The participant identifier "9915:<i>value</i>" with the default scheme. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  public static IParticipantIdentifier createParticipantID (@NonNull @Nonempty final String sValue)
+  {
+    return PeppolIdentifierFactory.INSTANCE.createParticipantIdentifierWithDefaultScheme ("9915:" + sValue);
+  }
+
+  /**
+   * Create a work item with a new ID, created now.
+   *
+   * @param sParticipantValue
+   *        The participant ID value without the "9915:" prefix. May neither be <code>null</code>
+   *        nor empty.
+   * @param eType
+   *        The work item type. May not be <code>null</code>.
+   * @return The new work item. Never <code>null</code>.
+   */
+  @NonNull
+  public static IIndexerWorkItem createWorkItem (@NonNull @Nonempty final String sParticipantValue,
+                                                 @NonNull final EIndexerWorkItemType eType)
+  {
+    return new IndexerWorkItem (createParticipantID (sParticipantValue), eType, OWNER_ID, REQUESTING_HOST);
+  }
+
+  /**
+   * Create a work item with all details.
+   *
+   * @param sID
+   *        The work item ID. May neither be <code>null</code> nor empty.
+   * @param aCreationDT
+   *        The creation date time. May not be <code>null</code>.
+   * @param sParticipantValue
+   *        The participant ID value without the "9915:" prefix. May neither be <code>null</code>
+   *        nor empty.
+   * @param eType
+   *        The work item type. May not be <code>null</code>.
+   * @param sOwnerID
+   *        The owner ID. May neither be <code>null</code> nor empty.
+   * @return The new work item. Never <code>null</code>.
+   */
+  @NonNull
+  public static IIndexerWorkItem createWorkItem (@NonNull @Nonempty final String sID,
+                                                 @NonNull final LocalDateTime aCreationDT,
+                                                 @NonNull @Nonempty final String sParticipantValue,
+                                                 @NonNull final EIndexerWorkItemType eType,
+                                                 @NonNull @Nonempty final String sOwnerID)
+  {
+    return new IndexerWorkItem (sID,
+                                aCreationDT,
+                                createParticipantID (sParticipantValue),
+                                eType,
+                                sOwnerID,
+                                REQUESTING_HOST);
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.mgr;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.helger.pd.indexer.index.EIndexerWorkItemType;
+import com.helger.pd.indexer.index.IIndexerWorkItem;
+import com.helger.pd.indexer.index.PDIndexerTestHelper;
+
+/**
+ * Test class for class {@link PDParticipantWorkState}.
+ *
+ * @author Philip Helger
+ */
+public final class PDParticipantWorkStateTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final PDParticipantWorkState aEmpty = PDParticipantWorkState.EMPTY;
+    assertTrue (aEmpty.isEmpty ());
+    assertNull (aEmpty.getPending ());
+
+    final IIndexerWorkItem aWorkItem = PDIndexerTestHelper.createWorkItem ("test", EIndexerWorkItemType.CREATE_UPDATE);
+    final PDParticipantWorkState aState = aEmpty.getWithOpenType (aWorkItem.getType ()).getWithPending (aWorkItem);
+    assertFalse (aState.isEmpty ());
+    assertTrue (aState.isOpen (EIndexerWorkItemType.CREATE_UPDATE));
+    assertFalse (aState.isOpen (EIndexerWorkItemType.DELETE));
+    assertSame (aWorkItem, aState.getPending ());
+    // Immutable
+    assertTrue (aEmpty.isEmpty ());
+    assertSame (aState, aState.getWithPending (aWorkItem));
+
+    // Started but not yet finished
+    final PDParticipantWorkState aStarted = aState.getWithPending (null);
+    assertFalse (aStarted.isEmpty ());
+    assertNull (aStarted.getPending ());
+    assertTrue (aStarted.getWithoutOpenType (EIndexerWorkItemType.CREATE_UPDATE).isEmpty ());
+    assertSame (aEmpty, aEmpty.getWithoutOpenType (EIndexerWorkItemType.CREATE_UPDATE));
+  }
+
+  @Test
+  public void testRunningAndPendingOfSameType ()
+  {
+    final IIndexerWorkItem aWorkItem = PDIndexerTestHelper.createWorkItem ("test", EIndexerWorkItemType.CREATE_UPDATE);
+    // An older work item of the same type is running, while the new one is pending
+    final PDParticipantWorkState aState = PDParticipantWorkState.EMPTY.getWithOpenType (EIndexerWorkItemType.CREATE_UPDATE)
+                                                                      .getWithOpenType (EIndexerWorkItemType.CREATE_UPDATE)
+                                                                      .getWithPending (aWorkItem);
+    assertTrue (aState.isOpen (EIndexerWorkItemType.CREATE_UPDATE));
+
+    // The running one finished - the pending one is still open
+    final PDParticipantWorkState aFinished = aState.getWithoutOpenType (EIndexerWorkItemType.CREATE_UPDATE);
+    assertTrue (aFinished.isOpen (EIndexerWorkItemType.CREATE_UPDATE));
+    assertSame (aWorkItem, aFinished.getPending ());
+
+    // The pending one started and finished
+    final PDParticipantWorkState aAllDone = aFinished.getWithPending (null)
+                                                     .getWithoutOpenType (EIndexerWorkItemType.CREATE_UPDATE);
+    assertFalse (aAllDone.isOpen (EIndexerWorkItemType.CREATE_UPDATE));
+    assertTrue (aAllDone.isEmpty ());
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.reindex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link ReIndexRetryPolicy}.
+ *
+ * @author Philip Helger
+ */
+public final class ReIndexRetryPolicyTest
+{
+  @Test
+  public void testDelay ()
+  {
+    final ReIndexRetryPolicy aPolicy = new ReIndexRetryPolicy (5, 60, -1);
+
+    // Without jitter only the fixed half remains
+    assertEquals (150, aPolicy.getDelaySeconds (0, 0));
+    assertEquals (300, aPolicy.getDelaySeconds (1, 0));
+    assertEquals (600, aPolicy.getDelaySeconds (2, 0));
+    assertEquals (1200, aPolicy.getDelaySeconds (3, 0));
+    // Capped at the maximum delay
+    assertEquals (1800, aPolicy.getDelaySeconds (4, 0));
+    assertEquals (1800, aPolicy.getDelaySeconds (100, 0));
+
+    // Maximum jitter
+    assertEquals (299, aPolicy.getDelaySeconds (0, 0.999));
+    assertEquals (3598, aPolicy.getDelaySeconds (100, 0.999));
+
+    // Always in the range
+    final LocalDateTime aBase = LocalDateTime.of (2026, 1, 1, 12, 0);
+    for (int i = 0; i < 100; ++i)
+    {
+      final LocalDateTime aNext = aPolicy.getNextRetryDT (aBase, 1);
+      assertTrue (!aNext.isBefore (aBase.plusMinutes (5)));
+      assertTrue (aNext.isBefore (aBase.plusMinutes (10)));
+    }
+  }
+
+  @Test
+  public void testRetryAllowed ()
+  {
+    ReIndexRetryPolicy aPolicy = new ReIndexRetryPolicy (1, 1, -1);
+    assertTrue (aPolicy.isRetryAllowed (0));
+    assertTrue (aPolicy.isRetryAllowed (1000));
+
+    aPolicy = new ReIndexRetryPolicy (1, 1, 2);
+    assertTrue (aPolicy.isRetryAllowed (0));
+    assertTrue (aPolicy.isRetryAllowed (1));
+    assertFalse (aPolicy.isRetryAllowed (2));
+
+    aPolicy = new ReIndexRetryPolicy (1, 1, 0);
+    assertFalse (aPolicy.isRetryAllowed (0));
+  }
+}
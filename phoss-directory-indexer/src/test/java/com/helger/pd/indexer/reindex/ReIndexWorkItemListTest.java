@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.reindex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.dao.DAOException;
+import com.helger.pd.indexer.index.EIndexerFailureClass;
+import com.helger.pd.indexer.index.EIndexerWorkItemType;
+import com.helger.pd.indexer.index.PDIndexerTestHelper;
+import com.helger.photon.app.mock.PhotonAppWebTestRule;
+
+/**
+ * Test class for class {@link ReIndexWorkItemList}.
+ *
+ * @author Philip Helger
+ */
+public final class ReIndexWorkItemListTest
+{
+  private static final LocalDateTime BASE = LocalDateTime.of (2026, 1, 1, 12, 0);
+
+  @Rule
+  public final TestRule m_aRule = new PhotonAppWebTestRule ();
+
+  @NonNull
+  private static ReIndexWorkItem _item (@NonNull final String sParticipant,
+                                        @NonNull final EIndexerWorkItemType eType,
+                                        final int nNextRetryMinutes,
+                                        final int nMaxRetryMinutes)
+  {
+    return new ReIndexWorkItem (PDIndexerTestHelper.createWorkItem (sParticipant, eType),
+                                BASE.plusMinutes (nMaxRetryMinutes),
+                                0,
+                                null,
+                                BASE.plusMinutes (nNextRetryMinutes),
+                                EIndexerFailureClass.OTHER,
+                                new CommonsArrayList <> ());
+  }
+
+  @Test
+  public void testIndexes () throws DAOException
+  {
+    final ReIndexWorkItemList aList = new ReIndexWorkItemList (null);
+    final ReIndexWorkItem aA = _item ("a", EIndexerWorkItemType.CREATE_UPDATE, 30, 60);
+    final ReIndexWorkItem aB = _item ("b", EIndexerWorkItemType.CREATE_UPDATE, 10, 120);
+    final ReIndexWorkItem aB2 = _item ("b", EIndexerWorkItemType.SYNC, 20, 30);
+    final ReIndexWorkItem aC = _item ("c", EIndexerWorkItemType.DELETE, 40, 10);
+    aList.addItem (aA, false);
+    aList.addItem (aB, false);
+    aList.addItem (aB2, false);
+    aList.addItem (aC, false);
+    assertEquals (4, aList.getItemCount ());
+
+    // Lookup by work item
+    assertNull (aList.getAndRemoveEntryOfWorkItem (_item ("a", EIndexerWorkItemType.DELETE, 0, 0).getWorkItem ()));
+    assertNotNull (aList.getAndRemoveEntryOfWorkItem (_item ("a",
+                                                             EIndexerWorkItemType.CREATE_UPDATE,
+                                                             0,
+                                                             0).getWorkItem ()));
+    assertEquals (3, aList.getItemCount ());
+
+    // Ordered by next retry
+    ICommonsList <IReIndexWorkItem> aRemoved = aList.getAndRemoveAllRetryableEntries (BASE.plusMinutes (25));
+    assertEquals (2, aRemoved.size ());
+    assertEquals (aB, aRemoved.get (0));
+    assertEquals (aB2, aRemoved.get (1));
+    assertEquals (1, aList.getItemCount ());
+
+    aList.addItem (aB, false);
+    aList.addItem (aB2, false);
+
+    // Ordered by max retry
+    aRemoved = aList.getAndRemoveAllExpiredEntries (BASE.plusMinutes (35));
+    assertEquals (2, aRemoved.size ());
+    assertEquals (aC, aRemoved.get (0));
+    assertEquals (aB2, aRemoved.get (1));
+
+    // By participant
+    aRemoved = aList.getAndRemoveAllEntriesOfParticipant (aB.getWorkItem ().getParticipantID (),
+                                                          x -> x.getWorkItem ().getType () ==
+                                                               EIndexerWorkItemType.CREATE_UPDATE);
+    assertEquals (1, aRemoved.size ());
+    assertTrue (aList.getAllItems ().isEmpty ());
+    assertTrue (aList.getAndRemoveAllRetryableEntries (BASE.plusDays (1)).isEmpty ());
+  }
+}
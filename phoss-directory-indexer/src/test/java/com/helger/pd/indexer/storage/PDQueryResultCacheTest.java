@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.pd.indexer.searchindex.query.EPDIndexQueryOccur;
+import com.helger.pd.indexer.searchindex.query.PDIndexQueryBool;
+import com.helger.pd.indexer.searchindex.query.PDIndexQueryContains;
+import com.helger.pd.indexer.searchindex.query.PDIndexQueryMatchAll;
+import com.helger.pd.indexer.searchindex.query.PDIndexQueryPrefix;
+import com.helger.pd.indexer.searchindex.query.PDIndexQueryTerm;
+
+/**
+ * Test class for class {@link PDQueryResultCache}.
+ *
+ * @author Philip Helger
+ */
+public final class PDQueryResultCacheTest
+{
+  @Test
+  public void testHitsAndGenerations () throws IOException
+  {
+    final PDQueryResultCache aCache = new PDQueryResultCache (10);
+    assertEquals ("a", aCache.getOrCompute ("k", 1, () -> "a", x -> 1));
+    assertEquals (0, aCache.getHitCount ());
+    assertEquals (1, aCache.getMissCount ());
+
+    // Same generation - cached
+    assertEquals ("a", aCache.getOrCompute ("k", 1, () -> "b", x -> 1));
+    assertEquals (1, aCache.getHitCount ());
+
+    // New generation - recomputed
+    assertEquals ("c", aCache.getOrCompute ("k", 2, () -> "c", x -> 1));
+    assertEquals (1, aCache.getInvalidationCount ());
+    assertEquals (2, aCache.getGeneration ());
+
+    // Outdated generation - computed but never cached
+    assertEquals ("d", aCache.getOrCompute ("x", 1, () -> "d", x -> 1));
+    assertEquals (1, aCache.getSize ());
+
+    // No generation - bypasses the cache
+    assertEquals ("e", aCache.getOrCompute ("k", -1, () -> "e", x -> 1));
+    assertEquals (1, aCache.getHitCount ());
+  }
+
+  @Test
+  public void testEviction () throws IOException
+  {
+    final PDQueryResultCache aCache = new PDQueryResultCache (10);
+    aCache.getOrCompute ("a", 1, () -> "a", x -> 4);
+    aCache.getOrCompute ("b", 1, () -> "b", x -> 4);
+    // Touch "a" so that "b" is the least recently used one
+    aCache.getOrCompute ("a", 1, () -> "a", x -> 4);
+    aCache.getOrCompute ("c", 1, () -> "c", x -> 4);
+    assertEquals (1, aCache.getEvictionCount ());
+    assertEquals (8, aCache.getWeight ());
+    assertEquals ("a", aCache.getOrCompute ("a", 1, () -> "x", x -> 4));
+    assertEquals ("x", aCache.getOrCompute ("b", 1, () -> "x", x -> 4));
+
+    // Too heavy to be cached at all
+    aCache.getOrCompute ("d", 1, () -> "d", x -> 11);
+    assertEquals ("y", aCache.getOrCompute ("d", 1, () -> "y", x -> 11));
+
+    // Disabled cache
+    final PDQueryResultCache aDisabled = new PDQueryResultCache (0);
+    assertFalse (aDisabled.isEnabled ());
+    aDisabled.getOrCompute ("a", 1, () -> "a", x -> 1);
+    assertEquals ("b", aDisabled.getOrCompute ("a", 1, () -> "b", x -> 1));
+    assertEquals (0, aDisabled.getSize ());
+  }
+
+  @Test
+  public void testCopies () throws IOException
+  {
+    final PDQueryResultCache aCache = new PDQueryResultCache (10);
+    final ICommonsList <String> aComputed = aCache.getOrCompute ("k",
+                                                                 1,
+                                                                 () -> new CommonsArrayList <> ("a"),
+                                                                 x -> 1,
+                                                                 ICommonsList::getClone);
+    // Modifying the returned result must not modify the cached one
+    aComputed.add ("b");
+    final ICommonsList <String> aCached = aCache.getOrCompute ("k",
+                                                               1,
+                                                               () -> new CommonsArrayList <> ("x"),
+                                                               x -> 1,
+                                                               ICommonsList::getClone);
+    assertEquals (new CommonsArrayList <> ("a"), aCached);
+    assertEquals (1, aCache.getHitCount ());
+
+    // Each caller gets its own copy
+    aCached.add ("c");
+    assertNotSame (aCached, aCache.getOrCompute ("k", 1, () -> null, x -> 1, ICommonsList::getClone));
+    assertEquals (new CommonsArrayList <> ("a"),
+                  aCache.getOrCompute ("k", 1, () -> null, x -> 1, ICommonsList::getClone));
+  }
+
+  @Test
+  public void testCanonicalForm ()
+  {
+    final PDIndexQueryTerm aQ1 = new PDIndexQueryTerm ("a", "1");
+    final PDIndexQueryTerm aQ2 = new PDIndexQueryTerm ("b", "2");
+    assertEquals (PDQueryResultCache.getCanonicalForm (new PDIndexQueryBool.Builder ().add (aQ1,
+                                                                                          EPDIndexQueryOccur.MUST)
+                                                                                     .add (aQ2,
+                                                                                           EPDIndexQueryOccur.SHOULD)
+                                                                                     .build ()),
+                  PDQueryResultCache.getCanonicalForm (new PDIndexQueryBool.Builder ().add (aQ2,
+                                                                                          EPDIndexQueryOccur.SHOULD)
+                                                                                     .add (aQ1,
+                                                                                           EPDIndexQueryOccur.MUST)
+                                                                                     .build ()));
+    assertNotEquals (PDQueryResultCache.getCanonicalForm (new PDIndexQueryBool.Builder ().add (aQ1,
+                                                                                             EPDIndexQueryOccur.MUST)
+                                                                                        .add (aQ2,
+                                                                                              EPDIndexQueryOccur.SHOULD)
+                                                                                        .build ()),
+                     PDQueryResultCache.getCanonicalForm (new PDIndexQueryBool.Builder ().add (aQ1,
+                                                                                             EPDIndexQueryOccur.SHOULD)
+                                                                                        .add (aQ2,
+                                                                                              EPDIndexQueryOccur.MUST)
+                                                                                        .build ()));
+
+    // Same textual representation, but different queries
+    assertNotEquals (PDQueryResultCache.getCanonicalForm (new PDIndexQueryTerm ("name", "acme*")),
+                     PDQueryResultCache.getCanonicalForm (new PDIndexQueryPrefix ("name", "acme")));
+    assertNotEquals (PDQueryResultCache.getCanonicalForm (new PDIndexQueryPrefix ("name", "acme")),
+                     PDQueryResultCache.getCanonicalForm (new PDIndexQueryContains ("name", "acme")));
+    assertNotEquals (PDQueryResultCache.getCanonicalForm (PDIndexQueryMatchAll.INSTANCE),
+                     PDQueryResultCache.getCanonicalForm (new PDIndexQueryTerm ("*", "*")));
+    // Separators in field names and values are escaped
+    assertNotEquals (PDQueryResultCache.getCanonicalForm (new PDIndexQueryTerm ("a|b", "c")),
+                     PDQueryResultCache.getCanonicalForm (new PDIndexQueryTerm ("a", "b|c")));
+    assertNotEquals (PDQueryResultCache.getCanonicalForm (new PDIndexQueryBool.Builder ().add (new PDIndexQueryTerm ("a",
+                                                                                                                    "1,SHOULD|term|b|2"),
+                                                                                             EPDIndexQueryOccur.SHOULD)
+                                                                                        .build ()),
+                     PDQueryResultCache.getCanonicalForm (new PDIndexQueryBool.Builder ().add (new PDIndexQueryTerm ("a",
+                                                                                                                    "1"),
+                                                                                             EPDIndexQueryOccur.SHOULD)
+                                                                                        .add (new PDIndexQueryTerm ("b",
+                                                                                                                    "2"),
+                                                                                              EPDIndexQueryOccur.SHOULD)
+                                                                                        .build ()));
+  }
+}
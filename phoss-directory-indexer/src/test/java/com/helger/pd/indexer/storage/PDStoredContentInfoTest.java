@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2015-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.pd.indexer.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.time.LocalDateTime;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.pd.indexer.businesscard.PDBusinessCardValidators;
+import com.helger.pd.indexer.businesscard.PDExtendedBusinessCard;
+import com.helger.peppol.businesscard.generic.PDBusinessCard;
+import com.helger.peppol.businesscard.generic.PDBusinessEntity;
+import com.helger.peppol.businesscard.generic.PDIdentifier;
+import com.helger.peppol.businesscard.generic.PDName;
+import com.helger.peppolid.IDocumentTypeIdentifier;
+import com.helger.peppolid.factory.PeppolIdentifierFactory;
+import com.helger.peppolid.peppol.PeppolIdentifierHelper;
+
+/**
+ * Test class for class {@link PDStoredContentInfo}.
+ *
+ * @author Philip Helger
+ */
+public final class PDStoredContentInfoTest
+{
+  @NonNull
+  private static PDBusinessCard _createBC (@NonNull final String sName)
+  {
+    final PDBusinessCard aBC = new PDBusinessCard ();
+    aBC.setParticipantIdentifier (new PDIdentifier (PeppolIdentifierHelper.DEFAULT_PARTICIPANT_SCHEME, "9915:test"));
+    final PDBusinessEntity aEntity = new PDBusinessEntity ();
+    aEntity.names ().add (new PDName (sName));
+    aEntity.setCountryCode ("AT");
+    aBC.businessEntities ().add (aEntity);
+    return aBC;
+  }
+
+  @NonNull
+  private static IDocumentTypeIdentifier _docType (@NonNull final String sValue)
+  {
+    return PeppolIdentifierFactory.INSTANCE.createDocumentTypeIdentifierWithDefaultScheme (sValue);
+  }
+
+  @Test
+  public void testContentHash ()
+  {
+    final String sBCHash = PDStoredContentInfo.getBusinessCardHash (_createBC ("Test"));
+    assertEquals (sBCHash, PDStoredContentInfo.getBusinessCardHash (_createBC ("Test")));
+    assertNotEquals (sBCHash, PDStoredContentInfo.getBusinessCardHash (_createBC ("Test2")));
+
+    final String sHash = PDStoredContentInfo.getContentHash (sBCHash,
+                                                             new CommonsArrayList <> (_docType ("a"), _docType ("b")),
+                                                             "owner");
+    // The order of the document types is irrelevant
+    assertEquals (sHash,
+                  PDStoredContentInfo.getContentHash (sBCHash,
+                                                      new CommonsArrayList <> (_docType ("b"), _docType ("a")),
+                                                      "owner"));
+    assertNotEquals (sHash,
+                     PDStoredContentInfo.getContentHash (sBCHash,
+                                                         new CommonsArrayList <> (_docType ("a")),
+                                                         "owner"));
+    assertNotEquals (sHash,
+                     PDStoredContentInfo.getContentHash (sBCHash,
+                                                         new CommonsArrayList <> (_docType ("a"), _docType ("b")),
+                                                         "owner2"));
+  }
+
+  @Test
+  public void testCreate ()
+  {
+    final PDStoredMetaData aMetaData = new PDStoredMetaData (LocalDateTime.now (), "owner", "localhost");
+    PDStoredContentInfo aInfo = PDStoredContentInfo.create (new PDExtendedBusinessCard (_createBC ("Test"),
+                                                                                        new CommonsArrayList <> (_docType ("a"))),
+                                                            aMetaData);
+    assertEquals (PDStoredContentInfo.getBusinessCardHash (_createBC ("Test")), aInfo.getBusinessCardHash ());
+    assertNull (aInfo.getValidators ());
+
+    aInfo = PDStoredContentInfo.create (new PDExtendedBusinessCard (_createBC ("Test"),
+                                                                    new CommonsArrayList <> (_docType ("a")),
+                                                                    new PDBusinessCardValidators ("\"abc\"", null)),
+                                        aMetaData);
+    assertNotNull (aInfo.getValidators ());
+    assertEquals ("\"abc\"", aInfo.getValidators ().getETag ());
+  }
+}
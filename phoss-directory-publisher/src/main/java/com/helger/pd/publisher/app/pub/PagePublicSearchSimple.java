@@ -43,6 +43,7 @@ import com.helger.html.hc.html.grouping.HCOL;
 import com.helger.html.hc.html.grouping.HCUL;
 import com.helger.html.hc.impl.HCNodeList;
 import com.helger.pd.indexer.mgr.PDMetaManager;
+import com.helger.pd.indexer.searchindex.PDIndexSearchResult;
 import com.helger.pd.indexer.searchindex.query.IPDIndexQuery;
 import com.helger.pd.indexer.settings.PDServerConfiguration;
 import com.helger.pd.indexer.storage.CPDStorage;
@@ -182,11 +183,11 @@ public final class PagePublicSearchSimple extends AbstractPagePublicSearch
 
     PDSessionSingleton.getInstance ().setLastQuery (aIndexQuery);
 
-    // Search all documents
-    final ICommonsList <PDStoredBusinessEntity> aResultBEs = aStorageMgr.getAllDocuments (aIndexQuery, nMaxResults);
-    // Also get the total hit count for UI display. May be < 0 in case of
-    // error
-    final int nTotalBEs = aStorageMgr.getCount (aIndexQuery);
+    // Search the top documents and the total hit count in one go
+    final PDIndexSearchResult <PDStoredBusinessEntity> aResult = aStorageMgr.searchDocuments (aIndexQuery, 0, nMaxResults);
+    final ICommonsList <PDStoredBusinessEntity> aResultBEs = aResult.getAllHits ();
+    // The total hit count for UI display. May be < 0 in case of error
+    final int nTotalBEs = aResult.getTotalHitCount ();
     LOGGER.info ("  Result for <" +
                  aIndexQuery +
                  "> (max=" +
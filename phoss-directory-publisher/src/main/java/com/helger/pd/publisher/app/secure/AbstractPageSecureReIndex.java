@@ -238,6 +238,8 @@ public abstract class AbstractPageSecureReIndex extends AbstractAppWebPageForm <
                                                      .setCtrl (code (aWorkItem.getRequestingHost ())));
     aViewForm.addFormGroup (new BootstrapFormGroup ().setLabel ("Retries so far")
                                                      .setCtrl (Integer.toString (aSelectedObject.getRetryCount ())));
+    aViewForm.addFormGroup (new BootstrapFormGroup ().setLabel ("Failure class")
+                                                     .setCtrl (aSelectedObject.getFailureClass ().getDisplayName ()));
     if (aSelectedObject.hasPreviousRetryDT ())
       aViewForm.addFormGroup (new BootstrapFormGroup ().setLabel ("Previous retry")
                                                        .setCtrl (PDTToString.getAsString (aSelectedObject.getPreviousRetryDT (),
@@ -299,6 +301,7 @@ public abstract class AbstractPageSecureReIndex extends AbstractAppWebPageForm <
                                         new DTCol ("Participant"),
                                         new DTCol ("Action"),
                                         new DTCol ("Retries").setDisplayType (EDTColType.INT, aDisplayLocale),
+                                        new DTCol ("Failure class"),
                                         m_bDeadIndex ? null : new DTCol ("Next retry").setDisplayType (
                                                                                                        EDTColType.DATETIME,
                                                                                                        aDisplayLocale),
@@ -316,6 +319,7 @@ public abstract class AbstractPageSecureReIndex extends AbstractAppWebPageForm <
       aRow.addCell (aWorkItem.getParticipantID ().getURIEncoded ());
       aRow.addCell (aWorkItem.getType ().getDisplayName ());
       aRow.addCell (Integer.toString (aItem.getRetryCount ()));
+      aRow.addCell (aItem.getFailureClass ().getDisplayName ());
       if (!m_bDeadIndex)
         aRow.addCell (PDTToString.getAsString (aItem.getNextRetryDT (), aDisplayLocale));
       aRow.addCell (PDTToString.getAsString (aItem.getMaxRetryDT (), aDisplayLocale));
@@ -26,6 +26,7 @@ import com.helger.base.rt.StackTraceHelper;
 import com.helger.html.hc.ext.HCExtHelper;
 import com.helger.html.hc.impl.HCNodeList;
 import com.helger.pd.indexer.mgr.PDMetaManager;
+import com.helger.pd.indexer.storage.PDQueryResultCache;
 import com.helger.pd.publisher.ui.AbstractAppWebPage;
 import com.helger.photon.bootstrap5.table.BootstrapTable;
 import com.helger.photon.uicore.page.WebPageExecutionContext;
@@ -61,5 +62,25 @@ public final class PageSecureAdminLuceneInformation extends AbstractAppWebPage
             .addCell (HCExtHelper.nl2divList (ex.getClass ().getName () + "\n" + StackTraceHelper.getStackAsString (ex)));
     }
     aNodeList.addChild (aTable);
+
+    // The query result cache is independent of the search index implementation
+    final PDQueryResultCache aCache = PDMetaManager.getStorageMgr ().getResultCache ();
+    aNodeList.addChild (h3 ("Query result cache"));
+    final BootstrapTable aCacheTable = new BootstrapTable ();
+    if (aCache.isEnabled ())
+    {
+      aCacheTable.addBodyRow ().addCells ("Cached results", Integer.toString (aCache.getSize ()));
+      aCacheTable.addBodyRow ()
+                 .addCells ("Cached business entities",
+                            aCache.getWeight () + " of maximum " + aCache.getMaxWeight ());
+      aCacheTable.addBodyRow ().addCells ("Search generation", Long.toString (aCache.getGeneration ()));
+      aCacheTable.addBodyRow ().addCells ("Hits", Long.toString (aCache.getHitCount ()));
+      aCacheTable.addBodyRow ().addCells ("Misses", Long.toString (aCache.getMissCount ()));
+      aCacheTable.addBodyRow ().addCells ("Evictions", Long.toString (aCache.getEvictionCount ()));
+      aCacheTable.addBodyRow ().addCells ("Invalidations", Long.toString (aCache.getInvalidationCount ()));
+    }
+    else
+      aCacheTable.addBodyRow ().addCells ("Status", "disabled");
+    aNodeList.addChild (aCacheTable);
   }
 }
@@ -17,17 +17,26 @@
 package com.helger.pd.publisher.app.secure;
 
 import java.util.Locale;
-import java.util.concurrent.LinkedBlockingQueue;
 
+import org.apache.hc.core5.pool.PoolStats;
 import org.jspecify.annotations.NonNull;
 
 import com.helger.annotation.Nonempty;
 import com.helger.base.compare.ESortOrder;
+import com.helger.collection.commons.ICommonsList;
 import com.helger.datetime.format.PDTToString;
 import com.helger.datetime.helper.PDTFactory;
 import com.helger.html.hc.html.tabular.HCRow;
 import com.helger.html.hc.impl.HCNodeList;
+import com.helger.pd.indexer.businesscard.PDCachingSMPURLProvider;
+import com.helger.pd.indexer.businesscard.PDSMPHttpClient;
+import com.helger.pd.indexer.businesscard.SMPBusinessCardProvider;
+import com.helger.pd.indexer.index.EIndexerWorkItemPriority;
 import com.helger.pd.indexer.index.IIndexerWorkItem;
+import com.helger.pd.indexer.index.IndexerSMPHostLimiter;
+import com.helger.pd.indexer.index.IndexerWorkItemJournal;
+import com.helger.pd.indexer.index.IndexerWorkItemPriorityQueue;
+import com.helger.pd.indexer.index.IndexerWorkItemQueue;
 import com.helger.pd.indexer.mgr.PDMetaManager;
 import com.helger.pd.publisher.ui.AbstractAppWebPage;
 import com.helger.pd.publisher.ui.PDCommonUI;
@@ -64,9 +73,117 @@ public final class PageSecureListIndex extends AbstractAppWebPage
                                                                                                                       PDCommonUI.CSS_CLASS_VERTICAL_PADDED_TEXT));
     }
 
-    final LinkedBlockingQueue <Object> aQueue = PDMetaManager.getIndexerMgr ()
-                                                             .getIndexerWorkQueue ()
-                                                             .internalGetQueue ();
+    final IndexerWorkItemQueue aWorkQueue = PDMetaManager.getIndexerMgr ().getIndexerWorkQueue ();
+
+    // Worker pool
+    {
+      final BootstrapTable aPoolTable = new BootstrapTable ();
+      if (aWorkQueue.isVirtualThreads ())
+        aPoolTable.addBodyRow ()
+                  .addCells ("Workers", "virtual threads with at most " + aWorkQueue.getMaxInFlightCount () + " in flight");
+      else
+        aPoolTable.addBodyRow ()
+                  .addCells ("Workers",
+                             aWorkQueue.isElastic () ? aWorkQueue.getWorkerCount () +
+                                                       " (elastic between " +
+                                                       aWorkQueue.getMinWorkerCount () +
+                                                       " and " +
+                                                       aWorkQueue.getMaxWorkerCount () +
+                                                       ")"
+                                                     : Integer.toString (aWorkQueue.getWorkerCount ()));
+      aPoolTable.addBodyRow ().addCells ("Active workers", Integer.toString (aWorkQueue.getActiveWorkerCount ()));
+      aPoolTable.addBodyRow ().addCells ("Peak workers", Integer.toString (aWorkQueue.getPeakWorkerCount ()));
+      aPoolTable.addBodyRow ().addCells ("Processed items", Long.toString (aWorkQueue.getProcessedItemCount ()));
+      aPoolTable.addBodyRow ()
+                .addCells ("Coalesced items",
+                           Long.toString (PDMetaManager.getIndexerMgr ().getCoalescedItemCount ()));
+      aPoolTable.addBodyRow ()
+                .addCells ("Unchanged items",
+                           Long.toString (PDMetaManager.getIndexerMgr ().getUnchangedItemCount ()));
+      aPoolTable.addBodyRow ()
+                .addCells ("Carried over re-index items",
+                           Long.toString (PDMetaManager.getIndexerMgr ().getCarriedOverReIndexItemCount ()));
+      final IndexerWorkItemJournal aJournal = PDMetaManager.getIndexerMgr ().getJournal ();
+      if (aJournal != null)
+        aPoolTable.addBodyRow ()
+                  .addCells ("Write-ahead log",
+                             aJournal.getOpenItemCount () +
+                                                 " open items, " +
+                                                 aJournal.getRecordCount () +
+                                                 " records in " +
+                                                 aJournal.getSyncCount () +
+                                                 (aJournal.isFsync () ? " fsyncs, " : " writes, ") +
+                                                 aJournal.getSegmentCount () +
+                                                 " segment(s)");
+      if (PDMetaManager.getBusinessCardProviderOrNull () instanceof final SMPBusinessCardProvider aSMPBCProvider)
+      {
+        final PDSMPHttpClient aHttpClient = aSMPBCProvider.getHttpClient ();
+        final PoolStats aPoolStats = aHttpClient.getTotalStats ();
+        aPoolTable.addBodyRow ()
+                  .addCells ("SMP HTTP connections",
+                             aPoolStats.getLeased () +
+                                                       " leased, " +
+                                                       aPoolStats.getAvailable () +
+                                                       " available, " +
+                                                       aPoolStats.getPending () +
+                                                       " pending (max " +
+                                                       aPoolStats.getMax () +
+                                                       ") for " +
+                                                       aHttpClient.getRouteCount () +
+                                                       " SMP host(s)");
+        final PDCachingSMPURLProvider aURLProvider = aSMPBCProvider.getURLProvider ();
+        aPoolTable.addBodyRow ()
+                  .addCells ("SMP DNS cache",
+                             aURLProvider.getEntryCount () +
+                                                " entries, " +
+                                                aURLProvider.getNegativeEntryCount () +
+                                                " negative entries, " +
+                                                aURLProvider.getHitCount () +
+                                                " hits, " +
+                                                aURLProvider.getNegativeHitCount () +
+                                                " negative hits, " +
+                                                aURLProvider.getMissCount () +
+                                                " misses");
+      }
+      final double dAvgMillis = aWorkQueue.getAverageProcessingMillis ();
+      aPoolTable.addBodyRow ()
+                .addCells ("Average processing time", dAvgMillis < 0 ? "n/a" : Math.round (dAvgMillis) + " ms");
+      // Priority lanes
+      final IndexerWorkItemPriorityQueue aPrioQueue = aWorkQueue.internalGetQueue ();
+      for (final EIndexerWorkItemPriority ePriority : EIndexerWorkItemPriority.values ())
+        aPoolTable.addBodyRow ()
+                  .addCells ("Queued " + ePriority.getDisplayName () + " entries",
+                             aPrioQueue.size (ePriority) + " (weight " + aPrioQueue.getWeight (ePriority) + ")");
+      aNodeList.addChild (aPoolTable);
+    }
+
+    // Concurrency per SMP host
+    final IndexerSMPHostLimiter aHostLimiter = aWorkQueue.getHostLimiter ();
+    if (aHostLimiter != null)
+    {
+      final ICommonsList <IndexerSMPHostLimiter.HostStatus> aHosts = aHostLimiter.getAllHostStatus ();
+      aNodeList.addChild (info ("At most " +
+                                aHostLimiter.getMaxPerHost () +
+                                " entries are processed at the same time per SMP host. " +
+                                aHostLimiter.getParkedCount () +
+                                " entries are waiting for a busy SMP host."));
+      if (aHosts.isNotEmpty ())
+      {
+        final BootstrapTable aHostTable = new BootstrapTable (new DTCol ("SMP host").setInitialSorting (ESortOrder.ASCENDING),
+                                                              new DTCol ("In flight").setDisplayType (EDTColType.INT,
+                                                                                                      aDisplayLocale),
+                                                              new DTCol ("Waiting").setDisplayType (EDTColType.INT,
+                                                                                                    aDisplayLocale)).setID ("smphosts");
+        for (final IndexerSMPHostLimiter.HostStatus aHost : aHosts)
+          aHostTable.addBodyRow ()
+                    .addCells (aHost.getHost (),
+                               Integer.toString (aHost.getInFlightCount ()),
+                               Integer.toString (aHost.getParkedCount ()));
+        aNodeList.addChild (aHostTable).addChild (BootstrapDataTables.createDefaultDataTables (aWPEC, aHostTable));
+      }
+    }
+
+    final ICommonsList <IIndexerWorkItem> aQueue = aWorkQueue.getAllQueuedItems ();
     final int nLength = aQueue.size ();
     if (nLength == 0)
     {
@@ -81,18 +198,19 @@ public final class PageSecureListIndex extends AbstractAppWebPage
                                                                                      .setInitialSorting (ESortOrder.DESCENDING),
                                                         new DTCol ("Participant ID"),
                                                         new DTCol ("Action"),
+                                                        new DTCol ("Priority"),
                                                         new DTCol ("Owner"),
                                                         new DTCol ("Requestor")).setID ("indexqueue");
-      for (final Object o : aQueue)
-        if (o instanceof final IIndexerWorkItem aObj)
-        {
-          final HCRow aRow = aTable.addBodyRow ();
-          aRow.addCell (PDTToString.getAsString (aObj.getCreationDateTime (), aDisplayLocale));
-          aRow.addCell (aObj.getParticipantID ().getURIEncoded ());
-          aRow.addCell (aObj.getType ().getDisplayName ());
-          aRow.addCell (aObj.getOwnerID ());
-          aRow.addCell (aObj.getRequestingHost ());
-        }
+      for (final IIndexerWorkItem aObj : aQueue)
+      {
+        final HCRow aRow = aTable.addBodyRow ();
+        aRow.addCell (PDTToString.getAsString (aObj.getCreationDateTime (), aDisplayLocale));
+        aRow.addCell (aObj.getParticipantID ().getURIEncoded ());
+        aRow.addCell (aObj.getType ().getDisplayName ());
+        aRow.addCell (EIndexerWorkItemPriority.getPriorityOf (aObj).getDisplayName ());
+        aRow.addCell (aObj.getOwnerID ());
+        aRow.addCell (aObj.getRequestingHost ());
+      }
       aNodeList.addChild (aTable).addChild (BootstrapDataTables.createDefaultDataTables (aWPEC, aTable));
     }
   }
@@ -117,7 +117,11 @@ public final class PageSecureParticipantActions extends AbstractAppWebPage
       final IMicroElement aRoot = aDoc.addElement ("root");
       final MutableInt aCount = new MutableInt (0);
       final ICommonsSet <IParticipantIdentifier> aUniquePIDs = new CommonsHashSet <> ();
-      PDMetaManager.getStorageMgr ().searchAll (PDIndexQueryMatchAll.INSTANCE, -1, doc -> {
+      final ICommonsSet <String> aFieldsToLoad = PDField.getAllFieldNames (PDField.PARTICIPANT_ID,
+                                                                          PDField.METADATA_CREATIONDT,
+                                                                          PDField.METADATA_OWNERID,
+                                                                          PDField.METADATA_REQUESTING_HOST);
+      PDMetaManager.getStorageMgr ().searchAll (PDIndexQueryMatchAll.INSTANCE, -1, aFieldsToLoad, doc -> {
         final int n = aCount.inc ();
         if ((n % 1000) == 0)
           LOGGER.info ("Exporting #" + n);
@@ -163,7 +167,8 @@ public final class PageSecureParticipantActions extends AbstractAppWebPage
         final String sParticipantID = PDField.PARTICIPANT_ID.getDocField (aDoc).getStringValue ();
         aMap.computeIfAbsent (aResolvedParticipantID, k -> new CommonsTreeSet <> ()).add (sParticipantID);
       };
-      PDMetaManager.getStorageMgr ().searchAll (aQuery, -1, aConsumer);
+      // Only the participant ID is needed
+      PDMetaManager.getStorageMgr ().searchAll (aQuery, -1, PDField.getAllFieldNames (PDField.PARTICIPANT_ID), aConsumer);
     }
     catch (final IOException ex)
     {
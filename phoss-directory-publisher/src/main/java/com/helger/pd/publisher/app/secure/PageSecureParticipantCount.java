@@ -53,7 +53,7 @@ public final class PageSecureParticipantCount extends AbstractAppWebPage
     final int nNotDeletedCount = PDMetaManager.getStorageMgr ().getContainedParticipantCount ();
     aNodeList.addChild (h3 (nNotDeletedCount + " participants (entities) are contained"));
 
-    final int nIndexCount = PDMetaManager.getIndexerMgr ().getIndexerWorkQueue ().internalGetQueue ().size ();
+    final int nIndexCount = PDMetaManager.getIndexerMgr ().getIndexerWorkQueue ().getQueueLength ();
     aNodeList.addChild (h3 (nIndexCount + " index items are contained"));
 
     final int nReIndexCount = PDMetaManager.getIndexerMgr ().getReIndexList ().getItemCount ();
@@ -56,7 +56,6 @@ import com.helger.mime.CMimeType;
 import com.helger.mime.IMimeType;
 import com.helger.pd.indexer.mgr.PDMetaManager;
 import com.helger.pd.indexer.searchindex.query.IPDIndexQuery;
-import com.helger.pd.indexer.searchindex.query.PDIndexQueryMatchAll;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryTerm;
 import com.helger.pd.indexer.settings.PDServerConfiguration;
 import com.helger.pd.indexer.storage.PDStorageManager;
@@ -189,8 +188,10 @@ public final class ExportAllManager
   static ICommonsSortedSet <String> getAllStoredParticipantIDs () throws IOException
   {
     final ICommonsSortedSet <String> ret = new CommonsTreeSet <> ();
-    PDMetaManager.getStorageMgr ().searchAll (PDIndexQueryMatchAll.INSTANCE, -1, doc -> {
-      final IParticipantIdentifier aPID = PDField.PARTICIPANT_ID.getDocValue (doc);
+    final IIdentifierFactory aIF = PDMetaManager.getIdentifierFactory ();
+    // Only the distinct participant IDs are needed - no document needs to be loaded
+    PDMetaManager.getStorageMgr ().forEachDistinctParticipantID ( (sParticipantID, nDocCount) -> {
+      final IParticipantIdentifier aPID = aIF.parseParticipantIdentifier (sParticipantID);
       if (aPID != null)
       {
         // Only take the ones that can be parsed, but store as a string, so that it be more easily
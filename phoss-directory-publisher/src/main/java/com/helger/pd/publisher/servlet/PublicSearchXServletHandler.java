@@ -17,8 +17,10 @@
 package com.helger.pd.publisher.servlet;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.ZonedDateTime;
-import java.util.Collections;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
@@ -32,6 +34,7 @@ import org.slf4j.LoggerFactory;
 import com.helger.annotation.Nonempty;
 import com.helger.base.array.ArrayHelper;
 import com.helger.base.string.StringHelper;
+import com.helger.base.string.StringParser;
 import com.helger.collection.commons.CommonsArrayList;
 import com.helger.collection.commons.CommonsEnumMap;
 import com.helger.collection.commons.ICommonsList;
@@ -52,6 +55,8 @@ import com.helger.json.serialize.JsonWriterSettings;
 import com.helger.mime.CMimeType;
 import com.helger.mime.IMimeType;
 import com.helger.pd.indexer.mgr.PDMetaManager;
+import com.helger.pd.indexer.searchindex.PDIndexSearchCursor;
+import com.helger.pd.indexer.searchindex.PDIndexSearchResult;
 import com.helger.pd.indexer.searchindex.query.EPDIndexQueryOccur;
 import com.helger.pd.indexer.searchindex.query.IPDIndexQuery;
 import com.helger.pd.indexer.searchindex.query.PDIndexQueryBool;
@@ -91,9 +96,12 @@ public final class PublicSearchXServletHandler implements IXServletSimpleHandler
   public static final String PARAM_RESULT_PAGE_INDEX = "resultPageIndex";
   public static final String PARAM_RESULT_PAGE_COUNT = "resultPageCount";
   public static final String PARAM_BEAUTIFY = "beautify";
+  public static final String PARAM_CURSOR = "cursor";
   public static final int DEFAULT_RESULT_PAGE_INDEX = 0;
   public static final int DEFAULT_RESULT_PAGE_COUNT = 20;
   public static final int MAX_RESULTS = 1_000;
+  /** The cursor parameter value to start a new cursor based search */
+  public static final String CURSOR_START = "*";
 
   private static final String RESPONSE_VERSION = "version";
   private static final String RESPONSE_TOTAL_RESULT_COUNT = "total-result-count";
@@ -104,6 +112,8 @@ public final class PublicSearchXServletHandler implements IXServletSimpleHandler
   private static final String RESPONSE_LAST_RESULT_INDEX = "last-result-index";
   private static final String RESPONSE_QUERY_TERMS = "query-terms";
   private static final String RESPONSE_CREATION_DT = "creation-dt";
+  private static final String RESPONSE_NEXT_CURSOR = "next-cursor";
+  private static final String CURSOR_TYPE_REST = "rest";
 
   private static final Logger LOGGER = LoggerFactory.getLogger (PublicSearchXServletHandler.class);
 
@@ -144,6 +154,41 @@ public final class PublicSearchXServletHandler implements IXServletSimpleHandler
   public PublicSearchXServletHandler ()
   {}
 
+  /**
+   * Get the digest of the query terms, that binds a REST cursor to the query it was created for.
+   * Each field name and value is length-prefixed, so that different query terms never result in the
+   * same input.
+   *
+   * @param aQueryValues
+   *        The query values per search field. May not be <code>null</code>.
+   * @return The Base64 URL encoded SHA-256 digest. Never <code>null</code>.
+   */
+  @NonNull
+  private static String _getQueryDigest (@NonNull final ICommonsMap <EPDSearchField, ICommonsList <String>> aQueryValues)
+  {
+    final StringBuilder aSB = new StringBuilder ();
+    // Enum map - iteration order is stable
+    for (final Map.Entry <EPDSearchField, ICommonsList <String>> aEntry : aQueryValues.entrySet ())
+      for (final String sValue : aEntry.getValue ())
+      {
+        final String sFieldName = aEntry.getKey ().getFieldName ();
+        aSB.append (sFieldName.length ()).append (':').append (sFieldName);
+        aSB.append (sValue.length ()).append (':').append (sValue);
+      }
+
+    try
+    {
+      final MessageDigest aDigest = MessageDigest.getInstance ("SHA-256");
+      return Base64.getUrlEncoder ()
+                   .withoutPadding ()
+                   .encodeToString (aDigest.digest (aSB.toString ().getBytes (StandardCharsets.UTF_8)));
+    }
+    catch (final NoSuchAlgorithmException ex)
+    {
+      throw new IllegalStateException ("SHA-256 algorithm not available", ex);
+    }
+  }
+
   public void handleRequest (@NonNull final IRequestWebScopeWithoutResponse aRequestScope,
                              @NonNull final UnifiedResponse aUnifiedResponse) throws Exception
   {
@@ -235,12 +280,27 @@ public final class PublicSearchXServletHandler implements IXServletSimpleHandler
         applyError.accept (aUnifiedResponse, sErrorMsg);
         return;
       }
-      final int nFirstResultIndex = nResultPageIndex * nResultPageCount;
-      final int nLastResultIndex = (nResultPageIndex + 1) * nResultPageCount - 1;
-      if (nFirstResultIndex > MAX_RESULTS)
+      // Cursor based search? Not limited to MAX_RESULTS in total
+      final String sCursor = aParams.getAsString (PARAM_CURSOR);
+      final boolean bCursorSearch = StringHelper.isNotEmpty (sCursor);
+      if (bCursorSearch && nResultPageCount > MAX_RESULTS)
+      {
+        final String sErrorMsg = "ResultPageCount " +
+                                 nResultPageCount +
+                                 " is invalid. It must be <= " +
+                                 MAX_RESULTS +
+                                 " for cursor based searches.";
+        LOGGER.error (sErrorMsg);
+        aUnifiedResponse.setStatus (CHttp.HTTP_BAD_REQUEST);
+        applyError.accept (aUnifiedResponse, sErrorMsg);
+        return;
+      }
+      final int nFirstPageResultIndex = nResultPageIndex * nResultPageCount;
+      final int nLastPageResultIndex = (nResultPageIndex + 1) * nResultPageCount - 1;
+      if (!bCursorSearch && nFirstPageResultIndex > MAX_RESULTS)
       {
         final String sErrorMsg = "The first result index " +
-                                 nFirstResultIndex +
+                                 nFirstPageResultIndex +
                                  " is invalid. It must be <= " +
                                  MAX_RESULTS +
                                  ".";
@@ -249,10 +309,10 @@ public final class PublicSearchXServletHandler implements IXServletSimpleHandler
         applyError.accept (aUnifiedResponse, sErrorMsg);
         return;
       }
-      if (nLastResultIndex > MAX_RESULTS)
+      if (!bCursorSearch && nLastPageResultIndex > MAX_RESULTS)
       {
         final String sErrorMsg = "The last result index " +
-                                 nLastResultIndex +
+                                 nLastPageResultIndex +
                                  " is invalid. It must be <= " +
                                  MAX_RESULTS +
                                  ".";
@@ -332,31 +392,87 @@ public final class PublicSearchXServletHandler implements IXServletSimpleHandler
           aBuilder.add (aQuery, EPDIndexQueryOccur.MUST);
         aIndexQuery = aBuilder.build ();
       }
-      // How many results to deliver at most
-      final int nMaxResults = nLastResultIndex + 1;
-
-      // Search all documents
+      // Search the requested page and the total hit count in one go
       final PDStorageManager aStorageMgr = PDMetaManager.getStorageMgr ();
-      final ICommonsList <PDStoredBusinessEntity> aResultDocs = aStorageMgr.getAllDocuments (aIndexQuery, nMaxResults);
+      final String sQueryString = aSBQueryString.toString ();
+      final int nFirstResultIndex;
+      final PDIndexSearchResult <PDStoredBusinessEntity> aResult;
+      String sNextCursor = null;
+      if (bCursorSearch)
+      {
+        // The REST cursor contains the index of the first result, the digest of the query and the
+        // cursor of the search index
+        final String sQueryDigest = _getQueryDigest (aQueryValues);
+        String sIndexCursor = null;
+        int nCursorFirstResultIndex = 0;
+        if (!CURSOR_START.equals (sCursor))
+        {
+          final ICommonsList <String> aCursorValues = PDIndexSearchCursor.decode (sCursor, CURSOR_TYPE_REST, 3);
+          if (aCursorValues != null && aCursorValues.get (1).equals (sQueryDigest))
+          {
+            nCursorFirstResultIndex = StringParser.parseInt (aCursorValues.get (0), -1);
+            sIndexCursor = aCursorValues.get (2);
+          }
+          else
+            nCursorFirstResultIndex = -1;
+        }
+
+        PDIndexSearchResult <PDStoredBusinessEntity> aCursorResult = null;
+        if (nCursorFirstResultIndex >= 0)
+        {
+          try
+          {
+            aCursorResult = aStorageMgr.searchDocumentsAfter (aIndexQuery, sIndexCursor, nResultPageCount);
+          }
+          catch (final IllegalArgumentException ex)
+          {
+            // Invalid search index cursor
+          }
+        }
+        if (aCursorResult == null)
+        {
+          final String sErrorMsg = "The provided cursor is invalid or does not match the query terms.";
+          LOGGER.error (sErrorMsg);
+          aUnifiedResponse.setStatus (CHttp.HTTP_BAD_REQUEST);
+          applyError.accept (aUnifiedResponse, sErrorMsg);
+          return;
+        }
+
+        nFirstResultIndex = nCursorFirstResultIndex;
+        aResult = aCursorResult;
+        if (aResult.hasNextCursor ())
+          sNextCursor = PDIndexSearchCursor.encode (CURSOR_TYPE_REST,
+                                                    Integer.toString (nFirstResultIndex + aResult.getHitCount ()),
+                                                    sQueryDigest,
+                                                    aResult.getNextCursor ());
+      }
+      else
+      {
+        nFirstResultIndex = nFirstPageResultIndex;
+        aResult = aStorageMgr.searchDocuments (aIndexQuery, nFirstResultIndex, nResultPageCount);
+      }
+      final int nLastResultIndex = nFirstResultIndex + nResultPageCount - 1;
+      // For cursor based searches the page index is derived from the first result index
+      final int nEffectiveResultPageIndex = nFirstResultIndex / nResultPageCount;
+      final ICommonsList <PDStoredBusinessEntity> aResultView = aResult.getAllHits ();
 
-      // Also get the total hit count for UI display. May be < 0 in case of
-      // error
-      final int nTotalBEs = aStorageMgr.getCount (aIndexQuery);
+      // The total hit count for UI display. May be < 0 in case of error
+      final int nTotalBEs = aResult.getTotalHitCount ();
 
       if (LOGGER.isDebugEnabled ())
         LOGGER.debug ("  Result for <" +
                       aIndexQuery +
-                      "> (max=" +
-                      nMaxResults +
+                      ">" +
+                      (bCursorSearch ? " (cursor)" : "") +
+                      " (offset=" +
+                      nFirstResultIndex +
+                      ", limit=" +
+                      nResultPageCount +
                       ") " +
                       (nTotalBEs == 1 ? "is 1 document" : "are " + nTotalBEs + " documents"));
 
-      // Filter by index/count
-      final int nEffectiveLastIndex = Math.min (nLastResultIndex, aResultDocs.size () - 1);
-      final List <PDStoredBusinessEntity> aResultView = nFirstResultIndex >= aResultDocs.size () ? Collections.emptyList ()
-                                                                                                 : aResultDocs.subList (nFirstResultIndex,
-                                                                                                                        nEffectiveLastIndex +
-                                                                                                                                           1);
+      // The index of the last contained result
+      final int nEffectiveLastIndex = Math.min (nLastResultIndex, Math.max (nTotalBEs, 0) - 1);
 
       // Group results by participant ID
       final ICommonsMap <IParticipantIdentifier, ICommonsList <PDStoredBusinessEntity>> aGroupedDocs = PDStorageManager.getGroupedByParticipantID (aResultView);
@@ -381,12 +497,14 @@ public final class PublicSearchXServletHandler implements IXServletSimpleHandler
           eRoot.setAttribute (RESPONSE_VERSION, eSearchVersion.getVersion ());
           eRoot.setAttribute (RESPONSE_TOTAL_RESULT_COUNT, nTotalBEs);
           eRoot.setAttribute (RESPONSE_USED_RESULT_COUNT, aResultView.size ());
-          eRoot.setAttribute (RESPONSE_RESULT_PAGE_INDEX, nResultPageIndex);
+          eRoot.setAttribute (RESPONSE_RESULT_PAGE_INDEX, nEffectiveResultPageIndex);
           eRoot.setAttribute (RESPONSE_RESULT_PAGE_COUNT, nResultPageCount);
           eRoot.setAttribute (RESPONSE_FIRST_RESULT_INDEX, nFirstResultIndex);
           eRoot.setAttribute (RESPONSE_LAST_RESULT_INDEX, nEffectiveLastIndex);
-          eRoot.setAttribute (RESPONSE_QUERY_TERMS, aSBQueryString.toString ());
+          eRoot.setAttribute (RESPONSE_QUERY_TERMS, sQueryString);
           eRoot.setAttribute (RESPONSE_CREATION_DT, PDTWebDateHelper.getAsStringXSD (aNow));
+          if (sNextCursor != null)
+            eRoot.setAttribute (RESPONSE_NEXT_CURSOR, sNextCursor);
 
           for (final ICommonsList <PDStoredBusinessEntity> aPerParticipant : aGroupedDocs.values ())
           {
@@ -413,12 +531,14 @@ public final class PublicSearchXServletHandler implements IXServletSimpleHandler
           aDoc.add (RESPONSE_VERSION, eSearchVersion.getVersion ());
           aDoc.add (RESPONSE_TOTAL_RESULT_COUNT, nTotalBEs);
           aDoc.add (RESPONSE_USED_RESULT_COUNT, aResultView.size ());
-          aDoc.add (RESPONSE_RESULT_PAGE_INDEX, nResultPageIndex);
+          aDoc.add (RESPONSE_RESULT_PAGE_INDEX, nEffectiveResultPageIndex);
           aDoc.add (RESPONSE_RESULT_PAGE_COUNT, nResultPageCount);
           aDoc.add (RESPONSE_FIRST_RESULT_INDEX, nFirstResultIndex);
           aDoc.add (RESPONSE_LAST_RESULT_INDEX, nEffectiveLastIndex);
-          aDoc.add (RESPONSE_QUERY_TERMS, aSBQueryString.toString ());
+          aDoc.add (RESPONSE_QUERY_TERMS, sQueryString);
           aDoc.add (RESPONSE_CREATION_DT, PDTWebDateHelper.getAsStringXSD (aNow));
+          if (sNextCursor != null)
+            aDoc.add (RESPONSE_NEXT_CURSOR, sNextCursor);
 
           final IJsonArray aMatches = new JsonArray ();
           for (final ICommonsList <PDStoredBusinessEntity> aPerParticipant : aGroupedDocs.values ())